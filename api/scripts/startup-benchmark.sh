@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+#
+# Compara tempo de startup e RSS entre:
+#   - jar   : JAR padrao (./mvnw package)
+#   - aot   : JAR com Spring AOT + arquivo CDS (./mvnw -Paot package)
+#   - native: imagem nativa GraalVM (./mvnw -Pnative native:compile)
+#
+# Requer o Postgres do compose.yaml em execucao (Flyway roda no startup).
+#
+# Uso: scripts/startup-benchmark.sh [runs] [variantes...]
+#   scripts/startup-benchmark.sh 5 jar aot native
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+shift || true
+if [ "$#" -gt 0 ]; then
+    VARIANTS=("$@")
+else
+    VARIANTS=(jar aot native)
+fi
+
+WORK_DIR="target/startup-benchmark"
+JAR_NAME="FlowpayApi-0.0.1-SNAPSHOT.jar"
+READY_PATTERN="Started FlowPayApplication in"
+mkdir -p "$WORK_DIR"
+
+build_jar() {
+    ./mvnw -q -B -DskipTests package
+    cp "target/$JAR_NAME" "$WORK_DIR/plain.jar"
+}
+
+build_aot() {
+    ./mvnw -q -B -DskipTests -Paot package
+    rm -rf "$WORK_DIR/aot"
+    java -Djarmode=tools -jar "target/$JAR_NAME" extract --destination "$WORK_DIR/aot"
+    # Execucao de treino: sobe o contexto, grava o arquivo CDS e encerra apos o refresh.
+    java -XX:ArchiveClassesAtExit="$WORK_DIR/aot/application.jsa" \
+        -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh \
+        -jar "$WORK_DIR/aot/$JAR_NAME" > "$WORK_DIR/aot-training.log" 2>&1
+}
+
+build_native() {
+    ./mvnw -q -B -DskipTests -Pnative native:compile
+    cp target/flowpay-api "$WORK_DIR/flowpay-api"
+}
+
+command_for() {
+    case "$1" in
+        jar) echo "java -jar $WORK_DIR/plain.jar" ;;
+        aot) echo "java -XX:SharedArchiveFile=$WORK_DIR/aot/application.jsa -Dspring.aot.enabled=true -jar $WORK_DIR/aot/$JAR_NAME" ;;
+        native) echo "$WORK_DIR/flowpay-api" ;;
+    esac
+}
+
+# Executa uma vez, espera o log de startup e mede o RSS do processo ja pronto.
+measure_once() {
+    local variant="$1" log="$WORK_DIR/$1-run.log"
+    local start_ns pid elapsed_ms rss_kb
+
+    start_ns=$(date +%s%N)
+    # shellcheck disable=SC2046
+    $(command_for "$variant") --server.port=0 > "$log" 2>&1 &
+    pid=$!
+
+    until grep -q "$READY_PATTERN" "$log"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Falha ao iniciar $variant, veja $log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+
+    elapsed_ms=$(( ($(date +%s%N) - start_ns) / 1000000 ))
+    rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    echo "$elapsed_ms $rss_kb"
+}
+
+printf "%-8s %6s %16s %12s\n" "variant" "runs" "startup_ms(avg)" "rss_mb(avg)"
+for variant in "${VARIANTS[@]}"; do
+    "build_$variant"
+    total_ms=0
+    total_kb=0
+    for _ in $(seq "$RUNS"); do
+        read -r ms kb < <(measure_once "$variant")
+        total_ms=$((total_ms + ms))
+        total_kb=$((total_kb + kb))
+    done
+    printf "%-8s %6d %16d %12d\n" "$variant" "$RUNS" $((total_ms / RUNS)) $((total_kb / RUNS / 1024))
+done
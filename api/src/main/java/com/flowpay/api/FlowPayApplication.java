@@ -1,7 +1,10 @@
 package com.flowpay.api;
 
+import com.flowpay.api.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
 
@@ -13,6 +16,8 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
  */
 @SpringBootApplication
 @EnableR2dbcRepositories
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class FlowPayApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,184 @@
+package com.flowpay.api.board;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.QueueBoardProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecycleListener;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.QueueBoardResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Painel das filas: a fila PENDING inteira, em ordem de promoçao e com as posiçoes, calculada
+ * em uma única consulta e compartilhada por todos os painéis da fila.
+ *
+ * O snapshot de cada fila fica em cache até a próxima transiçao da fila (criaçao, promoçao,
+ * finalizaçao, cancelamento), recebida pelos eventos do ciclo de vida da sessao, ou até maxAge.
+ * Como só o nó dono da fila executa transiçoes, o painel é servido pelo dono.
+ *
+ * Painéis sem streams abertos e sem leituras há mais de idleTimeout sao removidos na próxima
+ * leitura de qualquer painel, entao o mapa só guarda as filas em uso.
+ */
+@Component
+@Slf4j
+public class QueueBoard implements SessionLifecycleListener {
+
+    private final QueueBoardProperties properties;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final ServiceTypeBulkheads bulkheads;
+    private final Map<QueueKey, BoardState> boards = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+
+    public QueueBoard(QueueBoardProperties properties, CustomerSessionRepository customerSessionRepository,
+                      ServiceTypeBulkheads bulkheads) {
+        this.properties = properties;
+        this.customerSessionRepository = customerSessionRepository;
+        this.bulkheads = bulkheads;
+    }
+
+    /**
+     * Snapshot atual do painel da fila (em cache enquanto a fila nao muda).
+     */
+    public Mono<QueueBoardResponse> snapshot(QueueKey queueKey) {
+        return Mono.defer(() -> state(queueKey, false).snapshot());
+    }
+
+    /**
+     * Snapshots do painel da fila: o atual e um novo a cada mudança da fila, com as transiçoes
+     * próximas agrupadas na janela de coalescência, e um recarregamento a cada maxAge.
+     * Snapshots com as mesmas sessoes e posiçoes nao sao repetidos.
+     */
+    public Flux<QueueBoardResponse> changes(QueueKey queueKey) {
+        Scheduler scheduler = bulkheads.pollingScheduler(queueKey.serviceType());
+        return Flux.defer(() -> {
+            BoardState state = state(queueKey, true);
+            return Flux.merge(
+                    Flux.just(0L),
+                    state.invalidations.asFlux().sample(properties.getCoalesceWindow(), scheduler),
+                    Flux.interval(properties.getMaxAge(), scheduler))
+                .onBackpressureLatest()
+                .concatMap(signal -> state.snapshot(), 1)
+                .distinctUntilChanged(QueueBoardResponse::getEntries)
+                .doFinally(signal -> state.unsubscribe());
+        });
+    }
+
+    @Override
+    public void onSessionEvent(SessionLifecycleEvent event, CustomerSession session) {
+        BoardState state = boards.get(QueueKey.of(session.getBranch(), session.getServiceType()));
+        if (state != null) {
+            state.invalidate();
+        }
+    }
+
+    /**
+     * Painéis em memória.
+     */
+    int boardCount() {
+        return boards.size();
+    }
+
+    /**
+     * Painel da fila, marcado como lido agora. O registro de um stream acontece dentro do compute
+     * do mapa, entao nao concorre com a remoçao do mesmo painel.
+     */
+    private BoardState state(QueueKey queueKey, boolean subscribe) {
+        evictIdle();
+        return boards.compute(queueKey, (key, state) -> {
+            BoardState current = state != null ? state : new BoardState(key);
+            current.touch();
+            if (subscribe) {
+                current.subscribers.incrementAndGet();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Remove os painéis ociosos, no máximo uma vez por idleTimeout.
+     */
+    private void evictIdle() {
+        long now = System.nanoTime();
+        long idleNanos = properties.getIdleTimeout().toNanos();
+        long last = lastEviction.get();
+        if (now - last < idleNanos || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        for (QueueKey queueKey : boards.keySet()) {
+            boards.computeIfPresent(queueKey, (key, state) -> state.isIdle(now, idleNanos) ? null : state);
+        }
+    }
+
+    private final class BoardState {
+
+        private final QueueKey queueKey;
+        private final AtomicLong version = new AtomicLong();
+        private final Sinks.Many<Long> invalidations = Sinks.many().multicast().directBestEffort();
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private volatile long lastAccess;
+        private volatile Mono<QueueBoardResponse> cached;
+
+        private BoardState(QueueKey queueKey) {
+            this.queueKey = queueKey;
+            this.cached = load();
+        }
+
+        private Mono<QueueBoardResponse> snapshot() {
+            return cached;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+
+        private void unsubscribe() {
+            touch();
+            subscribers.decrementAndGet();
+        }
+
+        private boolean isIdle(long now, long idleNanos) {
+            return subscribers.get() == 0 && now - lastAccess >= idleNanos;
+        }
+
+        /**
+         * Descarta o snapshot em cache: a próxima leitura consulta o banco com a nova versao.
+         * Leituras já em andamento terminam com a versao anterior e sao substituídas pela próxima atualizaçao.
+         */
+        private void invalidate() {
+            long current = version.incrementAndGet();
+            cached = load();
+            synchronized (invalidations) {
+                invalidations.tryEmitNext(current);
+            }
+        }
+
+        private Mono<QueueBoardResponse> load() {
+            long loadVersion = version.get();
+            return customerSessionRepository.findQueueBoard(queueKey.branch(), queueKey.serviceType(), properties.getMaxEntries())
+                .collectList()
+                .map(entries -> new QueueBoardResponse(
+                    queueKey.branch(),
+                    queueKey.serviceType(),
+                    loadVersion,
+                    OffsetDateTime.now(),
+                    entries.isEmpty() ? 0L : entries.getFirst().getQueueSize(),
+                    entries))
+                .doOnError(error -> log.warn("Falha ao montar o painel da fila {}: {}", queueKey, error.getMessage()))
+                .cache(board -> properties.getMaxAge(), error -> Duration.ZERO, () -> Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.flowpay.api.bulkhead;
+
+import com.flowpay.api.config.BulkheadProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.AdmissionRejectedException;
+import com.flowpay.api.responses.BulkheadStatsResponse;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead de um tipo de serviço: vagas de consulta ao banco, limite de assinantes SSE
+ * e um scheduler próprio para os timers de polling.
+ *
+ * As consultas entram em uma fila e sao executadas por um flatMap com concorrência limitada,
+ * no Context do chamador (transaçao e trace). Consultas feitas dentro de uma consulta que já
+ * ocupa uma vaga deste bulkhead usam a mesma vaga, entao o bulkhead nunca espera por ele mesmo.
+ */
+final class Bulkhead {
+
+    private final ServiceType serviceType;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitNanos;
+    private final int maxSubscribers;
+    private final Duration retryAfter;
+    private final Sinks.Many<Task<?>> tasks;
+    private final Scheduler pollingScheduler;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder subscribersRejected = new LongAdder();
+
+    Bulkhead(ServiceType serviceType, BulkheadProperties properties, int maxConcurrent) {
+        if (maxConcurrent < 1 || properties.getDbMaxWaiting() < 1 || properties.getSseMaxSubscribers() < 1) {
+            throw new IllegalArgumentException("Os limites de flowpay.bulkheads devem ser maiores que zero");
+        }
+        this.serviceType = serviceType;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = properties.getDbMaxWaiting();
+        this.maxWaitNanos = properties.getDbMaxWait().toNanos();
+        this.maxSubscribers = properties.getSseMaxSubscribers();
+        this.retryAfter = properties.getRetryAfter();
+        this.tasks = Sinks.many().unicast().onBackpressureBuffer(Queues.<Task<?>>get(maxWaiting).get());
+        this.pollingScheduler = Schedulers.newSingle("poll-" + serviceType.name().toLowerCase(Locale.ROOT));
+
+        tasks.asFlux()
+            .flatMap(Task::run, maxConcurrent)
+            .subscribe();
+    }
+
+    <T> Mono<T> database(Mono<T> work) {
+        return Mono.deferContextual(context -> context.hasKey(this)
+            ? work
+            : Mono.<T>create(sink -> submit(new Task<>(work, sink))));
+    }
+
+    <T> Flux<T> subscriber(Flux<T> stream) {
+        return Flux.defer(() -> {
+            if (subscribers.incrementAndGet() > maxSubscribers) {
+                subscribers.decrementAndGet();
+                subscribersRejected.increment();
+                return Flux.error(rejection("Limite de conexoes de " + serviceType + " atingido, tente novamente mais tarde"));
+            }
+            return stream.doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    Scheduler pollingScheduler() {
+        return pollingScheduler;
+    }
+
+    BulkheadStatsResponse stats() {
+        long count = executed.sum();
+        return new BulkheadStatsResponse(
+            (double) active.get() / maxConcurrent,
+            active.get(),
+            maxConcurrent,
+            waiting.get(),
+            count,
+            rejected.sum(),
+            count > 0 ? waitNanos.sum() / 1_000.0 / count : 0.0,
+            subscribers.get(),
+            maxSubscribers,
+            subscribersRejected.sum());
+    }
+
+    void dispose() {
+        tasks.tryEmitComplete();
+        pollingScheduler.dispose();
+    }
+
+    private void submit(Task<?> task) {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            task.reject();
+            return;
+        }
+        Sinks.EmitResult result;
+        while ((result = tasks.tryEmitNext(task)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        if (result.isFailure()) {
+            waiting.decrementAndGet();
+            task.reject();
+        }
+    }
+
+    private AdmissionRejectedException rejection(String message) {
+        return new AdmissionRejectedException(message, retryAfter);
+    }
+
+    /**
+     * Consulta aguardando vaga. O cancelamento do chamador descarta a consulta ainda na fila
+     * ou cancela a consulta em execuçao, liberando a vaga.
+     */
+    private final class Task<T> {
+
+        private final Mono<T> work;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private final Disposable.Swap running = Disposables.swap();
+
+        private Task(Mono<T> work, MonoSink<T> sink) {
+            this.work = work;
+            this.sink = sink;
+            sink.onCancel(running);
+        }
+
+        private Mono<Void> run() {
+            waiting.decrementAndGet();
+            if (running.isDisposed()) {
+                return Mono.empty();
+            }
+            long waited = System.nanoTime() - enqueuedAt;
+            if (waited > maxWaitNanos) {
+                reject();
+                return Mono.empty();
+            }
+            waitNanos.add(waited);
+            executed.increment();
+            return Mono.create(done -> {
+                active.incrementAndGet();
+                running.update(work
+                    .contextWrite(context -> context.putAll(sink.contextView()).put(Bulkhead.this, true))
+                    .doFinally(signal -> {
+                        active.decrementAndGet();
+                        done.success();
+                    })
+                    .subscribe(sink::success, sink::error, sink::success));
+            });
+        }
+
+        private void reject() {
+            rejected.increment();
+            sink.error(rejection("Banco sobrecarregado para " + serviceType + ", tente novamente mais tarde"));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.flowpay.api.bulkhead;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.RepositoryArguments;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Executa no bulkhead do tipo de serviço as consultas dos repositórios que recebem um {@link ServiceType}
+ * ou {@link QueueKey}. Consultas sem tipo de serviço nos parâmetros (locks, stream de mudanças, por id)
+ * nao passam pelo bulkhead.
+ *
+ * O lock da fila nao recebe tipo de serviço: as transaçoes que o adquirem (criaçao, promoçao, operaçoes em lote)
+ * pegam a vaga antes de abrir a transaçao, e as consultas dentro dela reutilizam essa vaga. Nenhuma transaçao
+ * espera vaga segurando uma conexao ou um lock, entao o bulkhead nao cria ciclos de espera com os locks do Postgres.
+ * O group commit das finalizaçoes segura locks de várias filas sem vaga, mas nao executa consultas com tipo de serviço.
+ */
+public class RepositoryBulkheadInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<ServiceTypeBulkheads> bulkheadsProvider;
+    private volatile ServiceTypeBulkheads bulkheads;
+
+    public RepositoryBulkheadInterceptor(ObjectProvider<ServiceTypeBulkheads> bulkheadsProvider) {
+        this.bulkheadsProvider = bulkheadsProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        ServiceType serviceType = RepositoryArguments.serviceTypeOf(invocation.getArguments());
+        if (serviceType == null) {
+            return result;
+        }
+        if (result instanceof Mono<?> mono) {
+            return bulkheads().database(serviceType, mono);
+        }
+        if (result instanceof Flux<?> flux) {
+            return bulkheads().database(serviceType, flux);
+        }
+        return result;
+    }
+
+    private ServiceTypeBulkheads bulkheads() {
+        ServiceTypeBulkheads current = bulkheads;
+        if (current == null) {
+            current = bulkheadsProvider.getObject();
+            bulkheads = current;
+        }
+        return current;
+    }
+}
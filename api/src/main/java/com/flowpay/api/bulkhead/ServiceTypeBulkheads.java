@@ -0,0 +1,148 @@
+package com.flowpay.api.bulkhead;
+
+import com.flowpay.api.config.BulkheadProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.BulkheadStatsResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulkheads por tipo de serviço: um pico em uma fila (ex: queda de cartoes lotando CARD_PROBLEMS)
+ * ocupa apenas as vagas do seu tipo de serviço, sem esgotar o pool de conexoes, os assinantes SSE
+ * e os timers de polling dos outros tipos.
+ *
+ * - Consultas ao banco: as consultas dos repositórios com um {@link ServiceType} ou QueueKey nos parâmetros
+ *   passam pelo bulkhead automaticamente ({@link RepositoryBulkheadInterceptor}); as demais consultas
+ *   de uma fila conhecida (polling por email ou id) usam {@link #database}.
+ * - Streams SSE: {@link #subscriber} limita os assinantes simultâneos de cada tipo de serviço.
+ * - Polling: os timers dos streams de cada tipo de serviço rodam no seu {@link #pollingScheduler}.
+ *
+ * Quando o bulkhead está cheio a requisiçao é rejeitada com 503 (AdmissionRejectedException).
+ *
+ * As vagas de todos os tipos de serviço somadas cabem no pool do R2DBC, descontadas as conexoes reservadas:
+ * uma consulta com vaga nunca espera conexao.
+ */
+@Component
+@Slf4j
+public class ServiceTypeBulkheads {
+
+    private final boolean enabled;
+    private final Map<ServiceType, Bulkhead> bulkheads = new EnumMap<>(ServiceType.class);
+
+    /**
+     * @param properties - Limites por tipo de serviço
+     * @param poolSize - Tamanho do pool de conexoes do R2DBC
+     */
+    public ServiceTypeBulkheads(BulkheadProperties properties,
+                                @Value("${spring.r2dbc.pool.max-size:10}") int poolSize) {
+        this.enabled = properties.isEnabled();
+        if (enabled) {
+            int maxConcurrent = maxConcurrent(properties, poolSize);
+            for (ServiceType serviceType : ServiceType.values()) {
+                bulkheads.put(serviceType, new Bulkhead(serviceType, properties, maxConcurrent));
+            }
+        }
+    }
+
+    /**
+     * Executa a consulta em uma vaga do tipo de serviço.
+     *
+     * @param serviceType - Tipo de serviço da fila consultada, ou null para executar sem bulkhead
+     * @param work - Consulta
+     */
+    public <T> Mono<T> database(ServiceType serviceType, Mono<T> work) {
+        Bulkhead bulkhead = bulkhead(serviceType);
+        return bulkhead != null ? bulkhead.database(work) : work;
+    }
+
+    /**
+     * Executa a consulta em uma vaga do tipo de serviço. O resultado é lido inteiro dentro da vaga,
+     * entao só deve ser usado em consultas com resultado limitado.
+     */
+    public <T> Flux<T> database(ServiceType serviceType, Flux<T> work) {
+        Bulkhead bulkhead = bulkhead(serviceType);
+        return bulkhead != null
+            ? bulkhead.database(work.collectList()).flatMapIterable(Function.identity())
+            : work;
+    }
+
+    /**
+     * Executa a operaçao com uma vaga de cada tipo de serviço informado, adquiridas sempre na ordem dos tipos
+     * de serviço. Usado pelas transaçoes de várias filas, que também adquirem as vagas antes dos locks das filas.
+     */
+    public <T> Mono<T> database(Collection<ServiceType> serviceTypes, Mono<T> work) {
+        Set<ServiceType> ordered = EnumSet.noneOf(ServiceType.class);
+        ordered.addAll(serviceTypes);
+        List<ServiceType> outermostFirst = new ArrayList<>(ordered);
+        Mono<T> guarded = work;
+        for (int i = outermostFirst.size() - 1; i >= 0; i--) {
+            guarded = database(outermostFirst.get(i), guarded);
+        }
+        return guarded;
+    }
+
+    /**
+     * Conta o assinante do stream SSE no limite do tipo de serviço enquanto a assinatura durar.
+     */
+    public <T> Flux<T> subscriber(ServiceType serviceType, Flux<T> stream) {
+        Bulkhead bulkhead = bulkhead(serviceType);
+        return bulkhead != null ? bulkhead.subscriber(stream) : stream;
+    }
+
+    /**
+     * Scheduler dos timers de polling do tipo de serviço.
+     */
+    public Scheduler pollingScheduler(ServiceType serviceType) {
+        Bulkhead bulkhead = bulkhead(serviceType);
+        return bulkhead != null ? bulkhead.pollingScheduler() : Schedulers.parallel();
+    }
+
+    public Map<ServiceType, BulkheadStatsResponse> stats() {
+        Map<ServiceType, BulkheadStatsResponse> stats = new EnumMap<>(ServiceType.class);
+        bulkheads.forEach((serviceType, bulkhead) -> stats.put(serviceType, bulkhead.stats()));
+        return stats;
+    }
+
+    @PreDestroy
+    void stop() {
+        bulkheads.values().forEach(Bulkhead::dispose);
+    }
+
+    /**
+     * Vagas de consulta de cada tipo de serviço: db-max-concurrent, reduzido se a soma dos tipos de serviço
+     * nao couber no pool menos as conexoes reservadas.
+     */
+    private static int maxConcurrent(BulkheadProperties properties, int poolSize) {
+        int serviceTypes = ServiceType.values().length;
+        int available = poolSize - properties.getDbReservedConnections();
+        int maxConcurrent = Math.min(properties.getDbMaxConcurrent(), available / serviceTypes);
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("spring.r2dbc.pool.max-size (" + poolSize + ") nao comporta uma vaga de consulta por tipo de "
+                + "serviço além das " + properties.getDbReservedConnections() + " conexoes reservadas");
+        }
+        if (maxConcurrent < properties.getDbMaxConcurrent()) {
+            log.warn("flowpay.bulkheads.db-max-concurrent reduzido de {} para {}: {} tipos de serviço no pool de {} conexoes ({} reservadas)",
+                properties.getDbMaxConcurrent(), maxConcurrent, serviceTypes, poolSize, properties.getDbReservedConnections());
+        }
+        return maxConcurrent;
+    }
+
+    private Bulkhead bulkhead(ServiceType serviceType) {
+        return serviceType != null ? bulkheads.get(serviceType) : null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.flowpay.api.cluster;
+
+/**
+ * Nó do cluster da API.
+ *
+ * @param id - Identificador estável do nó
+ * @param baseUrl - URL base usada para redirecionar requisiçoes de filas deste nó
+ */
+public record ClusterNode(String id, String baseUrl) {
+}
@@ -0,0 +1,68 @@
+package com.flowpay.api.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Anel de hash consistente com nós virtuais.
+ *
+ * Cada nó ocupa várias posiçoes no anel, o que distribui as chaves de forma uniforme,
+ * e a entrada ou saída de um nó só move as chaves das posiçoes vizinhas (~1/N das chaves).
+ * Imutável: uma mudança de topologia cria um novo anel.
+ *
+ * @param <T> tipo do nó
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * @param nodes - Nós indexados por um identificador estável (usado no hash das posiçoes)
+     * @param virtualNodes - Quantidade de posiçoes por nó
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("O anel precisa de pelo menos um nó");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Quantidade de nós virtuais deve ser positiva");
+        }
+        for (Map.Entry<String, T> node : nodes.entrySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node.getKey() + "#" + i), node.getValue());
+            }
+        }
+    }
+
+    /**
+     * Nó responsável pela chave: a primeira posiçao do anel no sentido horário a partir do hash da chave.
+     */
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Collection<T> positions() {
+        return ring.values();
+    }
+
+    /**
+     * FNV-1a 64 bits seguido do finalizador do MurmurHash3 para espalhar bem chaves parecidas.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,56 @@
+package com.flowpay.api.cluster;
+
+import com.flowpay.api.entities.ServiceType;
+
+/**
+ * Identifica uma fila: agência (branch) + tipo de serviço.
+ * É a unidade de promoçao e de distribuiçao das filas entre os nós da API.
+ */
+public record QueueKey(String branch, ServiceType serviceType) {
+
+    public static final String DEFAULT_BRANCH = "default";
+
+    /**
+     * Tamanho máximo da agência (coluna branch VARCHAR(64)).
+     */
+    public static final int MAX_BRANCH_LENGTH = 64;
+
+    public QueueKey {
+        if (serviceType == null) {
+            throw new IllegalArgumentException("Tipo de serviço é obrigatório");
+        }
+        branch = normalizeBranch(branch);
+    }
+
+    public static QueueKey of(String branch, ServiceType serviceType) {
+        return new QueueKey(branch, serviceType);
+    }
+
+    /**
+     * Agência informada ou a agência padrao quando ausente.
+     *
+     * @throws IllegalArgumentException se a agência passar de {@link #MAX_BRANCH_LENGTH} caracteres
+     */
+    public static String normalizeBranch(String branch) {
+        if (branch == null || branch.isBlank()) {
+            return DEFAULT_BRANCH;
+        }
+        String normalized = branch.trim();
+        if (normalized.length() > MAX_BRANCH_LENGTH) {
+            throw new IllegalArgumentException("Agência deve ter no máximo " + MAX_BRANCH_LENGTH + " caracteres");
+        }
+        return normalized;
+    }
+
+    /**
+     * Chave do advisory lock do Postgres que serializa a promoçao e as mudanças de status desta fila.
+     */
+    public long lockId() {
+        return ConsistentHashRing.hash("queue-lock:" + this);
+    }
+
+    @Override
+    public String toString() {
+        return branch + "/" + serviceType;
+    }
+}
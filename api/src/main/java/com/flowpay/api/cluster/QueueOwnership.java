@@ -0,0 +1,65 @@
+package com.flowpay.api.cluster;
+
+import com.flowpay.api.config.ClusterProperties;
+import com.flowpay.api.exception.QueueNotOwnedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Define qual nó é dono de cada fila (agência + tipo de serviço) usando hash consistente.
+ *
+ * Apenas o dono executa promoçoes e streams da fila, entao filas diferentes nao disputam
+ * o mesmo caminho de promoçao e a vazao cresce com a quantidade de nós.
+ * Requisiçoes de filas de outro nó sao redirecionadas para o dono (307).
+ */
+@Component
+@Slf4j
+public class QueueOwnership {
+
+    private final ClusterNode self;
+    private final ConsistentHashRing<ClusterNode> ring;
+
+    public QueueOwnership(ClusterProperties properties) {
+        Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+        properties.getNodes().forEach((id, baseUrl) -> nodes.put(id, new ClusterNode(id, baseUrl)));
+
+        if (nodes.isEmpty()) {
+            nodes.put(properties.getSelfId(), new ClusterNode(properties.getSelfId(), ""));
+        } else if (!nodes.containsKey(properties.getSelfId())) {
+            throw new IllegalStateException("flowpay.cluster.self-id '" + properties.getSelfId()
+                + "' nao está entre os nós configurados: " + nodes.keySet());
+        }
+
+        this.self = nodes.get(properties.getSelfId());
+        this.ring = new ConsistentHashRing<>(nodes, properties.getVirtualNodes());
+        log.info("Nó {} iniciado em um cluster de {} nós", self.id(), nodes.size());
+    }
+
+    public ClusterNode self() {
+        return self;
+    }
+
+    public ClusterNode ownerOf(QueueKey queueKey) {
+        return ring.nodeFor(queueKey.toString());
+    }
+
+    public boolean isLocal(QueueKey queueKey) {
+        return ownerOf(queueKey).id().equals(self.id());
+    }
+
+    /**
+     * Completa vazio se a fila pertence a este nó, senao falha com {@link QueueNotOwnedException}
+     * indicando o nó dono, para que a requisiçao seja redirecionada.
+     */
+    public Mono<Void> requireLocal(QueueKey queueKey) {
+        ClusterNode owner = ownerOf(queueKey);
+        if (owner.id().equals(self.id())) {
+            return Mono.empty();
+        }
+        return Mono.error(new QueueNotOwnedException(queueKey, owner));
+    }
+}
@@ -0,0 +1,66 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do controle de admissao na criaçao de sessoes (POST /api/customer).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.admission")
+public class AdmissionProperties {
+
+    /**
+     * Habilita o controle de admissao.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Limite inicial de requisiçoes de criaçao executando ao mesmo tempo.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * Menor valor que o limite adaptativo pode assumir.
+     */
+    private int minLimit = 4;
+
+    /**
+     * Maior valor que o limite adaptativo pode assumir.
+     */
+    private int maxLimit = 200;
+
+    /**
+     * Latência alvo da criaçao. Acima dela o limite é reduzido, abaixo dela pode crescer.
+     */
+    private Duration targetLatency = Duration.ofMillis(250);
+
+    /**
+     * Fator multiplicativo aplicado ao limite quando a latência passa do alvo.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Número máximo de sessoes PENDING por tipo de serviço antes de rejeitar novas entradas.
+     */
+    private int maxQueueDepthPerService = 500;
+
+    /**
+     * Por quanto tempo a contagem de sessoes PENDING por tipo de serviço é reaproveitada.
+     */
+    private Duration queueDepthCacheTtl = Duration.ofSeconds(1);
+
+    /**
+     * Valor do header Retry-After quando o limite de concorrência é atingido.
+     */
+    private Duration retryAfter = Duration.ofSeconds(2);
+
+    /**
+     * Valor do header Retry-After quando a fila do tipo de serviço está cheia.
+     */
+    private Duration queueFullRetryAfter = Duration.ofSeconds(30);
+}
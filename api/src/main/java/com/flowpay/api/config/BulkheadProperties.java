@@ -0,0 +1,51 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes dos bulkheads por tipo de serviço ({@link com.flowpay.api.bulkhead.ServiceTypeBulkheads}).
+ * Os limites valem para cada tipo de serviço separadamente.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.bulkheads")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Consultas ao banco de um tipo de serviço executando ao mesmo tempo. A soma dos tipos de serviço
+     * nao passa do pool do R2DBC menos {@link #dbReservedConnections}: acima disso o limite é reduzido na inicializaçao.
+     */
+    private int dbMaxConcurrent = 5;
+
+    /**
+     * Conexoes do pool fora dos bulkheads: transaçoes de várias filas (group commit das finalizaçoes),
+     * stream de mudanças e consultas sem tipo de serviço.
+     */
+    private int dbReservedConnections = 5;
+
+    /**
+     * Consultas aguardando vaga; além disso a requisiçao é rejeitada com 503.
+     */
+    private int dbMaxWaiting = 200;
+
+    /**
+     * Espera máxima por uma vaga. Uma consulta que esperou mais que isso nao é executada (503).
+     */
+    private Duration dbMaxWait = Duration.ofSeconds(2);
+
+    /**
+     * Assinantes SSE simultâneos (fila, em andamento e painel) de um tipo de serviço neste nó.
+     */
+    private int sseMaxSubscribers = 2000;
+
+    /**
+     * Valor do header Retry-After das requisiçoes rejeitadas.
+     */
+    private Duration retryAfter = Duration.ofSeconds(2);
+}
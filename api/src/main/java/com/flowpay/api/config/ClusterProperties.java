@@ -0,0 +1,34 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Topologia do cluster da API: cada fila (agência + tipo de serviço) pertence a um único nó,
+ * escolhido por hash consistente.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.cluster")
+public class ClusterProperties {
+
+    /**
+     * Identificador deste nó. Deve ser uma das chaves de {@link #nodes} quando houver mais de um nó.
+     */
+    private String selfId = "local";
+
+    /**
+     * Nós do cluster: identificador -> URL base (ex: http://api-1:8080).
+     * Vazio significa nó único, dono de todas as filas.
+     */
+    private Map<String, String> nodes = new LinkedHashMap<>();
+
+    /**
+     * Posiçoes de cada nó no anel de hash consistente.
+     */
+    private int virtualNodes = 128;
+}
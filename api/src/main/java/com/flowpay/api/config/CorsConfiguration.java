@@ -14,6 +14,7 @@ public class CorsConfiguration {
         corsConfig.addAllowedOrigin("http://localhost:4200");
         corsConfig.addAllowedMethod("*");
         corsConfig.addAllowedHeader("*");
+        corsConfig.addExposedHeader("Session-Token");
         corsConfig.setAllowCredentials(true);
 
         var source = new UrlBasedCorsConfigurationSource();
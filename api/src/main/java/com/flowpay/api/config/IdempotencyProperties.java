@@ -0,0 +1,41 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do suporte ao header Idempotency-Key.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Tempo em que o resultado de uma requisiçao fica disponível para repetiçoes com a mesma chave.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Lease da reserva de uma requisiçao em andamento: passado esse prazo sem resultado (ex: o nó caiu),
+     * uma repetiçao com a mesma chave e o mesmo conteudo assume a reserva. Deve ser maior que a
+     * duraçao de uma criaçao ou finalizaçao de sessao.
+     */
+    private Duration reservationTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Quantidade máxima de resultados mantidos em memória (os mais antigos sao descartados e
+     * continuam disponíveis na tabela idempotency_keys).
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * Intervalo da limpeza das chaves expiradas na tabela.
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,37 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do journal local de eventos de sessao, usado para recuperar o estado das filas no startup.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.journal")
+public class JournalProperties {
+
+    /**
+     * Habilita o journal e o estado de filas em memória.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Diretório onde ficam o journal e o snapshot.
+     */
+    private String directory = "data/journal";
+
+    /**
+     * Tamanho de cada um dos dois segmentos do journal mapeados em memória.
+     */
+    private DataSize capacity = DataSize.ofMegabytes(64);
+
+    /**
+     * Intervalo entre snapshots compactos (o segmento ativo é selado e compactado em segundo plano).
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,123 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.entities.Customer;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.IdempotencyRecord;
+import com.flowpay.api.entities.LeaderLease;
+import com.flowpay.api.entities.NotificationKind;
+import com.flowpay.api.entities.NotificationOutboxEntry;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.entities.SessionChange;
+import com.flowpay.api.notifications.Notification;
+import com.flowpay.api.requests.AttendantLoginRequest;
+import com.flowpay.api.requests.BulkSessionRequest;
+import com.flowpay.api.requests.CustomerRequest;
+import com.flowpay.api.requests.ServiceTypeWorkload;
+import com.flowpay.api.requests.SimulationRequest;
+import com.flowpay.api.responses.AdmissionStatsResponse;
+import com.flowpay.api.responses.AttendantResponse;
+import com.flowpay.api.responses.BulkOperationResponse;
+import com.flowpay.api.responses.BulkSessionOutcome;
+import com.flowpay.api.responses.BulkheadStatsResponse;
+import com.flowpay.api.responses.CustomerResponse;
+import com.flowpay.api.responses.CustomerServiceResponse;
+import com.flowpay.api.responses.InProgressSessionResponse;
+import com.flowpay.api.responses.QueueBoardEntry;
+import com.flowpay.api.responses.QueueBoardResponse;
+import com.flowpay.api.responses.QueuePositionResponse;
+import com.flowpay.api.responses.SessionChangeResponse;
+import com.flowpay.api.responses.SessionMetricsResponse;
+import com.flowpay.api.responses.SimulationResponse;
+import com.flowpay.api.responses.SimulationResultResponse;
+import com.flowpay.api.responses.SseStreamStatsResponse;
+import com.flowpay.api.responses.SweeperStatsResponse;
+import com.flowpay.api.responses.ThroughputWindowResponse;
+import com.flowpay.api.responses.TraceSummaryResponse;
+import com.flowpay.api.responses.WriteCoalescingStatsResponse;
+import com.flowpay.api.simulation.SessionReplayRow;
+import com.flowpay.api.tracing.SpanData;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.BindingReflectionHintsRegistrar;
+
+/**
+ * Hints de reflexao para a imagem nativa (profile "native") e para o modo Spring AOT.
+ *
+ * Os converters do {@link R2dbcConfiguration} tem os tipos genericos resolvidos por reflexao,
+ * as entidades sao materializadas pelo Spring Data R2DBC e os DTOs gerados pelo Lombok
+ * sao serializados pelo Jackson, entao todos precisam estar registrados.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] CONVERTERS = {
+        R2dbcConfiguration.ServiceReadingConverter.class,
+        R2dbcConfiguration.ServiceWritingConverter.class,
+        R2dbcConfiguration.CustomerServiceStatusReadingConverter.class,
+        R2dbcConfiguration.CustomerServiceStatusWritingConverter.class,
+        R2dbcConfiguration.PriorityClassReadingConverter.class,
+        R2dbcConfiguration.PriorityClassWritingConverter.class,
+        R2dbcConfiguration.NotificationKindReadingConverter.class,
+        R2dbcConfiguration.NotificationKindWritingConverter.class,
+        R2dbcConfiguration.LocalDateTimeToOffsetDateTimeConverter.class,
+        R2dbcConfiguration.OffsetDateTimeToLocalDateTimeConverter.class
+    };
+
+    private static final Class<?>[] BINDING_TYPES = {
+        Customer.class,
+        CustomerSession.class,
+        CustomerSessionStatus.class,
+        IdempotencyRecord.class,
+        LeaderLease.class,
+        NotificationKind.class,
+        NotificationOutboxEntry.class,
+        PriorityClass.class,
+        ServiceType.class,
+        SessionChange.class,
+        Notification.class,
+        SessionReplayRow.class,
+        SpanData.class,
+        CustomerRequest.class,
+        ServiceTypeWorkload.class,
+        SimulationRequest.class,
+        AttendantLoginRequest.class,
+        BulkSessionRequest.class,
+        AdmissionStatsResponse.class,
+        AttendantResponse.class,
+        BulkOperationResponse.class,
+        BulkSessionOutcome.class,
+        BulkheadStatsResponse.class,
+        CustomerResponse.class,
+        CustomerServiceResponse.class,
+        InProgressSessionResponse.class,
+        QueueBoardEntry.class,
+        QueueBoardResponse.class,
+        QueuePositionResponse.class,
+        SessionChangeResponse.class,
+        SessionMetricsResponse.class,
+        SimulationResponse.class,
+        SimulationResultResponse.class,
+        SseStreamStatsResponse.class,
+        SweeperStatsResponse.class,
+        ThroughputWindowResponse.class,
+        TraceSummaryResponse.class,
+        WriteCoalescingStatsResponse.class
+    };
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> converter : CONVERTERS) {
+            hints.reflection().registerType(converter,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        bindingRegistrar.registerReflectionHints(hints.reflection(), BINDING_TYPES);
+
+        hints.resources().registerPattern("db/migration/*.sql");
+    }
+}
@@ -0,0 +1,24 @@
+package com.flowpay.api.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import org.springframework.boot.reactor.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NettyServerConfiguration {
+
+    /**
+     * Limita o buffer de saída de cada conexao: acima da marca alta o canal fica nao-gravável,
+     * o Reactor Netty para de pedir eventos e a conflaçao do {@link com.flowpay.api.streaming.SseBackpressurePolicy}
+     * passa a descartar os eventos antigos em vez de acumulá-los na memória.
+     */
+    @Bean
+    public NettyServerCustomizer writeBufferWaterMarkCustomizer(SseProperties properties) {
+        WriteBufferWaterMark waterMark = new WriteBufferWaterMark(
+            (int) properties.getWriteBufferLowWatermark().toBytes(),
+            (int) properties.getWriteBufferHighWatermark().toBytes());
+        return httpServer -> httpServer.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark);
+    }
+}
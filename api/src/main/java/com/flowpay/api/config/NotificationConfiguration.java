@@ -0,0 +1,22 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.notifications.LoggingNotificationSink;
+import com.flowpay.api.notifications.NotificationSink;
+import com.flowpay.api.notifications.WebhookNotificationSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class NotificationConfiguration {
+
+    @Bean
+    public NotificationSink notificationSink(NotificationProperties properties) {
+        log.info("Canal de notificaçoes: {}", properties.getSink());
+        return switch (properties.getSink()) {
+            case LOG -> new LoggingNotificationSink();
+            case WEBHOOK -> new WebhookNotificationSink(properties.getWebhookUrl());
+        };
+    }
+}
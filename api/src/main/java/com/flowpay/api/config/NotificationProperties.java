@@ -0,0 +1,72 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do outbox e do dispatcher de notificaçoes aos clientes.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.notifications")
+public class NotificationProperties {
+
+    public enum Sink {
+        /** Apenas registra as notificaçoes em log */
+        LOG,
+        /** POST JSON para {@link #webhookUrl} */
+        WEBHOOK
+    }
+
+    /**
+     * Grava as notificaçoes no outbox junto com a promoçao e executa o dispatcher.
+     */
+    private boolean enabled = true;
+
+    private Sink sink = Sink.LOG;
+
+    private String webhookUrl;
+
+    /**
+     * Quantas sessoes do início da fila sao avisadas que a vez está próxima.
+     */
+    private int turnApproachingPositions = 2;
+
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    private int batchSize = 100;
+
+    /**
+     * Envios simultâneos de um lote.
+     */
+    private int maxConcurrency = 8;
+
+    /**
+     * Limite de envios por segundo deste nó.
+     */
+    private int maxPerSecond = 50;
+
+    private Duration sendTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Tempo em que um lote reservado fica invisível para os outros nós.
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+
+    private int maxAttempts = 5;
+
+    /**
+     * Espera antes da segunda tentativa, dobrada a cada falha até {@link #maxBackoff}.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(5);
+
+    private Duration maxBackoff = Duration.ofMinutes(10);
+
+    /**
+     * Tempo que notificaçoes enviadas ou com as tentativas esgotadas (FAILED) ficam na tabela.
+     */
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,36 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do painel das filas (/api/queues/{serviceType}/board).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.queue-board")
+public class QueueBoardProperties {
+
+    /**
+     * Sessoes listadas no painel (as primeiras da fila). O total da fila é sempre informado.
+     */
+    private int maxEntries = 500;
+
+    /**
+     * Idade máxima do snapshot em cache, mesmo sem transiçoes na fila.
+     */
+    private Duration maxAge = Duration.ofSeconds(30);
+
+    /**
+     * Janela em que várias transiçoes seguidas geram uma única atualizaçao do stream.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(200);
+
+    /**
+     * Painéis sem streams abertos e sem leituras há mais que isso saem da memória.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+}
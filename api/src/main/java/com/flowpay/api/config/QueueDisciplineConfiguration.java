@@ -0,0 +1,24 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.queue.AgingPriorityQueueDiscipline;
+import com.flowpay.api.queue.FifoQueueDiscipline;
+import com.flowpay.api.queue.QueueDiscipline;
+import com.flowpay.api.queue.WeightedPriorityQueueDiscipline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class QueueDisciplineConfiguration {
+
+    @Bean
+    public QueueDiscipline queueDiscipline(QueueProperties properties) {
+        log.info("Política de fila: {}", properties.getDiscipline());
+        return switch (properties.getDiscipline()) {
+            case FIFO -> new FifoQueueDiscipline();
+            case WEIGHTED_PRIORITY -> new WeightedPriorityQueueDiscipline(properties.getWeights(), properties.getWeightedQuantum());
+            case PRIORITY_AGING -> new AgingPriorityQueueDiscipline(properties.getAgingHeadStart());
+        };
+    }
+}
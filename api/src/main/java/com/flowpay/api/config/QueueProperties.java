@@ -0,0 +1,53 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.entities.PriorityClass;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuraçoes da política de ordenaçao das filas.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.queue")
+public class QueueProperties {
+
+    public enum Discipline {
+        FIFO,
+        WEIGHTED_PRIORITY,
+        PRIORITY_AGING
+    }
+
+    /**
+     * Política usada para ordenar as sessoes que entram na fila.
+     */
+    private Discipline discipline = Discipline.PRIORITY_AGING;
+
+    /**
+     * WEIGHTED_PRIORITY: peso de cada classe (proporçao de atendimentos com a fila cheia).
+     */
+    private Map<PriorityClass, Integer> weights = new EnumMap<>(Map.of(
+        PriorityClass.REGULAR, 1,
+        PriorityClass.PREMIUM, 2,
+        PriorityClass.ACCESSIBILITY, 4
+    ));
+
+    /**
+     * WEIGHTED_PRIORITY: avanço do relógio virtual de uma classe de peso 1 a cada sessao.
+     */
+    private Duration weightedQuantum = Duration.ofMinutes(1);
+
+    /**
+     * PRIORITY_AGING: vantagem de tempo de cada classe sobre a ordem de chegada.
+     */
+    private Map<PriorityClass, Duration> agingHeadStart = new EnumMap<>(Map.of(
+        PriorityClass.REGULAR, Duration.ZERO,
+        PriorityClass.PREMIUM, Duration.ofMinutes(2),
+        PriorityClass.ACCESSIBILITY, Duration.ofMinutes(5)
+    ));
+}
@@ -1,6 +1,8 @@
 package com.flowpay.api.config;
 
 import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.NotificationKind;
+import com.flowpay.api.entities.PriorityClass;
 import com.flowpay.api.entities.ServiceType;
 import io.r2dbc.spi.ConnectionFactory;
 import org.springframework.context.annotation.Bean;
@@ -41,6 +43,12 @@ public class R2dbcConfiguration extends AbstractR2dbcConfiguration {
         
         converters.add(new CustomerServiceStatusReadingConverter());
         converters.add(new CustomerServiceStatusWritingConverter());
+
+        converters.add(new PriorityClassReadingConverter());
+        converters.add(new PriorityClassWritingConverter());
+
+        converters.add(new NotificationKindReadingConverter());
+        converters.add(new NotificationKindWritingConverter());
         
         converters.add(new LocalDateTimeToOffsetDateTimeConverter());
         converters.add(new OffsetDateTimeToLocalDateTimeConverter());
@@ -48,37 +56,72 @@ public class R2dbcConfiguration extends AbstractR2dbcConfiguration {
         return new R2dbcCustomConversions(getStoreConversions(), converters);
     }
 
-    // Service converters
+    // Service converters: SMALLINT <-> ServiceType pelo código estável do enum.
+    // A leitura é um acesso a array e a escrita usa o cache de Short.valueOf, sem alocaçao.
+    @ReadingConverter
+    static class ServiceReadingConverter implements Converter<Short, ServiceType> {
+        @Override
+        public ServiceType convert(Short source) {
+            return ServiceType.fromCode(source);
+        }
+    }
+
+    @WritingConverter
+    static class ServiceWritingConverter implements Converter<ServiceType, Short> {
+        @Override
+        public Short convert(ServiceType source) {
+            return source.getCode();
+        }
+    }
+
+    // CustomerServiceStatus converters: SMALLINT <-> CustomerSessionStatus pelo código estável do enum.
+    @ReadingConverter
+    static class CustomerServiceStatusReadingConverter implements Converter<Short, CustomerSessionStatus> {
+        @Override
+        public CustomerSessionStatus convert(Short source) {
+            return CustomerSessionStatus.fromCode(source);
+        }
+    }
+
+    @WritingConverter
+    static class CustomerServiceStatusWritingConverter implements Converter<CustomerSessionStatus, Short> {
+        @Override
+        public Short convert(CustomerSessionStatus source) {
+            return source.getCode();
+        }
+    }
+
+    // PriorityClass converters: SMALLINT <-> PriorityClass pelo código estável do enum.
     @ReadingConverter
-    static class ServiceReadingConverter implements Converter<String, ServiceType> {
+    static class PriorityClassReadingConverter implements Converter<Short, PriorityClass> {
         @Override
-        public ServiceType convert(String source) {
-            return ServiceType.valueOf(source);
+        public PriorityClass convert(Short source) {
+            return PriorityClass.fromCode(source);
         }
     }
 
     @WritingConverter
-    static class ServiceWritingConverter implements Converter<ServiceType, String> {
+    static class PriorityClassWritingConverter implements Converter<PriorityClass, Short> {
         @Override
-        public String convert(ServiceType source) {
-            return source.name();
+        public Short convert(PriorityClass source) {
+            return source.getCode();
         }
     }
 
-    // CustomerServiceStatus converters
+    // NotificationKind converters: SMALLINT <-> NotificationKind pelo código estável do enum.
     @ReadingConverter
-    static class CustomerServiceStatusReadingConverter implements Converter<String, CustomerSessionStatus> {
+    static class NotificationKindReadingConverter implements Converter<Short, NotificationKind> {
         @Override
-        public CustomerSessionStatus convert(String source) {
-            return CustomerSessionStatus.valueOf(source);
+        public NotificationKind convert(Short source) {
+            return NotificationKind.fromCode(source);
         }
     }
 
     @WritingConverter
-    static class CustomerServiceStatusWritingConverter implements Converter<CustomerSessionStatus, String> {
+    static class NotificationKindWritingConverter implements Converter<NotificationKind, Short> {
         @Override
-        public String convert(CustomerSessionStatus source) {
-            return source.name();
+        public Short convert(NotificationKind source) {
+            return source.getCode();
         }
     }
 
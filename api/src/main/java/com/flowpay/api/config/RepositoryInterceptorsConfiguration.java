@@ -0,0 +1,59 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.bulkhead.RepositoryBulkheadInterceptor;
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.jfr.RepositoryQueryInterceptor;
+import com.flowpay.api.tracing.RepositoryTracingInterceptor;
+import com.flowpay.api.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Interceptors dos repositórios, adicionados ao proxy que o Spring Data já cria para cada repositório
+ * (sem um segundo proxy), sempre na mesma ordem, do mais externo para o mais interno:
+ * - bulkhead (flowpay.bulkheads.enabled): a consulta espera a vaga antes de qualquer medida;
+ * - span da consulta (flowpay.tracing.enabled);
+ * - evento JFR (flowpay.jfr.repository-events).
+ *
+ * Cada interceptor envolve o Mono/Flux devolvido pelo interceptor de dentro, entao span e evento JFR
+ * medem só a execuçao da consulta, sem o tempo de espera pela vaga do bulkhead.
+ * Os interceptors ficam em um único BeanPostProcessor porque a ordem entre BeanPostProcessors
+ * diferentes nao é garantida.
+ */
+@Configuration
+public class RepositoryInterceptorsConfiguration {
+
+    @Bean
+    public static BeanPostProcessor repositoryInterceptorsPostProcessor(Environment environment,
+                                                                        ObjectProvider<ServiceTypeBulkheads> bulkheads,
+                                                                        ObjectProvider<Tracer> tracer) {
+        boolean bulkheadsEnabled = environment.getProperty("flowpay.bulkheads.enabled", Boolean.class, true);
+        boolean tracingEnabled = environment.getProperty("flowpay.tracing.enabled", Boolean.class, true);
+        boolean queryEventsEnabled = environment.getProperty("flowpay.jfr.repository-events", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repositoryInformation) -> {
+                            String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+                            if (bulkheadsEnabled) {
+                                proxyFactory.addAdvice(new RepositoryBulkheadInterceptor(bulkheads));
+                            }
+                            if (tracingEnabled) {
+                                proxyFactory.addAdvice(new RepositoryTracingInterceptor(repository, tracer));
+                            }
+                            if (queryEventsEnabled) {
+                                proxyFactory.addAdvice(new RepositoryQueryInterceptor(repository));
+                            }
+                        }));
+                }
+                return bean;
+            }
+        };
+    }
+}
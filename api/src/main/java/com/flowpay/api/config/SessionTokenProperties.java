@@ -0,0 +1,22 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuraçoes dos tokens de sessao devolvidos na criaçao da sessao.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.session-token")
+public class SessionTokenProperties {
+
+    /**
+     * Segredo da assinatura HMAC dos tokens. Deve ser o mesmo em todos os nós do cluster
+     * e é obrigatório quando {@link ClusterProperties#getNodes()} está configurado.
+     * Em nó único, sem segredo configurado é gerado um aleatório na inicializaçao, e os tokens deixam de valer
+     * quando a instância reinicia.
+     */
+    private String secret;
+}
@@ -0,0 +1,26 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.slots.AttendantRegistry;
+import com.flowpay.api.slots.AttendantSlotAllocator;
+import com.flowpay.api.slots.FixedSlotAllocator;
+import com.flowpay.api.slots.SlotAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class SlotAllocatorConfiguration {
+
+    @Bean
+    public SlotAllocator slotAllocator(SlotProperties properties, CustomerSessionRepository customerSessionRepository,
+                                       AttendantRegistry attendantRegistry) {
+        log.info("Capacidade das filas: {}", properties.getAllocator());
+        return switch (properties.getAllocator()) {
+            case FIXED -> new FixedSlotAllocator(customerSessionRepository, CustomerSessionService.MAX_SLOTS_PER_SERVICE);
+            case ATTENDANTS -> new AttendantSlotAllocator(customerSessionRepository, attendantRegistry);
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuraçoes da capacidade de atendimento das filas.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.slots")
+public class SlotProperties {
+
+    public enum Allocator {
+        /**
+         * Quantidade fixa de slots por fila ({@link com.flowpay.api.services.CustomerSessionService#MAX_SLOTS_PER_SERVICE}).
+         */
+        FIXED,
+        /**
+         * Um slot por atendimento simultâneo de cada atendente conectado com a habilidade da fila.
+         */
+        ATTENDANTS
+    }
+
+    private Allocator allocator = Allocator.FIXED;
+
+    /**
+     * Máximo de atendimentos simultâneos informados no login de um atendente.
+     */
+    private int maxSlotsPerAttendant = 4;
+}
@@ -0,0 +1,34 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes de backpressure dos streams SSE.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.sse")
+public class SseProperties {
+
+    /**
+     * Abaixo deste volume pendente no buffer de saída do Netty a conexao volta a aceitar escritas.
+     */
+    private DataSize writeBufferLowWatermark = DataSize.ofKilobytes(32);
+
+    /**
+     * Acima deste volume pendente no buffer de saída do Netty a conexao deixa de pedir novos eventos
+     * e os eventos seguintes passam a ser conflacionados (só o mais recente é mantido).
+     */
+    private DataSize writeBufferHighWatermark = DataSize.ofKilobytes(64);
+
+    /**
+     * Tempo máximo que um cliente pode ficar sem consumir nenhum evento enquanto eventos novos sao descartados.
+     * Passado esse tempo o cliente é desconectado.
+     */
+    private Duration maxConsumerLag = Duration.ofSeconds(30);
+}
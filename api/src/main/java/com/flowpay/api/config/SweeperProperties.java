@@ -0,0 +1,46 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do sweeper de reconciliaçao das filas.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.sweeper")
+public class SweeperProperties {
+
+    private boolean enabled = true;
+
+    private Duration interval = Duration.ofSeconds(10);
+
+    /**
+     * Duraçao do lease de liderança, renovado a cada varredura. Deve ser maior que {@link #interval}.
+     */
+    private Duration leaseTtl = Duration.ofSeconds(30);
+
+    /**
+     * Tempo mínimo de espera do primeiro da fila antes de a fila ser considerada parada,
+     * para nao disputar com a promoçao que acompanha a criaçao da sessao.
+     */
+    private Duration repairGrace = Duration.ofSeconds(5);
+
+    /**
+     * Sessoes PENDING mais antigas que isso sao canceladas (o stream da fila expira em 1 hora). Zero desativa.
+     */
+    private Duration maxPendingAge = Duration.ofHours(2);
+
+    /**
+     * Sessoes IN_PROGRESS mais antigas que isso sao canceladas (atendimento abandonado). Zero desativa.
+     */
+    private Duration maxInProgressAge = Duration.ofHours(12);
+
+    /**
+     * Sessoes expiradas por status em cada varredura.
+     */
+    private int expireBatchSize = 100;
+}
@@ -0,0 +1,28 @@
+package com.flowpay.api.config;
+
+import com.flowpay.api.tracing.FileSpanExporter;
+import com.flowpay.api.tracing.LoggingSpanExporter;
+import com.flowpay.api.tracing.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+
+@Configuration
+@Slf4j
+public class TracingConfiguration {
+
+    @Bean
+    public SpanExporter spanExporter(TracingProperties properties, JsonMapper jsonMapper) {
+        log.info("Tracing: {} (amostragem {}, exporter {})",
+            properties.isEnabled() ? "ativo" : "desativado", properties.getSampleRatio(), properties.getExporter());
+        return switch (properties.getExporter()) {
+            case NONE -> SpanExporter.NONE;
+            case LOG -> new LoggingSpanExporter();
+            case FILE -> new FileSpanExporter(Path.of(properties.getFilePath()), properties.getFileBufferSize(),
+                properties.getFileFlushInterval(), jsonMapper);
+        };
+    }
+}
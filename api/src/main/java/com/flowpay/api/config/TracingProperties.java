@@ -0,0 +1,49 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do tracing das requisiçoes (controller, serviço e consultas dos repositórios).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.tracing")
+public class TracingProperties {
+
+    public enum Exporter {
+        /** Apenas o buffer em memória consultado em /api/ops/traces */
+        NONE,
+        /** Registra cada span concluído em log */
+        LOG,
+        /** Grava os spans em {@link #filePath}, um JSON por linha */
+        FILE
+    }
+
+    private boolean enabled = true;
+
+    /**
+     * Fraçao das requisiçoes sem traceparent que sao amostradas (0 a 1).
+     * Requisiçoes com traceparent seguem a decisao de quem chamou.
+     */
+    private double sampleRatio = 0.1;
+
+    /**
+     * Spans mantidos em memória para consulta.
+     */
+    private int maxSpans = 10000;
+
+    private Exporter exporter = Exporter.NONE;
+
+    private String filePath = "data/traces.ndjson";
+
+    /**
+     * Spans aguardando gravaçao no arquivo; além disso os spans sao descartados.
+     */
+    private int fileBufferSize = 8192;
+
+    private Duration fileFlushInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,37 @@
+package com.flowpay.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuraçoes do group commit das finalizaçoes de sessao ({@link com.flowpay.api.transitions.SessionTransitionCoalescer}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flowpay.write-coalescing")
+public class WriteCoalescingProperties {
+
+    /**
+     * Desativado, cada finalizaçao é gravada na sua própria transaçao (lote de uma sessao).
+     */
+    private boolean enabled = true;
+
+    /**
+     * Espera máxima de uma finalizaçao pelo próximo lote. Janelas maiores formam lotes maiores
+     * (menos commits) ao custo de latência em cada finalizaçao.
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Finalizaçoes por lote; um lote cheio é gravado sem esperar a janela.
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * Finalizaçoes aguardando lote; além disso a finalizaçao é gravada sozinha, sem esperar.
+     */
+    private int maxPending = 4096;
+}
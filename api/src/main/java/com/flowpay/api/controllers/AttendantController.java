@@ -0,0 +1,56 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.requests.AttendantLoginRequest;
+import com.flowpay.api.responses.AttendantResponse;
+import com.flowpay.api.services.AttendantService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/attendants")
+@RequiredArgsConstructor
+public class AttendantController {
+
+    private final AttendantService attendantService;
+
+    /**
+     * Conecta um atendente com suas habilidades (tipos de serviço) e atendimentos simultâneos.
+     *
+     * @throws IllegalArgumentException se os dados forem inválidos ou o atendente já estiver conectado
+     * @throws com.flowpay.api.exception.QueueNotOwnedException se as filas pertencerem a outro nó (redirecionado com 307)
+     * @param request - Dados do login
+     * @return AttendantResponse
+     */
+    @PostMapping
+    public Mono<AttendantResponse> login(@RequestBody AttendantLoginRequest request) {
+        return attendantService.login(request);
+    }
+
+    /**
+     * Desconecta um atendente. Os atendimentos em andamento continuam com ele até serem finalizados.
+     *
+     * @throws IllegalArgumentException se o atendente nao estiver conectado neste nó
+     * @param attendantId - Id do atendente
+     * @return AttendantResponse
+     */
+    @DeleteMapping("/{attendantId}")
+    public Mono<AttendantResponse> logout(@PathVariable String attendantId) {
+        return attendantService.logout(attendantId);
+    }
+
+    /**
+     * Atendentes conectados neste nó.
+     */
+    @GetMapping
+    public Flux<AttendantResponse> list() {
+        return attendantService.list();
+    }
+}
@@ -1,12 +1,19 @@
 package com.flowpay.api.controllers;
 
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
 import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.AdmissionRejectedException;
 import com.flowpay.api.repositories.CustomerSessionRepository;
 import com.flowpay.api.requests.CustomerRequest;
-import com.flowpay.api.responses.InProgressSessionResponse;
 import com.flowpay.api.responses.QueuePositionResponse;
-import com.flowpay.api.responses.SessionMetricsResponse;
+import com.flowpay.api.services.AdmissionControlService;
 import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.services.IdempotencyService;
+import com.flowpay.api.streaming.SseBackpressurePolicy;
+import com.flowpay.api.streaming.SseFrameBroadcaster;
+import com.flowpay.api.tokens.SessionTokenCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -15,6 +22,7 @@ import java.net.URI;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -26,11 +34,22 @@ import reactor.core.publisher.Mono;
 public class CustomerSessionController {
 
     private final CustomerSessionService customerService;
+    private final AdmissionControlService admissionControlService;
     private final CustomerSessionRepository customerSessionRepository;
+    private final SseFrameBroadcaster sseFrameBroadcaster;
+    private final QueueOwnership queueOwnership;
+    private final SseBackpressurePolicy sseBackpressurePolicy;
+    private final IdempotencyService idempotencyService;
+    private final SessionTokenCodec sessionTokenCodec;
+    private final ServiceTypeBulkheads bulkheads;
+
+    public static final String SESSION_TOKEN_HEADER = "Session-Token";
 
     /**
      * Fornece um stream SSE com atualizações da posição na fila do cliente usnado o email como identificador.
      * O stream permanece ativo até que a sessão seja finalizada ou ocorra timeout de 1 hora.
+     * Um cliente lento recebe apenas a atualizaçao mais recente e é desconectado se ficar atrasado além do limite;
+     * essa desconexao tem o mesmo efeito de uma desconexao do cliente (sessao PENDING cancelada).
      * 
      * @param email - Email do cliente
      * @return QueuePositionResponse - DTO de Response com a posiçao atual na fila e o tempo estimado de espera
@@ -39,32 +58,67 @@ public class CustomerSessionController {
      */
     @GetMapping(value = "/{email}/queue", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<QueuePositionResponse>> getQueuePositionStream(@PathVariable String email) {
-        return customerService.streamQueueUpdates(email)
+        return sseBackpressurePolicy.apply("queue", customerService.streamQueueUpdates(email))
             .map(update -> ServerSentEvent.<QueuePositionResponse>builder()
                 .event("queue-update")
                 .data(update)
                 .build())
             .doOnSubscribe(sub -> log.info("Cliente {} conectado ao stream de fila", email))
-            .doOnCancel(() -> customerService.finishCustomerSession(email))
             .doOnError(err -> log.error("Erro no stream de fila para {}: {}", email, err.getMessage()));
     }
 
+    /**
+     * Stream SSE da posiçao na fila da sessao identificada pelo token devolvido na criaçao da sessao.
+     * Mesmo comportamento do stream por email, mas cada atualizaçao acessa a sessao pela chave primária.
+     * O stream termina quando a sessao é finalizada.
+     *
+     * @param token - Token de sessao (header Session-Token da criaçao)
+     * @return QueuePositionResponse - DTO de Response com a posiçao atual na fila e o tempo estimado de espera
+     * @throws IllegalArgumentException se o token for inválido ou a sessao nao estiver mais ativa
+     */
+    @GetMapping(value = "/sessions/{token}/queue", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<QueuePositionResponse>> getQueuePositionStreamByToken(@PathVariable String token) {
+        return Mono.fromCallable(() -> sessionTokenCodec.decode(token))
+            .flatMapMany(sessionToken -> sseBackpressurePolicy.apply("queue", customerService.streamQueueUpdates(sessionToken)))
+            .map(update -> ServerSentEvent.<QueuePositionResponse>builder()
+                .event("queue-update")
+                .data(update)
+                .build())
+            .doOnError(err -> log.error("Erro no stream de fila para token: {}", err.getMessage()));
+    }
+
     /**
      * Cria um novo cliente e inicia uma sessao de atendimento.
      * Caso o cliente já exista, apenas uma nova sessão é criada.
      * 
-     * 
+     * O token da sessao é devolvido no header Session-Token e no Location (stream da fila por token).
+     * Repetiçoes com a mesma Idempotency-Key devolvem o mesmo Location e Session-Token.
      *
      * @throws IllegalArgumentException se o tipo de serviço não for fornecido
      * @throws IllegalArgumentException se o cliente já possuir uma sessão ativa
+     * @throws AdmissionRejectedException se a API estiver sobrecarregada ou a fila do serviço estiver cheia
+     * @throws com.flowpay.api.exception.QueueNotOwnedException se a fila pertencer a outro nó (redirecionado com 307)
      * @param customerRequest - DTO de Request com dados de um cliente
      *                          e o serviço desejado para criação da sessão
+     * @param idempotencyKey - Chave opcional: repetiçoes com a mesma chave devolvem o resultado original
      * @return Mono<Void>
      */
     @PostMapping
-    public Mono<ResponseEntity<Void>> createCustomer(@RequestBody CustomerRequest customerRequest) {
-            return customerService.createCustomer(customerRequest)
-            .thenReturn(ResponseEntity.status(303).location(URI.create("/api/customer/" + customerRequest.getEmail() + "/queue")).build());
+    public Mono<ResponseEntity<Void>> createCustomer(@RequestBody CustomerRequest customerRequest,
+                                                     @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+            QueueKey queueKey = customerRequest.getServiceType() != null
+                ? QueueKey.of(customerRequest.getBranch(), customerRequest.getServiceType())
+                : null;
+            String fingerprint = customerRequest.getEmail() + "|" + queueKey + "|" + customerRequest.getPriority();
+            return idempotencyService.execute(idempotencyKey, "create-session", fingerprint, () ->
+                admissionControlService.admit(queueKey, Mono.defer(() -> customerService.createCustomer(customerRequest)))
+                    .map(session -> {
+                        String token = sessionTokenCodec.encode(session.getId(), session.getServiceType());
+                        return ResponseEntity.status(303)
+                            .header(SESSION_TOKEN_HEADER, token)
+                            .location(URI.create("/api/customer/sessions/" + token + "/queue"))
+                            .<Void>build();
+                    }));
     }
 
     /**
@@ -72,44 +126,64 @@ public class CustomerSessionController {
      * 
      * @throws IllegalArgumentException se o cliente nao for encontrado ou nenhuma sessao ativa for encontrada
      * @param email
+     * @param idempotencyKey - Chave opcional: repetiçoes com a mesma chave devolvem o resultado original
      * @return Mono<Void>
      */
     @PutMapping("/{email}")
-    public Mono<ResponseEntity<Void>> finishCustomerSession(@PathVariable String email) {
-        return customerService.finishCustomerSession(email)
-        .thenReturn(ResponseEntity.ok().build());
+    public Mono<ResponseEntity<Void>> finishCustomerSession(@PathVariable String email,
+                                                            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "finish-session", email, () ->
+            customerService.finishCustomerSession(email)
+                .thenReturn(ResponseEntity.ok().<Void>build()));
+    }
+
+    /**
+     * Finaliza a sessao identificada pelo token, com as mesmas regras da finalizaçao por email.
+     *
+     * @throws IllegalArgumentException se o token for inválido ou a sessao nao estiver mais ativa
+     * @param token - Token de sessao
+     * @param idempotencyKey - Chave opcional: repetiçoes com a mesma chave devolvem o resultado original
+     * @return Mono<Void>
+     */
+    @PutMapping("/sessions/{token}")
+    public Mono<ResponseEntity<Void>> finishSessionByToken(@PathVariable String token,
+                                                           @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "finish-session-token", token, () ->
+            Mono.fromCallable(() -> sessionTokenCodec.decode(token))
+                .flatMap(customerService::finishSession)
+                .thenReturn(ResponseEntity.ok().<Void>build()));
     }
 
     /**
-     * Stream SSE com os atendimentos IN_PROGRESS de um tipo de serviço.
+     * Stream SSE com os atendimentos IN_PROGRESS de uma fila (agência + tipo de serviço).
      * Atualiza a cada segundo com a lista atual de sessoes em andamento.
+     * O stream é compartilhado entre todos os assinantes e cada evento é serializado uma única vez.
+     * Os assinantes contam no limite de conexoes SSE do tipo de serviço (503 quando cheio).
      *
      * @param serviceType Tipo de serviço (ex: LOANS, CARDS)
-     * @return Flux SSE com sessoes em andamento
+     * @param branch Agência (opcional, padrao "default")
+     * @return Mono<Void> que escreve os eventos "in-progress-update" na resposta
      */
     @GetMapping(value = "/in-progress/{serviceType}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<InProgressSessionResponse>> getInProgressByServiceType(
-            @PathVariable ServiceType serviceType) {
-        return customerService.streamInProgressSessions(serviceType)
-            .map(session -> ServerSentEvent.<InProgressSessionResponse>builder()
-                .event("in-progress-update")
-                .data(session)
-                .build())
-            .doOnSubscribe(sub -> log.info("Stream de IN_PROGRESS iniciado para {}", serviceType));
+    public Mono<Void> getInProgressByServiceType(@PathVariable ServiceType serviceType,
+                                                 @RequestParam(required = false) String branch,
+                                                 ServerHttpResponse response) {
+        QueueKey queueKey = QueueKey.of(branch, serviceType);
+        log.info("Stream de IN_PROGRESS iniciado para {}", queueKey);
+        return queueOwnership.requireLocal(queueKey)
+            .then(Mono.defer(() -> sseFrameBroadcaster.writeTo("in-progress", response,
+                bulkheads.subscriber(serviceType, sseFrameBroadcaster.inProgressFrames(queueKey)))));
     }
 
     /**
      * Stream SSE com métricas consolidadas dos atendimentos,
      * atualizado a cada segundo. Emite apenas quando os dados mudam.
+     * O stream é compartilhado entre todos os assinantes e cada evento é serializado uma única vez.
      */
     @GetMapping(value = "/metrics", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<SessionMetricsResponse>> getMetrics() {
-        return customerService.streamMetrics()
-            .map(metrics -> ServerSentEvent.<SessionMetricsResponse>builder()
-                .event("metrics-update")
-                .data(metrics)
-                .build())
-            .doOnSubscribe(sub -> log.info("Stream de métricas iniciado"));
+    public Mono<Void> getMetrics(ServerHttpResponse response) {
+        log.info("Stream de métricas iniciado");
+        return sseFrameBroadcaster.writeTo("metrics", response, sseFrameBroadcaster.metricsFrames());
     }
 
     /**
@@ -137,6 +211,19 @@ public class CustomerSessionController {
     public Mono<Integer> getSlotsAvailable(@PathVariable String email) {
         return customerSessionRepository.findByActiveServicesByCustomerEmail(email)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa encontrada")))
-            .flatMap(session -> customerService.checkAvailableSlots(session.getServiceType()));
+            .flatMap(session -> customerService.checkAvailableSlots(QueueKey.of(session.getBranch(), session.getServiceType())));
+    }
+
+    /**
+     * Verifica quantos slots estao disponíveis na fila da sessao identificada pelo token.
+     *
+     * @throws IllegalArgumentException se o token for inválido ou a sessao nao estiver mais ativa
+     * @param token - Token de sessao
+     * @return Mono<Integer>
+     */
+    @GetMapping("/sessions/{token}/slots-available")
+    public Mono<Integer> getSlotsAvailableByToken(@PathVariable String token) {
+        return Mono.fromCallable(() -> sessionTokenCodec.decode(token))
+            .flatMap(customerService::checkAvailableSlots);
     }
 }
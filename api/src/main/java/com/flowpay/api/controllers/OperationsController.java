@@ -0,0 +1,139 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.journal.QueueStateStore;
+import com.flowpay.api.responses.AdmissionStatsResponse;
+import com.flowpay.api.responses.BulkheadStatsResponse;
+import com.flowpay.api.responses.SseStreamStatsResponse;
+import com.flowpay.api.responses.SweeperStatsResponse;
+import com.flowpay.api.responses.TraceSummaryResponse;
+import com.flowpay.api.responses.WriteCoalescingStatsResponse;
+import com.flowpay.api.services.AdmissionControlService;
+import com.flowpay.api.streaming.SseBackpressurePolicy;
+import com.flowpay.api.sweeper.QueueSweeper;
+import com.flowpay.api.tracing.SpanData;
+import com.flowpay.api.tracing.TraceStore;
+import com.flowpay.api.transitions.SessionTransitionCoalescer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints operacionais com o estado interno dos mecanismos de proteçao da API.
+ */
+@RestController
+@RequestMapping("/api/ops")
+@RequiredArgsConstructor
+public class OperationsController {
+
+    private final AdmissionControlService admissionControlService;
+    private final QueueStateStore queueStateStore;
+    private final SseBackpressurePolicy sseBackpressurePolicy;
+    private final QueueSweeper queueSweeper;
+    private final TraceStore traceStore;
+    private final SessionTransitionCoalescer transitionCoalescer;
+    private final ServiceTypeBulkheads bulkheads;
+
+    /**
+     * Estado do controle de admissao: limite atual, requisiçoes em andamento,
+     * e contadores de requisiçoes aceitas e rejeitadas por tipo de serviço.
+     *
+     * @return Mono<AdmissionStatsResponse>
+     */
+    @GetMapping("/admission")
+    public Mono<AdmissionStatsResponse> getAdmissionStats() {
+        return Mono.fromSupplier(admissionControlService::stats);
+    }
+
+    /**
+     * Estado das filas mantido em memória por este nó (recuperado do journal e reconciliado com o banco).
+     *
+     * @return Mono com a quantidade de sessoes ativas por tipo de serviço e status
+     */
+    @GetMapping("/queue-state")
+    public Mono<Map<ServiceType, Map<CustomerSessionStatus, Long>>> getQueueState() {
+        return Mono.fromSupplier(queueStateStore::counts);
+    }
+
+    /**
+     * Backpressure dos streams SSE: assinantes conectados, eventos conflacionados
+     * e clientes lentos desconectados, por stream.
+     *
+     * @return Mono com os contadores por stream
+     */
+    @GetMapping("/sse")
+    public Mono<Map<String, SseStreamStatsResponse>> getSseStats() {
+        return Mono.fromSupplier(sseBackpressurePolicy::stats);
+    }
+
+    /**
+     * Sweeper de reconciliaçao das filas: se este processo é o líder, varreduras executadas
+     * e quantas divergências foram corrigidas (filas paradas promovidas e sessoes expiradas).
+     *
+     * @return Mono<SweeperStatsResponse>
+     */
+    @GetMapping("/sweeper")
+    public Mono<SweeperStatsResponse> getSweeperStats() {
+        return Mono.fromSupplier(queueSweeper::stats);
+    }
+
+    /**
+     * Bulkheads por tipo de serviço: ocupaçao das vagas de consulta ao banco (saturaçao),
+     * consultas aguardando e rejeitadas, e assinantes SSE conectados e rejeitados.
+     *
+     * @return Mono com o estado do bulkhead de cada tipo de serviço
+     */
+    @GetMapping("/bulkheads")
+    public Mono<Map<ServiceType, BulkheadStatsResponse>> getBulkheadStats() {
+        return Mono.fromSupplier(bulkheads::stats);
+    }
+
+    /**
+     * Group commit das finalizaçoes: lotes gravados, tamanho médio dos lotes, espera média
+     * de cada finalizaçao pelo lote e duraçao média do commit, para calibrar a janela.
+     *
+     * @return Mono<WriteCoalescingStatsResponse>
+     */
+    @GetMapping("/write-coalescing")
+    public Mono<WriteCoalescingStatsResponse> getWriteCoalescingStats() {
+        return Mono.fromSupplier(transitionCoalescer::stats);
+    }
+
+    /**
+     * Traces mais recentes amostrados por este nó, do mais novo ao mais antigo.
+     * O traceparent devolvido em cada response amostrado identifica o trace.
+     *
+     * @param limit - Quantidade máxima de traces (padrao 20)
+     * @return Mono com o resumo de cada trace (span da requisiçao, duraçao, spans e erros)
+     */
+    @GetMapping("/traces")
+    public Mono<List<TraceSummaryResponse>> getRecentTraces(@RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("limit deve ser maior que zero"));
+        }
+        return Mono.fromSupplier(() -> traceStore.recentTraces(limit));
+    }
+
+    /**
+     * Spans de um trace em ordem de início: requisiçao, operaçoes de sessao e consultas.
+     *
+     * @throws IllegalArgumentException se o trace nao estiver mais em memória
+     * @param traceId - Trace id (segundo campo do traceparent)
+     * @return Mono com os spans do trace
+     */
+    @GetMapping("/traces/{traceId}")
+    public Mono<List<SpanData>> getTrace(@PathVariable String traceId) {
+        return Mono.fromSupplier(() -> traceStore.trace(traceId))
+            .filter(spans -> !spans.isEmpty())
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Trace nao encontrado: " + traceId)));
+    }
+}
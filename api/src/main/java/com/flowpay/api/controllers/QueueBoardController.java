@@ -0,0 +1,72 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.board.QueueBoard;
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.QueueBoardResponse;
+import com.flowpay.api.streaming.SseFrameBroadcaster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Painel das filas para recepçao e supervisao: a fila PENDING inteira com as posiçoes,
+ * sem precisar de um stream por cliente.
+ */
+@RestController
+@RequestMapping("/api/queues")
+@RequiredArgsConstructor
+@Slf4j
+public class QueueBoardController {
+
+    private final QueueBoard queueBoard;
+    private final QueueOwnership queueOwnership;
+    private final SseFrameBroadcaster sseFrameBroadcaster;
+    private final ServiceTypeBulkheads bulkheads;
+
+    /**
+     * Snapshot do painel de uma fila (agência + tipo de serviço): sessoes PENDING em ordem de promoçao
+     * com as posiçoes. O snapshot é compartilhado e só é recalculado quando a fila muda.
+     *
+     * @throws com.flowpay.api.exception.QueueNotOwnedException se a fila pertencer a outro nó (redirecionado com 307)
+     * @param serviceType Tipo de serviço
+     * @param branch Agência (opcional, padrao "default")
+     * @return Mono<QueueBoardResponse>
+     */
+    @GetMapping("/{serviceType}/board")
+    public Mono<QueueBoardResponse> getQueueBoard(@PathVariable ServiceType serviceType,
+                                                  @RequestParam(required = false) String branch) {
+        QueueKey queueKey = QueueKey.of(branch, serviceType);
+        return queueOwnership.requireLocal(queueKey)
+            .then(Mono.defer(() -> queueBoard.snapshot(queueKey)));
+    }
+
+    /**
+     * Stream SSE do painel de uma fila: um evento "queue-board-update" com o painel completo a cada mudança da fila.
+     * O stream é compartilhado entre todos os painéis da fila e cada evento é serializado uma única vez.
+     * Os assinantes contam no limite de conexoes SSE do tipo de serviço (503 quando cheio).
+     *
+     * @param serviceType Tipo de serviço
+     * @param branch Agência (opcional, padrao "default")
+     * @return Mono<Void> que escreve os eventos na resposta
+     */
+    @GetMapping(value = "/{serviceType}/board/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<Void> getQueueBoardStream(@PathVariable ServiceType serviceType,
+                                          @RequestParam(required = false) String branch,
+                                          ServerHttpResponse response) {
+        QueueKey queueKey = QueueKey.of(branch, serviceType);
+        log.info("Stream do painel iniciado para {}", queueKey);
+        return queueOwnership.requireLocal(queueKey)
+            .then(Mono.defer(() -> sseFrameBroadcaster.writeTo("queue-board", response,
+                bulkheads.subscriber(serviceType, sseFrameBroadcaster.queueBoardFrames(queueKey)))));
+    }
+}
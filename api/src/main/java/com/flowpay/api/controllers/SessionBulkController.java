@@ -0,0 +1,55 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.requests.BulkSessionRequest;
+import com.flowpay.api.responses.BulkOperationResponse;
+import com.flowpay.api.services.SessionBulkService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/sessions/bulk")
+@RequiredArgsConstructor
+public class SessionBulkController {
+
+    private final SessionBulkService sessionBulkService;
+
+    /**
+     * Completa em lote as sessoes IN_PROGRESS selecionadas (ids ou filtro).
+     *
+     * @throws IllegalArgumentException se a seleçao for inválida ou passar do tamanho máximo do lote
+     * @param request - Ids das sessoes ou filtro
+     * @return BulkOperationResponse com o resultado de cada sessao
+     */
+    @PostMapping("/complete")
+    public Mono<BulkOperationResponse> complete(@RequestBody BulkSessionRequest request) {
+        return sessionBulkService.complete(request);
+    }
+
+    /**
+     * Cancela em lote as sessoes ativas selecionadas (ids ou filtro).
+     *
+     * @throws IllegalArgumentException se a seleçao for inválida ou passar do tamanho máximo do lote
+     * @param request - Ids das sessoes ou filtro
+     * @return BulkOperationResponse com o resultado de cada sessao
+     */
+    @PostMapping("/cancel")
+    public Mono<BulkOperationResponse> cancel(@RequestBody BulkSessionRequest request) {
+        return sessionBulkService.cancel(request);
+    }
+
+    /**
+     * Promove em lote as sessoes PENDING selecionadas, respeitando os slots livres de cada fila.
+     *
+     * @throws IllegalArgumentException se a seleçao for inválida ou passar do tamanho máximo do lote
+     * @param request - Ids das sessoes ou filtro
+     * @return BulkOperationResponse com o resultado de cada sessao
+     */
+    @PostMapping("/promote")
+    public Mono<BulkOperationResponse> promote(@RequestBody BulkSessionRequest request) {
+        return sessionBulkService.promote(request);
+    }
+}
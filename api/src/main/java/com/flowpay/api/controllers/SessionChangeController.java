@@ -0,0 +1,37 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.responses.SessionChangeResponse;
+import com.flowpay.api.services.SessionChangeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class SessionChangeController {
+
+    private final SessionChangeService sessionChangeService;
+
+    /**
+     * Stream NDJSON com as mudanças de status das sessoes posteriores ao cursor.
+     * Cada linha traz o changeId, que deve ser usado como cursor da próxima chamada.
+     *
+     * @throws IllegalArgumentException se o cursor ou o tamanho da página forem inválidos
+     * @param after - Id da última mudança já consumida (0 para o início)
+     * @param limit - Tamanho da página (máximo 1000)
+     * @param follow - Mantém a conexao aberta enviando novas mudanças (long-poll/stream)
+     * @return Flux<SessionChangeResponse>
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SessionChangeResponse> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "false") boolean follow) {
+        return sessionChangeService.changesAfter(after, limit, follow);
+    }
+}
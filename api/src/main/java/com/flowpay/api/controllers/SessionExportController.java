@@ -0,0 +1,69 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.SessionExportRow;
+import com.flowpay.api.services.SessionExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.OffsetDateTime;
+
+@RestController
+@RequestMapping("/api/sessions/export")
+@RequiredArgsConstructor
+public class SessionExportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final SessionExportService sessionExportService;
+
+    /**
+     * Exporta o histórico de sessoes finalizadas como NDJSON (uma sessao por linha).
+     *
+     * @throws IllegalArgumentException se o status nao for COMPLETED/CANCELED ou o período for inválido
+     * @param serviceType - Filtro opcional por tipo de serviço
+     * @param status - Filtro opcional por status final
+     * @param from - Início do período (ISO-8601, inclusivo)
+     * @param to - Fim do período (ISO-8601, exclusivo)
+     * @return Flux<SessionExportRow>
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SessionExportRow> exportNdjson(
+            @RequestParam(required = false) ServiceType serviceType,
+            @RequestParam(required = false) CustomerSessionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        return sessionExportService.exportFinished(serviceType, status, from, to);
+    }
+
+    /**
+     * Exporta o histórico de sessoes finalizadas como CSV (format=csv).
+     *
+     * @throws IllegalArgumentException se o status nao for COMPLETED/CANCELED ou o período for inválido
+     * @return ResponseEntity com o CSV em streaming
+     */
+    @GetMapping(params = "format=csv")
+    public ResponseEntity<Flux<String>> exportCsv(
+            @RequestParam(required = false) ServiceType serviceType,
+            @RequestParam(required = false) CustomerSessionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        Flux<String> lines = Flux.just(SessionExportRow.CSV_HEADER)
+            .concatWith(sessionExportService.exportFinished(serviceType, status, from, to)
+                .map(SessionExportRow::toCsvLine));
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sessions.csv\"")
+            .body(lines);
+    }
+}
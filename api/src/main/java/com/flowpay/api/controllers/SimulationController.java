@@ -0,0 +1,35 @@
+package com.flowpay.api.controllers;
+
+import com.flowpay.api.requests.SimulationRequest;
+import com.flowpay.api.responses.SimulationResponse;
+import com.flowpay.api.services.SimulationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulaçao das filas para planejamento de capacidade. Nao altera nenhuma fila real.
+ */
+@RestController
+@RequestMapping("/api/simulations")
+@RequiredArgsConstructor
+public class SimulationController {
+
+    private final SimulationService simulationService;
+
+    /**
+     * Simula a carga informada (ou o histórico do período informado) com cada capacidade de slots por fila,
+     * e devolve por tipo de serviço os percentis de espera, a taxa de desistência e a utilizaçao dos slots.
+     *
+     * @throws IllegalArgumentException se o cenário for inválido ou gerar clientes demais
+     * @param request - Cenário da simulaçao
+     * @return Mono<SimulationResponse>
+     */
+    @PostMapping
+    public Mono<SimulationResponse> simulate(@RequestBody SimulationRequest request) {
+        return simulationService.simulate(request);
+    }
+}
@@ -24,12 +24,30 @@ public class CustomerSession {
     @Column("customer_id")
     private Long customerId;
 
+    @Column("branch")
+    private String branch;
+
     @Column("service_type")
     private ServiceType serviceType;
 
     @Column("status")
     private CustomerSessionStatus status;
 
+    @Column("priority")
+    private PriorityClass priority;
+
+    /**
+     * Chave de ordenaçao na fila, calculada pela {@link com.flowpay.api.queue.QueueDiscipline} na entrada.
+     */
+    @Column("queue_order")
+    private Long queueOrder;
+
+    /**
+     * Atendente que assumiu a sessao na promoçao (nulo com slots fixos por fila).
+     */
+    @Column("attendant_id")
+    private String attendantId;
+
     @Column("started_at")
     private OffsetDateTime startedAt;
 
@@ -39,9 +57,11 @@ public class CustomerSession {
     @Version
     private Long version;
 
-    public CustomerSession(Long customerId, ServiceType serviceType) {
+    public CustomerSession(Long customerId, String branch, ServiceType serviceType, PriorityClass priority) {
         this.customerId = customerId;
+        this.branch = branch;
         this.serviceType = serviceType;
+        this.priority = priority;
         this.status = CustomerSessionStatus.PENDING;
         this.startedAt = OffsetDateTime.now();
     }
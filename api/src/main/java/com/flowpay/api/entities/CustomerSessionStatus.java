@@ -7,10 +7,41 @@ package com.flowpay.api.entities;
  * - Sessao em atendimento -> IN_PROGRESS
  * - Sessao finalizada -> COMPLETED
  * - Sessao cancelada pelo cliente ou atendente -> CANCELED
+ *
+ * No banco o status é gravado como SMALLINT usando o {@link #getCode() código} de cada valor.
+ * Os códigos sao estáveis: nunca devem ser alterados ou reaproveitados, apenas acrescentados.
  */
 public enum CustomerSessionStatus {
-    PENDING,
-    IN_PROGRESS,
-    COMPLETED,
-    CANCELED
+    PENDING((short) 1),
+    IN_PROGRESS((short) 2),
+    COMPLETED((short) 3),
+    CANCELED((short) 4);
+
+    private static final CustomerSessionStatus[] BY_CODE = new CustomerSessionStatus[5];
+
+    static {
+        for (CustomerSessionStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final short code;
+
+    CustomerSessionStatus(short code) {
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o código nao corresponder a nenhum status
+     */
+    public static CustomerSessionStatus fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Código de status inválido: " + code);
+        }
+        return BY_CODE[code];
+    }
 }
@@ -0,0 +1,47 @@
+package com.flowpay.api.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Resultado de uma requisiçao feita com Idempotency-Key.
+ * Sem statusCode a requisiçao original ainda está em andamento, reservada até reservedUntil.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+
+    @Column("request_hash")
+    private String requestHash;
+
+    @Column("status_code")
+    private Short statusCode;
+
+    @Column("location")
+    private String location;
+
+    @Column("session_token")
+    private String sessionToken;
+
+    @Column("created_at")
+    private OffsetDateTime createdAt;
+
+    @Column("reserved_until")
+    private OffsetDateTime reservedUntil;
+
+    @Column("expires_at")
+    private OffsetDateTime expiresAt;
+}
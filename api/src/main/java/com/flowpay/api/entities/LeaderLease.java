@@ -0,0 +1,31 @@
+package com.flowpay.api.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Lease de liderança de uma tarefa em segundo plano: apenas o processo dono executa a tarefa até expiresAt.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("leader_leases")
+public class LeaderLease {
+
+    @Id
+    private String name;
+
+    @Column("owner")
+    private String owner;
+
+    @Column("expires_at")
+    private OffsetDateTime expiresAt;
+}
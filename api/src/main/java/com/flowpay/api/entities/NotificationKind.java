@@ -0,0 +1,43 @@
+package com.flowpay.api.entities;
+
+/**
+ * Tipos de notificaçao enviados ao cliente.
+ * Podendo ser:
+ * - PROMOTED: a sessao entrou em atendimento
+ * - TURN_APPROACHING: a sessao está entre as próximas da fila
+ *
+ * No banco o tipo é gravado como SMALLINT usando o {@link #getCode() código} de cada valor.
+ * Os códigos sao estáveis: nunca devem ser alterados ou reaproveitados, apenas acrescentados.
+ */
+public enum NotificationKind {
+    PROMOTED((short) 1),
+    TURN_APPROACHING((short) 2);
+
+    private static final NotificationKind[] BY_CODE = new NotificationKind[3];
+
+    static {
+        for (NotificationKind kind : values()) {
+            BY_CODE[kind.code] = kind;
+        }
+    }
+
+    private final short code;
+
+    NotificationKind(short code) {
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o código nao corresponder a nenhum tipo de notificaçao
+     */
+    public static NotificationKind fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Código de tipo de notificaçao inválido: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,52 @@
+package com.flowpay.api.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Notificaçao pendente ou já enviada do outbox de notificaçoes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("notification_outbox")
+public class NotificationOutboxEntry {
+
+    @Id
+    private Long id;
+
+    @Column("session_id")
+    private Long sessionId;
+
+    @Column("customer_id")
+    private Long customerId;
+
+    @Column("kind")
+    private NotificationKind kind;
+
+    @Column("status")
+    private Short status;
+
+    @Column("attempts")
+    private Integer attempts;
+
+    @Column("last_error")
+    private String lastError;
+
+    @Column("created_at")
+    private OffsetDateTime createdAt;
+
+    @Column("next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
+    @Column("sent_at")
+    private OffsetDateTime sentAt;
+}
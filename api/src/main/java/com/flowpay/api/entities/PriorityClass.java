@@ -0,0 +1,45 @@
+package com.flowpay.api.entities;
+
+/**
+ * Classe de prioridade de uma sessao dentro da fila.
+ * Podendo ser:
+ * - REGULAR: Atendimento comum
+ * - PREMIUM: Clientes premium
+ * - ACCESSIBILITY: Atendimento prioritário (idosos, gestantes, PcD)
+ *
+ * No banco a prioridade é gravada como SMALLINT usando o {@link #getCode() código} de cada valor.
+ * Os códigos sao estáveis: nunca devem ser alterados ou reaproveitados, apenas acrescentados.
+ */
+public enum PriorityClass {
+    REGULAR((short) 1),
+    PREMIUM((short) 2),
+    ACCESSIBILITY((short) 3);
+
+    private static final PriorityClass[] BY_CODE = new PriorityClass[4];
+
+    static {
+        for (PriorityClass priorityClass : values()) {
+            BY_CODE[priorityClass.code] = priorityClass;
+        }
+    }
+
+    private final short code;
+
+    PriorityClass(short code) {
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o código nao corresponder a nenhuma prioridade
+     */
+    public static PriorityClass fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Código de prioridade inválido: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -7,9 +7,40 @@ package com.flowpay.api.entities;
  * - CARD_PROBLEMS: Problemas com cartao
  * - LOANS: Emprestimos
  * - OTHER: Outros serviços
+ *
+ * No banco o tipo de serviço é gravado como SMALLINT usando o {@link #getCode() código} de cada valor.
+ * Os códigos sao estáveis: nunca devem ser alterados ou reaproveitados, apenas acrescentados.
  */
 public enum ServiceType {
-    CARD_PROBLEMS,
-    LOANS,
-    OTHER
+    CARD_PROBLEMS((short) 1),
+    LOANS((short) 2),
+    OTHER((short) 3);
+
+    private static final ServiceType[] BY_CODE = new ServiceType[4];
+
+    static {
+        for (ServiceType serviceType : values()) {
+            BY_CODE[serviceType.code] = serviceType;
+        }
+    }
+
+    private final short code;
+
+    ServiceType(short code) {
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o código nao corresponder a nenhum tipo de serviço
+     */
+    public static ServiceType fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Código de tipo de serviço inválido: " + code);
+        }
+        return BY_CODE[code];
+    }
 }
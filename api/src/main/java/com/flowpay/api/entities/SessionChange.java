@@ -0,0 +1,44 @@
+package com.flowpay.api.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Registro append-only de uma mudança de status de sessao.
+ * Gravado na mesma transaçao da mudança de status em customer_sessions.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("session_changes")
+public class SessionChange {
+
+    @Id
+    private Long id;
+
+    @Column("session_id")
+    private Long sessionId;
+
+    @Column("customer_id")
+    private Long customerId;
+
+    @Column("branch")
+    private String branch;
+
+    @Column("service_type")
+    private ServiceType serviceType;
+
+    @Column("status")
+    private CustomerSessionStatus status;
+
+    @Column("changed_at")
+    private OffsetDateTime changedAt;
+}
@@ -0,0 +1,36 @@
+package com.flowpay.api.events;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+
+/**
+ * Transiçoes do ciclo de vida de uma sessao de atendimento.
+ * - CREATED: sessao criada na fila (PENDING)
+ * - PROMOTED: sessao promovida para atendimento (IN_PROGRESS)
+ * - COMPLETED: atendimento finalizado (COMPLETED)
+ * - CANCELED: sessao cancelada antes do atendimento (CANCELED)
+ */
+public enum SessionLifecycleEvent {
+    CREATED,
+    PROMOTED,
+    COMPLETED,
+    CANCELED;
+
+    /**
+     * Evento correspondente ao status de destino de uma transiçao.
+     */
+    public static SessionLifecycleEvent forStatus(CustomerSessionStatus status) {
+        return switch (status) {
+            case PENDING -> CREATED;
+            case IN_PROGRESS -> PROMOTED;
+            case COMPLETED -> COMPLETED;
+            case CANCELED -> CANCELED;
+        };
+    }
+
+    /**
+     * Indica se a sessao deixa de estar ativa (finished_at preenchido) após o evento.
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELED;
+    }
+}
@@ -0,0 +1,14 @@
+package com.flowpay.api.events;
+
+import com.flowpay.api.entities.CustomerSession;
+
+/**
+ * Recebe as transiçoes de sessao publicadas pelo {@link SessionLifecyclePublisher}.
+ *
+ * É chamado de forma síncrona na thread que concluiu a escrita no banco,
+ * entao implementaçoes nao devem bloquear.
+ */
+public interface SessionLifecycleListener {
+
+    void onSessionEvent(SessionLifecycleEvent event, CustomerSession session);
+}
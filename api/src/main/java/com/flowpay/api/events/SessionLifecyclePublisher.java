@@ -0,0 +1,31 @@
+package com.flowpay.api.events;
+
+import com.flowpay.api.entities.CustomerSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Distribui as transiçoes de sessao para todos os {@link SessionLifecycleListener} registrados.
+ * Uma falha em um listener é registrada em log e nao interrompe os demais nem a transiçao.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionLifecyclePublisher {
+
+    private final List<SessionLifecycleListener> listeners;
+
+    public void publish(SessionLifecycleEvent event, CustomerSession session) {
+        for (SessionLifecycleListener listener : listeners) {
+            try {
+                listener.onSessionEvent(event, session);
+            } catch (RuntimeException e) {
+                log.error("Falha no listener {} ao processar {} da sessao {}",
+                    listener.getClass().getSimpleName(), event, session.getId(), e);
+            }
+        }
+    }
+}
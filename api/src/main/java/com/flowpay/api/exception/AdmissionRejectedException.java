@@ -0,0 +1,21 @@
+package com.flowpay.api.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Lançada quando o controle de admissao ou o bulkhead de um tipo de serviço rejeita uma requisiçao por sobrecarga.
+ * Tratada pelo {@link GlobalControllerAdvice} como 503 com o header Retry-After.
+ * Nao preenche stack trace, já que é lançada justamente quando o serviço está sobrecarregado.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+}
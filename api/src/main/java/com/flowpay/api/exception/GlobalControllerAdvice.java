@@ -2,6 +2,8 @@ package com.flowpay.api.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -9,9 +11,11 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -111,6 +115,57 @@ class GlobalControllerAdvice {
         return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail));
     }
 
+    /**
+     * Trata conflitos de concorrência (sessao alterada por outra requisiçao durante a operaçao)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Mono<ResponseEntity<ProblemDetail>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        log.warn("Conflito de concorrência: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.CONFLICT,
+                "A sessao foi alterada por outra operaçao. Tente novamente."
+        );
+        problemDetail.setTitle("Conflito de Concorrência");
+        problemDetail.setProperty("timestamp", Instant.now());
+
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail));
+    }
+
+    /**
+     * Trata rejeiçoes do controle de admissao (sobrecarga), informando quando tentar novamente
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public Mono<ResponseEntity<ProblemDetail>> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        log.debug("Requisiçao rejeitada pelo controle de admissao: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage()
+        );
+        problemDetail.setTitle("Serviço Indisponível");
+        problemDetail.setProperty("timestamp", Instant.now());
+
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(problemDetail));
+    }
+
+    /**
+     * Redireciona (307) requisiçoes de filas pertencentes a outro nó do cluster para o nó dono,
+     * preservando método, caminho e parâmetros
+     */
+    @ExceptionHandler(QueueNotOwnedException.class)
+    public Mono<ResponseEntity<Void>> handleQueueNotOwnedException(QueueNotOwnedException ex, ServerWebExchange exchange) {
+        URI requestUri = exchange.getRequest().getURI();
+        String pathAndQuery = requestUri.getRawPath() + (requestUri.getRawQuery() != null ? "?" + requestUri.getRawQuery() : "");
+        log.debug("Fila {} pertence ao nó {}, redirecionando", ex.getQueueKey(), ex.getOwner().id());
+
+        return Mono.just(ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(URI.create(ex.getOwner().baseUrl() + pathAndQuery))
+                .build());
+    }
+
     /**
      * Trata exceçoes de argumento ilegal
      */
@@ -0,0 +1,22 @@
+package com.flowpay.api.exception;
+
+import com.flowpay.api.cluster.ClusterNode;
+import com.flowpay.api.cluster.QueueKey;
+import lombok.Getter;
+
+/**
+ * Lançada quando uma requisiçao chega a um nó que nao é o dono da fila.
+ * Tratada pelo {@link GlobalControllerAdvice} como redirecionamento (307) para o nó dono.
+ */
+@Getter
+public class QueueNotOwnedException extends RuntimeException {
+
+    private final QueueKey queueKey;
+    private final ClusterNode owner;
+
+    public QueueNotOwnedException(QueueKey queueKey, ClusterNode owner) {
+        super("Fila " + queueKey + " pertence ao nó " + owner.id(), null, false, false);
+        this.queueKey = queueKey;
+        this.owner = owner;
+    }
+}
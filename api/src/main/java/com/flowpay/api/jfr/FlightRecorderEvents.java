@@ -0,0 +1,118 @@
+package com.flowpay.api.jfr;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.ServiceType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Collection;
+
+/**
+ * Eventos JFR das operaçoes de domínio, para correlacionar com os eventos de GC, Netty e R2DBC
+ * de uma gravaçao contínua (ex: -XX:StartFlightRecording:maxage=1h,settings=profile).
+ *
+ * Sem gravaçao ativa o evento nao está habilitado e o Mono/Flux original é devolvido,
+ * entao o custo fora de uma gravaçao é a criaçao de um objeto por assinatura.
+ */
+public final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Registra a duraçao e o resultado de uma operaçao de sessao.
+     * Quando o resultado é uma coleçao (promoçao), o tamanho é registrado como sessoes afetadas.
+     *
+     * @param operation - CREATE, PROMOTE, COMPLETE, CANCEL ou EXPIRE
+     * @param queueKey - Fila da sessao
+     * @param sessionId - Id da sessao, ou null
+     * @param work - Operaçao
+     */
+    public static <T> Mono<T> sessionOperation(String operation, QueueKey queueKey, Long sessionId, Mono<T> work) {
+        return Mono.defer(() -> {
+            SessionOperationEvent event = new SessionOperationEvent();
+            if (!event.isEnabled()) {
+                return work;
+            }
+            event.operation = operation;
+            event.branch = queueKey.branch();
+            event.serviceType = queueKey.serviceType().name();
+            event.sessionId = sessionId != null ? sessionId : 0L;
+            event.begin();
+            return work
+                .doOnNext(result -> event.sessions = result instanceof Collection<?> sessions ? sessions.size() : 1)
+                .doOnError(error -> event.error = error.getClass().getName())
+                .doFinally(signal -> commit(event, signal));
+        });
+    }
+
+    /**
+     * Registra a assinatura de um stream SSE, da conexao à desconexao, com os eventos entregues.
+     */
+    public static <T> Flux<T> sseStream(String stream, Flux<T> source) {
+        return Flux.defer(() -> {
+            SseStreamEvent event = new SseStreamEvent();
+            if (!event.isEnabled()) {
+                return source;
+            }
+            event.stream = stream;
+            event.begin();
+            return source
+                .doOnNext(item -> event.events++)
+                .doOnError(error -> event.error = error.getClass().getName())
+                .doFinally(signal -> commit(event, signal));
+        });
+    }
+
+    static Mono<?> query(String repository, String method, ServiceType serviceType, Mono<?> source) {
+        return Mono.defer(() -> {
+            RepositoryQueryEvent event = queryEvent(repository, method, serviceType);
+            if (event == null) {
+                return source;
+            }
+            return source
+                .doOnNext(row -> event.rows++)
+                .doOnError(error -> event.error = error.getClass().getName())
+                .doFinally(signal -> commit(event, signal));
+        });
+    }
+
+    static Flux<?> query(String repository, String method, ServiceType serviceType, Flux<?> source) {
+        return Flux.defer(() -> {
+            RepositoryQueryEvent event = queryEvent(repository, method, serviceType);
+            if (event == null) {
+                return source;
+            }
+            return source
+                .doOnNext(row -> event.rows++)
+                .doOnError(error -> event.error = error.getClass().getName())
+                .doFinally(signal -> commit(event, signal));
+        });
+    }
+
+    private static RepositoryQueryEvent queryEvent(String repository, String method, ServiceType serviceType) {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.repository = repository;
+        event.method = method;
+        event.serviceType = serviceType != null ? serviceType.name() : null;
+        event.begin();
+        return event;
+    }
+
+    private static void commit(OutcomeEvent event, SignalType signal) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.outcome = switch (signal) {
+            case ON_ERROR -> OutcomeEvent.ERROR;
+            case CANCEL -> OutcomeEvent.CANCEL;
+            default -> OutcomeEvent.SUCCESS;
+        };
+        event.commit();
+    }
+}
@@ -0,0 +1,24 @@
+package com.flowpay.api.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base dos eventos JFR com duraçao de operaçoes reativas: a duraçao vai da assinatura ao término
+ * e o resultado indica como a operaçao terminou.
+ */
+abstract class OutcomeEvent extends Event {
+
+    static final String SUCCESS = "SUCCESS";
+    static final String ERROR = "ERROR";
+    static final String CANCEL = "CANCEL";
+
+    @Label("Outcome")
+    @Description("SUCCESS, ERROR ou CANCEL")
+    String outcome;
+
+    @Label("Error")
+    @Description("Classe da exceçao quando o resultado é ERROR")
+    String error;
+}
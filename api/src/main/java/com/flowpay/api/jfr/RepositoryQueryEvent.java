@@ -0,0 +1,31 @@
+package com.flowpay.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.flowpay.RepositoryQuery")
+@Label("Repository Query")
+@Category({"FlowPay", "Database"})
+@Description("Execuçao de um método de repositório, da assinatura à última linha")
+@StackTrace(false)
+@Threshold("1 ms")
+class RepositoryQueryEvent extends OutcomeEvent {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Service Type")
+    @Description("Tipo de serviço do primeiro argumento ServiceType, se houver")
+    String serviceType;
+
+    @Label("Rows")
+    @Description("Elementos emitidos")
+    long rows;
+}
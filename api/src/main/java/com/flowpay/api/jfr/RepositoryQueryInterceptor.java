@@ -0,0 +1,34 @@
+package com.flowpay.api.jfr;
+
+import com.flowpay.api.repositories.RepositoryArguments;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registra um {@link RepositoryQueryEvent} para cada Mono/Flux devolvido por um repositório.
+ * A consulta só executa na assinatura, entao a duraçao vai da assinatura ao término do resultado.
+ */
+public class RepositoryQueryInterceptor implements MethodInterceptor {
+
+    private final String repository;
+
+    public RepositoryQueryInterceptor(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (result instanceof Mono<?> mono) {
+            return FlightRecorderEvents.query(repository, invocation.getMethod().getName(),
+                RepositoryArguments.serviceTypeOf(invocation.getArguments()), mono);
+        }
+        if (result instanceof Flux<?> flux) {
+            return FlightRecorderEvents.query(repository, invocation.getMethod().getName(),
+                RepositoryArguments.serviceTypeOf(invocation.getArguments()), flux);
+        }
+        return result;
+    }
+}
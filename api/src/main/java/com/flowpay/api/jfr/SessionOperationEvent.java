@@ -0,0 +1,33 @@
+package com.flowpay.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.flowpay.SessionOperation")
+@Label("Session Operation")
+@Category({"FlowPay", "Sessions"})
+@Description("Criaçao, promoçao, conclusao ou cancelamento de sessoes, da assinatura ao término")
+@StackTrace(false)
+class SessionOperationEvent extends OutcomeEvent {
+
+    @Label("Operation")
+    @Description("CREATE, PROMOTE, COMPLETE, CANCEL ou EXPIRE")
+    String operation;
+
+    @Label("Branch")
+    String branch;
+
+    @Label("Service Type")
+    String serviceType;
+
+    @Label("Session Id")
+    @Description("0 quando a operaçao nao é de uma sessao específica (promoçao)")
+    long sessionId;
+
+    @Label("Sessions")
+    @Description("Sessoes afetadas (promovidas, na promoçao)")
+    int sessions;
+}
@@ -0,0 +1,22 @@
+package com.flowpay.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.flowpay.SseStream")
+@Label("SSE Stream")
+@Category({"FlowPay", "Streams"})
+@Description("Assinatura de um stream SSE, da conexao à desconexao (CANCEL = cliente desconectou)")
+@StackTrace(false)
+class SseStreamEvent extends OutcomeEvent {
+
+    @Label("Stream")
+    String stream;
+
+    @Label("Events")
+    @Description("Eventos entregues ao assinante")
+    long events;
+}
@@ -0,0 +1,23 @@
+package com.flowpay.api.journal;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+
+/**
+ * Estado em memória de uma sessao ativa (PENDING ou IN_PROGRESS).
+ *
+ * Guarda apenas o necessário para contar as sessoes ativas por tipo de serviço e status: nao tem agência,
+ * prioridade nem ordem na fila, entao nao serve para posiçao na fila nem para promoçao, que sempre consultam o banco.
+ */
+public record ActiveSessionState(
+    long sessionId,
+    long customerId,
+    ServiceType serviceType,
+    CustomerSessionStatus status,
+    long startedAtEpochMillis
+) {
+
+    public ActiveSessionState withStatus(CustomerSessionStatus newStatus) {
+        return new ActiveSessionState(sessionId, customerId, serviceType, newStatus, startedAtEpochMillis);
+    }
+}
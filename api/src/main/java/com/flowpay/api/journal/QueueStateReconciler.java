@@ -0,0 +1,62 @@
+package com.flowpay.api.journal;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconcilia, de forma assíncrona após o startup, o estado das filas recuperado do journal
+ * com as sessoes ativas do Postgres, que continua sendo a fonte da verdade.
+ * Só entram as filas das quais este nó é dono: as transiçoes das demais filas acontecem em outros nós
+ * e nunca chegariam ao journal local.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueueStateReconciler {
+
+    private final SessionJournal sessionJournal;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final QueueOwnership queueOwnership;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (!sessionJournal.isEnabled()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        sessionJournal.beginReconcile();
+        customerSessionRepository.findAllActive()
+            .filter(session -> queueOwnership.isLocal(QueueKey.of(session.getBranch(), session.getServiceType())))
+            .map(QueueStateReconciler::toState)
+            .collectList()
+            .subscribe(
+                sessions -> {
+                    int drift = sessionJournal.completeReconcile(sessions);
+                    log.info("Estado das filas reconciliado com o banco em {} ms: {} sessoes ativas, {} divergências corrigidas",
+                        System.currentTimeMillis() - start, sessions.size(), drift);
+                },
+                error -> {
+                    sessionJournal.abortReconcile();
+                    log.error("Falha ao reconciliar o estado das filas com o banco", error);
+                }
+            );
+    }
+
+    private static ActiveSessionState toState(CustomerSession session) {
+        return new ActiveSessionState(
+            session.getId(),
+            session.getCustomerId(),
+            session.getServiceType(),
+            session.getStatus(),
+            session.getStartedAt().toInstant().toEpochMilli()
+        );
+    }
+}
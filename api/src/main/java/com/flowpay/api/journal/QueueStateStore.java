@@ -0,0 +1,75 @@
+package com.flowpay.api.journal;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado das filas mantido em memória: sessoes ativas indexadas pelo id.
+ *
+ * É um contador das sessoes ativas deste nó por tipo de serviço e status ({@link #counts()}, exposto em
+ * /api/ops/queue-state), sem a ordem das filas: {@link ActiveSessionState} nao tem agência, prioridade nem queue_order.
+ *
+ * As escritas sao feitas apenas pelo {@link SessionJournal}, sempre junto com o append no journal,
+ * e as leituras podem ser feitas de qualquer thread.
+ */
+@Component
+public class QueueStateStore {
+
+    private volatile Map<Long, ActiveSessionState> sessions = new ConcurrentHashMap<>();
+
+    void apply(SessionLifecycleEvent event, long sessionId, long customerId, ServiceType serviceType, long startedAtEpochMillis) {
+        apply(sessions, event, sessionId, customerId, serviceType, startedAtEpochMillis);
+    }
+
+    static void apply(Map<Long, ActiveSessionState> target, SessionLifecycleEvent event,
+                      long sessionId, long customerId, ServiceType serviceType, long startedAtEpochMillis) {
+        switch (event) {
+            case CREATED -> target.put(sessionId, new ActiveSessionState(
+                sessionId, customerId, serviceType, CustomerSessionStatus.PENDING, startedAtEpochMillis));
+            case PROMOTED -> target.compute(sessionId, (id, current) -> current != null
+                ? current.withStatus(CustomerSessionStatus.IN_PROGRESS)
+                : new ActiveSessionState(sessionId, customerId, serviceType, CustomerSessionStatus.IN_PROGRESS, startedAtEpochMillis));
+            case COMPLETED, CANCELED -> target.remove(sessionId);
+        }
+    }
+
+    void replaceAll(Map<Long, ActiveSessionState> newSessions) {
+        this.sessions = new ConcurrentHashMap<>(newSessions);
+    }
+
+    /**
+     * Sessoes ativas conhecidas por este nó.
+     */
+    public Collection<ActiveSessionState> activeSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    Map<Long, ActiveSessionState> view() {
+        return Collections.unmodifiableMap(sessions);
+    }
+
+    /**
+     * Quantidade de sessoes ativas por tipo de serviço e status.
+     */
+    public Map<ServiceType, Map<CustomerSessionStatus, Long>> counts() {
+        Map<ServiceType, Map<CustomerSessionStatus, Long>> counts = new EnumMap<>(ServiceType.class);
+        for (ServiceType serviceType : ServiceType.values()) {
+            Map<CustomerSessionStatus, Long> byStatus = new EnumMap<>(CustomerSessionStatus.class);
+            byStatus.put(CustomerSessionStatus.PENDING, 0L);
+            byStatus.put(CustomerSessionStatus.IN_PROGRESS, 0L);
+            counts.put(serviceType, byStatus);
+        }
+        for (ActiveSessionState session : sessions.values()) {
+            counts.get(session.serviceType()).merge(session.status(), 1L, Long::sum);
+        }
+        return counts;
+    }
+}
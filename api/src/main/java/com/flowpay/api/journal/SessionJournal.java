@@ -0,0 +1,621 @@
+package com.flowpay.api.journal;
+
+import com.flowpay.api.config.JournalProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecycleListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal append-only, mapeado em memória, com os eventos do ciclo de vida das sessoes.
+ *
+ * Cada evento publicado é gravado como um registro de tamanho fixo no segmento ativo do journal
+ * e aplicado no {@link QueueStateStore}. O journal tem dois segmentos (arquivos mapeados) que se alternam:
+ * quando o segmento ativo enche, ou a cada intervalo de snapshot, ele é selado e os próximos eventos vao
+ * para o outro segmento. A compactaçao do segmento selado (snapshot compacto, fsync, rename e limpeza
+ * do segmento) roda em um scheduler próprio, entao quem publica o evento só faz o append.
+ *
+ * Os eventos sao publicados nas threads do event loop, que nunca esperam pela compactaçao: se o segmento ativo
+ * encher antes do fim da compactaçao anterior (disco lento ou com erro), os eventos aguardam em uma fila limitada
+ * em memória, gravada no segmento assim que a compactaçao termina. Com essa fila cheia o evento é aplicado só no
+ * {@link QueueStateStore} e descartado do journal ({@link #droppedEvents()}); o estado recuperado no próximo
+ * startup fica incompleto e é corrigido pelo {@link QueueStateReconciler}.
+ *
+ * Cada segmento tem uma geraçao e o snapshot guarda a geraçao do último segmento que ele cobre.
+ * No startup o estado é recuperado do snapshot + segmentos de geraçao posterior, sem consultar o banco.
+ * Um crash durante a compactaçao deixa o snapshot anterior e o segmento selado (antes do rename) ou o
+ * snapshot novo e um segmento que ele já cobre (depois do rename): nos dois casos cada evento é aplicado
+ * uma única vez. A reconciliaçao com o Postgres é feita depois pelo {@link QueueStateReconciler}.
+ *
+ * Cabeçalho do segmento (16 bytes): magic, versao do formato e geraçao (0 indica segmento livre).
+ *
+ * Formato do registro (32 bytes):
+ * - byte 0: tipo do evento (ordinal + 1, 0 indica fim do segmento), escrito por último
+ * - byte 1: código do tipo de serviço ({@link ServiceType#getCode()})
+ * - bytes 2-7: reservado
+ * - bytes 8-15: id da sessao
+ * - bytes 16-23: id do cliente
+ * - bytes 24-31: started_at em epoch millis
+ */
+@Component
+@Slf4j
+public class SessionJournal implements SessionLifecycleListener {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 32;
+    private static final int JOURNAL_MAGIC = 0x464A524E;
+    private static final int SNAPSHOT_MAGIC = 0x46534E50;
+    private static final int SNAPSHOT_HEADER_SIZE = 20;
+    private static final int SNAPSHOT_RECORD_SIZE = 26;
+    private static final int FORMAT_VERSION = 3;
+
+    private static final SessionLifecycleEvent[] EVENTS = SessionLifecycleEvent.values();
+
+    private final JournalProperties properties;
+    private final QueueStateStore store;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Eventos aguardando o fim da compactaçao para entrar no segmento ativo, na ordem de publicaçao.
+     * Limitada a um segmento de eventos. Só é acessada com o lock.
+     */
+    private final Queue<JournalRecord> overflow = new ArrayDeque<>();
+    private int maxOverflow;
+    private boolean closed;
+    private boolean dropping;
+
+    private Path snapshotFile;
+    private Segment active;
+    private Segment spare;
+    private long generation;
+    private volatile CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private int replayedOnOpen;
+
+    /**
+     * Estado coberto pelo último snapshot gravado. Só é usado pela compactaçao, que roda em uma única thread.
+     */
+    private Map<Long, ActiveSessionState> snapshotState;
+
+    private List<JournalRecord> reconcileBuffer;
+    private Scheduler compactionScheduler;
+    private Disposable snapshotTask;
+
+    public SessionJournal(JournalProperties properties, QueueStateStore store) {
+        this.properties = properties;
+        this.store = store;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Abre o journal e recupera o estado das filas a partir do snapshot e dos segmentos posteriores a ele.
+     * O estado recuperado é gravado em um novo snapshot e os dois segmentos começam vazios.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Path directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        snapshotFile = directory.resolve("sessions.snapshot");
+        // Snapshot gravado por uma compactaçao interrompida antes do rename: o segmento que ele cobriria ainda existe
+        Files.deleteIfExists(temporarySnapshotFile());
+        int capacity = (int) Math.min(Integer.MAX_VALUE, properties.getCapacity().toBytes());
+        maxOverflow = (capacity - HEADER_SIZE) / RECORD_SIZE;
+
+        Snapshot snapshot = readSnapshot();
+        Map<Long, ActiveSessionState> recovered = snapshot.sessions();
+        int restored = recovered.size();
+
+        Segment first = Segment.open(directory.resolve("sessions-0.journal"), capacity);
+        Segment second = Segment.open(directory.resolve("sessions-1.journal"), capacity);
+
+        int replayed = 0;
+        long lastGeneration = snapshot.generation();
+        List<Segment> pending = new ArrayList<>(List.of(first, second));
+        pending.removeIf(segment -> segment.generation() <= snapshot.generation());
+        pending.sort(Comparator.comparingLong(Segment::generation));
+        for (Segment segment : pending) {
+            for (JournalRecord record : segment.records()) {
+                apply(recovered, record);
+                replayed++;
+            }
+            lastGeneration = segment.generation();
+        }
+
+        writeSnapshot(recovered.values(), lastGeneration);
+        first.clear();
+        second.clear();
+        snapshotState = new HashMap<>(recovered);
+        store.replaceAll(recovered);
+        replayedOnOpen = replayed;
+
+        generation = lastGeneration;
+        active = first;
+        spare = second;
+        active.start(++generation);
+
+        log.info("Estado das filas recuperado em {} ms: {} sessoes do snapshot, {} eventos do journal, {} sessoes ativas",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), restored, replayed, recovered.size());
+
+        compactionScheduler = Schedulers.newSingle("session-journal-compaction", true);
+        snapshotTask = Flux.interval(properties.getSnapshotInterval(), properties.getSnapshotInterval(), compactionScheduler)
+            .subscribe(tick -> snapshot(), error -> log.error("Falha no agendamento de snapshots do journal", error));
+    }
+
+    @Override
+    public void onSessionEvent(SessionLifecycleEvent event, CustomerSession session) {
+        if (!properties.isEnabled() || session.getId() == null) {
+            return;
+        }
+
+        JournalRecord record = new JournalRecord(
+            event,
+            session.getId(),
+            Objects.requireNonNullElse(session.getCustomerId(), 0L),
+            session.getServiceType(),
+            session.getStartedAt() != null ? session.getStartedAt().toInstant().toEpochMilli() : 0L
+        );
+
+        lock.lock();
+        try {
+            if (overflow.isEmpty() && !active.hasRoom()) {
+                rotateLocked(null);
+            }
+            if (overflow.isEmpty() && active.hasRoom()) {
+                active.append(record);
+            } else if (overflow.size() < maxOverflow) {
+                overflow.add(record);
+            } else {
+                if (!dropping) {
+                    dropping = true;
+                    log.warn("Compactaçao do journal atrasada e fila de espera cheia: eventos descartados do journal "
+                        + "até o fim da compactaçao (o estado é corrigido pela reconciliaçao no próximo startup)");
+                }
+                droppedEvents.increment();
+            }
+            store.apply(record.event(), record.sessionId(), record.customerId(),
+                record.serviceType(), record.startedAtEpochMillis());
+            if (reconcileBuffer != null) {
+                reconcileBuffer.add(record);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sela o segmento ativo e agenda a gravaçao do snapshot. Nao faz nada se o segmento estiver vazio
+     * ou se a compactaçao anterior ainda estiver em andamento.
+     */
+    public void snapshot() {
+        lock.lock();
+        try {
+            if (overflow.isEmpty() && !active.isEmpty()) {
+                rotateLocked(null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Eventos aplicados no estado em memória mas descartados do journal porque a compactaçao nao acompanhou.
+     */
+    long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Inicia a reconciliaçao com o banco: a partir daqui os eventos também sao guardados
+     * para serem reaplicados sobre o estado lido do banco.
+     */
+    void beginReconcile() {
+        lock.lock();
+        try {
+            reconcileBuffer = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Substitui o estado em memória pelo estado lido do banco, reaplicando os eventos
+     * ocorridos durante a consulta.
+     *
+     * @param fromDatabase - Sessoes ativas segundo o banco
+     * @return quantidade de sessoes que divergiam do estado recuperado localmente
+     */
+    int completeReconcile(List<ActiveSessionState> fromDatabase) {
+        lock.lock();
+        try {
+            Map<Long, ActiveSessionState> reconciled = new HashMap<>();
+            for (ActiveSessionState session : fromDatabase) {
+                reconciled.put(session.sessionId(), session);
+            }
+            if (reconcileBuffer != null) {
+                for (JournalRecord record : reconcileBuffer) {
+                    QueueStateStore.apply(reconciled, record.event(), record.sessionId(), record.customerId(),
+                        record.serviceType(), record.startedAtEpochMillis());
+                }
+            }
+            reconcileBuffer = null;
+
+            Map<Long, ActiveSessionState> current = store.view();
+            int drift = 0;
+            for (ActiveSessionState session : reconciled.values()) {
+                if (!session.equals(current.get(session.sessionId()))) {
+                    drift++;
+                }
+            }
+            for (Long sessionId : current.keySet()) {
+                if (!reconciled.containsKey(sessionId)) {
+                    drift++;
+                }
+            }
+
+            store.replaceAll(reconciled);
+            if (!overflow.isEmpty() || !rotateLocked(new HashMap<>(reconciled))) {
+                // Sem espera na thread do banco: o snapshot segue sem as correçoes até a próxima reconciliaçao
+                log.warn("Compactaçao do journal em andamento, snapshot do estado reconciliado nao gravado");
+            }
+            return drift;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void abortReconcile() {
+        lock.lock();
+        try {
+            reconcileBuffer = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (active == null) {
+            return;
+        }
+        snapshotTask.dispose();
+        lock.lock();
+        try {
+            awaitCompaction();
+            // Encerramento: o último segmento e os eventos que ainda aguardavam espaço sao compactados na própria thread
+            compact(active, null, overflow);
+            overflow.clear();
+            closed = true;
+            active.close();
+            spare.close();
+        } finally {
+            lock.unlock();
+            compactionScheduler.dispose();
+        }
+    }
+
+    /**
+     * Espera a compactaçao em andamento terminar e os eventos que aguardavam espaço entrarem no segmento ativo.
+     * Só para o encerramento e os testes: quem publica eventos nunca espera a compactaçao.
+     */
+    void awaitCompaction() {
+        CompletableFuture<Void> current;
+        do {
+            current = compaction;
+            current.join();
+            drainOverflow();
+        } while (current != compaction);
+    }
+
+    /**
+     * Eventos reaplicados dos segmentos na última abertura.
+     */
+    int replayedOnOpen() {
+        return replayedOnOpen;
+    }
+
+    /**
+     * Sela o segmento ativo, passa os próximos eventos para o outro segmento e agenda a compactaçao
+     * do segmento selado no scheduler do journal. Nunca espera: se o outro segmento ainda estiver sendo
+     * compactado, nada muda e os eventos seguem para a fila de espera.
+     *
+     * @param base - Estado completo até o fim do segmento selado, ou null para derivá-lo do último snapshot
+     * @return se o segmento foi selado
+     */
+    private boolean rotateLocked(Map<Long, ActiveSessionState> base) {
+        if (!compaction.isDone()) {
+            return false;
+        }
+        Segment sealed = active;
+        active = spare;
+        spare = sealed;
+        active.start(++generation);
+
+        CompletableFuture<Void> next = Mono.fromRunnable(() -> compact(sealed, base, List.of()))
+            .subscribeOn(compactionScheduler)
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofMinutes(1))
+                .doBeforeRetry(signal -> log.error("Falha ao compactar o journal, tentando novamente", signal.failure())))
+            .then()
+            .toFuture();
+        compaction = next;
+        next.whenComplete((ignored, error) -> {
+            if (!compactionScheduler.isDisposed()) {
+                compactionScheduler.schedule(this::drainOverflow);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Grava no segmento ativo os eventos que aguardavam o fim da compactaçao, selando o segmento cheio.
+     * Roda no scheduler do journal depois de cada compactaçao.
+     */
+    private void drainOverflow() {
+        lock.lock();
+        try {
+            if (closed || overflow.isEmpty() || (!active.hasRoom() && !rotateLocked(null))) {
+                return;
+            }
+            while (!overflow.isEmpty() && active.hasRoom()) {
+                active.append(overflow.poll());
+            }
+            if (dropping) {
+                dropping = false;
+                log.warn("Journal voltou a gravar os eventos: {} eventos descartados até agora", droppedEvents.sum());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grava o snapshot do estado até o fim do segmento selado (mais os eventos informados) e libera o segmento.
+     */
+    private void compact(Segment sealed, Map<Long, ActiveSessionState> base, Collection<JournalRecord> pending) {
+        Map<Long, ActiveSessionState> state = new HashMap<>(base != null ? base : snapshotState);
+        if (base == null) {
+            for (JournalRecord record : sealed.records()) {
+                apply(state, record);
+            }
+        }
+        for (JournalRecord record : pending) {
+            apply(state, record);
+        }
+        try {
+            writeSnapshot(state.values(), sealed.generation());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar snapshot do journal", e);
+        }
+        snapshotState = state;
+        sealed.clear();
+    }
+
+    private static void apply(Map<Long, ActiveSessionState> target, JournalRecord record) {
+        QueueStateStore.apply(target, record.event(), record.sessionId(), record.customerId(),
+            record.serviceType(), record.startedAtEpochMillis());
+    }
+
+    private Path temporarySnapshotFile() {
+        return snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+    }
+
+    private Snapshot readSnapshot() throws IOException {
+        Map<Long, ActiveSessionState> sessions = new HashMap<>();
+        if (!Files.exists(snapshotFile)) {
+            return new Snapshot(0, sessions);
+        }
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (content.remaining() < SNAPSHOT_HEADER_SIZE || content.getInt() != SNAPSHOT_MAGIC || content.getInt() != FORMAT_VERSION) {
+            log.warn("Snapshot {} inválido ou de versao antiga, ignorando", snapshotFile);
+            return new Snapshot(0, sessions);
+        }
+        long snapshotGeneration = content.getLong();
+        int count = content.getInt();
+        for (int i = 0; i < count && content.remaining() >= SNAPSHOT_RECORD_SIZE; i++) {
+            long sessionId = content.getLong();
+            long customerId = content.getLong();
+            long startedAt = content.getLong();
+            ServiceType serviceType = ServiceType.fromCode(content.get());
+            CustomerSessionStatus status = CustomerSessionStatus.fromCode(content.get());
+            sessions.put(sessionId, new ActiveSessionState(sessionId, customerId, serviceType, status, startedAt));
+        }
+        return new Snapshot(snapshotGeneration, sessions);
+    }
+
+    /**
+     * Grava o snapshot em um arquivo temporário com fsync e o publica com um rename atômico.
+     *
+     * @param coveredGeneration - Geraçao do último segmento cujos eventos estao no snapshot
+     */
+    private void writeSnapshot(Collection<ActiveSessionState> sessions, long coveredGeneration) throws IOException {
+        List<ActiveSessionState> copy = new ArrayList<>(sessions);
+        ByteBuffer content = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + copy.size() * SNAPSHOT_RECORD_SIZE);
+        content.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(coveredGeneration).putInt(copy.size());
+        for (ActiveSessionState session : copy) {
+            content.putLong(session.sessionId())
+                .putLong(session.customerId())
+                .putLong(session.startedAtEpochMillis())
+                .put((byte) session.serviceType().getCode())
+                .put((byte) session.status().getCode());
+        }
+        content.flip();
+
+        Path temp = temporarySnapshotFile();
+        try (FileChannel out = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+            out.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Snapshot(long generation, Map<Long, ActiveSessionState> sessions) {
+    }
+
+    private record JournalRecord(
+        SessionLifecycleEvent event,
+        long sessionId,
+        long customerId,
+        ServiceType serviceType,
+        long startedAtEpochMillis
+    ) {
+    }
+
+    /**
+     * Segmento do journal: arquivo de tamanho fixo mapeado em memória.
+     * Escrito só com o lock do journal (segmento ativo) ou só pela compactaçao (segmento selado).
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private int position;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Segment open(Path file, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), capacity);
+            if (segment.buffer.getInt(0) != JOURNAL_MAGIC || segment.buffer.getInt(4) != FORMAT_VERSION) {
+                if (segment.buffer.getInt(0) != 0) {
+                    log.warn("Segmento {} com formato desconhecido ou versao antiga, descartando", file);
+                }
+                segment.zero(0, capacity);
+            }
+            segment.position = HEADER_SIZE;
+            while (segment.hasRoom() && segment.buffer.get(segment.position) != 0) {
+                segment.position += RECORD_SIZE;
+            }
+            return segment;
+        }
+
+        long generation() {
+            return buffer.getInt(0) == JOURNAL_MAGIC ? buffer.getLong(8) : 0;
+        }
+
+        boolean isEmpty() {
+            return position == HEADER_SIZE;
+        }
+
+        boolean hasRoom() {
+            return position + RECORD_SIZE <= capacity;
+        }
+
+        /**
+         * Passa a receber os eventos da geraçao informada. O segmento precisa estar livre.
+         */
+        void start(long generation) {
+            buffer.putInt(0, JOURNAL_MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(8, generation);
+            position = HEADER_SIZE;
+        }
+
+        void append(JournalRecord record) {
+            buffer.put(position + 1, (byte) record.serviceType().getCode());
+            buffer.putLong(position + 8, record.sessionId());
+            buffer.putLong(position + 16, record.customerId());
+            buffer.putLong(position + 24, record.startedAtEpochMillis());
+            // O tipo é escrito por último e marca o registro como completo
+            buffer.put(position, (byte) (record.event().ordinal() + 1));
+            position += RECORD_SIZE;
+        }
+
+        List<JournalRecord> records() {
+            List<JournalRecord> records = new ArrayList<>((position - HEADER_SIZE) / RECORD_SIZE);
+            for (int offset = HEADER_SIZE; offset < position; offset += RECORD_SIZE) {
+                records.add(new JournalRecord(
+                    EVENTS[buffer.get(offset) - 1],
+                    buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16),
+                    ServiceType.fromCode(buffer.get(offset + 1)),
+                    buffer.getLong(offset + 24)
+                ));
+            }
+            return records;
+        }
+
+        /**
+         * Zera os registros e o cabeçalho, deixando o segmento livre para a próxima geraçao.
+         */
+        void clear() {
+            zero(HEADER_SIZE, position);
+            zero(0, HEADER_SIZE);
+            position = HEADER_SIZE;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        private void zero(int from, int to) {
+            int offset = from;
+            for (; offset + Long.BYTES <= to; offset += Long.BYTES) {
+                buffer.putLong(offset, 0L);
+            }
+            for (; offset < to; offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return file.getFileName().toString();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.flowpay.api.metrics;
+
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecycleListener;
+import com.flowpay.api.responses.ThroughputWindowResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vazao recente das filas: chegadas, promoçoes, conclusoes e cancelamentos por tipo de serviço
+ * nas janelas de 1, 5 e 15 minutos.
+ *
+ * Os contadores sao atualizados a partir das transiçoes publicadas pelo {@link com.flowpay.api.services.CustomerSessionService}
+ * e pelas operaçoes em lote, entao cada nó conta apenas as transiçoes das filas que ele possui.
+ * O registro é apenas um CAS em um {@link SlidingWindowCounter} indexado por (evento, tipo de serviço).
+ */
+@Component
+public class SessionThroughputMetrics implements SessionLifecycleListener {
+
+    /**
+     * Janelas publicadas, em segundos.
+     */
+    static final int[] WINDOWS = {60, 300, 900};
+
+    private static final SessionLifecycleEvent[] EVENTS = SessionLifecycleEvent.values();
+    private static final ServiceType[] SERVICE_TYPES = ServiceType.values();
+
+    private final Clock clock;
+    private final SlidingWindowCounter[] counters;
+
+    public SessionThroughputMetrics() {
+        this(Clock.systemUTC());
+    }
+
+    SessionThroughputMetrics(Clock clock) {
+        this.clock = clock;
+        this.counters = new SlidingWindowCounter[EVENTS.length * SERVICE_TYPES.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new SlidingWindowCounter(WINDOWS[WINDOWS.length - 1]);
+        }
+    }
+
+    @Override
+    public void onSessionEvent(SessionLifecycleEvent event, CustomerSession session) {
+        if (session.getServiceType() == null) {
+            return;
+        }
+        counter(event, session.getServiceType()).increment(clock.millis() / 1000);
+    }
+
+    /**
+     * Contagens de todas as janelas, uma linha por (janela, tipo de serviço).
+     */
+    public List<ThroughputWindowResponse> snapshot() {
+        long now = clock.millis() / 1000;
+        List<ThroughputWindowResponse> windows = new ArrayList<>(WINDOWS.length * SERVICE_TYPES.length);
+        for (int windowSeconds : WINDOWS) {
+            double minutes = windowSeconds / 60.0;
+            for (ServiceType serviceType : SERVICE_TYPES) {
+                long arrivals = counter(SessionLifecycleEvent.CREATED, serviceType).sum(now, windowSeconds);
+                long completions = counter(SessionLifecycleEvent.COMPLETED, serviceType).sum(now, windowSeconds);
+                windows.add(new ThroughputWindowResponse(
+                    windowSeconds / 60 + "m",
+                    serviceType,
+                    arrivals,
+                    counter(SessionLifecycleEvent.PROMOTED, serviceType).sum(now, windowSeconds),
+                    completions,
+                    counter(SessionLifecycleEvent.CANCELED, serviceType).sum(now, windowSeconds),
+                    arrivals / minutes,
+                    completions / minutes
+                ));
+            }
+        }
+        return windows;
+    }
+
+    private SlidingWindowCounter counter(SessionLifecycleEvent event, ServiceType serviceType) {
+        return counters[event.ordinal() * SERVICE_TYPES.length + serviceType.ordinal()];
+    }
+}
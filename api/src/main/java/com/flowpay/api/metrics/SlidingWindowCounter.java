@@ -0,0 +1,82 @@
+package com.flowpay.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de eventos em janela deslizante, sem locks e sem alocaçao no registro.
+ *
+ * Os eventos sao contados em um anel de buckets de um segundo. Cada bucket é um único long
+ * com o segundo (epoch) nos 40 bits altos e a contagem nos 24 bits baixos, atualizado por CAS:
+ * quando o segundo do bucket é antigo ele é reaproveitado com a contagem zerada, sem precisar
+ * de uma thread de rotaçao. Na leitura buckets de segundos fora da janela sao ignorados.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final int size;
+
+    /**
+     * @param maxWindowSeconds - Maior janela que poderá ser consultada
+     */
+    public SlidingWindowCounter(int maxWindowSeconds) {
+        if (maxWindowSeconds <= 0) {
+            throw new IllegalArgumentException("Janela deve ser positiva");
+        }
+        this.size = maxWindowSeconds;
+        this.buckets = new AtomicLongArray(maxWindowSeconds);
+    }
+
+    /**
+     * Registra um evento no segundo informado.
+     *
+     * @param epochSecond - Segundo do evento (epoch)
+     */
+    public void increment(long epochSecond) {
+        int index = (int) Math.floorMod(epochSecond, (long) size);
+        while (true) {
+            long current = buckets.get(index);
+            long bucketSecond = current >>> COUNT_BITS;
+            long next;
+            if (bucketSecond == epochSecond) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (bucketSecond < epochSecond) {
+                next = (epochSecond << COUNT_BITS) | 1;
+            } else {
+                // Thread atrasada: o bucket já pertence a um segundo mais novo, o evento é descartado
+                return;
+            }
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Soma dos eventos dos últimos windowSeconds segundos, incluindo o segundo atual.
+     *
+     * @param nowEpochSecond - Segundo atual (epoch)
+     * @param windowSeconds - Tamanho da janela, até o máximo informado na criaçao
+     * @return Total de eventos na janela
+     */
+    public long sum(long nowEpochSecond, int windowSeconds) {
+        if (windowSeconds > size) {
+            throw new IllegalArgumentException("Janela maior que o máximo do contador: " + windowSeconds);
+        }
+        long oldest = nowEpochSecond - windowSeconds;
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            long bucket = buckets.get(i);
+            long bucketSecond = bucket >>> COUNT_BITS;
+            if (bucketSecond > oldest && bucketSecond <= nowEpochSecond) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,18 @@
+package com.flowpay.api.notifications;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Canal padrao: apenas registra a notificaçao em log.
+ */
+@Slf4j
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public Mono<Void> send(Notification notification) {
+        return Mono.fromRunnable(() -> log.info("Notificaçao {} para {} (sessao {}, fila {}/{})",
+            notification.getKind(), notification.getCustomerEmail(), notification.getSessionId(),
+            notification.getBranch(), notification.getServiceType()));
+    }
+}
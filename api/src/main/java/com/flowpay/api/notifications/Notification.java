@@ -0,0 +1,31 @@
+package com.flowpay.api.notifications;
+
+import com.flowpay.api.entities.NotificationKind;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Notificaçao reservada pelo dispatcher, com os dados de contato do cliente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+public class Notification implements Serializable {
+    private Long id;
+    private Long sessionId;
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private String branch;
+    private ServiceType serviceType;
+    private NotificationKind kind;
+    private Integer attempts;
+    private OffsetDateTime createdAt;
+}
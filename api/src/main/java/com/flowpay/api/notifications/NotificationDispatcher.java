@@ -0,0 +1,148 @@
+package com.flowpay.api.notifications;
+
+import com.flowpay.api.config.NotificationProperties;
+import com.flowpay.api.repositories.NotificationOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envia as notificaçoes do outbox em segundo plano.
+ *
+ * A cada intervalo reserva um lote de notificaçoes vencidas (FOR UPDATE SKIP LOCKED, entao vários nós
+ * podem executar o dispatcher), envia pelo {@link NotificationSink} respeitando o limite de envios por segundo
+ * e de envios simultâneos, confirma os envios do lote em um único comando e reagenda as falhas com
+ * backoff exponencial até o máximo de tentativas.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final NotificationProperties properties;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationSink notificationSink;
+    private Disposable dispatchTask;
+    private Disposable cleanupTask;
+
+    public NotificationDispatcher(NotificationProperties properties, NotificationOutboxRepository notificationOutboxRepository,
+                                  NotificationSink notificationSink) {
+        this.properties = properties;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationSink = notificationSink;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        dispatchTask = Flux.interval(properties.getPollInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> dispatchBatch()
+                .onErrorResume(error -> {
+                    log.warn("Falha ao despachar notificaçoes: {}", error.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+
+        cleanupTask = Flux.interval(Duration.ofHours(1))
+            .concatMap(tick -> notificationOutboxRepository.deleteFinishedBefore(nowUtc().minus(properties.getRetention()))
+                .onErrorResume(error -> Mono.empty()))
+            .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (dispatchTask != null) {
+            dispatchTask.dispose();
+        }
+        if (cleanupTask != null) {
+            cleanupTask.dispose();
+        }
+    }
+
+    /**
+     * Reserva e envia um lote de notificaçoes.
+     *
+     * @return Quantidade de notificaçoes enviadas com sucesso
+     */
+    public Mono<Integer> dispatchBatch() {
+        LocalDateTime now = nowUtc();
+        Duration spacing = Duration.ofNanos(1_000_000_000L / Math.max(1, properties.getMaxPerSecond()));
+
+        return notificationOutboxRepository.claimDue(now, now.plus(properties.getLeaseTimeout()), properties.getBatchSize())
+            .collectList()
+            .filter(batch -> !batch.isEmpty())
+            .flatMap(batch -> Flux.fromIterable(batch)
+                .delayElements(spacing)
+                .flatMap(notification -> notificationSink.send(notification)
+                        .timeout(properties.getSendTimeout())
+                        .then(Mono.just(new Attempt(notification, null)))
+                        .onErrorResume(error -> Mono.just(new Attempt(notification, error))),
+                    properties.getMaxConcurrency())
+                .collectList()
+                .flatMap(this::record))
+            .defaultIfEmpty(0);
+    }
+
+    private Mono<Integer> record(List<Attempt> attempts) {
+        List<Long> sent = new ArrayList<>();
+        List<Attempt> failed = new ArrayList<>();
+        for (Attempt attempt : attempts) {
+            if (attempt.error() == null) {
+                sent.add(attempt.notification().getId());
+            } else {
+                failed.add(attempt);
+            }
+        }
+
+        Mono<Integer> confirmSent = sent.isEmpty()
+            ? Mono.just(0)
+            : notificationOutboxRepository.markSent(sent.toArray(Long[]::new), nowUtc());
+
+        return confirmSent
+            .thenMany(Flux.fromIterable(failed).concatMap(this::reschedule))
+            .then(Mono.fromSupplier(() -> {
+                if (!failed.isEmpty()) {
+                    log.warn("Lote de notificaçoes: {} enviadas, {} com falha", sent.size(), failed.size());
+                }
+                return sent.size();
+            }));
+    }
+
+    private Mono<Integer> reschedule(Attempt attempt) {
+        Notification notification = attempt.notification();
+        int attempts = notification.getAttempts() + 1;
+        if (attempts >= properties.getMaxAttempts()) {
+            log.error("Notificaçao {} da sessao {} descartada após {} tentativas: {}",
+                notification.getId(), notification.getSessionId(), attempts, attempt.error().getMessage());
+        }
+        return notificationOutboxRepository.markFailed(notification.getId(), String.valueOf(attempt.error().getMessage()),
+            nowUtc().plus(backoff(attempts)), properties.getMaxAttempts());
+    }
+
+    /**
+     * Espera antes da próxima tentativa: backoff inicial dobrado a cada falha, limitado ao máximo.
+     */
+    Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+
+    private static LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private record Attempt(Notification notification, Throwable error) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.flowpay.api.notifications;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.NotificationProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.repositories.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Grava as notificaçoes das promoçoes no outbox (notification_outbox).
+ *
+ * É composto dentro da transaçao da promoçao: a notificaçao existe se e somente se a promoçao
+ * foi confirmada, e nenhum envio acontece no caminho da promoçao (ver {@link NotificationDispatcher}).
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutbox {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationProperties properties;
+
+    /**
+     * Grava PROMOTED para as sessoes promovidas e TURN_APPROACHING para as primeiras da fila de cada uma.
+     *
+     * @param promoted - Sessoes promovidas na transaçao atual
+     * @return Mono<Void>
+     */
+    public Mono<Void> enqueuePromotions(List<CustomerSession> promoted) {
+        if (!properties.isEnabled() || promoted.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<QueueKey, List<CustomerSession>> byQueue = promoted.stream()
+            .collect(Collectors.groupingBy(session -> QueueKey.of(session.getBranch(), session.getServiceType()),
+                LinkedHashMap::new, Collectors.toList()));
+
+        return Flux.fromIterable(byQueue.entrySet())
+            .concatMap(entry -> notificationOutboxRepository.enqueue(
+                entry.getValue().stream().map(CustomerSession::getId).toArray(Long[]::new),
+                entry.getKey().branch(),
+                entry.getKey().serviceType(),
+                properties.getTurnApproachingPositions()))
+            .then();
+    }
+}
@@ -0,0 +1,12 @@
+package com.flowpay.api.notifications;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Canal de entrega das notificaçoes (SMS, email, webhook).
+ * Uma falha (erro do Mono) faz o dispatcher tentar novamente mais tarde.
+ */
+public interface NotificationSink {
+
+    Mono<Void> send(Notification notification);
+}
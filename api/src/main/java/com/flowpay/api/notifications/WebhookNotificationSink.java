@@ -0,0 +1,31 @@
+package com.flowpay.api.notifications;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Envia a notificaçao como JSON para um webhook (ex: gateway de SMS ou email).
+ * Respostas 4xx e 5xx sao tratadas como falha e reenviadas pelo dispatcher.
+ */
+public class WebhookNotificationSink implements NotificationSink {
+
+    private final WebClient webClient;
+
+    public WebhookNotificationSink(String webhookUrl) {
+        if (webhookUrl == null || webhookUrl.isBlank()) {
+            throw new IllegalStateException("flowpay.notifications.webhook-url é obrigatório com sink WEBHOOK");
+        }
+        this.webClient = WebClient.create(webhookUrl);
+    }
+
+    @Override
+    public Mono<Void> send(Notification notification) {
+        return webClient.post()
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(notification)
+            .retrieve()
+            .toBodilessEntity()
+            .then();
+    }
+}
@@ -0,0 +1,33 @@
+package com.flowpay.api.queue;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Prioridade com envelhecimento.
+ *
+ * Cada classe recebe uma vantagem fixa de tempo: a sessao entra na fila como se tivesse chegado
+ * "vantagem" antes. Como a espera de todos cresce na mesma velocidade, isso equivale a uma prioridade
+ * que aumenta linearmente com o tempo de espera: um cliente REGULAR só é ultrapassado por clientes
+ * prioritários que chegaram até "vantagem" depois dele, entao a espera extra é limitada e nao há starvation.
+ */
+public class AgingPriorityQueueDiscipline implements QueueDiscipline {
+
+    private final Map<PriorityClass, Long> headStartMillis = new EnumMap<>(PriorityClass.class);
+
+    public AgingPriorityQueueDiscipline(Map<PriorityClass, Duration> headStart) {
+        for (PriorityClass priority : PriorityClass.values()) {
+            this.headStartMillis.put(priority, headStart.getOrDefault(priority, Duration.ZERO).toMillis());
+        }
+    }
+
+    @Override
+    public long orderKey(QueueKey queueKey, PriorityClass priority, Instant enqueuedAt) {
+        return enqueuedAt.toEpochMilli() - headStartMillis.get(priority);
+    }
+}
@@ -0,0 +1,17 @@
+package com.flowpay.api.queue;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+
+import java.time.Instant;
+
+/**
+ * Ordem de chegada, ignorando a prioridade.
+ */
+public class FifoQueueDiscipline implements QueueDiscipline {
+
+    @Override
+    public long orderKey(QueueKey queueKey, PriorityClass priority, Instant enqueuedAt) {
+        return enqueuedAt.toEpochMilli();
+    }
+}
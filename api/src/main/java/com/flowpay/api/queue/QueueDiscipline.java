@@ -0,0 +1,46 @@
+package com.flowpay.api.queue;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Política de ordenaçao de uma fila.
+ *
+ * A política é aplicada uma única vez, na entrada da sessao na fila, e produz a chave de ordenaçao
+ * gravada em customer_sessions.queue_order. Promoçao e posiçao na fila apenas comparam essa chave
+ * (com o id como desempate), entao escolher o próximo continua sendo uma leitura do índice
+ * customer_sessions_pending_order_idx e a posiçao exibida ao cliente é sempre coerente com a ordem de promoçao.
+ */
+public interface QueueDiscipline {
+
+    /**
+     * Calcula a chave de ordenaçao de uma sessao que está entrando na fila (menor = atendido antes).
+     * A chave é expressa em milissegundos de época, para que políticas diferentes continuem comparáveis.
+     *
+     * @param queueKey - Fila em que a sessao entra
+     * @param priority - Classe de prioridade da sessao
+     * @param enqueuedAt - Instante de entrada na fila
+     * @return Chave de ordenaçao
+     */
+    long orderKey(QueueKey queueKey, PriorityClass priority, Instant enqueuedAt);
+
+    /**
+     * Indica se a política precisa das chaves já gravadas na fila antes de calcular a próxima
+     * (estado em memória que ainda nao existe neste nó, ex: depois de um restart).
+     */
+    default boolean needsRecovery(QueueKey queueKey) {
+        return false;
+    }
+
+    /**
+     * Restaura o estado da política para a fila a partir da maior chave de cada classe entre as sessoes PENDING.
+     *
+     * @param queueKey - Fila
+     * @param lastOrderKeys - Maior queue_order de cada classe com sessoes PENDING na fila
+     */
+    default void recover(QueueKey queueKey, Map<PriorityClass, Long> lastOrderKeys) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.flowpay.api.queue;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prioridade ponderada (weighted fair queuing).
+ *
+ * Cada classe tem um relógio virtual por fila. Uma sessao recebe a chave max(agora, relógio da classe)
+ * + quantum / peso e o relógio da classe avança até essa chave. Com a fila cheia, as classes sao atendidas
+ * na proporçao dos pesos (ex: ACCESSIBILITY 4 : PREMIUM 2 : REGULAR 1); com a fila vazia a chave
+ * fica próxima do instante de chegada e a política se comporta como FIFO com vantagem de quantum / peso.
+ *
+ * Os relógios ficam em memória: como cada fila tem um único nó dono, só ele atribui chaves.
+ * Na primeira sessao de uma fila depois de um restart (ou de assumir a fila), os relógios sao restaurados
+ * a partir do queue_order das sessoes PENDING: o relógio de cada classe é a maior chave já atribuída a ela.
+ * Uma classe sem sessoes na fila recomeça do instante atual, como uma classe que ficou ociosa.
+ *
+ * Os relógios de uma fila com todas as classes atrás do instante atual nao mudam nenhuma chave futura
+ * (a chave parte de max(agora, relógio)), entao sao removidos, no máximo uma vez por quantum: a agência vem do
+ * cliente e o mapa só guarda as filas com relógios à frente do tempo.
+ */
+public class WeightedPriorityQueueDiscipline implements QueueDiscipline {
+
+    private final Map<PriorityClass, Long> stepMillis = new EnumMap<>(PriorityClass.class);
+    private final Map<QueueKey, long[]> virtualClocks = new ConcurrentHashMap<>();
+    private final long evictionIntervalMillis;
+    private final AtomicLong lastEviction = new AtomicLong();
+
+    public WeightedPriorityQueueDiscipline(Map<PriorityClass, Integer> weights, Duration quantum) {
+        for (PriorityClass priority : PriorityClass.values()) {
+            int weight = weights.getOrDefault(priority, 1);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Peso da prioridade " + priority + " deve ser positivo");
+            }
+            this.stepMillis.put(priority, Math.max(1, quantum.toMillis() / weight));
+        }
+        this.evictionIntervalMillis = Math.max(1, quantum.toMillis());
+    }
+
+    @Override
+    public boolean needsRecovery(QueueKey queueKey) {
+        return !virtualClocks.containsKey(queueKey);
+    }
+
+    @Override
+    public void recover(QueueKey queueKey, Map<PriorityClass, Long> lastOrderKeys) {
+        long[] clocks = new long[PriorityClass.values().length];
+        lastOrderKeys.forEach((priority, orderKey) -> clocks[priority.ordinal()] = orderKey);
+        virtualClocks.putIfAbsent(queueKey, clocks);
+    }
+
+    @Override
+    public long orderKey(QueueKey queueKey, PriorityClass priority, Instant enqueuedAt) {
+        long now = enqueuedAt.toEpochMilli();
+        evictIdle(now);
+        long[] key = new long[1];
+        virtualClocks.compute(queueKey, (queue, clocks) -> {
+            long[] current = clocks != null ? clocks : new long[PriorityClass.values().length];
+            int index = priority.ordinal();
+            key[0] = Math.max(now, current[index]) + stepMillis.get(priority);
+            current[index] = key[0];
+            return current;
+        });
+        return key[0];
+    }
+
+    /**
+     * Filas com relógios virtuais em memória.
+     */
+    int trackedQueues() {
+        return virtualClocks.size();
+    }
+
+    /**
+     * Remove as filas com todos os relógios até o instante atual, no máximo uma vez por quantum.
+     */
+    private void evictIdle(long now) {
+        long last = lastEviction.get();
+        if (now - last < evictionIntervalMillis || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        for (QueueKey queueKey : virtualClocks.keySet()) {
+            virtualClocks.computeIfPresent(queueKey, (queue, clocks) -> isIdle(clocks, now) ? null : clocks);
+        }
+    }
+
+    private static boolean isIdle(long[] clocks, long now) {
+        for (long clock : clocks) {
+            if (clock > now) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
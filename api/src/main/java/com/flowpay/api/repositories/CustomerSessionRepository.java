@@ -2,6 +2,10 @@ package com.flowpay.api.repositories;
 
 import com.flowpay.api.entities.CustomerSessionStatus;
 import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.QueueBoardEntry;
+import com.flowpay.api.responses.SessionExportRow;
+import com.flowpay.api.simulation.SessionReplayRow;
 
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -9,32 +13,22 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface CustomerSessionRepository extends ReactiveCrudRepository<CustomerSession, Long> {
 
     /**
      * Calcula a posiçao na fila para um atendimento específico pelo email.
-     * Considera apenas sessoes do mesmo tipo de serviço.
+     * Considera apenas sessoes da mesma fila (agência e tipo de serviço) e a mesma ordem
+     * usada na promoçao: (queue_order, id).
      *
      * @param email Email do cliente
      * @return Posiçao na fila (1 = primeiro da fila)
      */
     @Query("""
-           SELECT COUNT(*) + 1
-           FROM customer_sessions cs
-           WHERE cs.started_at < (
-               SELECT s.started_at
-               FROM customer_sessions s
-               JOIN customers c ON s.customer_id = c.id
-               WHERE c.email = :email
-               AND s.finished_at IS NULL
-               ORDER BY s.started_at DESC
-               LIMIT 1
-           )
-           AND cs.finished_at IS NULL
-           AND cs.status = 'PENDING'
-           AND cs.service_type = (
-               SELECT s.service_type
+           WITH current_session AS (
+               SELECT s.id, s.queue_order, s.branch, s.service_type
                FROM customer_sessions s
                JOIN customers c ON s.customer_id = c.id
                WHERE c.email = :email
@@ -42,24 +36,134 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
                ORDER BY s.started_at DESC
                LIMIT 1
            )
+           SELECT COUNT(cs.id) + 1
+           FROM current_session cur
+           LEFT JOIN customer_sessions cs
+               ON cs.finished_at IS NULL
+               AND cs.status = 1 /* PENDING */
+               AND cs.branch = cur.branch
+               AND cs.service_type = cur.service_type
+               AND (cs.queue_order, cs.id) < (cur.queue_order, cur.id)
            """)
     Mono<Long> findQueuePositionByCustomerEmail(String email);
 
     /**
-     * Retorna o próximo atendimento a ser chamado (primeiro da fila FIFO) de um tipo de serviço.
+     * Calcula a posiçao na fila de uma sessao pela chave primária, com a mesma regra de
+     * {@link #findQueuePositionByCustomerEmail(String)} e sem o JOIN com customers.
+     * A contagem usa o índice customer_sessions_pending_order_idx.
      *
+     * @param sessionId Id da sessao
+     * @return Posiçao na fila (1 = primeiro da fila)
+     */
+    @Query("""
+           SELECT COUNT(cs.id) + 1
+           FROM customer_sessions cur
+           LEFT JOIN customer_sessions cs
+               ON cs.finished_at IS NULL
+               AND cs.status = 1 /* PENDING */
+               AND cs.branch = cur.branch
+               AND cs.service_type = cur.service_type
+               AND (cs.queue_order, cs.id) < (cur.queue_order, cur.id)
+           WHERE cur.id = :sessionId
+           """)
+    Mono<Long> findQueuePositionBySessionId(Long sessionId);
+
+    /**
+     * Retorna o próximo atendimento a ser chamado de uma fila, na ordem definida pela
+     * política de fila (queue_order, com o id como desempate).
+     *
+     * @param branch Agência
      * @param serviceType Tipo de serviço
      * @return Primeiro atendimento da fila
      */
     @Query("""
        SELECT * FROM customer_sessions
        WHERE finished_at IS NULL
-       AND status = 'PENDING'
+       AND status = 1 /* PENDING */
+       AND branch = :branch
        AND service_type = :serviceType
-       ORDER BY started_at
+       ORDER BY queue_order, id
        LIMIT 1
        """)
-    Mono<CustomerSession> findNextInQueueByServiceType(String serviceType);
+    Mono<CustomerSession> findNextInQueueByBranchAndServiceType(String branch, ServiceType serviceType);
+
+    /**
+     * Retorna o primeiro da fila de cada fila (agência e tipo de serviço) com sessoes PENDING,
+     * percorrendo o índice da ordem de promoçao. Usado pelo sweeper para achar filas paradas.
+     *
+     * @return Primeiro atendimento de cada fila com espera
+     */
+    @Query("""
+       SELECT DISTINCT ON (branch, service_type) * FROM customer_sessions
+       WHERE finished_at IS NULL
+       AND status = 1 /* PENDING */
+       ORDER BY branch, service_type, queue_order, id
+       """)
+    Flux<CustomerSession> findQueueHeads();
+
+    /**
+     * Retorna a última sessao PENDING (maior queue_order) de cada classe de prioridade de uma fila.
+     * Usado para restaurar o estado da política de fila (ex: relógios virtuais) depois de um restart.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @return Uma sessao por classe de prioridade com sessoes PENDING
+     */
+    @Query("""
+       SELECT DISTINCT ON (priority) * FROM customer_sessions
+       WHERE finished_at IS NULL
+       AND status = 1 /* PENDING */
+       AND branch = :branch
+       AND service_type = :serviceType
+       ORDER BY priority, queue_order DESC
+       """)
+    Flux<CustomerSession> findLastPendingPerPriority(String branch, ServiceType serviceType);
+
+    /**
+     * Retorna as sessoes PENDING de uma fila em ordem de promoçao (queue_order, id) com a posiçao
+     * de cada uma e o tamanho total da fila, em uma única consulta sobre customer_sessions_pending_order_idx.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param limit Quantidade máxima de sessoes
+     * @return Sessoes da fila com posiçao (1 = primeiro da fila)
+     */
+    @Query("""
+       SELECT ROW_NUMBER() OVER (ORDER BY cs.queue_order, cs.id) AS position,
+              COUNT(*) OVER () AS queue_size,
+              cs.id AS session_id,
+              c.name AS customer_name,
+              cs.priority,
+              cs.started_at
+       FROM customer_sessions cs
+       JOIN customers c ON c.id = cs.customer_id
+       WHERE cs.finished_at IS NULL
+       AND cs.status = 1 /* PENDING */
+       AND cs.branch = :branch
+       AND cs.service_type = :serviceType
+       ORDER BY cs.queue_order, cs.id
+       LIMIT :limit
+       """)
+    Flux<QueueBoardEntry> findQueueBoard(String branch, ServiceType serviceType, int limit);
+
+    /**
+     * Retorna sessoes ativas com o status informado iniciadas antes do instante informado, das mais antigas
+     * para as mais recentes. Usado pelo sweeper para expirar sessoes esquecidas.
+     *
+     * @param status Status atual
+     * @param startedBefore Instante de corte (UTC)
+     * @param limit Quantidade máxima de sessoes
+     * @return Sessoes ativas iniciadas antes do corte
+     */
+    @Query("""
+       SELECT * FROM customer_sessions
+       WHERE finished_at IS NULL
+       AND status = :status
+       AND started_at < :startedBefore
+       ORDER BY started_at, id
+       LIMIT :limit
+       """)
+    Flux<CustomerSession> findStaleActive(CustomerSessionStatus status, LocalDateTime startedBefore, int limit);
 
     /**
      * Retorna o próximo atendimento a ser chamado (primeiro da fila FIFO).
@@ -68,7 +172,7 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
      */
     @Query("SELECT * FROM customer_sessions " +
            "WHERE finished_at IS NULL " +
-           "AND status = 'PENDING' " +
+           "AND status = 1 /* PENDING */ " +
            "ORDER BY started_at " +
            "LIMIT 1")
     Mono<CustomerSession> findNextInQueue();
@@ -80,20 +184,11 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
      */
     @Query("SELECT * FROM customer_sessions " +
            "WHERE finished_at IS NULL " +
-           "AND status = 'IN_PROGRESS' " +
+           "AND status = 2 /* IN_PROGRESS */ " +
            "ORDER BY started_at")
     Flux<CustomerSession> findAllInProgress();
 
 
-    @Query("""
-            UPDATE customer_sessions
-            SET finished_at = CURRENT_TIMESTAMP AT TIME ZONE 'UTC', status = :status
-            WHERE customer_id = (SELECT id FROM customers WHERE email = :email)
-            AND finished_at IS NULL
-    """)
-    Mono<Void> setFinishedAtToNow(String email, CustomerSessionStatus status);
-
-
     /**
      * Conta quantos atendimentos estao na fila aguardando.
      *
@@ -102,10 +197,40 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
     @Query("""
            SELECT COUNT(*) FROM customer_sessions
            WHERE finished_at IS NULL
-           AND status = 'PENDING'
+           AND status = 1 /* PENDING */
           """)
     Mono<Long> countPendingInQueue();
 
+    /**
+     * Conta quantos atendimentos estao na fila aguardando para um tipo de serviço.
+     *
+     * @param serviceType Tipo de serviço
+     * @return Total de atendimentos na fila do tipo de serviço
+     */
+    @Query("""
+    SELECT COUNT(*) FROM customer_sessions
+    WHERE finished_at IS NULL
+    AND status = 1 /* PENDING */
+    AND service_type = :serviceType
+    """)
+    Mono<Long> countPendingByServiceType(ServiceType serviceType);
+
+    /**
+     * Conta quantos atendimentos estao aguardando em uma fila.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @return Total de atendimentos na fila
+     */
+    @Query("""
+    SELECT COUNT(*) FROM customer_sessions
+    WHERE finished_at IS NULL
+    AND status = 1 /* PENDING */
+    AND branch = :branch
+    AND service_type = :serviceType
+    """)
+    Mono<Long> countPendingByBranchAndServiceType(String branch, ServiceType serviceType);
+
     /**
      * Conta quantos atendimentos estao IN_PROGRESS para um tipo de serviço.
      *
@@ -115,26 +240,27 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
     @Query("""
     SELECT COUNT(*) FROM customer_sessions
     WHERE finished_at IS NULL
-    AND status = 'IN_PROGRESS'
+    AND status = 2 /* IN_PROGRESS */
     AND service_type = :serviceType
     """)
-    Mono<Long> countInProgressByServiceType(String serviceType);
-
+    Mono<Long> countInProgressByServiceType(ServiceType serviceType);
 
     /**
-     * Retorna todas as sessoes PENDING de um tipo de serviço.
+     * Conta quantos atendimentos estao IN_PROGRESS em uma fila.
      *
+     * @param branch Agência
      * @param serviceType Tipo de serviço
-     * @return Lista de sessoes pendentes
+     * @return Total de atendimentos em progresso
      */
     @Query("""
-    SELECT * FROM customer_sessions
+    SELECT COUNT(*) FROM customer_sessions
     WHERE finished_at IS NULL
-    AND status = 'PENDING'
+    AND status = 2 /* IN_PROGRESS */
+    AND branch = :branch
     AND service_type = :serviceType
-    ORDER BY started_at
     """)
-    Flux<CustomerSession> findAllPendingByServiceType(String serviceType);
+    Mono<Long> countInProgressByBranchAndServiceType(String branch, ServiceType serviceType);
+
 
     /**
      * Retorna todas as sessoes ativas (PENDING ou IN_PROGRESS) de um tipo de serviço.
@@ -145,11 +271,11 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
     @Query("""
     SELECT * FROM customer_sessions
     WHERE finished_at IS NULL
-    AND (status = 'PENDING' OR status = 'IN_PROGRESS')
+    AND (status = 1 /* PENDING */ OR status = 2 /* IN_PROGRESS */)
     AND service_type = :serviceType
     ORDER BY started_at
     """)
-    Flux<CustomerSession> findAllActiveByServiceType(String serviceType);
+    Flux<CustomerSession> findAllActiveByServiceType(ServiceType serviceType);
 
     /**
      * Retorna todas as sessoes IN_PROGRESS de um tipo de serviço.
@@ -160,11 +286,404 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
     @Query("""
     SELECT * FROM customer_sessions
     WHERE finished_at IS NULL
-    AND status = 'IN_PROGRESS'
+    AND status = 2 /* IN_PROGRESS */
+    AND service_type = :serviceType
+    ORDER BY started_at
+    """)
+    Flux<CustomerSession> findAllInProgressByServiceType(ServiceType serviceType);
+
+    /**
+     * Retorna todas as sessoes IN_PROGRESS de uma fila.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @return Lista de sessoes em andamento
+     */
+    @Query("""
+    SELECT * FROM customer_sessions
+    WHERE finished_at IS NULL
+    AND status = 2 /* IN_PROGRESS */
+    AND branch = :branch
     AND service_type = :serviceType
     ORDER BY started_at
     """)
-    Flux<CustomerSession> findAllInProgressByServiceType(String serviceType);
+    Flux<CustomerSession> findAllInProgressByBranchAndServiceType(String branch, ServiceType serviceType);
+
+    /**
+     * Retorna todas as sessoes ativas (PENDING ou IN_PROGRESS) de todos os tipos de serviço.
+     *
+     * @return Lista de sessoes ativas
+     */
+    @Query("""
+    SELECT * FROM customer_sessions
+    WHERE finished_at IS NULL
+    ORDER BY started_at
+    """)
+    Flux<CustomerSession> findAllActive();
+
+    /**
+     * Página da exportaçao de histórico: sessoes finalizadas com os dados do cliente,
+     * paginadas por keyset em (started_at, id) e atendidas pelo índice customer_sessions_finished_export_idx.
+     *
+     * @param afterStartedAt started_at da última linha da página anterior (ou início do período)
+     * @param afterId id da última linha da página anterior (ou 0)
+     * @param until Fim do período (exclusivo)
+     * @param serviceType Filtro opcional por tipo de serviço
+     * @param status Filtro opcional por status final
+     * @param limit Tamanho da página
+     * @return Linhas da página em ordem de (started_at, id)
+     */
+    @Query("""
+    SELECT cs.id AS session_id,
+           cs.customer_id,
+           c.name AS customer_name,
+           c.email AS customer_email,
+           cs.branch,
+           cs.service_type,
+           cs.status,
+           cs.started_at,
+           cs.finished_at
+    FROM customer_sessions cs
+    JOIN customers c ON c.id = cs.customer_id
+    WHERE cs.finished_at IS NOT NULL
+    AND (cs.started_at, cs.id) > (:afterStartedAt, :afterId)
+    AND cs.started_at < :until
+    AND (:serviceType IS NULL OR cs.service_type = :serviceType)
+    AND (:status IS NULL OR cs.status = :status)
+    ORDER BY cs.started_at, cs.id
+    LIMIT :limit
+    """)
+    Flux<SessionExportRow> findFinishedPage(LocalDateTime afterStartedAt, long afterId, LocalDateTime until,
+                                            ServiceType serviceType, CustomerSessionStatus status, int limit);
+
+    /**
+     * Retorna uma página do histórico de sessoes finalizadas para o simulador de filas, com o instante
+     * da promoçao lido do stream de mudanças (nulo se a sessao nunca foi promovida).
+     * Mesma paginaçao por keyset em (started_at, id) da exportaçao.
+     *
+     * @param afterStartedAt Início da última sessao da página anterior (UTC)
+     * @param afterId Id da última sessao da página anterior
+     * @param until Fim do período (exclusivo, UTC)
+     * @param limit Tamanho máximo da página
+     * @return Linhas da página em ordem de (started_at, id)
+     */
+    @Query("""
+    SELECT cs.id AS session_id,
+           cs.branch,
+           cs.service_type,
+           cs.priority,
+           cs.status,
+           cs.started_at,
+           promotion.changed_at AS promoted_at,
+           cs.finished_at
+    FROM customer_sessions cs
+    LEFT JOIN LATERAL (
+        SELECT sc.changed_at FROM session_changes sc
+        WHERE sc.session_id = cs.id
+        AND sc.status = 2 /* IN_PROGRESS */
+        ORDER BY sc.id
+        LIMIT 1
+    ) promotion ON TRUE
+    WHERE cs.finished_at IS NOT NULL
+    AND (cs.started_at, cs.id) > (:afterStartedAt, :afterId)
+    AND cs.started_at < :until
+    ORDER BY cs.started_at, cs.id
+    LIMIT :limit
+    """)
+    Flux<SessionReplayRow> findReplayPage(LocalDateTime afterStartedAt, long afterId, LocalDateTime until, int limit);
+
+    /**
+     * Serializa as promoçoes e mudanças de status de uma fila até o fim da transaçao.
+     * Deve ser adquirido antes da primeira escrita da transaçao: assim o xid das mudanças gravadas
+     * no stream segue a ordem do lock ({@link SessionChangeRepository#findAfter(long, int)}).
+     * Transaçoes com várias filas adquirem os locks em ordem crescente de lockId.
+     *
+     * @param lockId Chave do advisory lock da fila ({@link com.flowpay.api.cluster.QueueKey#lockId()})
+     */
+    @Query("SELECT pg_advisory_xact_lock(:lockId)")
+    Mono<Void> lockQueue(long lockId);
+
+    /**
+     * Promove os próximos da fila para IN_PROGRESS até ocupar os slots livres, em um único comando:
+     * conta as sessoes IN_PROGRESS, seleciona as primeiras PENDING na ordem da fila e grava as mudanças
+     * no stream de mudanças.
+     *
+     * Deve ser executado na mesma transaçao, depois de {@link #lockQueue(long)}, para que contagem
+     * e atualizaçao nao sejam intercaladas com outra promoçao da mesma fila.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param maxSlots Slots de atendimento da fila
+     * @return Sessoes promovidas
+     */
+    @Query("""
+    WITH next_in_queue AS (
+        SELECT id FROM customer_sessions
+        WHERE finished_at IS NULL
+        AND status = 1 /* PENDING */
+        AND branch = :branch
+        AND service_type = :serviceType
+        ORDER BY queue_order, id
+        LIMIT GREATEST(:maxSlots - (
+            SELECT COUNT(*) FROM customer_sessions
+            WHERE finished_at IS NULL
+            AND status = 2 /* IN_PROGRESS */
+            AND branch = :branch
+            AND service_type = :serviceType
+        ), 0)
+    ), updated AS (
+        UPDATE customer_sessions cs
+        SET status = 2 /* IN_PROGRESS */, version = cs.version + 1
+        FROM next_in_queue n
+        WHERE cs.id = n.id
+        RETURNING cs.*
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+        ORDER BY u.queue_order, u.id
+    )
+    SELECT * FROM updated
+    ORDER BY queue_order, id
+    """)
+    Flux<CustomerSession> promoteNextInQueue(String branch, ServiceType serviceType, int maxSlots);
+
+    /**
+     * Promove o primeiro da fila para IN_PROGRESS com o atendente cujo slot foi reservado,
+     * gravando a mudança no stream de mudanças no mesmo comando.
+     * Deve ser executado na mesma transaçao, depois de {@link #lockQueue(long)}.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param attendantId Atendente do slot reservado
+     * @return Sessao promovida (vazio se a fila estiver vazia)
+     */
+    @Query("""
+    WITH next_in_queue AS (
+        SELECT id FROM customer_sessions
+        WHERE finished_at IS NULL
+        AND status = 1 /* PENDING */
+        AND branch = :branch
+        AND service_type = :serviceType
+        ORDER BY queue_order, id
+        LIMIT 1
+    ), updated AS (
+        UPDATE customer_sessions cs
+        SET status = 2 /* IN_PROGRESS */, attendant_id = :attendantId, version = cs.version + 1
+        FROM next_in_queue n
+        WHERE cs.id = n.id
+        RETURNING cs.*
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+    )
+    SELECT * FROM updated
+    """)
+    Mono<CustomerSession> promoteNextToAttendant(String branch, ServiceType serviceType, String attendantId);
+
+    /**
+     * Variante de {@link #promoteNextToAttendant(String, ServiceType, String)} para as operaçoes em lote:
+     * promove a primeira sessao PENDING da fila entre as informadas.
+     *
+     * @param ids Ids das sessoes selecionadas
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param attendantId Atendente do slot reservado
+     * @return Sessao promovida (vazio se nenhuma das sessoes estiver PENDING nesta fila)
+     */
+    @Query("""
+    WITH next_in_queue AS (
+        SELECT id FROM customer_sessions
+        WHERE id = ANY(:ids)
+        AND finished_at IS NULL
+        AND status = 1 /* PENDING */
+        AND branch = :branch
+        AND service_type = :serviceType
+        ORDER BY queue_order, id
+        LIMIT 1
+    ), updated AS (
+        UPDATE customer_sessions cs
+        SET status = 2 /* IN_PROGRESS */, attendant_id = :attendantId, version = cs.version + 1
+        FROM next_in_queue n
+        WHERE cs.id = n.id
+        RETURNING cs.*
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+    )
+    SELECT * FROM updated
+    """)
+    Mono<CustomerSession> promoteSelectedToAttendant(Long[] ids, String branch, ServiceType serviceType, String attendantId);
+
+    /**
+     * Sessoes IN_PROGRESS de um atendente (reconciliaçao dos slots no login).
+     *
+     * @param attendantId Atendente
+     * @return Sessoes em andamento do atendente
+     */
+    @Query("""
+    SELECT * FROM customer_sessions
+    WHERE finished_at IS NULL
+    AND status = 2 /* IN_PROGRESS */
+    AND attendant_id = :attendantId
+    """)
+    Flux<CustomerSession> findAllInProgressByAttendant(String attendantId);
+
+    /**
+     * Seleçao por filtro das operaçoes em lote: ids das sessoes ativas de uma fila, na ordem da fila.
+     *
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param status Filtro opcional por status atual
+     * @param startedBefore Filtro opcional: sessoes iniciadas antes deste instante
+     * @param limit Quantidade máxima de ids
+     * @return Ids das sessoes selecionadas
+     */
+    @Query("""
+    SELECT id FROM customer_sessions
+    WHERE finished_at IS NULL
+    AND branch = :branch
+    AND service_type = :serviceType
+    AND (:status IS NULL OR status = :status)
+    AND (CAST(:startedBefore AS TIMESTAMP) IS NULL OR started_at < :startedBefore)
+    ORDER BY queue_order, id
+    LIMIT :limit
+    """)
+    Flux<Long> findActiveIdsForBulk(String branch, ServiceType serviceType, CustomerSessionStatus status,
+                                    LocalDateTime startedBefore, int limit);
+
+    /**
+     * Completa em lote as sessoes IN_PROGRESS informadas, registrando as mudanças no stream de mudanças
+     * no mesmo comando. Sessoes em outro status nao sao alteradas.
+     * Deve ser executado na mesma transaçao, depois do {@link #lockQueue(long)} de cada fila das sessoes.
+     *
+     * @param ids Ids das sessoes
+     * @return Sessoes alteradas (com o novo status)
+     */
+    @Query("""
+    WITH updated AS (
+        UPDATE customer_sessions
+        SET status = 3 /* COMPLETED */, finished_at = CURRENT_TIMESTAMP AT TIME ZONE 'UTC', version = version + 1
+        WHERE id = ANY(:ids)
+        AND finished_at IS NULL
+        AND status = 2 /* IN_PROGRESS */
+        RETURNING *
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+        ORDER BY u.id
+    )
+    SELECT * FROM updated
+    """)
+    Flux<CustomerSession> completeAll(Long[] ids);
+
+    /**
+     * Cancela em lote as sessoes ativas (PENDING ou IN_PROGRESS) informadas, registrando as mudanças
+     * no stream de mudanças no mesmo comando.
+     * Deve ser executado na mesma transaçao, depois do {@link #lockQueue(long)} de cada fila das sessoes.
+     *
+     * @param ids Ids das sessoes
+     * @return Sessoes alteradas (com o novo status)
+     */
+    @Query("""
+    WITH updated AS (
+        UPDATE customer_sessions
+        SET status = 4 /* CANCELED */, finished_at = CURRENT_TIMESTAMP AT TIME ZONE 'UTC', version = version + 1
+        WHERE id = ANY(:ids)
+        AND finished_at IS NULL
+        RETURNING *
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+        ORDER BY u.id
+    )
+    SELECT * FROM updated
+    """)
+    Flux<CustomerSession> cancelAll(Long[] ids);
+
+    /**
+     * Finaliza em lote sessoes com status finais diferentes (group commit das finalizaçoes individuais),
+     * registrando as mudanças no stream de mudanças no mesmo comando.
+     * Cada sessao só é alterada se ainda estiver ativa no status esperado: o status esperado impede que
+     * uma promoçao concorrente seja sobrescrita (ex: cancelar como PENDING uma sessao que acabou de entrar em atendimento).
+     * Os arrays sao paralelos e os ids nao podem se repetir.
+     * Deve ser executado na mesma transaçao, depois do {@link #lockQueue(long)} de cada fila das sessoes.
+     *
+     * @param ids Ids das sessoes
+     * @param expectedStatuses Código do status lido antes da finalizaçao, por sessao
+     * @param statuses Código do status final, por sessao
+     * @return Sessoes alteradas (com o novo status)
+     */
+    @Query("""
+    WITH transitions AS (
+        SELECT *
+        FROM unnest(CAST(:ids AS BIGINT[]), CAST(:expectedStatuses AS SMALLINT[]), CAST(:statuses AS SMALLINT[]))
+            AS t(id, expected_status, status)
+    ), updated AS (
+        UPDATE customer_sessions cs
+        SET status = t.status, finished_at = CURRENT_TIMESTAMP AT TIME ZONE 'UTC', version = cs.version + 1
+        FROM transitions t
+        WHERE cs.id = t.id
+        AND cs.status = t.expected_status
+        AND cs.finished_at IS NULL
+        RETURNING cs.*
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+        ORDER BY u.id
+    )
+    SELECT * FROM updated
+    """)
+    Flux<CustomerSession> finishAll(Long[] ids, Short[] expectedStatuses, Short[] statuses);
+
+    /**
+     * Promove em lote as sessoes PENDING informadas, respeitando os slots livres de cada fila:
+     * em cada fila sao promovidas, na ordem da fila, no máximo (maxSlots - sessoes IN_PROGRESS) sessoes.
+     * Deve ser executado na mesma transaçao, depois do {@link #lockQueue(long)} de cada fila envolvida.
+     *
+     * @param ids Ids das sessoes
+     * @param maxSlots Slots de atendimento por fila
+     * @return Sessoes promovidas (com o novo status)
+     */
+    @Query("""
+    WITH candidates AS (
+        SELECT id, branch, service_type,
+               ROW_NUMBER() OVER (PARTITION BY branch, service_type ORDER BY queue_order, id) AS queue_rank
+        FROM customer_sessions
+        WHERE id = ANY(:ids)
+        AND finished_at IS NULL
+        AND status = 1 /* PENDING */
+    ), busy AS (
+        SELECT cs.branch, cs.service_type, COUNT(*) AS in_progress
+        FROM customer_sessions cs
+        JOIN (SELECT DISTINCT branch, service_type FROM candidates) q
+            ON q.branch = cs.branch AND q.service_type = cs.service_type
+        WHERE cs.finished_at IS NULL
+        AND cs.status = 2 /* IN_PROGRESS */
+        GROUP BY cs.branch, cs.service_type
+    ), updated AS (
+        UPDATE customer_sessions cs
+        SET status = 2 /* IN_PROGRESS */, version = cs.version + 1
+        FROM candidates c
+        LEFT JOIN busy b ON b.branch = c.branch AND b.service_type = c.service_type
+        WHERE cs.id = c.id
+        AND cs.status = 1 /* PENDING */
+        AND c.queue_rank <= :maxSlots - COALESCE(b.in_progress, 0)
+        RETURNING cs.*
+    ), changes AS (
+        INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+        SELECT u.id, u.customer_id, u.branch, u.service_type, u.status
+        FROM updated u
+        ORDER BY u.id
+    )
+    SELECT * FROM updated
+    """)
+    Flux<CustomerSession> promoteAll(Long[] ids, int maxSlots);
 
     /**
      * Média de sessoes por cliente.
@@ -176,12 +695,12 @@ public interface CustomerSessionRepository extends ReactiveCrudRepository<Custom
      * Conta sessoes por status.
      */
     @Query("SELECT COUNT(*) FROM customer_sessions WHERE status = :status")
-    Mono<Long> countByStatus(String status);
+    Mono<Long> countByStatus(CustomerSessionStatus status);
 
     /**
      * Tempo médio de atendimento (em segundos) das sessoes finalizadas com COMPLETED.
      */
-    @Query("SELECT CAST(AVG(EXTRACT(EPOCH FROM (finished_at - started_at))) AS DOUBLE PRECISION) FROM customer_sessions WHERE status = 'COMPLETED' AND finished_at IS NOT NULL")
+    @Query("SELECT CAST(AVG(EXTRACT(EPOCH FROM (finished_at - started_at))) AS DOUBLE PRECISION) FROM customer_sessions WHERE status = 3 /* COMPLETED */ AND finished_at IS NOT NULL")
     Mono<Double> averageServiceDurationSeconds();
 
     /**
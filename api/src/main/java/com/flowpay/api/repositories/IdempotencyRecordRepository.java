@@ -0,0 +1,69 @@
+package com.flowpay.api.repositories;
+
+import com.flowpay.api.entities.IdempotencyRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends ReactiveCrudRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserva a chave para uma requisiçao nova. Uma chave expirada é reaproveitada, e uma reserva em andamento
+     * cujo lease (reserved_until) venceu é assumida por uma repetiçao com o mesmo conteudo.
+     *
+     * @param id Escopo + chave
+     * @param requestHash Hash do conteudo da requisiçao
+     * @param now Instante atual (UTC)
+     * @param reservedUntil Fim do lease da reserva (UTC), também usado para identificá-la
+     * @param expiresAt Expiraçao da chave (UTC)
+     * @return 1 se a chave foi reservada, 0 se já existe uma reserva válida
+     */
+    @Modifying
+    @Query("""
+    INSERT INTO idempotency_keys (id, request_hash, created_at, reserved_until, expires_at)
+    VALUES (:id, :requestHash, :now, :reservedUntil, :expiresAt)
+    ON CONFLICT (id) DO UPDATE
+    SET request_hash = EXCLUDED.request_hash,
+        status_code = NULL,
+        location = NULL,
+        session_token = NULL,
+        created_at = EXCLUDED.created_at,
+        reserved_until = EXCLUDED.reserved_until,
+        expires_at = EXCLUDED.expires_at
+    WHERE idempotency_keys.expires_at < :now
+       OR (idempotency_keys.status_code IS NULL
+           AND idempotency_keys.reserved_until < :now
+           AND idempotency_keys.request_hash = EXCLUDED.request_hash)
+    """)
+    Mono<Integer> reserve(String id, String requestHash, LocalDateTime now, LocalDateTime reservedUntil,
+                          LocalDateTime expiresAt);
+
+    /**
+     * Grava o resultado da requisiçao original, se a reserva ainda for dela.
+     *
+     * @return 1 se o resultado foi gravado, 0 se a reserva foi assumida por outra requisiçao
+     */
+    @Modifying
+    @Query("""
+    UPDATE idempotency_keys
+    SET status_code = :statusCode, location = :location, session_token = :sessionToken, reserved_until = NULL
+    WHERE id = :id AND reserved_until = :reservedUntil AND status_code IS NULL
+    """)
+    Mono<Integer> complete(String id, LocalDateTime reservedUntil, short statusCode, String location, String sessionToken);
+
+    /**
+     * Libera uma reserva cuja requisiçao falhou, para que o cliente possa tentar novamente com a mesma chave.
+     */
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE id = :id AND reserved_until = :reservedUntil AND status_code IS NULL")
+    Mono<Integer> release(String id, LocalDateTime reservedUntil);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE expires_at < :now")
+    Mono<Integer> deleteExpired(LocalDateTime now);
+}
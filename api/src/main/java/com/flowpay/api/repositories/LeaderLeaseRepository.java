@@ -0,0 +1,39 @@
+package com.flowpay.api.repositories;
+
+import com.flowpay.api.entities.LeaderLease;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface LeaderLeaseRepository extends ReactiveCrudRepository<LeaderLease, String> {
+
+    /**
+     * Adquire ou renova o lease em um único comando: o lease é criado se nao existir, renovado se já
+     * pertencer ao owner e assumido se o dono anterior deixou expirar. A expiraçao usa o relógio do banco.
+     *
+     * @param name Nome do lease
+     * @param owner Identificador do processo
+     * @param ttlSeconds Duraçao do lease
+     * @return 1 se o processo é o dono do lease, 0 se outro processo é o dono
+     */
+    @Modifying
+    @Query("""
+    INSERT INTO leader_leases (name, owner, expires_at)
+    VALUES (:name, :owner, (CURRENT_TIMESTAMP AT TIME ZONE 'UTC') + make_interval(secs => :ttlSeconds))
+    ON CONFLICT (name) DO UPDATE
+    SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at
+    WHERE leader_leases.owner = EXCLUDED.owner
+    OR leader_leases.expires_at < (CURRENT_TIMESTAMP AT TIME ZONE 'UTC')
+    """)
+    Mono<Integer> tryAcquire(String name, String owner, double ttlSeconds);
+
+    /**
+     * Libera o lease, se ainda pertencer ao owner, para que outro processo assuma sem esperar a expiraçao.
+     */
+    @Modifying
+    @Query("DELETE FROM leader_leases WHERE name = :name AND owner = :owner")
+    Mono<Integer> release(String name, String owner);
+}
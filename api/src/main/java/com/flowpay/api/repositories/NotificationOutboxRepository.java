@@ -0,0 +1,129 @@
+package com.flowpay.api.repositories;
+
+import com.flowpay.api.entities.NotificationOutboxEntry;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.notifications.Notification;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface NotificationOutboxRepository extends ReactiveCrudRepository<NotificationOutboxEntry, Long> {
+
+    /**
+     * Grava as notificaçoes de uma promoçao em um único comando: PROMOTED para as sessoes promovidas
+     * e TURN_APPROACHING para as primeiras sessoes que continuam na fila.
+     * Deve ser executado na mesma transaçao da promoçao; notificaçoes já gravadas para a sessao sao ignoradas.
+     *
+     * @param promotedIds Ids das sessoes promovidas
+     * @param branch Agência
+     * @param serviceType Tipo de serviço
+     * @param approaching Quantidade de sessoes do início da fila avisadas que a vez está próxima
+     * @return Quantidade de notificaçoes gravadas
+     */
+    @Modifying
+    @Query("""
+    INSERT INTO notification_outbox (session_id, customer_id, kind)
+    SELECT id, customer_id, 1 /* PROMOTED */
+    FROM customer_sessions
+    WHERE id = ANY(:promotedIds)
+    UNION ALL
+    (
+        SELECT id, customer_id, 2 /* TURN_APPROACHING */
+        FROM customer_sessions
+        WHERE finished_at IS NULL
+        AND status = 1 /* PENDING */
+        AND branch = :branch
+        AND service_type = :serviceType
+        ORDER BY queue_order, id
+        LIMIT :approaching
+    )
+    ON CONFLICT (session_id, kind) DO NOTHING
+    """)
+    Mono<Integer> enqueue(Long[] promotedIds, String branch, ServiceType serviceType, int approaching);
+
+    /**
+     * Reserva o próximo lote de notificaçoes vencidas, adiando o vencimento até o fim da reserva
+     * para que outros nós nao enviem as mesmas notificaçoes. Se o nó cair antes de confirmar,
+     * as notificaçoes voltam a vencer no fim da reserva (entrega pelo menos uma vez).
+     *
+     * @param now Instante atual (UTC)
+     * @param leaseUntil Fim da reserva (UTC)
+     * @param limit Tamanho do lote
+     * @return Notificaçoes reservadas com os dados de contato do cliente
+     */
+    @Query("""
+    WITH due AS (
+        SELECT id FROM notification_outbox
+        WHERE status = 1 /* PENDING */
+        AND next_attempt_at <= :now
+        ORDER BY next_attempt_at, id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    ), leased AS (
+        UPDATE notification_outbox o
+        SET next_attempt_at = :leaseUntil
+        FROM due
+        WHERE o.id = due.id
+        RETURNING o.*
+    )
+    SELECT l.id,
+           l.session_id,
+           l.customer_id,
+           c.name AS customer_name,
+           c.email AS customer_email,
+           cs.branch,
+           cs.service_type,
+           l.kind,
+           l.attempts,
+           l.created_at
+    FROM leased l
+    JOIN customer_sessions cs ON cs.id = l.session_id
+    JOIN customers c ON c.id = l.customer_id
+    ORDER BY l.id
+    """)
+    Flux<Notification> claimDue(LocalDateTime now, LocalDateTime leaseUntil, int limit);
+
+    /**
+     * Confirma o envio de um lote de notificaçoes.
+     */
+    @Modifying
+    @Query("""
+    UPDATE notification_outbox
+    SET status = 2 /* SENT */, sent_at = :now, attempts = attempts + 1, last_error = NULL
+    WHERE id = ANY(:ids)
+    """)
+    Mono<Integer> markSent(Long[] ids, LocalDateTime now);
+
+    /**
+     * Registra uma falha de envio: a notificaçao volta a vencer em nextAttemptAt ou, com as tentativas
+     * esgotadas, é marcada como FAILED.
+     */
+    @Modifying
+    @Query("""
+    UPDATE notification_outbox
+    SET attempts = attempts + 1,
+        last_error = LEFT(:error, 512),
+        next_attempt_at = :nextAttemptAt,
+        status = CASE WHEN attempts + 1 >= :maxAttempts THEN 3 /* FAILED */ ELSE 1 /* PENDING */ END
+    WHERE id = :id
+    """)
+    Mono<Integer> markFailed(Long id, String error, LocalDateTime nextAttemptAt, int maxAttempts);
+
+    /**
+     * Remove notificaçoes encerradas há mais tempo que a retençao: as enviadas pelo sent_at e as FAILED
+     * pelo next_attempt_at gravado na última tentativa (nunca serao reenviadas).
+     */
+    @Modifying
+    @Query("""
+    DELETE FROM notification_outbox
+    WHERE (status = 2 /* SENT */ AND sent_at < :before)
+    OR (status = 3 /* FAILED */ AND next_attempt_at < :before)
+    """)
+    Mono<Integer> deleteFinishedBefore(LocalDateTime before);
+}
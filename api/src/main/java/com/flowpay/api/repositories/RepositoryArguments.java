@@ -0,0 +1,31 @@
+package com.flowpay.api.repositories;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.ServiceType;
+
+/**
+ * Leitura dos argumentos das consultas pelos interceptors dos repositórios
+ * (bulkhead, eventos JFR), que nao conhecem a assinatura de cada método.
+ */
+public final class RepositoryArguments {
+
+    private RepositoryArguments() {
+    }
+
+    /**
+     * Tipo de serviço da consulta: o primeiro argumento {@link ServiceType} ou {@link QueueKey}.
+     *
+     * @return Tipo de serviço ou null se a consulta nao receber nenhum
+     */
+    public static ServiceType serviceTypeOf(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof ServiceType serviceType) {
+                return serviceType;
+            }
+            if (argument instanceof QueueKey queueKey) {
+                return queueKey.serviceType();
+            }
+        }
+        return null;
+    }
+}
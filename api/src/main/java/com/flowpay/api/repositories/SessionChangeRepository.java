@@ -0,0 +1,52 @@
+package com.flowpay.api.repositories;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.entities.SessionChange;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface SessionChangeRepository extends ReactiveCrudRepository<SessionChange, Long> {
+
+    /**
+     * Registra uma mudança de status de sessao.
+     *
+     * Deve ser executado dentro da mesma transaçao que altera customer_sessions, depois do lock da fila
+     * ({@link CustomerSessionRepository#lockQueue(long)}): a coluna xid recebe o id da transaçao, que
+     * define a ordem da mudança no stream ({@link #findAfter(long, int)}).
+     */
+    @Query("""
+    INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+    VALUES (:sessionId, :customerId, :branch, :serviceType, :status)
+    """)
+    Mono<Void> recordChange(Long sessionId, Long customerId, String branch, ServiceType serviceType, CustomerSessionStatus status);
+
+    /**
+     * Retorna as mudanças posteriores ao cursor, em ordem de (xid, id): a ordem de commit das transaçoes
+     * de cada fila, sem serializar os escritores de filas diferentes.
+     *
+     * Só sao lidas mudanças de transaçoes anteriores ao xmin do snapshot atual, isto é, já terminadas:
+     * uma transaçao em andamento segura as mudanças gravadas depois dela até o seu commit, entao
+     * um consumidor que avança o cursor nunca pula uma mudança que ainda nao estava visível.
+     *
+     * @param after Id da última mudança já consumida (0 para o início)
+     * @param limit Tamanho máximo da página
+     * @return Mudanças posteriores à mudança do cursor
+     */
+    @Query("""
+    SELECT sc.id, sc.session_id, sc.customer_id, sc.branch, sc.service_type, sc.status, sc.changed_at
+    FROM session_changes sc
+    WHERE (sc.xid, sc.id) > (
+        COALESCE((SELECT c.xid FROM session_changes c WHERE c.id = :after), CAST('0' AS xid8)),
+        :after
+    )
+    AND sc.xid < pg_snapshot_xmin(pg_current_snapshot())
+    ORDER BY sc.xid, sc.id
+    LIMIT :limit
+    """)
+    Flux<SessionChange> findAfter(long after, int limit);
+}
@@ -0,0 +1,39 @@
+package com.flowpay.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import jakarta.annotation.Nonnull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Login de um atendente no registro de atendentes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AttendantLoginRequest implements Serializable {
+    @Nonnull
+    private String attendantId;
+    private String name;
+    /**
+     * Agência do atendente. Opcional, padrao a agência padrao.
+     */
+    private String branch;
+    /**
+     * Tipos de serviço que o atendente atende.
+     */
+    @Nonnull
+    private Set<ServiceType> skills;
+    /**
+     * Atendimentos simultâneos. Opcional, padrao 1.
+     */
+    private Integer slots;
+}
@@ -0,0 +1,46 @@
+package com.flowpay.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Seleçao de sessoes para uma operaçao em lote: uma lista de ids ou um filtro.
+ * Quando os ids sao informados o filtro é ignorado.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkSessionRequest implements Serializable {
+    private List<Long> sessionIds;
+    /**
+     * Filtro: agência (opcional, padrao "default")
+     */
+    private String branch;
+    /**
+     * Filtro: tipo de serviço (obrigatório quando os ids nao sao informados)
+     */
+    private ServiceType serviceType;
+    /**
+     * Filtro: status atual (opcional)
+     */
+    private CustomerSessionStatus status;
+    /**
+     * Filtro: sessoes iniciadas antes deste instante (opcional)
+     */
+    private OffsetDateTime startedBefore;
+    /**
+     * Filtro: quantidade máxima de sessoes selecionadas
+     */
+    private Integer limit;
+}
@@ -1,6 +1,7 @@
 package com.flowpay.api.requests;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.PriorityClass;
 import com.flowpay.api.entities.ServiceType;
 
 import jakarta.annotation.Nonnull;
@@ -25,4 +26,12 @@ public class CustomerRequest implements Serializable {
     private String email;
     @Nonnull
     private ServiceType serviceType;
+    /**
+     * Agência do atendimento. Opcional, sessoes sem agência vao para a agência padrao.
+     */
+    private String branch;
+    /**
+     * Classe de prioridade do atendimento. Opcional, padrao REGULAR.
+     */
+    private PriorityClass priority;
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.flowpay.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.PriorityClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Distribuiçoes de chegada e de atendimento de um tipo de serviço para a simulaçao de filas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ServiceTypeWorkload implements Serializable {
+    /**
+     * Chegadas por hora (processo de Poisson)
+     */
+    private Double arrivalsPerHour;
+    /**
+     * Duraçao média do atendimento, em minutos
+     */
+    private Double meanServiceMinutes;
+    /**
+     * Coeficiente de variaçao da duraçao do atendimento (opcional, padrao 1)
+     */
+    private Double serviceTimeCv;
+    /**
+     * Espera média antes de o cliente desistir, em minutos (opcional, sem valor o cliente nunca desiste)
+     */
+    private Double meanPatienceMinutes;
+    /**
+     * Proporçao de cada classe de prioridade (opcional, padrao todos REGULAR)
+     */
+    private Map<PriorityClass, Double> priorityMix;
+}
@@ -0,0 +1,55 @@
+package com.flowpay.api.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.config.QueueProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cenário da simulaçao de filas: carga sintética (workloads) ou reproduçao do histórico
+ * (replayFrom/replayUntil), simulada com cada capacidade informada.
+ * Quando o período de reproduçao é informado as distribuiçoes sao ignoradas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SimulationRequest implements Serializable {
+    /**
+     * Slots por fila a comparar (opcional, padrao a capacidade atual)
+     */
+    private List<Integer> slotsPerQueue;
+    /**
+     * Política de fila (opcional, padrao a política configurada)
+     */
+    private QueueProperties.Discipline discipline;
+    /**
+     * Carga sintética: horas de chegadas simuladas (opcional, padrao 24)
+     */
+    private Double hours;
+    /**
+     * Carga sintética: semente do gerador (opcional)
+     */
+    private Long seed;
+    /**
+     * Carga sintética: distribuiçoes por tipo de serviço
+     */
+    private Map<ServiceType, ServiceTypeWorkload> workloads;
+    /**
+     * Reproduçao: início do período do histórico (inclusivo)
+     */
+    private OffsetDateTime replayFrom;
+    /**
+     * Reproduçao: fim do período do histórico (exclusivo, padrao agora)
+     */
+    private OffsetDateTime replayUntil;
+}
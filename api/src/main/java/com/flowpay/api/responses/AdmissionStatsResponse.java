@@ -0,0 +1,25 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AdmissionStatsResponse implements Serializable {
+    private Integer concurrencyLimit;
+    private Integer inFlight;
+    private Long averageLatencyMillis;
+    private Map<ServiceType, Long> accepted;
+    private Map<ServiceType, Long> shedByConcurrency;
+    private Map<ServiceType, Long> shedByQueueDepth;
+}
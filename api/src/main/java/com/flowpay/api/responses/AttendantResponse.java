@@ -0,0 +1,28 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AttendantResponse implements Serializable {
+    private String attendantId;
+    private String name;
+    private String branch;
+    private Set<ServiceType> skills;
+    private Integer slots;
+    /**
+     * Atendimentos em andamento
+     */
+    private Integer inUse;
+}
@@ -0,0 +1,25 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Resposta de uma operaçao em lote, com o resultado de cada sessao selecionada.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkOperationResponse implements Serializable {
+    private String operation;
+    private int requested;
+    private int updated;
+    private List<BulkSessionOutcome> results;
+}
@@ -0,0 +1,41 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * Resultado de uma operaçao em lote para uma sessao.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkSessionOutcome implements Serializable {
+
+    public enum Outcome {
+        /** Transiçao aplicada */
+        UPDATED,
+        /** Sessao inexistente */
+        NOT_FOUND,
+        /** Status atual nao permite a transiçao */
+        INVALID_STATUS,
+        /** Promoçao sem slot livre na fila */
+        NO_SLOT_AVAILABLE,
+        /** Fila pertence a outro nó do cluster */
+        NOT_OWNED
+    }
+
+    private Long sessionId;
+    private Outcome outcome;
+    /**
+     * Status da sessao após a operaçao (nulo se a sessao nao existe)
+     */
+    private CustomerSessionStatus status;
+}
@@ -0,0 +1,33 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkheadStatsResponse implements Serializable {
+    /**
+     * Consultas executando / limite de consultas simultâneas (1.0 = todas as vagas ocupadas)
+     */
+    private Double dbSaturation;
+    private Integer dbActive;
+    private Integer dbMaxConcurrent;
+    private Integer dbWaiting;
+    private Long dbExecuted;
+    /**
+     * Consultas rejeitadas com a espera cheia ou depois de esperar além do limite
+     */
+    private Long dbRejected;
+    private Double dbAverageWaitMicros;
+    private Integer sseSubscribers;
+    private Integer sseMaxSubscribers;
+    private Long sseRejected;
+}
@@ -21,4 +21,9 @@ public class InProgressSessionResponse implements Serializable {
     private String customerEmail;
     private ServiceType serviceType;
     private OffsetDateTime startedAt;
+    /**
+     * Atendente da sessao (nulo com slots fixos por fila).
+     */
+    private String attendantId;
+    private String attendantName;
 }
@@ -0,0 +1,33 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.PriorityClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Sessao PENDING no painel da fila, com a posiçao na ordem de promoçao.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class QueueBoardEntry implements Serializable {
+    private Long position;
+    private Long sessionId;
+    private String customerName;
+    private PriorityClass priority;
+    private OffsetDateTime startedAt;
+    /**
+     * Tamanho total da fila (a consulta devolve no máximo o limite do painel)
+     */
+    @JsonIgnore
+    private Long queueSize;
+}
@@ -0,0 +1,30 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Painel de uma fila: sessoes PENDING em ordem de promoçao com as posiçoes.
+ * A versao muda a cada transiçao da fila; snapshots com a mesma versao têm as mesmas sessoes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class QueueBoardResponse implements Serializable {
+    private String branch;
+    private ServiceType serviceType;
+    private Long version;
+    private OffsetDateTime generatedAt;
+    private Long waiting;
+    private List<QueueBoardEntry> entries;
+}
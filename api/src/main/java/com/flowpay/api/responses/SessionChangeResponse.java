@@ -0,0 +1,41 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.entities.SessionChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * DTO for {@link SessionChange}
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SessionChangeResponse implements Serializable {
+    private Long changeId;
+    private Long sessionId;
+    private Long customerId;
+    private String branch;
+    private ServiceType serviceType;
+    private CustomerSessionStatus status;
+    private OffsetDateTime changedAt;
+
+    public SessionChangeResponse(SessionChange change) {
+        this.changeId = change.getId();
+        this.sessionId = change.getSessionId();
+        this.customerId = change.getCustomerId();
+        this.branch = change.getBranch();
+        this.serviceType = change.getServiceType();
+        this.status = change.getStatus();
+        this.changedAt = change.getChangedAt();
+    }
+}
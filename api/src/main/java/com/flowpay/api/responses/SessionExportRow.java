@@ -0,0 +1,60 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Linha da exportaçao de histórico: sessao finalizada com os dados do cliente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SessionExportRow implements Serializable {
+
+    public static final String CSV_HEADER = "session_id,customer_id,customer_name,customer_email,branch,service_type,status,started_at,finished_at\n";
+
+    private Long sessionId;
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private String branch;
+    private ServiceType serviceType;
+    private CustomerSessionStatus status;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+
+    public String toCsvLine() {
+        return sessionId + ","
+            + customerId + ","
+            + csv(customerName) + ","
+            + csv(customerEmail) + ","
+            + csv(branch) + ","
+            + serviceType + ","
+            + status + ","
+            + startedAt + ","
+            + finishedAt + "\n";
+    }
+
+    /**
+     * Campo CSV (RFC 4180): valores com vírgula, aspas ou quebra de linha (LF ou CR) vao entre aspas.
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
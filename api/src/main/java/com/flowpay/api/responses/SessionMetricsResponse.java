@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -23,4 +24,9 @@ public class SessionMetricsResponse implements Serializable {
     private Long totalSessions;
     private Double completionRate;
     private Double cancellationRate;
+
+    /**
+     * Vazao recente por tipo de serviço (janelas de 1, 5 e 15 minutos).
+     */
+    private List<ThroughputWindowResponse> throughput;
 }
@@ -0,0 +1,37 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.config.QueueProperties;
+import com.flowpay.api.config.SlotProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SimulationResponse implements Serializable {
+    /**
+     * SYNTHETIC ou REPLAY
+     */
+    private String source;
+    private QueueProperties.Discipline discipline;
+    private Long arrivals;
+    private Double simulatedHours;
+    private Long elapsedMillis;
+    private List<SimulationResultResponse> results;
+    /**
+     * Alocador de slots configurado no nó. A simulaçao usa sempre capacidade fixa por fila.
+     */
+    private SlotProperties.Allocator liveAllocator;
+    /**
+     * O que a simulaçao nao reproduz das filas reais.
+     */
+    private List<String> divergences;
+}
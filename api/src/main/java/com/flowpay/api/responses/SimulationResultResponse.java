@@ -0,0 +1,33 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * Resultado simulado de um tipo de serviço com uma capacidade. As esperas sao as dos clientes atendidos.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SimulationResultResponse implements Serializable {
+    private ServiceType serviceType;
+    private Integer slotsPerQueue;
+    private Long arrivals;
+    private Long completed;
+    private Long abandoned;
+    private Double abandonmentRate;
+    private Double averageWaitSeconds;
+    private Double waitP50Seconds;
+    private Double waitP90Seconds;
+    private Double waitP99Seconds;
+    private Double maxWaitSeconds;
+    private Double slotUtilization;
+}
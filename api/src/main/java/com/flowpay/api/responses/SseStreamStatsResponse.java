@@ -0,0 +1,29 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * Contadores de backpressure de um stream SSE.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SseStreamStatsResponse implements Serializable {
+    private Integer subscribers;
+    /**
+     * Eventos descartados porque um evento mais novo chegou antes do envio
+     */
+    private Long conflated;
+    /**
+     * Clientes desconectados por ficarem atrasados além do limite
+     */
+    private Long slowConsumersDisconnected;
+}
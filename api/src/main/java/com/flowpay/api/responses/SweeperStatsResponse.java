@@ -0,0 +1,26 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SweeperStatsResponse implements Serializable {
+    private Boolean leader;
+    private Long sweeps;
+    private Long failedSweeps;
+    private Long idleQueuesRepaired;
+    private Long expiredPending;
+    private Long expiredInProgress;
+    private OffsetDateTime lastSweepAt;
+    private Long lastSweepMillis;
+}
@@ -0,0 +1,27 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Transiçoes de um tipo de serviço em uma janela recente (1m, 5m ou 15m).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ThroughputWindowResponse implements Serializable {
+    private String window;
+    private ServiceType serviceType;
+    private Long arrivals;
+    private Long promotions;
+    private Long completions;
+    private Long cancellations;
+    private Double arrivalsPerMinute;
+    private Double completionsPerMinute;
+}
@@ -0,0 +1,25 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TraceSummaryResponse implements Serializable {
+    private String traceId;
+    private String name;
+    private Instant startedAt;
+    private Long durationMicros;
+    private String status;
+    private Integer spans;
+    private Integer errors;
+}
@@ -0,0 +1,30 @@
+package com.flowpay.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WriteCoalescingStatsResponse implements Serializable {
+    private Boolean enabled;
+    private Long windowMicros;
+    private Integer maxBatchSize;
+    private Integer pending;
+    private Long batches;
+    private Long transitions;
+    private Long unchanged;
+    private Long directWrites;
+    private Long failedBatches;
+    private Double averageBatchSize;
+    private Long largestBatch;
+    private Double averageWaitMicros;
+    private Double averageCommitMicros;
+}
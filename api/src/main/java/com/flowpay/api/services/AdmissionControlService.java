@@ -0,0 +1,204 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.AdmissionProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.AdmissionRejectedException;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.AdmissionStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Controle de admissao da criaçao de sessoes.
+ *
+ * Cada criaçao executa várias consultas em sequência, entao sob um pico de chegadas
+ * o pool do R2DBC fica sem conexoes para os streams SSE. Para evitar isso a criaçao é rejeitada (503)
+ * quando:
+ * - o número de criaçoes em andamento passa do limite de concorrência;
+ * - a fila PENDING (agência + tipo de serviço) já está no tamanho máximo.
+ *
+ * O limite de concorrência é adaptativo (AIMD): diminui multiplicativamente quando a latência
+ * observada passa do alvo e cresce de um em um enquanto a latência estiver dentro do alvo.
+ */
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    private final AdmissionProperties properties;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final LongSupplier nanoClock;
+    private final Map<QueueKey, CachedDepth> pendingDepth = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final long targetLatencyNanos;
+    private volatile double limit;
+    private volatile double averageLatencyNanos;
+    private long lastDecreaseNanos;
+
+    private final Map<ServiceType, LongAdder> accepted = new EnumMap<>(ServiceType.class);
+    private final Map<ServiceType, LongAdder> shedByConcurrency = new EnumMap<>(ServiceType.class);
+    private final Map<ServiceType, LongAdder> shedByQueueDepth = new EnumMap<>(ServiceType.class);
+
+    @Autowired
+    public AdmissionControlService(AdmissionProperties properties, CustomerSessionRepository customerSessionRepository) {
+        this(properties, customerSessionRepository, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock - Fonte de tempo monotônica das latências (System.nanoTime fora dos testes)
+     */
+    AdmissionControlService(AdmissionProperties properties, CustomerSessionRepository customerSessionRepository,
+                            LongSupplier nanoClock) {
+        this.properties = properties;
+        this.customerSessionRepository = customerSessionRepository;
+        this.nanoClock = nanoClock;
+        this.limit = properties.getInitialLimit();
+        this.targetLatencyNanos = properties.getTargetLatency().toNanos();
+        this.lastDecreaseNanos = nanoClock.getAsLong() - targetLatencyNanos;
+        this.lastEviction = new AtomicLong(nanoClock.getAsLong());
+
+        for (ServiceType serviceType : ServiceType.values()) {
+            accepted.put(serviceType, new LongAdder());
+            shedByConcurrency.put(serviceType, new LongAdder());
+            shedByQueueDepth.put(serviceType, new LongAdder());
+        }
+    }
+
+    /**
+     * Executa a criaçao de sessao se houver capacidade, ou rejeita com {@link AdmissionRejectedException}.
+     *
+     * @param queueKey - Fila (agência + tipo de serviço) da sessao que será criada
+     * @param work - Operaçao de criaçao
+     * @return Mono com o resultado da operaçao
+     */
+    public <T> Mono<T> admit(QueueKey queueKey, Mono<T> work) {
+        if (!properties.isEnabled() || queueKey == null) {
+            return work;
+        }
+        ServiceType serviceType = queueKey.serviceType();
+
+        return pendingDepth(queueKey).flatMap(depth -> {
+            if (depth >= properties.getMaxQueueDepthPerService()) {
+                shedByQueueDepth.get(serviceType).increment();
+                log.warn("Admissao rejeitada para {}: fila com {} sessoes PENDING", queueKey, depth);
+                return Mono.error(new AdmissionRejectedException(
+                    "Fila de " + serviceType + " cheia, tente novamente mais tarde", properties.getQueueFullRetryAfter()));
+            }
+
+            if (!tryAcquire()) {
+                shedByConcurrency.get(serviceType).increment();
+                log.warn("Admissao rejeitada para {}: {} criaçoes em andamento (limite {})",
+                    serviceType, inFlight.get(), (int) limit);
+                return Mono.error(new AdmissionRejectedException(
+                    "Serviço sobrecarregado, tente novamente mais tarde", properties.getRetryAfter()));
+            }
+
+            accepted.get(serviceType).increment();
+            long start = nanoClock.getAsLong();
+            return work.doFinally(signal -> release(nanoClock.getAsLong() - start));
+        });
+    }
+
+    public AdmissionStatsResponse stats() {
+        Map<ServiceType, Long> acceptedCounts = new EnumMap<>(ServiceType.class);
+        Map<ServiceType, Long> concurrencyCounts = new EnumMap<>(ServiceType.class);
+        Map<ServiceType, Long> queueDepthCounts = new EnumMap<>(ServiceType.class);
+        for (ServiceType serviceType : ServiceType.values()) {
+            acceptedCounts.put(serviceType, accepted.get(serviceType).sum());
+            concurrencyCounts.put(serviceType, shedByConcurrency.get(serviceType).sum());
+            queueDepthCounts.put(serviceType, shedByQueueDepth.get(serviceType).sum());
+        }
+        return new AdmissionStatsResponse(
+            (int) limit,
+            inFlight.get(),
+            TimeUnit.NANOSECONDS.toMillis((long) averageLatencyNanos),
+            acceptedCounts,
+            concurrencyCounts,
+            queueDepthCounts
+        );
+    }
+
+    /**
+     * Tamanho da fila PENDING, em cache pelo TTL configurado para nao consultar o banco a cada requisiçao.
+     * A agência vem do cliente: as entradas das filas sem requisiçoes há mais de um TTL sao removidas,
+     * entao o cache só guarda as filas ativas.
+     */
+    private Mono<Long> pendingDepth(QueueKey queueKey) {
+        long now = nanoClock.getAsLong();
+        long ttlNanos = properties.getQueueDepthCacheTtl().toNanos();
+        evictIdle(now, ttlNanos);
+        return pendingDepth.compute(queueKey, (key, cached) -> cached != null && now - cached.createdAt() < ttlNanos
+                ? cached
+                : new CachedDepth(customerSessionRepository.countPendingByBranchAndServiceType(key.branch(), key.serviceType())
+                    .defaultIfEmpty(0L)
+                    .cache(depth -> properties.getQueueDepthCacheTtl(), error -> Duration.ZERO, () -> Duration.ZERO), now))
+            .depth();
+    }
+
+    /**
+     * Remove as entradas expiradas, no máximo uma vez por TTL.
+     */
+    private void evictIdle(long now, long ttlNanos) {
+        long last = lastEviction.get();
+        if (now - last < ttlNanos || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        pendingDepth.values().removeIf(cached -> now - cached.createdAt() >= ttlNanos);
+    }
+
+    /**
+     * Filas com o tamanho da fila PENDING em cache.
+     */
+    int cachedQueues() {
+        return pendingDepth.size();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void release(long latencyNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        averageLatencyNanos = averageLatencyNanos == 0
+            ? latencyNanos
+            : averageLatencyNanos * 0.9 + latencyNanos * 0.1;
+
+        long now = nanoClock.getAsLong();
+        if (latencyNanos > targetLatencyNanos) {
+            // Reduz no máximo uma vez por janela de latência alvo, para que várias respostas lentas
+            // do mesmo pico nao derrubem o limite de uma vez só
+            if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+                lastDecreaseNanos = now;
+            }
+        } else if (concurrent * 2 >= limit) {
+            // Só cresce quando o limite está de fato sendo usado
+            limit = Math.min(properties.getMaxLimit(), limit + 1);
+        }
+    }
+
+    private record CachedDepth(Mono<Long> depth, long createdAt) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.cluster.ClusterNode;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.config.SlotProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.requests.AttendantLoginRequest;
+import com.flowpay.api.responses.AttendantResponse;
+import com.flowpay.api.slots.Attendant;
+import com.flowpay.api.slots.AttendantRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Login e logout de atendentes. Com flowpay.slots.allocator=ATTENDANTS a capacidade de cada fila
+ * é a soma dos atendimentos simultâneos dos atendentes conectados com a habilidade da fila.
+ *
+ * O registro fica no nó dono das filas do atendente, entao todas as habilidades de um login
+ * precisam pertencer ao mesmo nó.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendantService {
+
+    private final AttendantRegistry attendantRegistry;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final CustomerSessionService customerSessionService;
+    private final QueueOwnership queueOwnership;
+    private final SlotProperties slotProperties;
+
+    /**
+     * Conecta o atendente e promove as filas que ganharam capacidade.
+     *
+     * @throws IllegalArgumentException se os dados forem inválidos, o atendente já estiver conectado
+     *                                  ou as habilidades pertencerem a nós diferentes
+     * @throws IllegalStateException se alguma fila nao tiver assentos disponíveis
+     * @throws com.flowpay.api.exception.QueueNotOwnedException se as filas pertencerem a outro nó (redirecionado com 307)
+     */
+    public Mono<AttendantResponse> login(AttendantLoginRequest request) {
+        if (request.getAttendantId() == null || request.getAttendantId().isBlank() || request.getAttendantId().length() > 64) {
+            return Mono.error(new IllegalArgumentException("Id do atendente deve ter entre 1 e 64 caracteres"));
+        }
+        if (request.getSkills() == null || request.getSkills().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Informe ao menos um tipo de serviço"));
+        }
+        int slots = request.getSlots() != null ? request.getSlots() : 1;
+        if (slots <= 0 || slots > slotProperties.getMaxSlotsPerAttendant()) {
+            return Mono.error(new IllegalArgumentException(
+                "Atendimentos simultâneos devem estar entre 1 e " + slotProperties.getMaxSlotsPerAttendant()));
+        }
+
+        List<QueueKey> queues = request.getSkills().stream()
+            .map(skill -> QueueKey.of(request.getBranch(), skill))
+            .toList();
+        ClusterNode owner = queueOwnership.ownerOf(queues.get(0));
+        if (queues.stream().anyMatch(queueKey -> !queueOwnership.ownerOf(queueKey).id().equals(owner.id()))) {
+            return Mono.error(new IllegalArgumentException(
+                "Os tipos de serviço informados pertencem a nós diferentes, faça um login por tipo de serviço"));
+        }
+
+        return queueOwnership.requireLocal(queues.get(0))
+            .then(Mono.fromCallable(() -> attendantRegistry.login(
+                request.getAttendantId(), request.getName(), request.getBranch(), request.getSkills(), slots)))
+            .flatMap(attendant -> restoreInProgress(attendant).thenReturn(attendant))
+            .flatMap(attendant -> Flux.fromIterable(queues)
+                .concatMap(customerSessionService::tryPromoteNextInQueue)
+                .then(Mono.fromSupplier(() -> toResponse(attendant))));
+    }
+
+    /**
+     * Desconecta o atendente. Os atendimentos em andamento nao sao afetados.
+     *
+     * @throws IllegalArgumentException se o atendente nao estiver conectado neste nó
+     */
+    public Mono<AttendantResponse> logout(String attendantId) {
+        return Mono.fromCallable(() -> toResponse(attendantRegistry.logout(attendantId)));
+    }
+
+    public Flux<AttendantResponse> list() {
+        return Flux.defer(() -> Flux.fromIterable(attendantRegistry.list())).map(this::toResponse);
+    }
+
+    /**
+     * No primeiro login desde o início da instância, os atendimentos que o atendente ainda tem
+     * em andamento no banco ocupam seus slots.
+     */
+    private Mono<Void> restoreInProgress(Attendant attendant) {
+        if (!attendantRegistry.isFirstLogin(attendant.getId())) {
+            return Mono.empty();
+        }
+        return customerSessionRepository.findAllInProgressByAttendant(attendant.getId())
+            .collectList()
+            .doOnNext(sessions -> {
+                if (!sessions.isEmpty()) {
+                    log.info("Atendente {} com {} atendimentos em andamento restaurados", attendant.getId(), sessions.size());
+                }
+                attendantRegistry.restore(attendant, sessions);
+            })
+            .then();
+    }
+
+    private AttendantResponse toResponse(Attendant attendant) {
+        return new AttendantResponse(
+            attendant.getId(),
+            attendant.getName(),
+            attendant.getBranch(),
+            attendant.getSkills(),
+            attendant.getSlots(),
+            attendant.getInUse()
+        );
+    }
+}
@@ -1,34 +1,70 @@
 package com.flowpay.api.services;
 
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
 import com.flowpay.api.entities.Customer;
 import com.flowpay.api.entities.CustomerSession;
 import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.PriorityClass;
 import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecyclePublisher;
+import com.flowpay.api.jfr.FlightRecorderEvents;
+import com.flowpay.api.metrics.SessionThroughputMetrics;
+import com.flowpay.api.notifications.NotificationOutbox;
+import com.flowpay.api.queue.QueueDiscipline;
 import com.flowpay.api.repositories.CustomerRepository;
 import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.repositories.SessionChangeRepository;
 import com.flowpay.api.requests.CustomerRequest;
 import com.flowpay.api.responses.InProgressSessionResponse;
 import com.flowpay.api.responses.QueuePositionResponse;
 import com.flowpay.api.responses.SessionMetricsResponse;
+import com.flowpay.api.slots.Attendant;
+import com.flowpay.api.slots.AttendantRegistry;
+import com.flowpay.api.slots.SlotAllocator;
+import com.flowpay.api.streaming.SseBackpressurePolicy;
+import com.flowpay.api.tokens.SessionToken;
+import com.flowpay.api.tracing.SpanKind;
+import com.flowpay.api.tracing.Tracer;
+import com.flowpay.api.transitions.SessionTransitionCoalescer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @RequiredArgsConstructor
 @Slf4j
 @org.springframework.stereotype.Service
 public class CustomerSessionService {
 
-    private static final int MAX_SLOTS_PER_SERVICE = 3;
+    public static final int MAX_SLOTS_PER_SERVICE = 3;
     
     private final CustomerRepository customerRepository;
     private final CustomerSessionRepository customerSessionRepository;
+    private final SessionChangeRepository sessionChangeRepository;
+    private final SessionLifecyclePublisher lifecyclePublisher;
+    private final TransactionalOperator transactionalOperator;
+    private final QueueOwnership queueOwnership;
+    private final QueueDiscipline queueDiscipline;
+    private final SessionThroughputMetrics throughputMetrics;
+    private final SlotAllocator slotAllocator;
+    private final AttendantRegistry attendantRegistry;
+    private final NotificationOutbox notificationOutbox;
+    private final Tracer tracer;
+    private final SessionTransitionCoalescer transitionCoalescer;
+    private final ServiceTypeBulkheads bulkheads;
 
     /**
      * Busca a posiçao na fila do cliente pelo email.
@@ -46,37 +82,53 @@ public class CustomerSessionService {
      * 
      * @throws IllegalArgumentException se o tipo de serviço nao for fornecido
      * @throws IllegalArgumentException se o cliente já possuir uma sessao ativa
+     * @throws com.flowpay.api.exception.QueueNotOwnedException se a fila pertencer a outro nó
      * @param customerRequest - DTO de Request com dados de um cliente 
      *                          e o serviço desejado para criaçao da sessao
-     * @return Mono<Void>
+     * @return Mono com a sessao criada (o status é o da criaçao, PENDING)
      */
-    public Mono<Void> createCustomer(CustomerRequest customerRequest) {
+    public Mono<CustomerSession> createCustomer(CustomerRequest customerRequest) {
         String customerEmail = customerRequest.getEmail();
         ServiceType serviceType = customerRequest.getServiceType();
 
         if (serviceType == null) {
             return Mono.error(new IllegalArgumentException("Tipo de serviço é obrigatório"));
         }
+        QueueKey queueKey;
+        try {
+            queueKey = QueueKey.of(customerRequest.getBranch(), serviceType);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
 
-        return customerRepository.existsByEmail(customerEmail)
-            .flatMap(exists -> fetchCustomerOrCreate(customerRequest, exists))
-            .flatMap(customer -> 
-                customerSessionRepository.findByActiveServicesByCustomerEmail(customerEmail)
+        // Consultas antes da transaçao: nao recebem o tipo de serviço, entao pegam a vaga do bulkhead aqui
+        Mono<Customer> customerWithoutActiveSession = bulkheads.database(serviceType,
+            customerRepository.existsByEmail(customerEmail)
+                .flatMap(exists -> fetchCustomerOrCreate(customerRequest, exists))
+                .flatMap(customer -> customerSessionRepository.findByActiveServicesByCustomerEmail(customerEmail)
                     .flatMap(existingSession -> {
                         log.warn("Cliente {} já possui sessao ativa", customerEmail);
-                        return Mono.error(new IllegalArgumentException("Sessao ativa já existe para este cliente"));
+                        return Mono.<Customer>error(new IllegalArgumentException("Sessao ativa já existe para este cliente"));
                     })
-                    .switchIfEmpty(
-                        Mono.defer(() -> {
-                            CustomerSession session = new CustomerSession(customer.getId(), serviceType);
-                            return customerSessionRepository.save(session)
-                                .doOnNext(savedSession -> 
-                                    log.info("sessao criada: ID={} cliente={} tipo={}", 
-                                        savedSession.getId(), customerEmail, serviceType))
-                                .then(tryPromoteNextInQueue(serviceType));
-                        })
-                    )
-            ).then();
+                    .switchIfEmpty(Mono.just(customer))));
+
+        return sessionOperation("CREATE", queueKey, null, queueOwnership.requireLocal(queueKey)
+            .then(customerWithoutActiveSession)
+            .flatMap(customer -> {
+                PriorityClass priority = customerRequest.getPriority() != null
+                    ? customerRequest.getPriority()
+                    : PriorityClass.REGULAR;
+                CustomerSession session = new CustomerSession(customer.getId(), queueKey.branch(), serviceType, priority);
+                return inChangeTransaction(queueKey, assignQueueOrder(session, queueKey)
+                        .then(customerSessionRepository.save(session))
+                        .flatMap(saved -> recordChange(saved, CustomerSessionStatus.PENDING).thenReturn(saved)))
+                    .doOnNext(savedSession -> {
+                        log.info("sessao criada: ID={} cliente={} fila={}", 
+                            savedSession.getId(), customerEmail, queueKey);
+                        lifecyclePublisher.publish(SessionLifecycleEvent.CREATED, savedSession);
+                    })
+                    .flatMap(savedSession -> tryPromoteNextInQueue(queueKey).thenReturn(savedSession));
+            }));
     }
 
     /**
@@ -104,6 +156,9 @@ public class CustomerSessionService {
      * Caso o cliente esteja apenas na fila de espera, a sessao é finalizada
      * como cancelada (CANCELED).
      * 
+     * Se a sessao mudar de status entre a leitura e a finalizaçao (ex: promovida por outra requisiçao),
+     * a sessao é lida novamente e o status final recalculado.
+     *
      * @throws IllegalArgumentException se o cliente nao for encontrado ou nenhuma sessao ativa for encontrada.
      * @param email
      * @return Mono<Void>
@@ -115,23 +170,61 @@ public class CustomerSessionService {
                     return Mono.error(new IllegalArgumentException("Usuário nao encontrado"));
                 }
                 
-                return customerSessionRepository.findByActiveServicesByCustomerEmail(email)
-                    .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa")))
-                    .flatMap(session -> {
-                        if (session.getFinishedAt() != null) {
-                            return Mono.error(new IllegalArgumentException("Sessao já finalizada"));
-                        }
-                        var currentStatus = session.getStatus();
-
-                        CustomerSessionStatus newStatus = getNewStatus(currentStatus);
-                        ServiceType serviceType = session.getServiceType();
-                        log.info("Finalizando sessao para {} tipo {}", email,  serviceType);
-                        return customerSessionRepository.setFinishedAtToNow(email, newStatus)
-                            .then(tryPromoteNextInQueue(serviceType));
-                    });
+                return finishActiveSession(email, customerSessionRepository.findByActiveServicesByCustomerEmail(email));
             });
     }
 
+    /**
+     * Finaliza a sessao identificada pelo token de sessao, com as mesmas regras de
+     * {@link #finishCustomerSession(String)}, acessando a sessao direto pela chave primária.
+     *
+     * @throws IllegalArgumentException se a sessao nao existir ou já estiver finalizada
+     * @param token - Token de sessao já validado
+     * @return Mono<Void>
+     */
+    public Mono<Void> finishSession(SessionToken token) {
+        return finishActiveSession("sessao " + token.sessionId(), findActiveSession(token));
+    }
+
+    /**
+     * Finaliza a sessao ativa devolvida por activeSession. Em caso de alteraçao concorrente
+     * activeSession é assinado novamente e o status final recalculado.
+     */
+    private Mono<Void> finishActiveSession(String subject, Mono<CustomerSession> activeSession) {
+        return activeSession
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa")))
+            .flatMap(session -> {
+                if (session.getFinishedAt() != null) {
+                    return Mono.error(new IllegalArgumentException("Sessao já finalizada"));
+                }
+                var currentStatus = session.getStatus();
+
+                CustomerSessionStatus newStatus = getNewStatus(currentStatus);
+                QueueKey queueKey = queueKeyOf(session);
+                log.info("Finalizando sessao para {} fila {}", subject, queueKey);
+                String operation = newStatus == CustomerSessionStatus.COMPLETED ? "COMPLETE" : "CANCEL";
+                return sessionOperation(operation, queueKey, session.getId(), queueOwnership.requireLocal(queueKey)
+                    .then(transitionCoalescer.finish(session.getId(), queueKey, currentStatus, newStatus))
+                    .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException(
+                        "Sessao " + session.getId() + " alterada durante a finalizaçao")))
+                    .then(Mono.fromRunnable(() ->
+                        lifecyclePublisher.publish(SessionLifecycleEvent.forStatus(newStatus), session)))
+                    .then(tryPromoteNextInQueue(queueKey)));
+            })
+            .retryWhen(Retry.max(3)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> log.warn("Sessao de {} alterada concorrentemente, tentativa {}",
+                    subject, signal.totalRetries() + 1)));
+    }
+
+    /**
+     * Sessao ativa identificada pelo token. O tipo de serviço do token precisa conferir com o da sessao.
+     */
+    private Mono<CustomerSession> findActiveSession(SessionToken token) {
+        return customerSessionRepository.findById(token.sessionId())
+            .filter(session -> session.getFinishedAt() == null && session.getServiceType() == token.serviceType());
+    }
+
     /**
      * Completa o atendimento de uma sessao IN_PROGRESS, alterando o status para COMPLETED,
      * registrando o horário de finalizaçao e promovendo o próximo da fila.
@@ -147,32 +240,35 @@ public class CustomerSessionService {
                     return Mono.error(new IllegalArgumentException(
                         "Apenas sessoes IN_PROGRESS podem ser completadas. Status atual: " + session.getStatus()));
                 }
-                session.setStatus(CustomerSessionStatus.COMPLETED);
-                session.setFinishedAt(OffsetDateTime.now());
-                ServiceType serviceType = session.getServiceType();
-                log.info("Completando sessao {} do serviço {}", sessionId, serviceType);
-                return customerSessionRepository.save(session)
-                    .then(tryPromoteNextInQueue(serviceType));
+                QueueKey queueKey = queueKeyOf(session);
+                log.info("Completando sessao {} da fila {}", sessionId, queueKey);
+                return sessionOperation("COMPLETE", queueKey, sessionId, queueOwnership.requireLocal(queueKey)
+                    .then(transitionCoalescer.finish(sessionId, queueKey, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED))
+                    .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException(
+                        "Sessao " + sessionId + " alterada durante a conclusao")))
+                    .doOnNext(completed -> lifecyclePublisher.publish(SessionLifecycleEvent.COMPLETED, completed))
+                    .then(tryPromoteNextInQueue(queueKey)));
             });
     }
 
     /**
      * Retorna métricas consolidadas dos atendimentos:
      * média de sessoes por cliente, contagem por status,
-     * taxa de conclusao e desistencia e tempo médio de atendimento.
+     * taxa de conclusao e desistencia, tempo médio de atendimento
+     * e a vazao das janelas recentes de cada tipo de serviço.
      */
     private Mono<SessionMetricsResponse> getMetrics() {
         Mono<Double> avgPerCustomer = customerSessionRepository.averageSessionsPerCustomer()
             .defaultIfEmpty(0.0);
         Mono<Double> avgDuration = customerSessionRepository.averageServiceDurationSeconds()
             .defaultIfEmpty(0.0);
-        Mono<Long> pending = customerSessionRepository.countByStatus("PENDING")
+        Mono<Long> pending = customerSessionRepository.countByStatus(CustomerSessionStatus.PENDING)
             .defaultIfEmpty(0L);
-        Mono<Long> inProgress = customerSessionRepository.countByStatus("IN_PROGRESS")
+        Mono<Long> inProgress = customerSessionRepository.countByStatus(CustomerSessionStatus.IN_PROGRESS)
             .defaultIfEmpty(0L);
-        Mono<Long> completed = customerSessionRepository.countByStatus("COMPLETED")
+        Mono<Long> completed = customerSessionRepository.countByStatus(CustomerSessionStatus.COMPLETED)
             .defaultIfEmpty(0L);
-        Mono<Long> canceled = customerSessionRepository.countByStatus("CANCELED")
+        Mono<Long> canceled = customerSessionRepository.countByStatus(CustomerSessionStatus.CANCELED)
             .defaultIfEmpty(0L);
 
         return Mono.zip(avgPerCustomer, avgDuration, pending, inProgress, completed, canceled)
@@ -189,7 +285,8 @@ public class CustomerSessionService {
                 double cancellationRate = finalized > 0 ? (double) ca / finalized * 100 : 0.0;
 
                 return new SessionMetricsResponse(
-                    avg, duration, p, ip, c, ca, total, completionRate, cancellationRate
+                    avg, duration, p, ip, c, ca, total, completionRate, cancellationRate,
+                    throughputMetrics.snapshot()
                 );
             });
     }
@@ -206,77 +303,101 @@ public class CustomerSessionService {
     }
 
     /**
-     * Verifica quantos slots estao disponíveis para um tipo de serviço.
-     * @param serviceType
+     * Verifica quantos slots estao disponíveis em uma fila.
+     * @param queueKey - Agência e tipo de serviço
+     * @return Mono<Integer>
+     */
+    public Mono<Integer> checkAvailableSlots(QueueKey queueKey) {
+        return slotAllocator.availableSlots(queueKey);
+    }
+
+    /**
+     * Verifica quantos slots estao disponíveis na fila da sessao identificada pelo token.
+     *
+     * @throws IllegalArgumentException se a sessao nao existir ou já estiver finalizada
+     * @param token - Token de sessao já validado
      * @return Mono<Integer>
      */
-    public Mono<Integer> checkAvailableSlots(ServiceType serviceType) {
-        return customerSessionRepository.countInProgressByServiceType(serviceType.name())
-            .map(count -> MAX_SLOTS_PER_SERVICE - count.intValue());
+    public Mono<Integer> checkAvailableSlots(SessionToken token) {
+        return findActiveSession(token)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa encontrada")))
+            .flatMap(session -> checkAvailableSlots(queueKeyOf(session)));
     }
 
     /**
-     * Tenta promover o próximo cliente na fila para IN_PROGRESS, se houver slots disponíveis
-     * para o atendentimento do tipo de serviço. 
-     * O processo é repetido até que nao haja mais slots ou clientes na fila.
-     * @param serviceType - Tipo de serviço
+     * Tenta promover os próximos clientes da fila para IN_PROGRESS, ocupando os slots disponíveis
+     * para o atendentimento da fila.
+     *
+     * A ocupaçao dos slots ({@link SlotAllocator}) e a promoçao acontecem dentro de uma transaçao que
+     * segura o advisory lock da fila: chamadas concorrentes (criaçao, finalizaçao, conclusao,
+     * cancelamento por desconexao) sao serializadas e nunca ultrapassam a capacidade da fila.
+     * A criaçao e as finalizaçoes seguram o mesmo lock, entao o comando enxerga todas as sessoes
+     * que entraram na fila antes dele, sem pular o primeiro da fila.
+     * Se a transaçao for desfeita, os slots reservados em memória sao devolvidos.
+     * A transaçao inteira executa em uma vaga do bulkhead do tipo de serviço, adquirida antes da conexao e do lock.
+     * As notificaçoes aos clientes sao gravadas no outbox na mesma transaçao e enviadas depois
+     * pelo {@link com.flowpay.api.notifications.NotificationDispatcher}.
+     * Só é chamado pelo nó dono da fila.
+     * @param queueKey - Agência e tipo de serviço
      * @return Mono<Void>
      */
-    private Mono<Void> tryPromoteNextInQueue(ServiceType serviceType) {
-        return checkAvailableSlots(serviceType)
-            .flatMap(availableSlots -> {
-                if (availableSlots <= 0) {
-                    return Mono.empty();
-                }
-                
-                log.info("Promovendo até {} clientes para o serviço {}", availableSlots, serviceType);
-                
-                return customerSessionRepository.findNextInQueueByServiceType(serviceType.name())
-                    .repeat(availableSlots - 1)
-                    .flatMap(session -> {
-                        session.setStatus(CustomerSessionStatus.IN_PROGRESS);
-                        return customerSessionRepository.save(session)
-                            .doOnNext(s -> log.info("sessao {} promovida para IN_PROGRESS", s.getId()))
-                            .retryWhen(Retry.max(3)
-                                .filter(OptimisticLockingFailureException.class::isInstance)
-                                .doBeforeRetry(signal -> log.warn("Retry promoçao por conflito de versao: tentativa {}", signal.totalRetries() + 1)))
-                            .onErrorResume(OptimisticLockingFailureException.class, e -> {
-                                log.warn("Sessao {} já foi promovida por outra thread, ignorando", session.getId());
-                                return Mono.empty();
-                            });
-                    })
-                    .then();
-            })
-            .then();
+    public Mono<Void> tryPromoteNextInQueue(QueueKey queueKey) {
+        return promoteQueue(queueKey).then();
     }
 
     /**
-     * Retorna um stream SSE com as sessoes IN_PROGRESS de um tipo de serviço,
-     * atualizando a cada segundo.
+     * Variante de {@link #tryPromoteNextInQueue(QueueKey)} que informa quantas sessoes foram promovidas.
+     * Usada pelo {@link com.flowpay.api.sweeper.QueueSweeper} para contar apenas os reparos efetivos.
      *
-     * @param serviceType Tipo de serviço
-     * @return Flux com as sessoes em andamento
+     * @param queueKey - Agência e tipo de serviço
+     * @return Mono com a quantidade de sessoes promovidas
      */
-    public Flux<InProgressSessionResponse> streamInProgressSessions(ServiceType serviceType) {
-        log.info("Iniciando stream de sessoes IN_PROGRESS para {}", serviceType);
+    public Mono<Integer> promoteQueue(QueueKey queueKey) {
+        return sessionOperation("PROMOTE", queueKey, null, Mono.defer(() -> {
+            List<CustomerSession> claimed = new ArrayList<>();
+            return bulkheads.database(queueKey.serviceType(), transactionalOperator.transactional(
+                    customerSessionRepository.lockQueue(queueKey.lockId())
+                        .thenMany(slotAllocator.promoteNext(queueKey).doOnNext(claimed::add))
+                        .collectList()
+                        .flatMap(promoted -> notificationOutbox.enqueuePromotions(promoted).thenReturn(promoted))))
+                .doOnError(error -> slotAllocator.rollback(claimed));
+        }))
+            .doOnNext(promoted -> promoted.forEach(session -> {
+                log.info("sessao {} promovida para IN_PROGRESS na fila {} (atendente {})",
+                    session.getId(), queueKey, session.getAttendantId());
+                lifecyclePublisher.publish(SessionLifecycleEvent.PROMOTED, session);
+            }))
+            .map(List::size);
+    }
 
-        return Flux.interval(Duration.ZERO, Duration.ofSeconds(1))
+    /**
+     * Retorna um stream com snapshots das sessoes IN_PROGRESS de uma fila,
+     * consultando a cada segundo e emitindo apenas quando a lista muda.
+     *
+     * @param queueKey Agência e tipo de serviço
+     * @return Flux com a lista de sessoes em andamento
+     */
+    public Flux<List<InProgressSessionResponse>> streamInProgressSnapshots(QueueKey queueKey) {
+        log.info("Iniciando stream de sessoes IN_PROGRESS para {}", queueKey);
+
+        return Flux.interval(Duration.ZERO, Duration.ofSeconds(1), bulkheads.pollingScheduler(queueKey.serviceType()))
             .flatMap(tick ->
-                customerSessionRepository.findAllInProgressByServiceType(serviceType.name())
+                customerSessionRepository.findAllInProgressByBranchAndServiceType(queueKey.branch(), queueKey.serviceType())
                     .flatMap(session ->
-                        customerRepository.findById(session.getCustomerId())
+                        bulkheads.database(queueKey.serviceType(), customerRepository.findById(session.getCustomerId()))
                             .map(customer -> new InProgressSessionResponse(
                                 session.getId(),
                                 customer.getName(),
                                 customer.getEmail(),
                                 session.getServiceType(),
-                                session.getStartedAt()
+                                session.getStartedAt(),
+                                session.getAttendantId(),
+                                attendantName(session.getAttendantId())
                             ))
                     )
                     .collectList()
             )
-            .distinctUntilChanged()
-            .flatMapIterable(list -> list);
+            .distinctUntilChanged();
     }
 
     /**
@@ -292,6 +413,9 @@ public class CustomerSessionService {
      * Nesse momento, caso necessário o atendente pode finalizar a sessao manualmente
      * através do método de finalizaçao de sessao.
      * 
+     * O stream só é aberto no nó dono da fila da sessao, que é quem promove a fila
+     * e trata o cancelamento por desconexao.
+     *
      * @see finishCustomerSession
      * @param email - O email do cliente atual
      * @return Flux - Fluxo de atualizaçoes da atual posiçaoo do usuário na fila
@@ -299,57 +423,216 @@ public class CustomerSessionService {
     public Flux<QueuePositionResponse> streamQueueUpdates(String email) {
         log.info("Iniciando stream SSE para {}", email);
         
-        Mono<QueuePositionResponse> initialUpdate = customerSessionRepository
-            .findByActiveServicesByCustomerEmail(email)
-            .flatMap(session ->
-                customerSessionRepository.findQueuePositionByCustomerEmail(email)
+        // O tipo de serviço da sessao define o bulkhead das consultas e o scheduler do polling
+        Flux<QueuePositionResponse> updates = customerSessionRepository.findByActiveServicesByCustomerEmail(email)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa encontrada")))
+            .flatMap(session -> queueOwnership.requireLocal(queueKeyOf(session)).thenReturn(session))
+            .flatMapMany(session -> {
+                ServiceType serviceType = session.getServiceType();
+                Mono<QueuePositionResponse> initialUpdate = bulkheads.database(serviceType,
+                        customerSessionRepository.findQueuePositionByCustomerEmail(email))
                     .map(position -> new QueuePositionResponse(
                         position,
                         session.getStatus(),
-                        session.getServiceType(),
+                        serviceType,
                         OffsetDateTime.now()
-                    ))
-            );
-        
-        Flux<QueuePositionResponse> pollingUpdates = Flux.interval(Duration.ofSeconds(1))
-            .flatMap(tick -> 
-                customerSessionRepository.findByActiveServicesByCustomerEmail(email)
-                    .flatMap(session ->
-                        customerSessionRepository.findQueuePositionByCustomerEmail(email)
-                            .map(position -> new QueuePositionResponse(
-                                position,
-                                session.getStatus(),
-                                session.getServiceType(),
-                                OffsetDateTime.now()
-                            ))
+                    ));
+
+                Flux<QueuePositionResponse> pollingUpdates = Flux.interval(Duration.ofSeconds(1), bulkheads.pollingScheduler(serviceType))
+                    .flatMap(tick ->
+                        bulkheads.database(serviceType, customerSessionRepository.findByActiveServicesByCustomerEmail(email))
+                            .flatMap(current ->
+                                bulkheads.database(serviceType, customerSessionRepository.findQueuePositionByCustomerEmail(email))
+                                    .map(position -> new QueuePositionResponse(
+                                        position,
+                                        current.getStatus(),
+                                        current.getServiceType(),
+                                        OffsetDateTime.now()
+                                    ))
+                            )
                     )
-            )
-            .takeUntil(update -> update.getStatus() == CustomerSessionStatus.COMPLETED);
-        
-        return initialUpdate.flux()
-            .concatWith(pollingUpdates)
+                    .takeUntil(update -> update.getStatus() == CustomerSessionStatus.COMPLETED);
+
+                return bulkheads.subscriber(serviceType, initialUpdate.flux().concatWith(pollingUpdates));
+            })
             .distinctUntilChanged(update -> update.getPosition() + "|" + update.getStatus())
             .doOnNext(update -> log.info("SSE enviado para {}: posiçao={} status={}", 
                 email, update.getPosition(), update.getStatus()))
-            .timeout(Duration.ofHours(1))
-            .doOnCancel(() -> {
-                log.info("Stream cancelado para {}, verificando sessao...", email);
-                customerSessionRepository.findByActiveServicesByCustomerEmail(email)
-                    .filter(session -> session.getStatus() == CustomerSessionStatus.PENDING)
-                    .flatMap(session -> {
-                        log.info("Sessao PENDING cancelada por desconexao do cliente {}", email);
-                        return customerSessionRepository.setFinishedAtToNow(email, CustomerSessionStatus.CANCELED)
-                            .then(tryPromoteNextInQueue(session.getServiceType()));
-                    })
-                    .subscribe();
+            .timeout(Duration.ofHours(1));
+
+        // Um cliente lento desconectado pelo SseBackpressurePolicy mantém a sessao: ele pode reconectar
+        return SseBackpressurePolicy.doOnClientCancel(updates, () -> {
+            log.info("Stream cancelado para {}, verificando sessao...", email);
+            // Sem assinante para o resultado: uma falha aqui deixa a fila parada até a próxima
+            // varredura do QueueSweeper, entao só é registrada
+            cancelPendingSession(email).subscribe(null,
+                error -> log.warn("Falha ao cancelar a sessao de {} apos desconexao: {}", email, error.getMessage()));
+        });
+    }
+
+    /**
+     * Stream da posiçao na fila da sessao identificada pelo token, com as mesmas regras de
+     * {@link #streamQueueUpdates(String)}. Cada atualizaçao lê a sessao e a posiçao pela chave primária,
+     * sem o JOIN com customers pelo email. O stream termina quando a sessao é finalizada.
+     *
+     * @param token - Token de sessao já validado
+     * @return Flux - Fluxo de atualizaçoes da posiçao da sessao na fila
+     */
+    public Flux<QueuePositionResponse> streamQueueUpdates(SessionToken token) {
+        long sessionId = token.sessionId();
+        log.info("Iniciando stream SSE para sessao {}", sessionId);
+
+        Mono<QueuePositionResponse> update = bulkheads.database(token.serviceType(), customerSessionRepository.findById(sessionId))
+            .filter(session -> session.getServiceType() == token.serviceType())
+            .flatMap(session ->
+                bulkheads.database(token.serviceType(), customerSessionRepository.findQueuePositionBySessionId(sessionId))
+                    .map(position -> new QueuePositionResponse(
+                        position,
+                        session.getStatus(),
+                        session.getServiceType(),
+                        OffsetDateTime.now()
+                    ))
+            );
+
+        Mono<QueuePositionResponse> initialUpdate = findActiveSession(token)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Nenhuma sessao ativa encontrada")))
+            .flatMap(session -> queueOwnership.requireLocal(queueKeyOf(session)))
+            .then(update);
+
+        Flux<QueuePositionResponse> updates = bulkheads.subscriber(token.serviceType(), initialUpdate.flux()
+                .concatWith(Flux.interval(Duration.ofSeconds(1), bulkheads.pollingScheduler(token.serviceType())).concatMap(tick -> update)))
+            .takeUntil(current -> current.getStatus() == CustomerSessionStatus.COMPLETED
+                || current.getStatus() == CustomerSessionStatus.CANCELED)
+            .distinctUntilChanged(current -> current.getPosition() + "|" + current.getStatus())
+            .timeout(Duration.ofHours(1));
+
+        return SseBackpressurePolicy.doOnClientCancel(updates, () -> {
+            log.info("Stream cancelado para sessao {}, verificando sessao...", sessionId);
+            cancelPendingSession(findActiveSession(token), "sessao " + sessionId).subscribe(null,
+                error -> log.warn("Falha ao cancelar a sessao {} apos desconexao: {}", sessionId, error.getMessage()));
+        });
+    }
+
+    /**
+     * Cancela a sessao do cliente se ela ainda estiver na fila (PENDING) e promove a fila.
+     * Usado quando o cliente desconecta do stream da fila; sessoes em atendimento nao sao afetadas.
+     *
+     * @param email - Email do cliente
+     * @return Mono<Void>
+     */
+    public Mono<Void> cancelPendingSession(String email) {
+        return cancelPendingSession(customerSessionRepository.findByActiveServicesByCustomerEmail(email), email);
+    }
+
+    private Mono<Void> cancelPendingSession(Mono<CustomerSession> activeSession, String subject) {
+        return activeSession
+            .filter(session -> session.getStatus() == CustomerSessionStatus.PENDING)
+            // Sessao promovida nesse meio tempo: o cliente já está em atendimento, nada a cancelar
+            .flatMap(session -> sessionOperation("CANCEL", queueKeyOf(session), session.getId(),
+                finishIfUnchanged(session, CustomerSessionStatus.CANCELED)))
+            .doOnNext(canceled -> log.info("Sessao PENDING cancelada por desconexao do cliente {}", subject))
+            .then();
+    }
+
+    /**
+     * Expira uma sessao ativa esquecida como CANCELED, tanto PENDING quanto IN_PROGRESS, e promove a fila.
+     * Um atendimento abandonado nao foi concluído: nao conta como COMPLETED nas métricas de duraçao.
+     * Usado pelo {@link com.flowpay.api.sweeper.QueueSweeper}.
+     * Se a sessao mudou de status desde a leitura nada é alterado.
+     * Só é chamado pelo nó dono da fila.
+     *
+     * @param session - Sessao ativa lida do banco
+     * @return Mono com true se a sessao foi expirada
+     */
+    public Mono<Boolean> expireSession(CustomerSession session) {
+        return sessionOperation("EXPIRE", queueKeyOf(session), session.getId(),
+                finishIfUnchanged(session, CustomerSessionStatus.CANCELED))
+            .doOnNext(expired -> log.warn("Sessao {} expirada pelo sweeper: {} desde {}",
+                expired.getId(), expired.getStatus(), expired.getStartedAt()))
+            .hasElement();
+    }
+
+    /**
+     * Finaliza a sessao com o novo status se ela ainda estiver no status lido, publica o evento
+     * e promove a fila. Completa vazio se a sessao mudou nesse meio tempo.
+     */
+    private Mono<CustomerSession> finishIfUnchanged(CustomerSession session, CustomerSessionStatus newStatus) {
+        return transitionCoalescer.finish(session.getId(), queueKeyOf(session), session.getStatus(), newStatus)
+            .map(updated -> session)
+            .flatMap(finished -> {
+                lifecyclePublisher.publish(SessionLifecycleEvent.forStatus(newStatus), finished);
+                return tryPromoteNextInQueue(queueKeyOf(finished)).thenReturn(finished);
             });
+    }
+
+    /**
+     * Executa uma transiçao de status em uma transaçao que adquire o lock da fila antes de alterar
+     * qualquer linha: o stream de mudanças recebe as mudanças da fila na ordem do lock, e todas as
+     * transaçoes que alteram sessoes seguem a mesma ordem de locks (filas, linhas), sem deadlock.
+     * A vaga do bulkhead da fila é adquirida antes da conexao da transaçao e cobre o lock e todas as consultas
+     * dentro dela: nenhuma transaçao aberta espera vaga segurando uma conexao ou o lock da fila.
+     */
+    private <T> Mono<T> inChangeTransaction(QueueKey queueKey, Mono<T> transition) {
+        return bulkheads.database(queueKey.serviceType(),
+            transactionalOperator.transactional(customerSessionRepository.lockQueue(queueKey.lockId()).then(transition)));
+    }
+
+    /**
+     * Calcula a chave de ordenaçao da sessao pela política da fila. Deve ser composto depois do lock da fila,
+     * para que as chaves sejam atribuídas na mesma ordem dos commits. Se a política ainda nao tem o estado
+     * da fila neste nó (ex: depois de um restart), ele é restaurado a partir das sessoes PENDING gravadas.
+     */
+    private Mono<Void> assignQueueOrder(CustomerSession session, QueueKey queueKey) {
+        Mono<Void> recovered = queueDiscipline.needsRecovery(queueKey)
+            ? customerSessionRepository.findLastPendingPerPriority(queueKey.branch(), queueKey.serviceType())
+                .collectMap(CustomerSession::getPriority, CustomerSession::getQueueOrder)
+                .doOnNext(lastOrderKeys -> queueDiscipline.recover(queueKey, lastOrderKeys))
+                .then()
+            : Mono.empty();
+        return recovered.then(Mono.fromRunnable(() -> session.setQueueOrder(
+            queueDiscipline.orderKey(queueKey, session.getPriority(), session.getStartedAt().toInstant()))));
+    }
+
+    /**
+     * Registra a mudança de status no stream de mudanças (session_changes).
+     * Deve ser composto dentro da mesma transaçao que altera a sessao.
+     */
+    private Mono<Void> recordChange(CustomerSession session, CustomerSessionStatus newStatus) {
+        return sessionChangeRepository.recordChange(
+            session.getId(), session.getCustomerId(), session.getBranch(), session.getServiceType(), newStatus);
+    }
+
+    private String attendantName(String attendantId) {
+        if (attendantId == null) {
+            return null;
         }
+        Attendant attendant = attendantRegistry.find(attendantId);
+        return attendant != null ? attendant.getName() : null;
+    }
 
-        private CustomerSessionStatus getNewStatus(CustomerSessionStatus currentStatus) {
-            return switch (currentStatus) {
-                case IN_PROGRESS -> CustomerSessionStatus.COMPLETED;
-                case PENDING -> CustomerSessionStatus.CANCELED;
-                default -> currentStatus;
-            };
+    /**
+     * Operaçao de sessao instrumentada com o evento JFR e com o span "session.<operaçao>" do trace da requisiçao.
+     */
+    private <T> Mono<T> sessionOperation(String operation, QueueKey queueKey, Long sessionId, Mono<T> work) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("flowpay.branch", queueKey.branch());
+        attributes.put("flowpay.service_type", queueKey.serviceType());
+        if (sessionId != null) {
+            attributes.put("flowpay.session_id", sessionId);
         }
+        return tracer.span("session." + operation.toLowerCase(), SpanKind.INTERNAL, attributes,
+            FlightRecorderEvents.sessionOperation(operation, queueKey, sessionId, work));
+    }
+
+    private static QueueKey queueKeyOf(CustomerSession session) {
+        return QueueKey.of(session.getBranch(), session.getServiceType());
+    }
+
+    private CustomerSessionStatus getNewStatus(CustomerSessionStatus currentStatus) {
+        return switch (currentStatus) {
+            case IN_PROGRESS -> CustomerSessionStatus.COMPLETED;
+            case PENDING -> CustomerSessionStatus.CANCELED;
+            default -> currentStatus;
+        };
+    }
 }
@@ -0,0 +1,234 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.config.IdempotencyProperties;
+import com.flowpay.api.controllers.CustomerSessionController;
+import com.flowpay.api.entities.IdempotencyRecord;
+import com.flowpay.api.repositories.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Suporte ao header Idempotency-Key nos endpoints de criaçao e finalizaçao de sessao.
+ *
+ * O resultado da requisiçao original (status, Location e Session-Token) é guardado em um cache LRU limitado em memória
+ * e na tabela idempotency_keys, compartilhada entre os nós. Uma repetiçao com a mesma chave devolve
+ * o resultado original sem executar o {@link CustomerSessionService}; na maioria dos casos sem
+ * nem consultar o banco.
+ *
+ * Só resultados de sucesso sao guardados: se a requisiçao original falhar a reserva é liberada
+ * e o cliente pode repetir com a mesma chave. A reserva de uma requisiçao em andamento vale até
+ * reserved_until; se o nó que a executa cair, uma repetiçao com o mesmo conteudo assume a chave
+ * depois desse prazo, e o resultado do dono anterior deixa de ser gravado.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Map<String, StoredResult> results;
+    private Disposable cleanupTask;
+
+    public IdempotencyService(IdempotencyProperties properties, IdempotencyRecordRepository idempotencyRecordRepository) {
+        this.properties = properties;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.results = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResult> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        };
+    }
+
+    @PostConstruct
+    void startCleanup() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        cleanupTask = Flux.interval(properties.getCleanupInterval())
+            .concatMap(tick -> idempotencyRecordRepository.deleteExpired(nowUtc())
+                .doOnNext(deleted -> {
+                    if (deleted > 0) {
+                        log.info("{} chaves de idempotência expiradas removidas", deleted);
+                    }
+                })
+                .onErrorResume(error -> {
+                    log.warn("Falha ao remover chaves de idempotência expiradas: {}", error.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    void stopCleanup() {
+        if (cleanupTask != null) {
+            cleanupTask.dispose();
+        }
+    }
+
+    /**
+     * Executa a operaçao uma única vez por chave.
+     *
+     * @throws IllegalArgumentException se a chave for inválida ou reutilizada com outra requisiçao
+     * @throws IllegalStateException se a requisiçao original com a mesma chave ainda estiver em andamento
+     * @param idempotencyKey - Valor do header Idempotency-Key (sem header a operaçao é executada normalmente)
+     * @param scope - Operaçao (a mesma chave pode ser usada em operaçoes diferentes)
+     * @param requestFingerprint - Conteudo que identifica a requisiçao (ex: email e tipo de serviço)
+     * @param operation - Operaçao original
+     * @return Resposta da operaçao original ou a repetiçao do seu resultado
+     */
+    public Mono<ResponseEntity<Void>> execute(String idempotencyKey, String scope, String requestFingerprint,
+                                              Supplier<Mono<ResponseEntity<Void>>> operation) {
+        if (!properties.isEnabled() || idempotencyKey == null) {
+            return Mono.defer(operation);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException(
+                "Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres"));
+        }
+
+        String id = scope + ":" + idempotencyKey;
+        String requestHash = sha256(requestFingerprint);
+
+        return Mono.defer(() -> {
+            StoredResult cached = cached(id);
+            if (cached != null) {
+                return replay(cached, requestHash);
+            }
+
+            LocalDateTime now = nowUtc();
+            LocalDateTime reservedUntil = now.plus(properties.getReservationTimeout());
+            return idempotencyRecordRepository.reserve(id, requestHash, now, reservedUntil, now.plus(properties.getTtl()))
+                .flatMap(reserved -> reserved > 0
+                    ? runOriginal(id, requestHash, reservedUntil, operation)
+                    : idempotencyRecordRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new IllegalStateException(
+                            "Requisiçao com esta Idempotency-Key em andamento, tente novamente")))
+                        .flatMap(record -> fromRecord(id, record, requestHash)));
+        });
+    }
+
+    /**
+     * Executa a requisiçao original e grava o resultado enquanto a reserva ainda for dela:
+     * reservedUntil identifica a reserva, entao uma reserva assumida por outra requisiçao nao é sobrescrita.
+     */
+    private Mono<ResponseEntity<Void>> runOriginal(String id, String requestHash, LocalDateTime reservedUntil,
+                                                   Supplier<Mono<ResponseEntity<Void>>> operation) {
+        return Mono.defer(operation)
+            .flatMap(response -> {
+                String location = response.getHeaders().getLocation() != null
+                    ? response.getHeaders().getLocation().toString()
+                    : null;
+                String sessionToken = response.getHeaders().getFirst(CustomerSessionController.SESSION_TOKEN_HEADER);
+                StoredResult result = new StoredResult(requestHash, response.getStatusCode().value(), location,
+                    sessionToken, System.currentTimeMillis() + properties.getTtl().toMillis());
+                return idempotencyRecordRepository.complete(id, reservedUntil, (short) result.statusCode(), location, sessionToken)
+                    .doOnSuccess(updated -> {
+                        if (updated != null && updated > 0) {
+                            store(id, result);
+                        } else {
+                            log.warn("Reserva da chave de idempotência {} expirou e foi assumida por outra requisiçao", id);
+                        }
+                    })
+                    .thenReturn(response);
+            })
+            .onErrorResume(error -> idempotencyRecordRepository.release(id, reservedUntil)
+                .onErrorResume(releaseError -> {
+                    log.warn("Falha ao liberar a chave de idempotência {}: {}", id, releaseError.getMessage());
+                    return Mono.empty();
+                })
+                .then(Mono.error(error)));
+    }
+
+    private Mono<ResponseEntity<Void>> fromRecord(String id, IdempotencyRecord record, String requestHash) {
+        if (record.getStatusCode() == null) {
+            if (!record.getRequestHash().equals(requestHash)) {
+                return Mono.error(new IllegalArgumentException("Idempotency-Key já utilizada com outra requisiçao"));
+            }
+            return Mono.error(new IllegalStateException(
+                "Requisiçao com esta Idempotency-Key em andamento, tente novamente"));
+        }
+
+        StoredResult result = new StoredResult(record.getRequestHash(), record.getStatusCode(), record.getLocation(),
+            record.getSessionToken(), record.getExpiresAt().toInstant().toEpochMilli());
+        store(id, result);
+        return replay(result, requestHash);
+    }
+
+    private Mono<ResponseEntity<Void>> replay(StoredResult result, String requestHash) {
+        if (!result.requestHash().equals(requestHash)) {
+            return Mono.error(new IllegalArgumentException("Idempotency-Key já utilizada com outra requisiçao"));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatusCode.valueOf(result.statusCode()))
+            .header(REPLAYED_HEADER, "true");
+        if (result.location() != null) {
+            response.location(URI.create(result.location()));
+        }
+        if (result.sessionToken() != null) {
+            response.header(CustomerSessionController.SESSION_TOKEN_HEADER, result.sessionToken());
+        }
+        return Mono.just(response.build());
+    }
+
+    private StoredResult cached(String id) {
+        synchronized (results) {
+            StoredResult result = results.get(id);
+            if (result != null && result.expiresAtMillis() < System.currentTimeMillis()) {
+                results.remove(id);
+                return null;
+            }
+            return result;
+        }
+    }
+
+    private void store(String id, StoredResult result) {
+        synchronized (results) {
+            results.put(id, result);
+        }
+    }
+
+    /**
+     * Truncado em microssegundos, a precisao do TIMESTAMP do Postgres: reservedUntil é comparado por igualdade.
+     */
+    private static LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private record StoredResult(String requestHash, int statusCode, String location, String sessionToken,
+                                long expiresAtMillis) {
+    }
+}
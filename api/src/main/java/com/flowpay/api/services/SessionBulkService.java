@@ -0,0 +1,222 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecyclePublisher;
+import com.flowpay.api.notifications.NotificationOutbox;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.requests.BulkSessionRequest;
+import com.flowpay.api.responses.BulkOperationResponse;
+import com.flowpay.api.responses.BulkSessionOutcome;
+import com.flowpay.api.responses.BulkSessionOutcome.Outcome;
+import com.flowpay.api.slots.SlotAllocator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Operaçoes em lote dos atendentes e supervisores (fechamento de turno, limpeza de filas travadas).
+ *
+ * Cada operaçao aplica a transiçao em um único comando set-based, que também grava o stream de mudanças,
+ * e depois executa a promoçao uma única vez por fila afetada, em vez de um findById + save + promoçao por sessao.
+ * A transaçao segura o lock de cada fila envolvida, como a promoçao e a finalizaçao individuais,
+ * e executa com uma vaga do bulkhead de cada tipo de serviço envolvido, adquiridas antes da transaçao.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionBulkService {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final CustomerSessionRepository customerSessionRepository;
+    private final CustomerSessionService customerSessionService;
+    private final SessionLifecyclePublisher lifecyclePublisher;
+    private final QueueOwnership queueOwnership;
+    private final TransactionalOperator transactionalOperator;
+    private final SlotAllocator slotAllocator;
+    private final NotificationOutbox notificationOutbox;
+    private final ServiceTypeBulkheads bulkheads;
+
+    /**
+     * Completa as sessoes IN_PROGRESS selecionadas e promove a fila de cada uma.
+     */
+    public Mono<BulkOperationResponse> complete(BulkSessionRequest request) {
+        return execute("complete", request, CustomerSessionStatus.IN_PROGRESS,
+            (ids, queues) -> transactionalOperator.transactional(lockQueues(queues)
+                .thenMany(customerSessionRepository.completeAll(ids))), true);
+    }
+
+    /**
+     * Cancela as sessoes ativas (PENDING ou IN_PROGRESS) selecionadas e promove a fila de cada uma.
+     */
+    public Mono<BulkOperationResponse> cancel(BulkSessionRequest request) {
+        return execute("cancel", request, null,
+            (ids, queues) -> transactionalOperator.transactional(lockQueues(queues)
+                .thenMany(customerSessionRepository.cancelAll(ids))), true);
+    }
+
+    /**
+     * Promove as sessoes PENDING selecionadas, até o limite de slots livres de cada fila.
+     */
+    public Mono<BulkOperationResponse> promote(BulkSessionRequest request) {
+        return execute("promote", request, CustomerSessionStatus.PENDING,
+            (ids, queues) -> Flux.defer(() -> {
+                List<CustomerSession> claimed = new ArrayList<>();
+                return transactionalOperator.transactional(
+                        lockQueues(queues)
+                            .thenMany(slotAllocator.promoteSelected(ids, queues).doOnNext(claimed::add))
+                            .collectList()
+                            .flatMap(promoted -> notificationOutbox.enqueuePromotions(promoted).thenReturn(promoted)))
+                    .doOnError(error -> slotAllocator.rollback(claimed))
+                    .flatMapIterable(promoted -> promoted);
+            }),
+            false);
+    }
+
+    /**
+     * @param operation - Nome da operaçao (resposta e logs)
+     * @param request - Seleçao das sessoes
+     * @param expectedStatus - Status exigido pela transiçao (nulo = qualquer status ativo)
+     * @param transition - Comando set-based que aplica a transiçao às sessoes (e filas) informadas
+     *                     e retorna as sessoes alteradas
+     * @param promoteAfter - Se a promoçao deve ser executada nas filas afetadas
+     */
+    private Mono<BulkOperationResponse> execute(String operation, BulkSessionRequest request,
+                                                CustomerSessionStatus expectedStatus,
+                                                BiFunction<Long[], Set<QueueKey>, Flux<CustomerSession>> transition,
+                                                boolean promoteAfter) {
+        return selectIds(request)
+            .flatMap(ids -> customerSessionRepository.findAllById(ids).collectList()
+                .flatMap(sessions -> {
+                    Map<Long, CustomerSession> found = new HashMap<>();
+                    List<Long> owned = new ArrayList<>();
+                    Set<QueueKey> ownedQueues = new LinkedHashSet<>();
+                    for (CustomerSession session : sessions) {
+                        found.put(session.getId(), session);
+                        QueueKey queueKey = queueKeyOf(session);
+                        if (queueOwnership.isLocal(queueKey)) {
+                            owned.add(session.getId());
+                            ownedQueues.add(queueKey);
+                        }
+                    }
+
+                    Mono<List<CustomerSession>> updated = owned.isEmpty()
+                        ? Mono.just(List.of())
+                        : bulkheads.database(ownedQueues.stream().map(QueueKey::serviceType).toList(),
+                            transition.apply(owned.toArray(Long[]::new), ownedQueues).collectList());
+
+                    return updated.flatMap(changed -> {
+                        Set<QueueKey> affectedQueues = new LinkedHashSet<>();
+                        Map<Long, CustomerSession> changedById = new HashMap<>();
+                        for (CustomerSession session : changed) {
+                            changedById.put(session.getId(), session);
+                            affectedQueues.add(queueKeyOf(session));
+                            lifecyclePublisher.publish(SessionLifecycleEvent.forStatus(session.getStatus()), session);
+                        }
+                        log.info("Operaçao em lote {}: {} de {} sessoes alteradas em {} filas",
+                            operation, changed.size(), ids.size(), affectedQueues.size());
+
+                        BulkOperationResponse response = new BulkOperationResponse(operation, ids.size(), changed.size(),
+                            outcomes(ids, found, changedById, expectedStatus));
+
+                        if (!promoteAfter) {
+                            return Mono.just(response);
+                        }
+                        return Flux.fromIterable(affectedQueues)
+                            .concatMap(customerSessionService::tryPromoteNextInQueue)
+                            .then(Mono.just(response));
+                    });
+                }));
+    }
+
+    /**
+     * Ids informados (sem duplicados, na ordem recebida) ou os ids selecionados pelo filtro.
+     */
+    private Mono<List<Long>> selectIds(BulkSessionRequest request) {
+        if (request.getSessionIds() != null && !request.getSessionIds().isEmpty()) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getSessionIds()));
+            if (ids.size() > MAX_BATCH_SIZE) {
+                return Mono.error(new IllegalArgumentException("Máximo de " + MAX_BATCH_SIZE + " sessoes por operaçao"));
+            }
+            return Mono.just(ids);
+        }
+
+        if (request.getServiceType() == null) {
+            return Mono.error(new IllegalArgumentException("Informe os ids das sessoes ou o tipo de serviço do filtro"));
+        }
+        int limit = request.getLimit() != null ? request.getLimit() : MAX_BATCH_SIZE;
+        if (limit <= 0 || limit > MAX_BATCH_SIZE) {
+            return Mono.error(new IllegalArgumentException("O limite deve estar entre 1 e " + MAX_BATCH_SIZE));
+        }
+
+        return customerSessionRepository.findActiveIdsForBulk(
+                QueueKey.normalizeBranch(request.getBranch()),
+                request.getServiceType(),
+                request.getStatus(),
+                request.getStartedBefore() != null
+                    ? request.getStartedBefore().atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                    : null,
+                limit)
+            .collectList();
+    }
+
+    private List<BulkSessionOutcome> outcomes(List<Long> ids, Map<Long, CustomerSession> found,
+                                              Map<Long, CustomerSession> changed,
+                                              CustomerSessionStatus expectedStatus) {
+        List<BulkSessionOutcome> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CustomerSession updated = changed.get(id);
+            if (updated != null) {
+                results.add(new BulkSessionOutcome(id, Outcome.UPDATED, updated.getStatus()));
+                continue;
+            }
+
+            CustomerSession session = found.get(id);
+            if (session == null) {
+                results.add(new BulkSessionOutcome(id, Outcome.NOT_FOUND, null));
+            } else if (!queueOwnership.isLocal(queueKeyOf(session))) {
+                results.add(new BulkSessionOutcome(id, Outcome.NOT_OWNED, session.getStatus()));
+            } else if (session.getFinishedAt() == null && expectedStatus == CustomerSessionStatus.PENDING
+                    && session.getStatus() == CustomerSessionStatus.PENDING) {
+                results.add(new BulkSessionOutcome(id, Outcome.NO_SLOT_AVAILABLE, session.getStatus()));
+            } else {
+                results.add(new BulkSessionOutcome(id, Outcome.INVALID_STATUS, session.getStatus()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Locks das filas envolvidas no início da transaçao, antes de qualquer escrita (ordem do stream de mudanças),
+     * sempre em ordem crescente de lockId para evitar deadlock entre lotes e finalizaçoes concorrentes.
+     */
+    private Mono<Void> lockQueues(Set<QueueKey> queues) {
+        return Flux.fromIterable(queues)
+            .map(QueueKey::lockId)
+            .distinct()
+            .sort()
+            .concatMap(customerSessionRepository::lockQueue)
+            .then();
+    }
+
+    private static QueueKey queueKeyOf(CustomerSession session) {
+        return QueueKey.of(session.getBranch(), session.getServiceType());
+    }
+}
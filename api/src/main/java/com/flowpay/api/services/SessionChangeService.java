@@ -0,0 +1,69 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.repositories.SessionChangeRepository;
+import com.flowpay.api.responses.SessionChangeResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leitura do stream de mudanças de sessoes (change data) para consumidores externos
+ * como BI e notificaçoes, sem que eles precisem consultar customer_sessions.
+ *
+ * A ordem do stream é a ordem de commit das mudanças de cada fila (nao a ordem dos ids), e o cursor é o
+ * changeId da última mudança consumida: mudanças de uma transaçao ainda em andamento só sao entregues
+ * depois do commit, antes das mudanças gravadas depois dela ({@link SessionChangeRepository#findAfter}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionChangeService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final Duration FOLLOW_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final SessionChangeRepository sessionChangeRepository;
+
+    /**
+     * Retorna as mudanças posteriores ao cursor.
+     *
+     * Sem follow, retorna uma única página e o cliente continua a partir do changeId da última mudança.
+     * Com follow, o stream permanece aberto: páginas cheias sao buscadas em sequência e,
+     * quando o consumidor alcança o fim do stream, a consulta é repetida a cada segundo.
+     *
+     * @throws IllegalArgumentException se o cursor ou o tamanho da página forem inválidos
+     * @param after - Id da última mudança já consumida (0 para o início)
+     * @param limit - Tamanho da página
+     * @param follow - Mantém o stream aberto aguardando novas mudanças
+     * @return Flux com as mudanças na ordem do stream
+     */
+    public Flux<SessionChangeResponse> changesAfter(long after, int limit, boolean follow) {
+        if (after < 0) {
+            return Flux.error(new IllegalArgumentException("Cursor inválido: " + after));
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return Flux.error(new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + MAX_PAGE_SIZE));
+        }
+
+        if (!follow) {
+            return sessionChangeRepository.findAfter(after, limit).map(SessionChangeResponse::new);
+        }
+
+        AtomicLong cursor = new AtomicLong(after);
+        return Flux.defer(() -> sessionChangeRepository.findAfter(cursor.get(), limit))
+            .doOnNext(change -> cursor.set(change.getId()))
+            .map(SessionChangeResponse::new)
+            // O companion recebe quantas mudanças a página anterior trouxe:
+            // página cheia busca a próxima imediatamente, senao espera o intervalo de polling
+            .repeatWhen(pages -> pages.concatMap(count -> count >= limit
+                ? Mono.just(count)
+                : Mono.delay(FOLLOW_POLL_INTERVAL)))
+            .doOnSubscribe(sub -> log.info("Consumidor de mudanças conectado a partir do cursor {}", after))
+            .doOnCancel(() -> log.info("Consumidor de mudanças desconectado no cursor {}", cursor.get()));
+    }
+}
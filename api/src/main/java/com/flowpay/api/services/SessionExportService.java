@@ -0,0 +1,80 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.SessionExportRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Exportaçao do histórico de sessoes finalizadas.
+ *
+ * As sessoes sao lidas em páginas por keyset em (started_at, id), cada página começando logo após
+ * a última linha da anterior, entao o custo por página é constante independente da profundidade.
+ * A próxima página só é buscada quando o cliente consome a atual, mantendo memória constante.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionExportService {
+
+    private static final int PAGE_SIZE = 500;
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CustomerSessionRepository customerSessionRepository;
+
+    /**
+     * Stream das sessoes finalizadas que atendem aos filtros, em ordem de início.
+     *
+     * @throws IllegalArgumentException se o status nao for um status final ou o período for inválido
+     * @param serviceType - Filtro opcional por tipo de serviço
+     * @param status - Filtro opcional por status final (COMPLETED ou CANCELED)
+     * @param from - Início do período (inclusivo), opcional
+     * @param to - Fim do período (exclusivo), opcional (padrao: agora)
+     * @return Flux com as linhas da exportaçao
+     */
+    public Flux<SessionExportRow> exportFinished(ServiceType serviceType, CustomerSessionStatus status,
+                                                 OffsetDateTime from, OffsetDateTime to) {
+        if (status == CustomerSessionStatus.PENDING || status == CustomerSessionStatus.IN_PROGRESS) {
+            return Flux.error(new IllegalArgumentException("Apenas sessoes finalizadas podem ser exportadas. Status: " + status));
+        }
+
+        LocalDateTime start = from != null ? toUtc(from) : BEGINNING;
+        LocalDateTime until = to != null ? toUtc(to) : LocalDateTime.now(ZoneOffset.UTC);
+        if (!start.isBefore(until)) {
+            return Flux.error(new IllegalArgumentException("Período inválido: início deve ser anterior ao fim"));
+        }
+
+        log.info("Exportando sessoes finalizadas: tipo={} status={} de {} até {}", serviceType, status, start, until);
+
+        return fetchPage(start, 0L, until, serviceType, status)
+            .expand(page -> {
+                if (page.size() < PAGE_SIZE) {
+                    return Mono.empty();
+                }
+                SessionExportRow last = page.get(page.size() - 1);
+                return fetchPage(toUtc(last.getStartedAt()), last.getSessionId(), until, serviceType, status);
+            })
+            .concatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<SessionExportRow>> fetchPage(LocalDateTime afterStartedAt, long afterId, LocalDateTime until,
+                                                   ServiceType serviceType, CustomerSessionStatus status) {
+        return customerSessionRepository
+            .findFinishedPage(afterStartedAt, afterId, until, serviceType, status, PAGE_SIZE)
+            .collectList();
+    }
+
+    private static LocalDateTime toUtc(OffsetDateTime dateTime) {
+        return dateTime.atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
@@ -0,0 +1,219 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.QueueDisciplineConfiguration;
+import com.flowpay.api.config.QueueProperties;
+import com.flowpay.api.config.SlotProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.queue.QueueDiscipline;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.requests.ServiceTypeWorkload;
+import com.flowpay.api.requests.SimulationRequest;
+import com.flowpay.api.responses.SimulationResponse;
+import com.flowpay.api.responses.SimulationResultResponse;
+import com.flowpay.api.simulation.QueueSimulator;
+import com.flowpay.api.simulation.SessionReplayRow;
+import com.flowpay.api.simulation.SimulatedArrival;
+import com.flowpay.api.simulation.SyntheticWorkload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planejamento de capacidade: simula as filas com capacidades diferentes para a mesma carga,
+ * sintética (distribuiçoes de chegada e atendimento) ou reproduzida do histórico de customer_sessions.
+ *
+ * A simulaçao roda fora do event loop e nao altera nenhuma fila real; a política de fila é a mesma
+ * da configuraçao (ou a informada), criada de novo para cada capacidade. A capacidade simulada é
+ * sempre fixa por fila; a resposta informa o alocador do nó e o que a simulaçao nao reproduz.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimulationService {
+
+    private static final int MAX_ARRIVALS = 5_000_000;
+    private static final int MAX_SLOTS_PER_QUEUE = 256;
+    private static final double MAX_HOURS = 24 * 31;
+    private static final int REPLAY_PAGE_SIZE = 5_000;
+
+    private final CustomerSessionRepository customerSessionRepository;
+    private final QueueProperties queueProperties;
+    private final SlotProperties slotProperties;
+
+    /**
+     * Executa a simulaçao do cenário com cada capacidade informada.
+     *
+     * @throws IllegalArgumentException se o cenário for inválido ou gerar clientes demais
+     * @param request - Cenário da simulaçao
+     * @return Mono com os resultados por capacidade e tipo de serviço
+     */
+    public Mono<SimulationResponse> simulate(SimulationRequest request) {
+        List<Integer> capacities = request.getSlotsPerQueue() == null || request.getSlotsPerQueue().isEmpty()
+            ? List.of(CustomerSessionService.MAX_SLOTS_PER_SERVICE)
+            : request.getSlotsPerQueue();
+        for (Integer slots : capacities) {
+            if (slots == null || slots <= 0 || slots > MAX_SLOTS_PER_QUEUE) {
+                return Mono.error(new IllegalArgumentException(
+                    "Slots por fila devem estar entre 1 e " + MAX_SLOTS_PER_QUEUE + ": " + slots));
+            }
+        }
+        QueueProperties.Discipline discipline = request.getDiscipline() != null
+            ? request.getDiscipline()
+            : queueProperties.getDiscipline();
+        boolean replay = request.getReplayFrom() != null;
+
+        return (replay ? replayArrivals(request) : syntheticArrivals(request))
+            .publishOn(Schedulers.boundedElastic())
+            .map(arrivals -> {
+                long start = System.nanoTime();
+                List<SimulationResultResponse> results = new ArrayList<>();
+                for (int slots : capacities) {
+                    results.addAll(new QueueSimulator(disciplineFor(discipline), slotProperties.getAllocator(), slots).run(arrivals));
+                }
+                long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                double simulatedHours = arrivals.isEmpty() ? 0.0
+                    : (arrivals.getLast().arrivalMillis() - arrivals.getFirst().arrivalMillis()) / 3_600_000.0;
+                log.info("Simulaçao {} com {} chegadas ({} h) e capacidades {} concluída em {} ms",
+                    replay ? "do histórico" : "sintética", arrivals.size(), String.format("%.1f", simulatedHours),
+                    capacities, elapsedMillis);
+                return new SimulationResponse(replay ? "REPLAY" : "SYNTHETIC", discipline, (long) arrivals.size(),
+                    simulatedHours, elapsedMillis, results, slotProperties.getAllocator(),
+                    QueueSimulator.divergencesFrom(slotProperties.getAllocator()));
+            });
+    }
+
+    private Mono<List<SimulatedArrival>> syntheticArrivals(SimulationRequest request) {
+        Map<ServiceType, ServiceTypeWorkload> workloads = request.getWorkloads();
+        if (workloads == null || workloads.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Informe as distribuiçoes por tipo de serviço ou o período do histórico"));
+        }
+        double hours = request.getHours() != null ? request.getHours() : 24.0;
+        if (hours <= 0 || hours > MAX_HOURS) {
+            return Mono.error(new IllegalArgumentException("Horas simuladas devem estar entre 0 e " + MAX_HOURS));
+        }
+
+        double expectedArrivals = 0;
+        for (Map.Entry<ServiceType, ServiceTypeWorkload> entry : workloads.entrySet()) {
+            ServiceTypeWorkload workload = entry.getValue();
+            if (workload == null || workload.getArrivalsPerHour() == null || workload.getArrivalsPerHour() < 0
+                || workload.getMeanServiceMinutes() == null || workload.getMeanServiceMinutes() <= 0
+                || (workload.getServiceTimeCv() != null && workload.getServiceTimeCv() < 0)) {
+                return Mono.error(new IllegalArgumentException("Distribuiçao inválida para " + entry.getKey()
+                    + ": informe arrivalsPerHour >= 0 e meanServiceMinutes > 0"));
+            }
+            expectedArrivals += workload.getArrivalsPerHour() * hours;
+        }
+        if (expectedArrivals > MAX_ARRIVALS) {
+            return Mono.error(new IllegalArgumentException(
+                "Cenário com clientes demais (" + (long) expectedArrivals + "), máximo " + MAX_ARRIVALS));
+        }
+
+        long seed = request.getSeed() != null ? request.getSeed() : System.nanoTime();
+        long startMillis = OffsetDateTime.now().toInstant().toEpochMilli();
+        return Mono.fromCallable(() -> SyntheticWorkload.generate(workloads, startMillis, hours, seed))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Chegadas reproduzidas do histórico. Atendimento: da promoçao ao fim; paciência: da chegada ao
+     * cancelamento das sessoes canceladas sem atendimento (as demais esperaram o quanto foi preciso).
+     * Sessoes canceladas sem atendimento usam a duraçao média de atendimento do tipo de serviço,
+     * e sessoes concluídas sem registro de promoçao sao ignoradas.
+     */
+    private Mono<List<SimulatedArrival>> replayArrivals(SimulationRequest request) {
+        LocalDateTime from = toUtc(request.getReplayFrom());
+        LocalDateTime until = request.getReplayUntil() != null
+            ? toUtc(request.getReplayUntil())
+            : LocalDateTime.now(ZoneOffset.UTC);
+        if (!from.isBefore(until)) {
+            return Mono.error(new IllegalArgumentException("Período inválido: início deve ser anterior ao fim"));
+        }
+
+        return fetchReplayPage(from, 0L, until)
+            .expand(page -> {
+                if (page.size() < REPLAY_PAGE_SIZE) {
+                    return Mono.empty();
+                }
+                SessionReplayRow last = page.get(page.size() - 1);
+                return fetchReplayPage(toUtc(last.getStartedAt()), last.getSessionId(), until);
+            })
+            .concatMapIterable(page -> page, 1)
+            .take(MAX_ARRIVALS + 1L)
+            .collectList()
+            .flatMap(rows -> rows.size() > MAX_ARRIVALS
+                ? Mono.error(new IllegalArgumentException("Período com sessoes demais, máximo " + MAX_ARRIVALS))
+                : Mono.just(toArrivals(rows)));
+    }
+
+    private Mono<List<SessionReplayRow>> fetchReplayPage(LocalDateTime afterStartedAt, long afterId, LocalDateTime until) {
+        return customerSessionRepository.findReplayPage(afterStartedAt, afterId, until, REPLAY_PAGE_SIZE).collectList();
+    }
+
+    private static List<SimulatedArrival> toArrivals(List<SessionReplayRow> rows) {
+        Map<ServiceType, long[]> serviceTotals = new EnumMap<>(ServiceType.class);
+        for (SessionReplayRow row : rows) {
+            if (row.getPromotedAt() != null) {
+                long[] totals = serviceTotals.computeIfAbsent(row.getServiceType(), type -> new long[2]);
+                totals[0] += millisBetween(row.getPromotedAt(), row.getFinishedAt());
+                totals[1]++;
+            }
+        }
+
+        List<SimulatedArrival> arrivals = new ArrayList<>(rows.size());
+        int skipped = 0;
+        for (SessionReplayRow row : rows) {
+            QueueKey queueKey = QueueKey.of(row.getBranch(), row.getServiceType());
+            PriorityClass priority = row.getPriority() != null ? row.getPriority() : PriorityClass.REGULAR;
+            long arrival = row.getStartedAt().toInstant().toEpochMilli();
+
+            if (row.getPromotedAt() != null) {
+                arrivals.add(new SimulatedArrival(queueKey, priority, arrival,
+                    Math.max(1, millisBetween(row.getPromotedAt(), row.getFinishedAt())), SimulatedArrival.NEVER_ABANDONS));
+            } else if (row.getStatus() == CustomerSessionStatus.CANCELED && serviceTotals.containsKey(row.getServiceType())) {
+                long[] totals = serviceTotals.get(row.getServiceType());
+                arrivals.add(new SimulatedArrival(queueKey, priority, arrival,
+                    Math.max(1, totals[0] / totals[1]), millisBetween(row.getStartedAt(), row.getFinishedAt())));
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Simulaçao do histórico: {} sessoes sem registro de promoçao ignoradas", skipped);
+        }
+        return arrivals;
+    }
+
+    /**
+     * Política de fila nova para cada execuçao, para que políticas com estado nao vazem entre capacidades.
+     */
+    private QueueDiscipline disciplineFor(QueueProperties.Discipline discipline) {
+        QueueProperties properties = new QueueProperties();
+        properties.setDiscipline(discipline);
+        properties.setWeights(queueProperties.getWeights());
+        properties.setWeightedQuantum(queueProperties.getWeightedQuantum());
+        properties.setAgingHeadStart(queueProperties.getAgingHeadStart());
+        return new QueueDisciplineConfiguration().queueDiscipline(properties);
+    }
+
+    private static long millisBetween(OffsetDateTime start, OffsetDateTime end) {
+        return Math.max(0, Duration.between(start, end).toMillis());
+    }
+
+    private static LocalDateTime toUtc(OffsetDateTime dateTime) {
+        return dateTime.atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
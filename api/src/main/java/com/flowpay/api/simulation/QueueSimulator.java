@@ -0,0 +1,192 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.SlotProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.queue.QueueDiscipline;
+import com.flowpay.api.responses.SimulationResultResponse;
+import com.flowpay.api.slots.AttendantRegistry;
+import com.flowpay.api.slots.AttendantSlotAllocator;
+import com.flowpay.api.slots.FixedSlotAllocator;
+import com.flowpay.api.slots.SlotAllocator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Simulador de eventos discretos das filas, com as mesmas regras do serviço de sessoes:
+ * - a ordem da fila é a chave da {@link QueueDiscipline} calculada na chegada, com a ordem de chegada
+ *   como desempate (como queue_order e id em customer_sessions_pending_order_idx);
+ * - a promoçao ocupa os slots livres da fila com os primeiros da fila sempre que a fila muda
+ *   (chegada, fim de atendimento), pelo mesmo {@link SlotAllocator} do nó (FIXED ou ATTENDANTS);
+ * - um cliente que desiste enquanto está na fila é cancelado (como o cancelamento por desconexao)
+ *   e nao ocupa slot; clientes em atendimento nunca desistem.
+ *
+ * O relógio é simulado: dias de chegadas sao processados em segundos, e com as mesmas chegadas
+ * o resultado é sempre o mesmo. Cada execuçao deve receber uma política nova, já que políticas
+ * como WEIGHTED_PRIORITY guardam estado por fila.
+ *
+ * A política de fila e o alocador de slots sao os do serviço; só o banco é trocado por sessoes em memória
+ * ({@link SimulatedSessions}). Com ATTENDANTS cada fila tem um atendente simulado com todos os slots da fila,
+ * que recebe os atendimentos pelos assentos do {@link AttendantRegistry} e os libera no fim do atendimento.
+ * O que o simulador nao reproduz vai na resposta da API ({@link #divergencesFrom(SlotProperties.Allocator)}).
+ */
+public class QueueSimulator {
+
+    private static final int SERVICE_END = 0;
+    private static final int ABANDON = 1;
+    private static final int ARRIVAL = 2;
+
+    private final QueueDiscipline queueDiscipline;
+    private final SlotProperties.Allocator allocator;
+    private final int slotsPerQueue;
+
+    public QueueSimulator(QueueDiscipline queueDiscipline, int slotsPerQueue) {
+        this(queueDiscipline, SlotProperties.Allocator.FIXED, slotsPerQueue);
+    }
+
+    public QueueSimulator(QueueDiscipline queueDiscipline, SlotProperties.Allocator allocator, int slotsPerQueue) {
+        if (slotsPerQueue <= 0) {
+            throw new IllegalArgumentException("Quantidade de slots por fila deve ser positiva");
+        }
+        this.queueDiscipline = queueDiscipline;
+        this.allocator = allocator;
+        this.slotsPerQueue = slotsPerQueue;
+    }
+
+    /**
+     * Diferenças entre a simulaçao e as filas reais com o alocador de slots informado.
+     *
+     * @param liveAllocator - Alocador de slots configurado no nó
+     * @return Diferenças em texto, para a resposta da simulaçao
+     */
+    public static List<String> divergencesFrom(SlotProperties.Allocator liveAllocator) {
+        List<String> divergences = new ArrayList<>();
+        divergences.add("Promoçao pelo alocador de slots do nó sobre sessoes em memória; latência do banco, "
+            + "disputa pelo lock da fila e retries nao sao simulados");
+        divergences.add("Sessoes esquecidas nao expiram (sweeper nao simulado)");
+        if (liveAllocator == SlotProperties.Allocator.ATTENDANTS) {
+            divergences.add("Com flowpay.slots.allocator=ATTENDANTS cada fila tem um único atendente simulado "
+                + "com todos os slots da fila: atendentes com mais de uma habilidade dividindo a capacidade "
+                + "entre filas e login/logout ao longo do dia nao sao simulados");
+        }
+        return List.copyOf(divergences);
+    }
+
+    /**
+     * Simula as chegadas até que todos os clientes tenham sido atendidos ou desistido.
+     *
+     * @param arrivals - Chegadas em ordem de chegada
+     * @return Resultados por tipo de serviço, na ordem do enum
+     */
+    public List<SimulationResultResponse> run(List<SimulatedArrival> arrivals) {
+        PriorityQueue<Event> events = new PriorityQueue<>(Math.max(16, arrivals.size()));
+        for (int i = 0; i < arrivals.size(); i++) {
+            events.add(new Event(arrivals.get(i).arrivalMillis(), ARRIVAL, i));
+        }
+
+        SimulatedSessions sessions = new SimulatedSessions();
+        AttendantRegistry attendantRegistry = new AttendantRegistry();
+        SlotAllocator slotAllocator = allocator == SlotProperties.Allocator.ATTENDANTS
+            ? new AttendantSlotAllocator(sessions.repository(), attendantRegistry)
+            : new FixedSlotAllocator(sessions.repository(), slotsPerQueue);
+        Set<QueueKey> queues = new HashSet<>();
+        Map<ServiceType, ServiceTypeOutcome> outcomes = new EnumMap<>(ServiceType.class);
+        CustomerSession[] waiting = new CustomerSession[arrivals.size()];
+        long start = arrivals.isEmpty() ? 0 : arrivals.getFirst().arrivalMillis();
+        long now = start;
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            now = event.time();
+            SimulatedArrival arrival = arrivals.get(event.arrival());
+            QueueKey queueKey = arrival.queueKey();
+            ServiceTypeOutcome outcome = outcomes.computeIfAbsent(queueKey.serviceType(), ServiceTypeOutcome::new);
+            if (queues.add(queueKey)) {
+                outcome.queueOpened();
+                if (allocator == SlotProperties.Allocator.ATTENDANTS) {
+                    attendantRegistry.login("simulado-" + queueKey.branch() + "-" + queueKey.serviceType(),
+                        "Atendente simulado", queueKey.branch(), Set.of(queueKey.serviceType()), slotsPerQueue);
+                }
+            }
+
+            switch (event.kind()) {
+                case ARRIVAL -> {
+                    outcome.arrived();
+                    CustomerSession session = new CustomerSession((long) event.arrival(), queueKey.branch(),
+                        queueKey.serviceType(), arrival.priority());
+                    session.setId((long) event.arrival());
+                    session.setQueueOrder(queueDiscipline.orderKey(queueKey, arrival.priority(), Instant.ofEpochMilli(now)));
+                    waiting[event.arrival()] = session;
+                    sessions.enqueue(session);
+                    if (arrival.patienceMillis() != SimulatedArrival.NEVER_ABANDONS) {
+                        events.add(new Event(now + arrival.patienceMillis(), ABANDON, event.arrival()));
+                    }
+                }
+                case ABANDON -> {
+                    // Já promovido: o cliente está em atendimento e nao é afetado
+                    if (sessions.cancel(waiting[event.arrival()])) {
+                        outcome.abandoned();
+                    }
+                }
+                case SERVICE_END -> {
+                    CustomerSession session = waiting[event.arrival()];
+                    sessions.complete(session);
+                    attendantRegistry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session);
+                    outcome.completed();
+                }
+                default -> throw new IllegalStateException("Evento desconhecido: " + event.kind());
+            }
+
+            promote(slotAllocator, sessions, queueKey, arrivals, outcome, events, now);
+        }
+
+        List<SimulationResultResponse> results = new ArrayList<>();
+        long elapsed = Math.max(1, now - start);
+        outcomes.values().forEach(outcome -> results.add(outcome.toResponse(slotsPerQueue, elapsed)));
+        return results;
+    }
+
+    /**
+     * Promove os próximos da fila pelo alocador. As sessoes em memória respondem na hora,
+     * entao a promoçao já terminou quando o block retorna.
+     */
+    private static void promote(SlotAllocator slotAllocator, SimulatedSessions sessions, QueueKey queueKey,
+                                List<SimulatedArrival> arrivals, ServiceTypeOutcome outcome,
+                                PriorityQueue<Event> events, long now) {
+        if (!sessions.hasPending(queueKey)) {
+            return;
+        }
+        List<CustomerSession> promoted = slotAllocator.promoteNext(queueKey).collectList().block();
+        for (CustomerSession session : promoted) {
+            int index = session.getId().intValue();
+            SimulatedArrival arrival = arrivals.get(index);
+            outcome.promoted(now - arrival.arrivalMillis(), arrival.serviceMillis());
+            events.add(new Event(now + arrival.serviceMillis(), SERVICE_END, index));
+        }
+    }
+
+    /**
+     * Eventos no mesmo instante: fins de atendimento antes das desistências e das chegadas,
+     * para que um slot liberado seja visto por quem já estava na fila.
+     */
+    private record Event(long time, int kind, int arrival) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            if (byTime != 0) {
+                return byTime;
+            }
+            int byKind = Integer.compare(kind, other.kind);
+            return byKind != 0 ? byKind : Integer.compare(arrival, other.arrival);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.SimulationResultResponse;
+
+import java.util.Arrays;
+
+/**
+ * Acumula os resultados da simulaçao de um tipo de serviço (todas as filas do tipo).
+ */
+class ServiceTypeOutcome {
+
+    private final ServiceType serviceType;
+    private long[] waits = new long[1024];
+    private int served;
+    private long arrivals;
+    private long completed;
+    private long abandoned;
+    private long busyMillis;
+    private int queues;
+
+    ServiceTypeOutcome(ServiceType serviceType) {
+        this.serviceType = serviceType;
+    }
+
+    void arrived() {
+        arrivals++;
+    }
+
+    void queueOpened() {
+        queues++;
+    }
+
+    void promoted(long waitMillis, long serviceMillis) {
+        if (served == waits.length) {
+            waits = Arrays.copyOf(waits, waits.length * 2);
+        }
+        waits[served++] = waitMillis;
+        busyMillis += serviceMillis;
+    }
+
+    void completed() {
+        completed++;
+    }
+
+    void abandoned() {
+        abandoned++;
+    }
+
+    /**
+     * @param slotsPerQueue - Slots de cada fila na simulaçao
+     * @param elapsedMillis - Duraçao simulada (da primeira chegada ao último evento)
+     */
+    SimulationResultResponse toResponse(int slotsPerQueue, long elapsedMillis) {
+        long[] sorted = Arrays.copyOf(waits, served);
+        Arrays.sort(sorted);
+        long totalWait = 0;
+        for (long wait : sorted) {
+            totalWait += wait;
+        }
+        double capacityMillis = (double) slotsPerQueue * queues * elapsedMillis;
+
+        return new SimulationResultResponse(
+            serviceType,
+            slotsPerQueue,
+            arrivals,
+            completed,
+            abandoned,
+            arrivals > 0 ? (double) abandoned / arrivals * 100 : 0.0,
+            served > 0 ? totalWait / (double) served / 1000 : 0.0,
+            percentileSeconds(sorted, 0.50),
+            percentileSeconds(sorted, 0.90),
+            percentileSeconds(sorted, 0.99),
+            served > 0 ? sorted[served - 1] / 1000.0 : 0.0,
+            capacityMillis > 0 ? busyMillis / capacityMillis * 100 : 0.0
+        );
+    }
+
+    /**
+     * Percentil pelo método nearest-rank.
+     */
+    private static double percentileSeconds(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.flowpay.api.simulation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Sessao finalizada do histórico reproduzida pelo simulador: chegada, promoçao (se houve) e fim.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SessionReplayRow implements Serializable {
+    private Long sessionId;
+    private String branch;
+    private ServiceType serviceType;
+    private PriorityClass priority;
+    private CustomerSessionStatus status;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime promotedAt;
+    private OffsetDateTime finishedAt;
+}
@@ -0,0 +1,19 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+
+/**
+ * Chegada de um cliente na simulaçao.
+ *
+ * @param queueKey - Fila em que o cliente entra
+ * @param priority - Classe de prioridade
+ * @param arrivalMillis - Instante de chegada (ms de época simulados)
+ * @param serviceMillis - Duraçao do atendimento, se o cliente for atendido
+ * @param patienceMillis - Espera máxima na fila antes de desistir ({@link #NEVER_ABANDONS} = espera indefinidamente)
+ */
+public record SimulatedArrival(QueueKey queueKey, PriorityClass priority, long arrivalMillis,
+                               long serviceMillis, long patienceMillis) {
+
+    public static final long NEVER_ABANDONS = Long.MAX_VALUE;
+}
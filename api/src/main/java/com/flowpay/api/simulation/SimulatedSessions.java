@@ -0,0 +1,118 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Sessoes ativas da simulaçao, em memória, expostas como um {@link CustomerSessionRepository}
+ * para que a promoçao passe pelos mesmos {@link com.flowpay.api.slots.SlotAllocator} do serviço.
+ *
+ * Só os comandos usados pelos alocadores na promoçao de uma fila sao simulados, com a mesma ordem
+ * do índice customer_sessions_pending_order_idx (queue_order, id); os demais lançam
+ * {@link UnsupportedOperationException}. As respostas sao imediatas, entao a promoçao termina
+ * na própria thread da simulaçao.
+ */
+class SimulatedSessions {
+
+    private final Map<QueueKey, SimulatedQueue> queues = new HashMap<>();
+    private final CustomerSessionRepository repository = (CustomerSessionRepository) Proxy.newProxyInstance(
+        CustomerSessionRepository.class.getClassLoader(), new Class<?>[]{CustomerSessionRepository.class},
+        (proxy, method, arguments) -> invoke(method, arguments));
+
+    CustomerSessionRepository repository() {
+        return repository;
+    }
+
+    /**
+     * Coloca a sessao na fila como PENDING.
+     */
+    void enqueue(CustomerSession session) {
+        session.setStatus(CustomerSessionStatus.PENDING);
+        queueOf(session).pending.add(session);
+    }
+
+    /**
+     * Cancela a sessao se ela ainda estiver na fila.
+     *
+     * @return false se a sessao já tiver sido promovida
+     */
+    boolean cancel(CustomerSession session) {
+        if (!queueOf(session).pending.remove(session)) {
+            return false;
+        }
+        session.setStatus(CustomerSessionStatus.CANCELED);
+        return true;
+    }
+
+    /**
+     * Conclui o atendimento da sessao, liberando o slot da fila.
+     */
+    void complete(CustomerSession session) {
+        session.setStatus(CustomerSessionStatus.COMPLETED);
+        queueOf(session).inProgress--;
+    }
+
+    boolean hasPending(QueueKey queueKey) {
+        SimulatedQueue queue = queues.get(queueKey);
+        return queue != null && !queue.pending.isEmpty();
+    }
+
+    private Object invoke(Method method, Object[] arguments) {
+        return switch (method.getName()) {
+            case "countInProgressByBranchAndServiceType" ->
+                Mono.just((long) queueOf((String) arguments[0], (ServiceType) arguments[1]).inProgress);
+            case "promoteNextInQueue" -> {
+                SimulatedQueue queue = queueOf((String) arguments[0], (ServiceType) arguments[1]);
+                List<CustomerSession> promoted = new ArrayList<>();
+                while (queue.inProgress < (int) arguments[2] && !queue.pending.isEmpty()) {
+                    promoted.add(promote(queue, null));
+                }
+                yield Flux.fromIterable(promoted);
+            }
+            case "promoteNextToAttendant" -> {
+                SimulatedQueue queue = queueOf((String) arguments[0], (ServiceType) arguments[1]);
+                yield queue.pending.isEmpty() ? Mono.empty() : Mono.just(promote(queue, (String) arguments[2]));
+            }
+            case "toString" -> "SimulatedSessions" + queues.keySet();
+            case "hashCode" -> System.identityHashCode(this);
+            case "equals" -> arguments[0] == repository;
+            default -> throw new UnsupportedOperationException(method.getName() + " nao é simulado");
+        };
+    }
+
+    private static CustomerSession promote(SimulatedQueue queue, String attendantId) {
+        CustomerSession session = queue.pending.pollFirst();
+        session.setStatus(CustomerSessionStatus.IN_PROGRESS);
+        session.setAttendantId(attendantId);
+        queue.inProgress++;
+        return session;
+    }
+
+    private SimulatedQueue queueOf(CustomerSession session) {
+        return queueOf(session.getBranch(), session.getServiceType());
+    }
+
+    private SimulatedQueue queueOf(String branch, ServiceType serviceType) {
+        return queues.computeIfAbsent(QueueKey.of(branch, serviceType), key -> new SimulatedQueue());
+    }
+
+    private static final class SimulatedQueue {
+        private final TreeSet<CustomerSession> pending = new TreeSet<>(
+            Comparator.comparingLong(CustomerSession::getQueueOrder).thenComparingLong(CustomerSession::getId));
+        private int inProgress;
+    }
+}
@@ -0,0 +1,106 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.requests.ServiceTypeWorkload;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Gera chegadas sintéticas a partir das distribuiçoes de cada tipo de serviço:
+ * - chegadas de Poisson (intervalos exponenciais) com a taxa por hora informada;
+ * - duraçao do atendimento log-normal com a média e o coeficiente de variaçao informados
+ *   (cv 1 se aproxima da exponencial, valores menores concentram em torno da média);
+ * - paciência exponencial com a média informada (sem média, o cliente nunca desiste);
+ * - prioridade sorteada pela proporçao de cada classe.
+ *
+ * Com a mesma semente a carga gerada é sempre a mesma, entao capacidades diferentes
+ * sao comparadas com exatamente os mesmos clientes.
+ */
+public final class SyntheticWorkload {
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private SyntheticWorkload() {
+    }
+
+    /**
+     * @param workloads - Distribuiçoes por tipo de serviço
+     * @param startMillis - Início da simulaçao (ms de época)
+     * @param hours - Duraçao da janela de chegadas
+     * @param seed - Semente do gerador
+     * @return Chegadas em ordem de chegada
+     */
+    public static List<SimulatedArrival> generate(Map<ServiceType, ServiceTypeWorkload> workloads, long startMillis,
+                                                  double hours, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long endMillis = startMillis + (long) (hours * MILLIS_PER_HOUR);
+        List<SimulatedArrival> arrivals = new ArrayList<>();
+
+        workloads.forEach((serviceType, workload) -> {
+            double ratePerMilli = workload.getArrivalsPerHour() / MILLIS_PER_HOUR;
+            if (ratePerMilli <= 0) {
+                return;
+            }
+            QueueKey queueKey = QueueKey.of(QueueKey.DEFAULT_BRANCH, serviceType);
+            double meanService = workload.getMeanServiceMinutes() * MILLIS_PER_MINUTE;
+            double cv = workload.getServiceTimeCv() != null ? workload.getServiceTimeCv() : 1.0;
+            double sigmaSquared = Math.log(1 + cv * cv);
+            double sigma = Math.sqrt(sigmaSquared);
+            double mu = Math.log(meanService) - sigmaSquared / 2;
+            Double meanPatienceMinutes = workload.getMeanPatienceMinutes();
+            Map<PriorityClass, Double> mix = workload.getPriorityMix();
+            double mixTotal = mix == null ? 0 : mix.values().stream().mapToDouble(Double::doubleValue).sum();
+
+            // Cada tipo de serviço tem o próprio gerador derivado da semente: mudar a carga de um tipo
+            // nao altera os clientes sorteados para os outros
+            SplittableRandom typeRandom = random.split();
+            double time = startMillis;
+            while (true) {
+                time += -Math.log(1 - typeRandom.nextDouble()) / ratePerMilli;
+                if (time >= endMillis) {
+                    break;
+                }
+                long service = Math.max(1, Math.round(Math.exp(mu + sigma * gaussian(typeRandom))));
+                long patience = meanPatienceMinutes == null || meanPatienceMinutes <= 0
+                    ? SimulatedArrival.NEVER_ABANDONS
+                    : Math.round(-Math.log(1 - typeRandom.nextDouble()) * meanPatienceMinutes * MILLIS_PER_MINUTE);
+                PriorityClass priority = mixTotal > 0 ? pick(mix, mixTotal, typeRandom) : PriorityClass.REGULAR;
+                arrivals.add(new SimulatedArrival(queueKey, priority, (long) time, service, patience));
+            }
+        });
+
+        arrivals.sort(Comparator.comparingLong(SimulatedArrival::arrivalMillis));
+        return arrivals;
+    }
+
+    private static PriorityClass pick(Map<PriorityClass, Double> mix, double total, SplittableRandom random) {
+        double target = random.nextDouble() * total;
+        PriorityClass last = PriorityClass.REGULAR;
+        for (PriorityClass priority : PriorityClass.values()) {
+            Double share = mix.get(priority);
+            if (share == null || share <= 0) {
+                continue;
+            }
+            last = priority;
+            target -= share;
+            if (target < 0) {
+                return priority;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Normal padrao pelo método de Box-Muller.
+     */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -0,0 +1,90 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.entities.ServiceType;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Atendente conectado: agência, tipos de serviço que atende e quantos atendimentos simultâneos assume.
+ *
+ * Um atendente com mais de uma habilidade tem assentos na fila de cada tipo de serviço,
+ * e o contador de atendimentos em andamento limita o total entre todas as filas.
+ */
+public final class Attendant {
+
+    private final String id;
+    private final String name;
+    private final String branch;
+    private final Set<ServiceType> skills;
+    private final int slots;
+    private final AtomicInteger inUse = new AtomicInteger();
+    private volatile boolean loggedOut;
+
+    Attendant(String id, String name, String branch, Set<ServiceType> skills, int slots) {
+        this.id = id;
+        this.name = name;
+        this.branch = branch;
+        this.skills = skills;
+        this.slots = slots;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public Set<ServiceType> getSkills() {
+        return skills;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public boolean isLoggedOut() {
+        return loggedOut;
+    }
+
+    void logout() {
+        loggedOut = true;
+    }
+
+    /**
+     * Reserva um atendimento se o atendente ainda estiver conectado e com capacidade.
+     */
+    boolean tryAcquire() {
+        while (!loggedOut) {
+            int current = inUse.get();
+            if (current >= slots) {
+                return false;
+            }
+            if (inUse.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Registra um atendimento que já estava em andamento (reconciliaçao no login), mesmo acima da capacidade.
+     */
+    void acquireExisting() {
+        inUse.incrementAndGet();
+    }
+
+    void release() {
+        inUse.updateAndGet(current -> Math.max(0, current - 1));
+    }
+}
@@ -0,0 +1,165 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.events.SessionLifecycleListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Atendentes conectados neste nó e os assentos de atendimento de cada fila.
+ *
+ * No login o atendente recebe um assento por atendimento simultâneo na fila de cada habilidade;
+ * a promoçao reserva um assento ({@link #claim(QueueKey)}) e a finalizaçao do atendimento
+ * libera o assento (pelos eventos do ciclo de vida da sessao).
+ * Login e logout sao serializados; reserva e liberaçao sao lock-free.
+ *
+ * O registro só define a capacidade das filas com flowpay.slots.allocator=ATTENDANTS.
+ */
+@Component
+@Slf4j
+public class AttendantRegistry implements SessionLifecycleListener {
+
+    private final Map<String, Attendant> attendants = new ConcurrentHashMap<>();
+    private final Map<QueueKey, QueueSeats> seats = new ConcurrentHashMap<>();
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Conecta o atendente e abre seus assentos nas filas das habilidades informadas.
+     * Atendimentos que ele ainda tinha em andamento de um login anterior neste nó continuam contando
+     * na sua capacidade; no primeiro login após reiniciar a instância eles devem ser informados
+     * em {@link #restore(Attendant, Collection)}.
+     *
+     * @throws IllegalArgumentException se o atendente já estiver conectado
+     * @throws IllegalStateException se alguma fila nao tiver assentos suficientes
+     * @return Atendente conectado
+     */
+    public synchronized Attendant login(String attendantId, String name, String branch, Set<ServiceType> skills, int slots) {
+        if (attendants.containsKey(attendantId)) {
+            throw new IllegalArgumentException("Atendente " + attendantId + " já está conectado");
+        }
+        Attendant attendant = new Attendant(attendantId, name, QueueKey.normalizeBranch(branch), Set.copyOf(skills), slots);
+
+        for (ServiceType skill : attendant.getSkills()) {
+            QueueKey queueKey = QueueKey.of(attendant.getBranch(), skill);
+            if (!seatsOf(queueKey).assign(attendant, slots)) {
+                attendant.getSkills().forEach(assigned -> seatsOf(QueueKey.of(attendant.getBranch(), assigned)).unassign(attendant));
+                throw new IllegalStateException("Fila " + queueKey + " sem assentos disponíveis (máximo "
+                    + QueueSeats.MAX_SEATS + ")");
+            }
+        }
+        for (QueueSeats queueSeats : seats.values()) {
+            for (int i = queueSeats.transfer(attendantId, attendant); i > 0; i--) {
+                attendant.acquireExisting();
+            }
+        }
+        attendants.put(attendantId, attendant);
+        log.info("Atendente {} conectado em {} com {} slots para {}", attendantId, attendant.getBranch(), slots,
+            attendant.getSkills());
+        return attendant;
+    }
+
+    /**
+     * Desconecta o atendente. Os atendimentos em andamento continuam com ele até serem finalizados,
+     * mas nenhum novo atendimento é atribuído.
+     *
+     * @throws IllegalArgumentException se o atendente nao estiver conectado
+     */
+    public synchronized Attendant logout(String attendantId) {
+        Attendant attendant = attendants.remove(attendantId);
+        if (attendant == null) {
+            throw new IllegalArgumentException("Atendente " + attendantId + " nao está conectado");
+        }
+        attendant.logout();
+        for (ServiceType skill : attendant.getSkills()) {
+            seatsOf(QueueKey.of(attendant.getBranch(), skill)).unassign(attendant);
+        }
+        log.info("Atendente {} desconectado com {} atendimentos em andamento", attendantId, attendant.getInUse());
+        return attendant;
+    }
+
+    /**
+     * Indica se é o primeiro login do atendente desde que a instância iniciou,
+     * ou seja, se os atendimentos em andamento dele precisam ser lidos do banco.
+     */
+    public boolean isFirstLogin(String attendantId) {
+        return known.add(attendantId);
+    }
+
+    /**
+     * Marca como ocupados os assentos dos atendimentos que o atendente já tinha em andamento
+     * (primeiro login após reiniciar a instância).
+     */
+    public void restore(Attendant attendant, Collection<CustomerSession> inProgress) {
+        for (CustomerSession session : inProgress) {
+            seatsOf(QueueKey.of(session.getBranch(), session.getServiceType())).occupy(attendant);
+        }
+    }
+
+    /**
+     * Reserva um assento livre da fila.
+     *
+     * @return Atendente do assento ou null se nao houver assento livre
+     */
+    public Attendant claim(QueueKey queueKey) {
+        QueueSeats queueSeats = seats.get(queueKey);
+        return queueSeats != null ? queueSeats.claim() : null;
+    }
+
+    /**
+     * Libera o assento reservado do atendente na fila (atendimento finalizado ou promoçao desfeita).
+     */
+    public void release(QueueKey queueKey, String attendantId) {
+        QueueSeats queueSeats = seats.get(queueKey);
+        Attendant attendant = findAttendant(queueSeats, attendantId);
+        if (attendant != null) {
+            queueSeats.release(attendant);
+        }
+    }
+
+    /**
+     * Atendimentos que ainda podem ser assumidos na fila.
+     */
+    public int available(QueueKey queueKey) {
+        QueueSeats queueSeats = seats.get(queueKey);
+        return queueSeats != null ? queueSeats.available() : 0;
+    }
+
+    public Attendant find(String attendantId) {
+        return attendants.get(attendantId);
+    }
+
+    public List<Attendant> list() {
+        return List.copyOf(attendants.values());
+    }
+
+    @Override
+    public void onSessionEvent(SessionLifecycleEvent event, CustomerSession session) {
+        if (event.isTerminal() && session.getAttendantId() != null) {
+            release(QueueKey.of(session.getBranch(), session.getServiceType()), session.getAttendantId());
+        }
+    }
+
+    private QueueSeats seatsOf(QueueKey queueKey) {
+        return seats.computeIfAbsent(queueKey, key -> new QueueSeats());
+    }
+
+    /**
+     * Atendente conectado ou, se já desconectado, o dono de algum assento ainda ocupado da fila.
+     */
+    private Attendant findAttendant(QueueSeats queueSeats, String attendantId) {
+        if (queueSeats == null) {
+            return null;
+        }
+        Attendant attendant = attendants.get(attendantId);
+        return attendant != null ? attendant : queueSeats.ownerOf(attendantId);
+    }
+}
@@ -0,0 +1,70 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Slots vindos dos atendentes conectados ({@link AttendantRegistry}).
+ *
+ * Cada promoçao reserva em memória o assento de um atendente (CAS no bitmap da fila, sem contar
+ * as sessoes IN_PROGRESS no banco) e grava a sessao com o atendente. Se nao houver ninguém na fila
+ * o assento é devolvido na hora.
+ */
+@RequiredArgsConstructor
+public class AttendantSlotAllocator implements SlotAllocator {
+
+    private final CustomerSessionRepository customerSessionRepository;
+    private final AttendantRegistry attendantRegistry;
+
+    @Override
+    public Mono<Integer> availableSlots(QueueKey queueKey) {
+        return Mono.fromSupplier(() -> attendantRegistry.available(queueKey));
+    }
+
+    @Override
+    public Flux<CustomerSession> promoteNext(QueueKey queueKey) {
+        return promoteWhileSeatsAvailable(queueKey, attendantId ->
+            customerSessionRepository.promoteNextToAttendant(queueKey.branch(), queueKey.serviceType(), attendantId));
+    }
+
+    @Override
+    public Flux<CustomerSession> promoteSelected(Long[] ids, Set<QueueKey> queues) {
+        return Flux.fromIterable(queues)
+            .concatMap(queueKey -> promoteWhileSeatsAvailable(queueKey, attendantId ->
+                customerSessionRepository.promoteSelectedToAttendant(ids, queueKey.branch(), queueKey.serviceType(), attendantId)));
+    }
+
+    @Override
+    public void rollback(List<CustomerSession> promoted) {
+        for (CustomerSession session : promoted) {
+            if (session.getAttendantId() != null) {
+                attendantRegistry.release(QueueKey.of(session.getBranch(), session.getServiceType()), session.getAttendantId());
+            }
+        }
+    }
+
+    /**
+     * Promove uma sessao por assento reservado, até acabarem os assentos livres ou as sessoes da fila.
+     */
+    private Flux<CustomerSession> promoteWhileSeatsAvailable(QueueKey queueKey,
+                                                             Function<String, Mono<CustomerSession>> promotion) {
+        Mono<CustomerSession> promoteOne = Mono.defer(() -> {
+            Attendant attendant = attendantRegistry.claim(queueKey);
+            if (attendant == null) {
+                return Mono.empty();
+            }
+            return promotion.apply(attendant.getId())
+                .switchIfEmpty(Mono.fromRunnable(() -> attendantRegistry.release(queueKey, attendant.getId())))
+                .doOnError(error -> attendantRegistry.release(queueKey, attendant.getId()));
+        });
+        return promoteOne.expand(promoted -> promoteOne);
+    }
+}
@@ -0,0 +1,36 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Quantidade fixa de slots por fila. As sessoes IN_PROGRESS sao contadas no próprio comando de promoçao.
+ */
+@RequiredArgsConstructor
+public class FixedSlotAllocator implements SlotAllocator {
+
+    private final CustomerSessionRepository customerSessionRepository;
+    private final int slotsPerQueue;
+
+    @Override
+    public Mono<Integer> availableSlots(QueueKey queueKey) {
+        return customerSessionRepository.countInProgressByBranchAndServiceType(queueKey.branch(), queueKey.serviceType())
+            .map(count -> slotsPerQueue - count.intValue());
+    }
+
+    @Override
+    public Flux<CustomerSession> promoteNext(QueueKey queueKey) {
+        return customerSessionRepository.promoteNextInQueue(queueKey.branch(), queueKey.serviceType(), slotsPerQueue);
+    }
+
+    @Override
+    public Flux<CustomerSession> promoteSelected(Long[] ids, Set<QueueKey> queues) {
+        return customerSessionRepository.promoteAll(ids, slotsPerQueue);
+    }
+}
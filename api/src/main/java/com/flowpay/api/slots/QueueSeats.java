@@ -0,0 +1,204 @@
+package com.flowpay.api.slots;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assentos de atendimento de uma fila, em bitmaps atômicos de 64 bits por palavra.
+ *
+ * - online: assento de um atendente conectado, aceitando novos atendimentos;
+ * - busy: assento com um atendimento em andamento.
+ *
+ * Reservar e liberar um assento sao CAS em uma palavra do bitmap, sem locks; com no máximo
+ * {@link #MAX_SEATS} assentos a busca percorre um número fixo de palavras.
+ * Só a atribuiçao de assentos no login e no logout é serializada (pelo {@link AttendantRegistry}).
+ */
+final class QueueSeats {
+
+    static final int MAX_SEATS = 256;
+    private static final int WORDS = MAX_SEATS / Long.SIZE;
+
+    private final AtomicLongArray online = new AtomicLongArray(WORDS);
+    private final AtomicLongArray busy = new AtomicLongArray(WORDS);
+    private final AtomicReferenceArray<Attendant> owners = new AtomicReferenceArray<>(MAX_SEATS);
+
+    /**
+     * Reserva um assento livre de um atendente com capacidade.
+     *
+     * @return Atendente do assento reservado ou null se nao houver assento livre
+     */
+    Attendant claim() {
+        for (int word = 0; word < WORDS; word++) {
+            long skipped = 0;
+            while (true) {
+                long current = busy.get(word);
+                long free = online.get(word) & ~current & ~skipped;
+                if (free == 0) {
+                    break;
+                }
+                long bit = Long.lowestOneBit(free);
+                if (!busy.compareAndSet(word, current, current | bit)) {
+                    continue;
+                }
+                Attendant attendant = owners.get(word * Long.SIZE + Long.numberOfTrailingZeros(bit));
+                if (attendant != null && attendant.tryAcquire()) {
+                    return attendant;
+                }
+                // Atendente ocupado em outra fila ou desconectado: devolve o assento e segue a busca
+                clearBusy(word, bit);
+                skipped |= bit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ocupa um assento livre do atendente para um atendimento que já estava em andamento.
+     */
+    void occupy(Attendant attendant) {
+        attendant.acquireExisting();
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            if (owners.get(seat) != attendant) {
+                continue;
+            }
+            int word = seat / Long.SIZE;
+            long bit = 1L << seat;
+            long current = busy.get(word);
+            if ((current & bit) == 0 && busy.compareAndSet(word, current, current | bit)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Libera um assento ocupado do atendente, começando pelos assentos fora de reserva
+     * (logout ou herdados de um login anterior), que deixam de pertencer a ele.
+     */
+    void release(Attendant attendant) {
+        attendant.release();
+        if (!releaseSeat(attendant, false)) {
+            releaseSeat(attendant, true);
+        }
+    }
+
+    private boolean releaseSeat(Attendant attendant, boolean online) {
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            if (owners.get(seat) != attendant) {
+                continue;
+            }
+            int word = seat / Long.SIZE;
+            long bit = 1L << seat;
+            boolean seatOnline = (this.online.get(word) & bit) != 0;
+            if (seatOnline == online && (busy.get(word) & bit) != 0) {
+                clearBusy(word, bit);
+                if (!seatOnline) {
+                    owners.compareAndSet(seat, attendant, null);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transfere para o novo login os assentos ainda ocupados de um login anterior do mesmo atendente.
+     * Chamado apenas com o lock do registro.
+     *
+     * @return Quantidade de assentos transferidos
+     */
+    int transfer(String attendantId, Attendant attendant) {
+        int transferred = 0;
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            Attendant previous = owners.get(seat);
+            if (previous != null && previous != attendant && previous.getId().equals(attendantId)
+                    && owners.compareAndSet(seat, previous, attendant)) {
+                transferred++;
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Atribui assentos ao atendente. Chamado apenas com o lock do registro.
+     *
+     * @return false se a fila nao tiver assentos suficientes
+     */
+    boolean assign(Attendant attendant, int count) {
+        int[] seats = new int[count];
+        int found = 0;
+        for (int seat = 0; seat < MAX_SEATS && found < count; seat++) {
+            if (owners.get(seat) == null && (busy.get(seat / Long.SIZE) & (1L << seat)) == 0) {
+                seats[found++] = seat;
+            }
+        }
+        if (found < count) {
+            return false;
+        }
+        for (int seat : seats) {
+            owners.set(seat, attendant);
+            int word = seat / Long.SIZE;
+            long bit = 1L << seat;
+            online.getAndUpdate(word, current -> current | bit);
+        }
+        return true;
+    }
+
+    /**
+     * Retira os assentos do atendente das reservas. Assentos ocupados continuam com ele até a liberaçao.
+     * Chamado apenas com o lock do registro.
+     */
+    void unassign(Attendant attendant) {
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            if (owners.get(seat) != attendant) {
+                continue;
+            }
+            int word = seat / Long.SIZE;
+            long bit = 1L << seat;
+            online.getAndUpdate(word, current -> current & ~bit);
+            if ((busy.get(word) & bit) == 0) {
+                owners.compareAndSet(seat, attendant, null);
+            }
+        }
+    }
+
+    /**
+     * Atendimentos que ainda podem ser assumidos nesta fila: por atendente, o menor entre
+     * os assentos livres na fila e a capacidade restante do atendente.
+     */
+    int available() {
+        int total = 0;
+        Map<Attendant, Integer> freeSeats = new IdentityHashMap<>();
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            int word = seat / Long.SIZE;
+            long bit = 1L << seat;
+            Attendant attendant = owners.get(seat);
+            if (attendant != null && (online.get(word) & bit) != 0 && (busy.get(word) & bit) == 0) {
+                freeSeats.merge(attendant, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<Attendant, Integer> entry : freeSeats.entrySet()) {
+            Attendant attendant = entry.getKey();
+            total += Math.max(0, Math.min(entry.getValue(), attendant.getSlots() - attendant.getInUse()));
+        }
+        return total;
+    }
+
+    /**
+     * Dono de um assento da fila pelo id do atendente (inclusive desconectado com atendimento em andamento).
+     */
+    Attendant ownerOf(String attendantId) {
+        for (int seat = 0; seat < MAX_SEATS; seat++) {
+            Attendant attendant = owners.get(seat);
+            if (attendant != null && attendant.getId().equals(attendantId)) {
+                return attendant;
+            }
+        }
+        return null;
+    }
+
+    private void clearBusy(int word, long bit) {
+        busy.getAndUpdate(word, current -> current & ~bit);
+    }
+}
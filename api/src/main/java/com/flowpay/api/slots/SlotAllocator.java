@@ -0,0 +1,45 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Define a capacidade de atendimento das filas e ocupa os slots na promoçao.
+ *
+ * Os métodos de promoçao sao executados dentro da transaçao que já segura o lock de cada fila
+ * envolvida, entao nao concorrem com outra promoçao nem com outra mudança de status da mesma fila.
+ */
+public interface SlotAllocator {
+
+    /**
+     * Slots livres da fila.
+     */
+    Mono<Integer> availableSlots(QueueKey queueKey);
+
+    /**
+     * Promove os próximos da fila ocupando os slots livres.
+     *
+     * @return Sessoes promovidas, na ordem da fila
+     */
+    Flux<CustomerSession> promoteNext(QueueKey queueKey);
+
+    /**
+     * Promove as sessoes PENDING informadas ocupando os slots livres de cada fila, na ordem da fila.
+     *
+     * @param ids - Ids das sessoes selecionadas
+     * @param queues - Filas das sessoes selecionadas
+     * @return Sessoes promovidas
+     */
+    Flux<CustomerSession> promoteSelected(Long[] ids, Set<QueueKey> queues);
+
+    /**
+     * Devolve os slots ocupados por uma promoçao cuja transaçao foi desfeita.
+     */
+    default void rollback(List<CustomerSession> promoted) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.flowpay.api.streaming;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+/**
+ * Frame SSE ja serializado e compartilhado entre todos os assinantes de um stream de broadcast.
+ *
+ * O conteudo fica em um byte[] imutavel do heap, sem contagem de referencias: o frame pode ser
+ * mantido pelo replay do broadcaster e pelo buffer de conflaçao de cada assinante pelo tempo que
+ * for preciso. Cada escrita recebe um buffer proprio que apenas envolve os mesmos bytes (sem copia),
+ * liberado pelo Netty apos a escrita no socket.
+ */
+public final class SharedSseFrame {
+
+    private final byte[] content;
+    private final NettyDataBufferFactory bufferFactory;
+
+    SharedSseFrame(byte[] content, NettyDataBufferFactory bufferFactory) {
+        this.content = content;
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * Retorna um buffer com os bytes do frame para ser escrito na resposta de um assinante.
+     * Cada chamada devolve um buffer novo, que pertence a quem o recebe.
+     *
+     * @return DataBuffer que envolve o conteudo do frame
+     */
+    public DataBuffer buffer() {
+        return bufferFactory.wrap(content);
+    }
+
+    public int size() {
+        return content.length;
+    }
+}
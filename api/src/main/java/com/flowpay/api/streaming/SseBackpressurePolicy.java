@@ -0,0 +1,161 @@
+package com.flowpay.api.streaming;
+
+import com.flowpay.api.config.SseProperties;
+import com.flowpay.api.jfr.FlightRecorderEvents;
+import com.flowpay.api.responses.SseStreamStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Política de backpressure por assinante dos streams SSE.
+ *
+ * Os eventos de fila e de métricas sao snapshots completos, entao um cliente atrasado só precisa
+ * do mais recente: cada assinante tem um buffer de um único evento e um evento novo substitui
+ * o que ainda nao foi enviado (conflaçao). O Netty para de pedir eventos quando o buffer de saída
+ * da conexao passa da marca alta, entao a memória por cliente fica limitada.
+ *
+ * Os frames de broadcast descartados pela conflaçao sao {@link SharedSseFrame}s do heap, sem contagem de
+ * referencias, entao descartar ou manter um frame no buffer nunca libera bytes que outro assinante ainda vai escrever.
+ *
+ * Um cliente que fica mais de {@link SseProperties#getMaxConsumerLag()} sem consumir nenhum evento
+ * enquanto eventos novos sao descartados é desconectado. A desconexao cancela o stream de origem como uma
+ * desconexao do próprio cliente; quem reage ao cancelamento deve usar {@link #doOnClientCancel} para
+ * distinguir os dois casos.
+ * Cada assinatura gera um evento JFR com a duraçao da conexao e os eventos entregues.
+ */
+@Component
+@Slf4j
+public class SseBackpressurePolicy {
+
+    private static final Object SLOW_CONSUMER_KICK = SlowConsumerException.class;
+    private static final AtomicBoolean NOT_KICKED = new AtomicBoolean();
+
+    private final long maxLagNanos;
+    private final Map<String, StreamCounters> counters = new ConcurrentHashMap<>();
+
+    public SseBackpressurePolicy(SseProperties properties) {
+        this.maxLagNanos = properties.getMaxConsumerLag().toNanos();
+    }
+
+    /**
+     * Aplica a conflaçao e a desconexao de clientes lentos ao stream de um assinante.
+     *
+     * @param stream - Nome do stream (contadores e logs)
+     * @param source - Stream do assinante
+     * @return Stream com no máximo um evento pendente
+     */
+    public <T> Flux<T> apply(String stream, Flux<T> source) {
+        StreamCounters streamCounters = counters.computeIfAbsent(stream, name -> new StreamCounters());
+
+        return FlightRecorderEvents.sseStream(stream, Flux.defer(() -> {
+            SubscriberLag lag = new SubscriberLag();
+            AtomicBoolean kicked = new AtomicBoolean();
+            Sinks.One<Boolean> slowConsumer = Sinks.one();
+
+            return source
+                .contextWrite(context -> context.put(SLOW_CONSUMER_KICK, kicked))
+                .onBackpressureBuffer(1, dropped -> {
+                    streamCounters.conflated.increment();
+                    // Marcado antes do cancelamento do stream de origem (ver doOnClientCancel)
+                    if (lag.dropped() > maxLagNanos && kicked.compareAndSet(false, true)
+                            && slowConsumer.tryEmitValue(true).isSuccess()) {
+                        streamCounters.disconnected.increment();
+                        log.warn("Cliente lento desconectado do stream {}: atrasado há mais de {} ms",
+                            stream, maxLagNanos / 1_000_000);
+                    }
+                }, BufferOverflowStrategy.DROP_OLDEST)
+                .doOnNext(item -> lag.delivered())
+                .takeUntilOther(slowConsumer.asMono())
+                .concatWith(Mono.defer(() -> slowConsumer.asMono().hasElement()
+                    .flatMap(kicked -> kicked
+                        ? Mono.error(new SlowConsumerException(stream))
+                        : Mono.empty())))
+                .doOnSubscribe(subscription -> streamCounters.subscribers.incrementAndGet())
+                .doFinally(signal -> streamCounters.subscribers.decrementAndGet());
+        }));
+    }
+
+    /**
+     * Executa a açao quando o stream é cancelado pelo cliente (desconexao, timeout da resposta),
+     * mas nao quando o cancelamento é a desconexao de um cliente lento por {@link #apply}.
+     * Deve ser aplicado ao stream passado para {@link #apply}.
+     *
+     * @param source - Stream do assinante
+     * @param action - Açao executada no cancelamento pelo cliente
+     * @return Stream com a açao de cancelamento
+     */
+    public static <T> Flux<T> doOnClientCancel(Flux<T> source, Runnable action) {
+        return Flux.deferContextual(context -> {
+            AtomicBoolean kicked = context.getOrDefault(SLOW_CONSUMER_KICK, NOT_KICKED);
+            return source.doOnCancel(() -> {
+                if (!kicked.get()) {
+                    action.run();
+                }
+            });
+        });
+    }
+
+    public Map<String, SseStreamStatsResponse> stats() {
+        Map<String, SseStreamStatsResponse> stats = new TreeMap<>();
+        counters.forEach((stream, streamCounters) -> stats.put(stream, new SseStreamStatsResponse(
+            streamCounters.subscribers.get(),
+            streamCounters.conflated.sum(),
+            streamCounters.disconnected.sum()
+        )));
+        return stats;
+    }
+
+    private static final class StreamCounters {
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private final LongAdder conflated = new LongAdder();
+        private final LongAdder disconnected = new LongAdder();
+    }
+
+    /**
+     * Mede há quanto tempo o assinante está atrasado: desde o primeiro descarte sem nenhuma entrega depois.
+     * Um stream parado nao conta como atraso, só a conflaçao contínua.
+     */
+    private static final class SubscriberLag {
+        private static final long CAUGHT_UP = Long.MIN_VALUE;
+
+        private volatile long behindSinceNanos = CAUGHT_UP;
+
+        void delivered() {
+            behindSinceNanos = CAUGHT_UP;
+        }
+
+        /**
+         * @return Tempo de atraso contínuo até este descarte
+         */
+        long dropped() {
+            long now = System.nanoTime();
+            long since = behindSinceNanos;
+            if (since == CAUGHT_UP) {
+                behindSinceNanos = now;
+                return 0;
+            }
+            return now - since;
+        }
+    }
+
+    /**
+     * Encerra a resposta de um cliente lento. Lançada depois que a resposta já foi iniciada,
+     * entao o Reactor Netty fecha a conexao.
+     */
+    static final class SlowConsumerException extends RuntimeException {
+        SlowConsumerException(String stream) {
+            super("Cliente lento desconectado do stream " + stream, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.flowpay.api.streaming;
+
+import com.flowpay.api.board.QueueBoard;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.services.CustomerSessionService;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Streams SSE de broadcast (mesmo conteudo para todos os assinantes).
+ *
+ * Cada evento é serializado uma única vez em um byte[] e os mesmos bytes sao escritos para todos
+ * os assinantes, entao o custo de serializaçao e alocaçao nao cresce com o número de conexoes.
+ * O array pertence ao frame e é recolhido pelo GC: nenhum buffer compartilhado tem contagem de
+ * referencias, entao substituir o frame nunca invalida bytes que um assinante ainda vai escrever. O polling no banco também é compartilhado:
+ * existe apenas um stream de origem por tipo de stream (e por fila) enquanto houver assinantes.
+ */
+@Component
+@Slf4j
+public class SseFrameBroadcaster {
+
+    private static final byte[] EVENT_PREFIX = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_PREFIX = "\ndata:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FRAME_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonMapper jsonMapper;
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    private final CustomerSessionService customerService;
+    private final QueueBoard queueBoard;
+    private final SseBackpressurePolicy backpressurePolicy;
+    private final Flux<SharedSseFrame> metricsFrames;
+    private final Map<QueueKey, Flux<SharedSseFrame>> inProgressFrames = new ConcurrentHashMap<>();
+    private final Map<QueueKey, Flux<SharedSseFrame>> queueBoardFrames = new ConcurrentHashMap<>();
+
+    public SseFrameBroadcaster(CustomerSessionService customerService, QueueBoard queueBoard,
+                               SseBackpressurePolicy backpressurePolicy, JsonMapper jsonMapper) {
+        this.customerService = customerService;
+        this.queueBoard = queueBoard;
+        this.backpressurePolicy = backpressurePolicy;
+        this.jsonMapper = jsonMapper;
+        this.metricsFrames = share("metrics", customerService.streamMetrics()
+            .map(metrics -> encode("metrics-update", List.of(metrics))));
+    }
+
+    /**
+     * Frames do stream de métricas consolidadas (evento "metrics-update").
+     */
+    public Flux<SharedSseFrame> metricsFrames() {
+        return metricsFrames;
+    }
+
+    /**
+     * Frames do stream de sessoes IN_PROGRESS de uma fila (um evento "in-progress-update" por sessao).
+     * Snapshots vazios geram frames vazios, que nao sao escritos mas substituem o último snapshot em cache.
+     * O stream de cada fila é criado no primeiro acesso; o polling só roda enquanto houver assinantes.
+     */
+    public Flux<SharedSseFrame> inProgressFrames(QueueKey queueKey) {
+        return shared(inProgressFrames, queueKey, "in-progress-", key -> customerService.streamInProgressSnapshots(key)
+            .map(snapshot -> encode("in-progress-update", snapshot)));
+    }
+
+    /**
+     * Frames do painel de uma fila (evento "queue-board-update" com a fila PENDING inteira).
+     * Um novo frame é produzido quando a fila muda; todos os painéis da fila recebem os mesmos bytes.
+     */
+    public Flux<SharedSseFrame> queueBoardFrames(QueueKey queueKey) {
+        return shared(queueBoardFrames, queueKey, "queue-board-", key -> queueBoard.changes(key)
+            .map(board -> encode("queue-board-update", List.of(board))));
+    }
+
+    /**
+     * Quantidade de streams por fila ativos (in-progress + painel).
+     */
+    int activeQueueStreams() {
+        return inProgressFrames.size() + queueBoardFrames.size();
+    }
+
+    /**
+     * Escreve os frames compartilhados na resposta como text/event-stream, com flush a cada frame.
+     * Cada frame é um snapshot completo, entao um assinante lento recebe apenas o mais recente
+     * (ver {@link SseBackpressurePolicy}).
+     *
+     * @param stream - Nome do stream (contadores de backpressure)
+     * @param response - Resposta HTTP do assinante
+     * @param frames - Frames do stream de broadcast
+     * @return Mono<Void> que completa quando o stream termina ou o cliente desconecta
+     */
+    public Mono<Void> writeTo(String stream, ServerHttpResponse response, Flux<SharedSseFrame> frames) {
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        response.getHeaders().setCacheControl(CacheControl.noCache());
+
+        Flux<Mono<DataBuffer>> buffers = backpressurePolicy.apply(stream, frames)
+            .filter(frame -> frame.size() > 0)
+            .map(frame -> Mono.just(frame.buffer()));
+
+        return response.writeAndFlushWith(buffers);
+    }
+
+    /**
+     * Torna o stream de origem compartilhado, mantendo o último frame para novos assinantes.
+     */
+    static Flux<SharedSseFrame> share(String name, Flux<SharedSseFrame> source) {
+        return source
+            .doFinally(signal -> log.info("Stream de broadcast {} encerrado: {}", name, signal))
+            .replay(1)
+            .refCount();
+    }
+
+    /**
+     * Stream compartilhado da fila, criado no primeiro acesso. Quando o refCount chega a zero a origem
+     * é cancelada e a entrada é removida do mapa (apenas se ainda for a mesma instância), entao filas
+     * sem assinantes nao ficam acumuladas.
+     */
+    private static Flux<SharedSseFrame> shared(Map<QueueKey, Flux<SharedSseFrame>> streams, QueueKey queueKey,
+                                               String name, Function<QueueKey, Flux<SharedSseFrame>> source) {
+        return streams.computeIfAbsent(queueKey, key -> {
+            AtomicReference<Flux<SharedSseFrame>> self = new AtomicReference<>();
+            Flux<SharedSseFrame> frames = share(name + key, source.apply(key)
+                .doFinally(signal -> streams.remove(key, self.get())));
+            self.set(frames);
+            return frames;
+        });
+    }
+
+    private SharedSseFrame encode(String event, List<?> items) {
+        byte[] eventName = event.getBytes(StandardCharsets.UTF_8);
+        byte[][] payloads = new byte[items.size()][];
+        int size = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = jsonMapper.writeValueAsBytes(items.get(i));
+            size += EVENT_PREFIX.length + eventName.length + DATA_PREFIX.length + payloads[i].length + FRAME_SUFFIX.length;
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(size);
+        for (byte[] payload : payloads) {
+            content.put(EVENT_PREFIX)
+                .put(eventName)
+                .put(DATA_PREFIX)
+                .put(payload)
+                .put(FRAME_SUFFIX);
+        }
+        return new SharedSseFrame(content.array(), bufferFactory);
+    }
+}
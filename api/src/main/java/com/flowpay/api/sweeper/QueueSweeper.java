@@ -0,0 +1,210 @@
+package com.flowpay.api.sweeper;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.config.SweeperProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.repositories.LeaderLeaseRepository;
+import com.flowpay.api.responses.SweeperStatsResponse;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.slots.SlotAllocator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reconcilia periodicamente as filas com o banco.
+ *
+ * A promoçao só acontece como efeito de uma escrita (criaçao, finalizaçao, cancelamento por desconexao);
+ * se essa escrita falhar depois de liberar o slot, a fila fica parada com slots livres e clientes esperando.
+ * A cada intervalo o sweeper:
+ * - expira como CANCELED as sessoes esquecidas: PENDING além de maxPendingAge (stream da fila expirado
+ *   sem cancelamento) e IN_PROGRESS além de maxInProgressAge (atendimento nunca finalizado);
+ * - promove as filas com clientes esperando há mais de repairGrace e slots livres.
+ *
+ * Apenas as filas das quais este nó é dono sao reparadas, e em cada escopo de dono apenas um processo
+ * varre: o lease de liderança (leader_leases) tem o id do nó no nome, entao instâncias com o mesmo id
+ * (ex: deploy em andamento, ou várias instâncias sem cluster configurado) nao varrem ao mesmo tempo.
+ */
+@Component
+@Slf4j
+public class QueueSweeper {
+
+    private final SweeperProperties properties;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final LeaderLeaseRepository leaderLeaseRepository;
+    private final CustomerSessionService customerSessionService;
+    private final SlotAllocator slotAllocator;
+    private final QueueOwnership queueOwnership;
+
+    private final String leaseName;
+    private final String instanceId;
+    private Disposable sweepTask;
+
+    private volatile boolean leader;
+    private volatile OffsetDateTime lastSweepAt;
+    private volatile long lastSweepMillis;
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder failedSweeps = new LongAdder();
+    private final LongAdder idleQueuesRepaired = new LongAdder();
+    private final LongAdder expiredPending = new LongAdder();
+    private final LongAdder expiredInProgress = new LongAdder();
+
+    public QueueSweeper(SweeperProperties properties, CustomerSessionRepository customerSessionRepository,
+                        LeaderLeaseRepository leaderLeaseRepository, CustomerSessionService customerSessionService,
+                        SlotAllocator slotAllocator, QueueOwnership queueOwnership) {
+        this.properties = properties;
+        this.customerSessionRepository = customerSessionRepository;
+        this.leaderLeaseRepository = leaderLeaseRepository;
+        this.customerSessionService = customerSessionService;
+        this.slotAllocator = slotAllocator;
+        this.queueOwnership = queueOwnership;
+        this.leaseName = "queue-sweeper:" + queueOwnership.self().id();
+        this.instanceId = queueOwnership.self().id() + ":" + UUID.randomUUID();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.getLeaseTtl().compareTo(properties.getInterval()) <= 0) {
+            throw new IllegalStateException("flowpay.sweeper.lease-ttl deve ser maior que flowpay.sweeper.interval");
+        }
+        sweepTask = Flux.interval(properties.getInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> sweep()
+                .onErrorResume(error -> {
+                    failedSweeps.increment();
+                    log.warn("Falha na varredura das filas: {}", error.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweepTask == null) {
+            return;
+        }
+        sweepTask.dispose();
+        if (leader) {
+            // Libera o lease para que outra instância assuma sem esperar a expiraçao
+            leaderLeaseRepository.release(leaseName, instanceId)
+                .onErrorResume(error -> Mono.empty())
+                .block(Duration.ofSeconds(2));
+        }
+    }
+
+    /**
+     * Renova o lease e, se este processo for o líder, executa uma varredura.
+     *
+     * @return Mono que completa ao fim da varredura (ou logo, se outro processo for o líder)
+     */
+    public Mono<Void> sweep() {
+        return leaderLeaseRepository.tryAcquire(leaseName, instanceId, properties.getLeaseTtl().toMillis() / 1000.0)
+            .flatMap(acquired -> {
+                boolean wasLeader = leader;
+                leader = acquired > 0;
+                if (leader != wasLeader) {
+                    log.info("Sweeper das filas {}: {}", leader ? "assumiu o lease" : "perdeu o lease", leaseName);
+                }
+                return leader ? runSweep() : Mono.empty();
+            });
+    }
+
+    public SweeperStatsResponse stats() {
+        return new SweeperStatsResponse(
+            leader,
+            sweeps.sum(),
+            failedSweeps.sum(),
+            idleQueuesRepaired.sum(),
+            expiredPending.sum(),
+            expiredInProgress.sum(),
+            lastSweepAt,
+            lastSweepMillis
+        );
+    }
+
+    private Mono<Void> runSweep() {
+        long start = System.nanoTime();
+        return expire(CustomerSessionStatus.PENDING, properties.getMaxPendingAge(), expiredPending)
+            .then(expire(CustomerSessionStatus.IN_PROGRESS, properties.getMaxInProgressAge(), expiredInProgress))
+            .then(repairIdleQueues())
+            .doOnSuccess(repaired -> {
+                sweeps.increment();
+                lastSweepAt = OffsetDateTime.now();
+                lastSweepMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (repaired != null && repaired > 0) {
+                    log.warn("Sweeper promoveu {} filas paradas com slots livres", repaired);
+                }
+            })
+            .then();
+    }
+
+    /**
+     * Expira um lote de sessoes ativas do status informado mais antigas que maxAge.
+     */
+    private Mono<Long> expire(CustomerSessionStatus status, Duration maxAge, LongAdder counter) {
+        if (maxAge.isZero() || maxAge.isNegative()) {
+            return Mono.just(0L);
+        }
+        LocalDateTime startedBefore = LocalDateTime.now(ZoneOffset.UTC).minus(maxAge);
+        return customerSessionRepository.findStaleActive(status, startedBefore, properties.getExpireBatchSize())
+            .filter(session -> queueOwnership.isLocal(queueKeyOf(session)))
+            .concatMap(session -> customerSessionService.expireSession(session)
+                .onErrorResume(error -> {
+                    log.warn("Falha ao expirar a sessao {}: {}", session.getId(), error.getMessage());
+                    return Mono.just(false);
+                }))
+            .filter(Boolean::booleanValue)
+            .count()
+            .doOnNext(counter::add);
+    }
+
+    /**
+     * Promove as filas locais cujo primeiro da fila espera há mais de repairGrace com slots livres.
+     * A promoçao segura o lock da fila, entao nao conflita com uma promoçao em andamento.
+     *
+     * @return Quantidade de filas reparadas (com ao menos uma sessao promovida)
+     */
+    private Mono<Long> repairIdleQueues() {
+        OffsetDateTime waitingSince = OffsetDateTime.now().minus(properties.getRepairGrace());
+        return customerSessionRepository.findQueueHeads()
+            .filter(head -> head.getStartedAt().isBefore(waitingSince))
+            .map(QueueSweeper::queueKeyOf)
+            .filter(queueOwnership::isLocal)
+            .concatMap(queueKey -> slotAllocator.availableSlots(queueKey)
+                .filter(available -> available > 0)
+                .flatMap(available -> {
+                    log.warn("Fila {} parada com {} slots livres, promovendo", queueKey, available);
+                    return customerSessionService.promoteQueue(queueKey);
+                })
+                // Os slots podem ter sido ocupados entre a leitura e o lock da fila: só conta se promoveu alguém
+                .filter(promoted -> promoted > 0)
+                .doOnNext(promoted -> idleQueuesRepaired.increment())
+                .onErrorResume(error -> {
+                    log.warn("Falha ao reparar a fila {}: {}", queueKey, error.getMessage());
+                    return Mono.empty();
+                }))
+            .count();
+    }
+
+    private static QueueKey queueKeyOf(CustomerSession session) {
+        return QueueKey.of(session.getBranch(), session.getServiceType());
+    }
+}
@@ -0,0 +1,10 @@
+package com.flowpay.api.tokens;
+
+import com.flowpay.api.entities.ServiceType;
+
+/**
+ * Conteudo de um token de sessao: identifica a sessao pela chave primária,
+ * sem precisar do email do cliente.
+ */
+public record SessionToken(long sessionId, ServiceType serviceType) {
+}
@@ -0,0 +1,109 @@
+package com.flowpay.api.tokens;
+
+import com.flowpay.api.config.ClusterProperties;
+import com.flowpay.api.config.SessionTokenProperties;
+import com.flowpay.api.entities.ServiceType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Gera e valida tokens de sessao opacos.
+ *
+ * O token tem 34 caracteres base64url: 8 bytes com o id da sessao, 1 byte com o código do tipo de serviço
+ * e os 16 primeiros bytes do HMAC-SHA256 desses 9 bytes. Como o token é assinado, os endpoints que o recebem
+ * acessam a sessao direto pela chave primária, sem o JOIN com customers pelo email.
+ *
+ * O token é determinístico (a mesma sessao sempre gera o mesmo token) e nao tem expiraçao: ele vale enquanto
+ * a sessao estiver ativa, porque os endpoints só aceitam sessoes sem finished_at. Um token vazado permite apenas
+ * acompanhar e finalizar aquela sessao até ela terminar. Trocar o segredo invalida todos os tokens emitidos.
+ *
+ * Com cluster configurado (flowpay.cluster.nodes) o segredo é obrigatório: um segredo aleatório por nó faria
+ * os tokens emitidos por um nó serem rejeitados pelos outros.
+ */
+@Component
+@Slf4j
+public class SessionTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = Long.BYTES + 1;
+    private static final int SIGNATURE_LENGTH = 16;
+    private static final int TOKEN_LENGTH = 34;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    public SessionTokenCodec(SessionTokenProperties properties, ClusterProperties clusterProperties) {
+        byte[] secret;
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            if (!clusterProperties.getNodes().isEmpty()) {
+                throw new IllegalArgumentException("flowpay.session-token.secret é obrigatório com flowpay.cluster.nodes configurado: "
+                    + "todos os nós devem usar o mesmo segredo");
+            }
+            log.warn("flowpay.session-token.secret nao configurado: usando segredo aleatório, "
+                + "tokens de sessao nao valem em outros nós nem após reiniciar");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public String encode(long sessionId, ServiceType serviceType) {
+        byte[] token = new byte[PAYLOAD_LENGTH + SIGNATURE_LENGTH];
+        ByteBuffer.wrap(token)
+            .putLong(sessionId)
+            .put((byte) serviceType.getCode());
+        System.arraycopy(sign(token), 0, token, PAYLOAD_LENGTH, SIGNATURE_LENGTH);
+        return ENCODER.encodeToString(token);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o token for malformado ou a assinatura nao conferir
+     */
+    public SessionToken decode(String token) {
+        if (token == null || token.length() != TOKEN_LENGTH) {
+            throw new IllegalArgumentException("Token de sessao inválido");
+        }
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token de sessao inválido");
+        }
+
+        byte[] expected = sign(bytes);
+        byte[] actual = new byte[SIGNATURE_LENGTH];
+        System.arraycopy(bytes, PAYLOAD_LENGTH, actual, 0, SIGNATURE_LENGTH);
+        byte[] expectedPrefix = new byte[SIGNATURE_LENGTH];
+        System.arraycopy(expected, 0, expectedPrefix, 0, SIGNATURE_LENGTH);
+        if (!MessageDigest.isEqual(expectedPrefix, actual)) {
+            throw new IllegalArgumentException("Token de sessao inválido");
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(bytes, 0, PAYLOAD_LENGTH);
+        return new SessionToken(payload.getLong(), ServiceType.fromCode(payload.get()));
+    }
+
+    private byte[] sign(byte[] token) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(token, 0, PAYLOAD_LENGTH);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.flowpay.api.tracing;
+
+import reactor.core.publisher.SignalType;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Span em andamento. Os atributos podem ser adicionados até o término,
+ * que acontece uma única vez (término, erro ou cancelamento da assinatura).
+ */
+public final class ActiveSpan {
+
+    private final Tracer tracer;
+    private final SpanContext context;
+    private final String parentSpanId;
+    private volatile String name;
+    private final SpanKind kind;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, String> attributes = new ConcurrentHashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile Throwable error;
+
+    ActiveSpan(Tracer tracer, SpanContext context, String parentSpanId, String name, SpanKind kind) {
+        this.tracer = tracer;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+    }
+
+    public SpanContext context() {
+        return context;
+    }
+
+    /**
+     * Troca o nome do span, para quando ele só é conhecido depois do início (ex: rota HTTP).
+     */
+    public void rename(String name) {
+        this.name = name;
+    }
+
+    public ActiveSpan attribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, value.toString());
+        }
+        return this;
+    }
+
+    public void recordError(Throwable error) {
+        this.error = error;
+    }
+
+    public void end(SignalType signal) {
+        if (!ended.compareAndSet(false, true)) {
+            return;
+        }
+        String status = SpanData.OK;
+        if (error != null) {
+            status = SpanData.ERROR;
+            attribute("error.type", error.getClass().getName());
+        } else if (signal == SignalType.CANCEL) {
+            status = SpanData.CANCEL;
+        }
+        long durationMicros = (System.nanoTime() - startNanos) / 1_000;
+        tracer.export(new SpanData(context.traceId(), context.spanId(), parentSpanId, name, kind,
+            startedAt, durationMicros, status, Map.copyOf(attributes)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.flowpay.api.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grava os spans em um arquivo NDJSON (um {@link SpanData} por linha), para inspeçao com jq
+ * ou importaçao em outra ferramenta sem um coletor externo.
+ *
+ * O export apenas enfileira o span; a gravaçao é feita em lote a cada {@code flushInterval}
+ * em uma thread própria. Com a fila cheia os spans sao descartados e contados.
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter, AutoCloseable {
+
+    private final Path file;
+    private final JsonMapper jsonMapper;
+    private final BlockingQueue<SpanData> pending;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Scheduler scheduler = Schedulers.newSingle("trace-file-exporter");
+    private final Disposable flushTask;
+
+    public FileSpanExporter(Path file, int bufferSize, Duration flushInterval, JsonMapper jsonMapper) {
+        this.file = file;
+        this.jsonMapper = jsonMapper;
+        this.pending = new ArrayBlockingQueue<>(bufferSize);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Nao foi possível criar o diretório de " + file, e);
+        }
+        this.flushTask = Flux.interval(flushInterval, scheduler)
+            .onBackpressureDrop()
+            .subscribe(tick -> flush());
+        log.info("Spans exportados para {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public void export(SpanData span) {
+        if (!pending.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        flushTask.dispose();
+        scheduler.schedule(this::flush);
+        scheduler.disposeGracefully().block(Duration.ofSeconds(5));
+    }
+
+    private void flush() {
+        List<SpanData> batch = new ArrayList<>();
+        pending.drainTo(batch);
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("{} spans descartados: fila do exporter cheia", lost);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (SpanData span : batch) {
+                writer.write(jsonMapper.writeValueAsString(span));
+                writer.newLine();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao gravar {} spans em {}: {}", batch.size(), file, e.getMessage());
+        }
+    }
+}
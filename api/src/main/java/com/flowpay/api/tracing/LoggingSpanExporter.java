@@ -0,0 +1,16 @@
+package com.flowpay.api.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registra cada span concluído em log (logger com.flowpay.api.tracing.LoggingSpanExporter).
+ */
+@Slf4j
+public class LoggingSpanExporter implements SpanExporter {
+
+    @Override
+    public void export(SpanData span) {
+        log.info("trace={} span={} parent={} {} {} {}us {} {}", span.traceId(), span.spanId(), span.parentSpanId(),
+            span.kind(), span.name(), span.durationMicros(), span.status(), span.attributes());
+    }
+}
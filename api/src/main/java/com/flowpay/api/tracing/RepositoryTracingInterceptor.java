@@ -0,0 +1,48 @@
+package com.flowpay.api.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Span CLIENT para cada Mono/Flux devolvido por um repositório (db.operation = Repositório.método).
+ * O {@link Tracer} é resolvido na primeira chamada porque o interceptor é criado junto com os repositórios.
+ */
+public class RepositoryTracingInterceptor implements MethodInterceptor {
+
+    private final String repository;
+    private final ObjectProvider<Tracer> tracerProvider;
+    private volatile Tracer tracer;
+
+    public RepositoryTracingInterceptor(String repository, ObjectProvider<Tracer> tracerProvider) {
+        this.repository = repository;
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!(result instanceof Mono<?>) && !(result instanceof Flux<?>)) {
+            return result;
+        }
+        String operation = repository + "." + invocation.getMethod().getName();
+        Map<String, String> attributes = Map.of("db.system", "postgresql", "db.operation", operation);
+        if (result instanceof Mono<?> mono) {
+            return tracer().span(operation, SpanKind.CLIENT, attributes, mono);
+        }
+        return tracer().span(operation, SpanKind.CLIENT, attributes, (Flux<?>) result);
+    }
+
+    private Tracer tracer() {
+        Tracer current = tracer;
+        if (current == null) {
+            current = tracerProvider.getObject();
+            tracer = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,74 @@
+package com.flowpay.api.tracing;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identificaçao de um span propagada pelo Context do Reactor e pelo header W3C traceparent.
+ *
+ * @param traceId - 32 caracteres hexadecimais
+ * @param spanId - 16 caracteres hexadecimais
+ * @param sampled - Se o trace foi amostrado (flag 01 do traceparent)
+ */
+public record SpanContext(String traceId, String spanId, boolean sampled) {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+    private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+    /**
+     * Lê o header traceparent (versao 00). Devolve null se ausente ou inválido,
+     * caso em que a requisiçao inicia um novo trace.
+     */
+    public static SpanContext fromTraceparent(String header) {
+        if (header == null || header.length() != 55) {
+            return null;
+        }
+        String[] parts = header.split("-");
+        if (parts.length != 4 || !"00".equals(parts[0])
+            || !isHex(parts[1], 32) || !isHex(parts[2], 16) || !isHex(parts[3], 2)
+            || INVALID_TRACE_ID.equals(parts[1]) || INVALID_SPAN_ID.equals(parts[2])) {
+            return null;
+        }
+        boolean sampled = (HexFormat.fromHexDigits(parts[3]) & 0x01) != 0;
+        return new SpanContext(parts[1], parts[2], sampled);
+    }
+
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    SpanContext child() {
+        return new SpanContext(traceId, newSpanId(), sampled);
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+        return HEX.toHexDigits(high) + HEX.toHexDigits(low);
+    }
+
+    static String newSpanId() {
+        long id = ThreadLocalRandom.current().nextLong();
+        return HEX.toHexDigits(id != 0 ? id : 1);
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.flowpay.api.tracing;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Span concluído, como é mantido em memória e exportado.
+ *
+ * @param parentSpanId - Span pai (de outro processo no span SERVER de uma requisiçao com traceparent), ou null na raiz
+ * @param status - OK, ERROR ou CANCEL (assinatura cancelada antes do término)
+ * @param attributes - Atributos no formato do OpenTelemetry (ex: http.route, db.operation)
+ */
+public record SpanData(String traceId,
+                       String spanId,
+                       String parentSpanId,
+                       String name,
+                       SpanKind kind,
+                       Instant startedAt,
+                       long durationMicros,
+                       String status,
+                       Map<String, String> attributes) {
+
+    public static final String OK = "OK";
+    public static final String ERROR = "ERROR";
+    public static final String CANCEL = "CANCEL";
+}
@@ -0,0 +1,13 @@
+package com.flowpay.api.tracing;
+
+/**
+ * Destino dos spans concluídos, além do {@link TraceStore}. Chamado na thread que concluiu o span,
+ * entao a implementaçao nao pode bloquear.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    SpanExporter NONE = span -> { };
+
+    void export(SpanData span);
+}
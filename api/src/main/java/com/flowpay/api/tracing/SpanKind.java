@@ -0,0 +1,13 @@
+package com.flowpay.api.tracing;
+
+/**
+ * Tipo do span, com a mesma semântica do OpenTelemetry.
+ */
+public enum SpanKind {
+    /** Requisiçao HTTP recebida */
+    SERVER,
+    /** Método de serviço */
+    INTERNAL,
+    /** Consulta ao banco */
+    CLIENT
+}
@@ -0,0 +1,78 @@
+package com.flowpay.api.tracing;
+
+import com.flowpay.api.config.TracingProperties;
+import com.flowpay.api.responses.TraceSummaryResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffer em memória com os spans mais recentes deste nó, consultado em /api/ops/traces.
+ * Ao passar de {@code maxSpans} os spans mais antigos sao descartados.
+ */
+@Component
+public class TraceStore {
+
+    private final int maxSpans;
+    private final ConcurrentLinkedDeque<SpanData> spans = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public TraceStore(TracingProperties properties) {
+        if (properties.getMaxSpans() < 1) {
+            throw new IllegalArgumentException("flowpay.tracing.max-spans deve ser maior que zero");
+        }
+        this.maxSpans = properties.getMaxSpans();
+    }
+
+    void add(SpanData span) {
+        spans.addLast(span);
+        if (size.incrementAndGet() > maxSpans && spans.pollFirst() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Traces mais recentes primeiro, resumidos pelo span raiz local (SERVER).
+     * Traces cujo span raiz ainda nao terminou (ou já foi descartado) nao aparecem.
+     *
+     * @param limit - Quantidade máxima de traces
+     */
+    public List<TraceSummaryResponse> recentTraces(int limit) {
+        Map<String, List<SpanData>> byTrace = new LinkedHashMap<>();
+        Iterator<SpanData> iterator = spans.descendingIterator();
+        while (iterator.hasNext()) {
+            SpanData span = iterator.next();
+            byTrace.computeIfAbsent(span.traceId(), id -> new ArrayList<>()).add(span);
+        }
+        List<TraceSummaryResponse> summaries = new ArrayList<>();
+        for (List<SpanData> trace : byTrace.values()) {
+            if (summaries.size() >= limit) {
+                break;
+            }
+            trace.stream()
+                .filter(span -> span.kind() == SpanKind.SERVER)
+                .findFirst()
+                .ifPresent(root -> summaries.add(new TraceSummaryResponse(root.traceId(), root.name(), root.startedAt(),
+                    root.durationMicros(), root.status(), trace.size(),
+                    (int) trace.stream().filter(span -> SpanData.ERROR.equals(span.status())).count())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Spans de um trace em ordem de início.
+     */
+    public List<SpanData> trace(String traceId) {
+        return spans.stream()
+            .filter(span -> span.traceId().equals(traceId))
+            .sorted(Comparator.comparing(SpanData::startedAt))
+            .toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.flowpay.api.tracing;
+
+import com.flowpay.api.config.TracingProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.Map;
+
+/**
+ * Cria os spans e propaga o span atual pelo Context do Reactor (chave {@link SpanContext}).
+ *
+ * A decisao de amostragem é tomada uma vez, no span SERVER da requisiçao ({@link TracingWebFilter}),
+ * e herdada por todos os spans filhos. Fora de uma requisiçao amostrada (tarefas em segundo plano,
+ * requisiçoes nao amostradas) {@link #span} devolve o Mono/Flux original, entao o custo é uma
+ * consulta ao Context por assinatura.
+ */
+@Component
+public class Tracer {
+
+    private final TracingProperties properties;
+    private final TraceStore store;
+    private final SpanExporter exporter;
+    private final long sampleThreshold;
+
+    public Tracer(TracingProperties properties, TraceStore store, SpanExporter exporter) {
+        if (properties.getSampleRatio() < 0 || properties.getSampleRatio() > 1) {
+            throw new IllegalArgumentException("flowpay.tracing.sample-ratio deve estar entre 0 e 1");
+        }
+        this.properties = properties;
+        this.store = store;
+        this.exporter = exporter;
+        this.sampleThreshold = (long) (properties.getSampleRatio() * Long.MAX_VALUE);
+    }
+
+    /**
+     * Inicia o span SERVER de uma requisiçao. Com traceparent o span continua o trace de quem chamou
+     * e segue a sua decisao de amostragem; sem ele um novo trace é amostrado por {@code sampleRatio}.
+     *
+     * @param remoteParent - Span de quem chamou (header traceparent), ou null
+     * @return o span, ou null se a requisiçao nao for amostrada
+     */
+    public ActiveSpan startServerSpan(String name, SpanContext remoteParent) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        if (remoteParent != null) {
+            return remoteParent.sampled()
+                ? new ActiveSpan(this, remoteParent.child(), remoteParent.spanId(), name, SpanKind.SERVER)
+                : null;
+        }
+        String traceId = SpanContext.newTraceId();
+        if (!isSampled(traceId)) {
+            return null;
+        }
+        return new ActiveSpan(this, new SpanContext(traceId, SpanContext.newSpanId(), true), null, name, SpanKind.SERVER);
+    }
+
+    public <T> Mono<T> span(String name, Mono<T> source) {
+        return span(name, SpanKind.INTERNAL, Map.of(), source);
+    }
+
+    public <T> Flux<T> span(String name, Flux<T> source) {
+        return span(name, SpanKind.INTERNAL, Map.of(), source);
+    }
+
+    /**
+     * Executa o Mono como filho do span atual. O span vai da assinatura ao término do Mono.
+     */
+    public <T> Mono<T> span(String name, SpanKind kind, Map<String, ?> attributes, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            ActiveSpan span = startChild(context.getOrDefault(SpanContext.class, null), name, kind, attributes);
+            if (span == null) {
+                return source;
+            }
+            return source
+                .doOnError(span::recordError)
+                .doFinally(span::end)
+                .contextWrite(Context.of(SpanContext.class, span.context()));
+        });
+    }
+
+    /**
+     * Executa o Flux como filho do span atual, com a quantidade de elementos no atributo "rows".
+     */
+    public <T> Flux<T> span(String name, SpanKind kind, Map<String, ?> attributes, Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            ActiveSpan span = startChild(context.getOrDefault(SpanContext.class, null), name, kind, attributes);
+            if (span == null) {
+                return source;
+            }
+            long[] rows = new long[1];
+            return source
+                .doOnNext(item -> rows[0]++)
+                .doOnError(span::recordError)
+                .doFinally(signal -> span.attribute("rows", rows[0]).end(signal))
+                .contextWrite(Context.of(SpanContext.class, span.context()));
+        });
+    }
+
+    void export(SpanData span) {
+        store.add(span);
+        exporter.export(span);
+    }
+
+    private ActiveSpan startChild(SpanContext parent, String name, SpanKind kind, Map<String, ?> attributes) {
+        if (parent == null || !parent.sampled()) {
+            return null;
+        }
+        ActiveSpan span = new ActiveSpan(this, parent.child(), parent.spanId(), name, kind);
+        attributes.forEach(span::attribute);
+        return span;
+    }
+
+    /**
+     * Amostragem pelos 63 bits menos significativos do trace id (como o TraceIdRatioBased do OpenTelemetry),
+     * entao a decisao é a mesma em qualquer nó que veja o mesmo trace id.
+     */
+    private boolean isSampled(String traceId) {
+        if (sampleThreshold == Long.MAX_VALUE) {
+            return true;
+        }
+        long low = Long.parseUnsignedLong(traceId, 16, 32, 16) & Long.MAX_VALUE;
+        return low < sampleThreshold;
+    }
+}
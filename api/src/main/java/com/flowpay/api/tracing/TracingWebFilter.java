@@ -0,0 +1,61 @@
+package com.flowpay.api.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Span SERVER de cada requisiçao HTTP, com o nome "MÉTODO rota" (ex: PUT /api/customer/{email}).
+ *
+ * Continua o trace do header traceparent quando presente e devolve o traceparent do span
+ * no response, para localizar o trace em /api/ops/traces/{traceId}.
+ * Streams SSE nao sao rastreados: o span duraria a conexao inteira e acumularia um filho por atualizaçao.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TracingWebFilter implements WebFilter {
+
+    private final Tracer tracer;
+
+    public TracingWebFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getHeaders().getAccept().contains(MediaType.TEXT_EVENT_STREAM)) {
+            return chain.filter(exchange);
+        }
+        SpanContext remoteParent = SpanContext.fromTraceparent(request.getHeaders().getFirst(SpanContext.TRACEPARENT_HEADER));
+        ActiveSpan span = tracer.startServerSpan(request.getMethod().name() + " " + request.getPath().value(), remoteParent);
+        if (span == null) {
+            return chain.filter(exchange);
+        }
+        span.attribute("http.request.method", request.getMethod().name())
+            .attribute("url.path", request.getPath().value());
+        exchange.getResponse().getHeaders().set(SpanContext.TRACEPARENT_HEADER, span.context().toTraceparent());
+        return chain.filter(exchange)
+            .doOnError(span::recordError)
+            .doFinally(signal -> {
+                if (exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof PathPattern route) {
+                    span.rename(request.getMethod().name() + " " + route.getPatternString());
+                    span.attribute("http.route", route.getPatternString());
+                }
+                if (exchange.getResponse().getStatusCode() != null) {
+                    span.attribute("http.response.status_code", exchange.getResponse().getStatusCode().value());
+                }
+                span.end(signal);
+            })
+            .contextWrite(Context.of(SpanContext.class, span.context()));
+    }
+}
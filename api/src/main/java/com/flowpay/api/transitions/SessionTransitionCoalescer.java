@@ -0,0 +1,266 @@
+package com.flowpay.api.transitions;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.WriteCoalescingProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.WriteCoalescingStatsResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit das finalizaçoes de sessao (COMPLETED / CANCELED).
+ *
+ * As finalizaçoes recebidas dentro da janela (ou até encher um lote) sao gravadas juntas:
+ * uma transaçao, os locks das filas envolvidas e um único UPDATE com todas as sessoes
+ * ({@link CustomerSessionRepository#finishAll}), em vez de um commit por finalizaçao.
+ * Cada chamador recebe o resultado da sua sessao depois do commit do lote.
+ *
+ * Um lote com a mesma sessao mais de uma vez é gravado em rodadas na mesma transaçao, na ordem de chegada.
+ * Se o lote falhar, cada finalizaçao é gravada novamente sozinha, para que uma sessao com erro
+ * nao desfaça as finalizaçoes das outras.
+ * Sem group commit (desativado ou com a fila de espera cheia) cada finalizaçao é gravada sozinha
+ * com uma vaga do bulkhead do tipo de serviço, e falha com AdmissionRejectedException se nao houver vaga.
+ * As promoçoes nao passam por aqui: já sao um UPDATE por fila, feito sob o lock da fila.
+ */
+@Component
+@Slf4j
+public class SessionTransitionCoalescer {
+
+    private final WriteCoalescingProperties properties;
+    private final CustomerSessionRepository customerSessionRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ServiceTypeBulkheads bulkheads;
+    private final Sinks.Many<PendingTransition> pending;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder directWrites = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    public SessionTransitionCoalescer(WriteCoalescingProperties properties,
+                                      CustomerSessionRepository customerSessionRepository,
+                                      TransactionalOperator transactionalOperator,
+                                      ServiceTypeBulkheads bulkheads) {
+        if (properties.getMaxBatchSize() < 1 || properties.getMaxPending() < 1) {
+            throw new IllegalArgumentException("flowpay.write-coalescing.max-batch-size e max-pending devem ser maiores que zero");
+        }
+        this.properties = properties;
+        this.customerSessionRepository = customerSessionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.bulkheads = bulkheads;
+        this.pending = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingTransition>get(properties.getMaxPending()).get());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isCoalescing()) {
+            log.info("Group commit das finalizaçoes desativado");
+            return;
+        }
+        pending.asFlux()
+            .bufferTimeout(properties.getMaxBatchSize(), properties.getWindow(), true)
+            .doOnNext(batch -> {
+                long now = System.nanoTime();
+                queued.addAndGet(-batch.size());
+                batch.forEach(transition -> waitNanos.add(now - transition.createdAt()));
+            })
+            .concatMap(this::commit)
+            .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        // Grava o que ainda estiver aguardando lote antes de encerrar
+        pending.tryEmitComplete();
+    }
+
+    /**
+     * Finaliza a sessao se ela ainda estiver ativa no status esperado.
+     * Só executa na assinatura; o Mono completa depois do commit do lote.
+     *
+     * @param sessionId - Id da sessao
+     * @param queueKey - Fila da sessao (o lote segura o lock de cada fila envolvida)
+     * @param expectedStatus - Status lido antes da finalizaçao
+     * @param status - Status final (COMPLETED ou CANCELED)
+     * @return Mono com a sessao alterada, ou vazio se ela mudou de status nesse meio tempo
+     */
+    public Mono<CustomerSession> finish(Long sessionId, QueueKey queueKey,
+                                        CustomerSessionStatus expectedStatus, CustomerSessionStatus status) {
+        return Mono.create(sink -> {
+            PendingTransition transition = new PendingTransition(sessionId, queueKey, expectedStatus, status, sink, System.nanoTime());
+            if (!isCoalescing() || !offer(transition)) {
+                directWrites.increment();
+                // O commit entrega o próprio erro ao sink; um erro aqui é a rejeiçao do bulkhead.
+                // O contexto do chamador reaproveita a vaga que ele já tiver do mesmo tipo de serviço.
+                bulkheads.database(queueKey.serviceType(), commit(List.of(transition)))
+                    .contextWrite(sink.contextView())
+                    .subscribe(null, sink::error);
+            }
+        });
+    }
+
+    public WriteCoalescingStatsResponse stats() {
+        long batchCount = batches.sum();
+        long transitionCount = transitions.sum();
+        return new WriteCoalescingStatsResponse(
+            isCoalescing(),
+            TimeUnit.NANOSECONDS.toMicros(properties.getWindow().toNanos()),
+            properties.getMaxBatchSize(),
+            queued.get(),
+            batchCount,
+            transitionCount,
+            unchanged.sum(),
+            directWrites.sum(),
+            failedBatches.sum(),
+            batchCount > 0 ? (double) transitionCount / batchCount : 0.0,
+            largestBatch.get(),
+            transitionCount > 0 ? waitNanos.sum() / 1_000.0 / transitionCount : 0.0,
+            batchCount > 0 ? commitNanos.sum() / 1_000.0 / batchCount : 0.0);
+    }
+
+    private boolean isCoalescing() {
+        return properties.isEnabled() && properties.getWindow().isPositive();
+    }
+
+    /**
+     * Enfileira a finalizaçao para o próximo lote. Falha com a fila cheia ou depois do stop().
+     */
+    private boolean offer(PendingTransition transition) {
+        queued.incrementAndGet();
+        Sinks.EmitResult result;
+        while ((result = pending.tryEmitNext(transition)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        if (result.isFailure()) {
+            queued.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private Mono<Void> commit(List<PendingTransition> batch) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            Map<PendingTransition, CustomerSession> finished = new IdentityHashMap<>();
+            return transactionalOperator.transactional(lockQueues(batch)
+                    .thenMany(Flux.fromIterable(rounds(batch)))
+                    .concatMap(round -> finishRound(round, finished))
+                    .then())
+                .then(Mono.fromRunnable(() -> {
+                    record(batch.size(), System.nanoTime() - startedAt);
+                    for (PendingTransition transition : batch) {
+                        CustomerSession session = finished.get(transition);
+                        if (session == null) {
+                            unchanged.increment();
+                        }
+                        transition.sink().success(session);
+                    }
+                }))
+                .onErrorResume(error -> {
+                    failedBatches.increment();
+                    if (batch.size() == 1) {
+                        batch.getFirst().sink().error(error);
+                        return Mono.empty();
+                    }
+                    log.warn("Lote de {} finalizaçoes desfeito ({}), gravando uma a uma", batch.size(), error.getMessage());
+                    return Flux.fromIterable(batch)
+                        .concatMap(transition -> commit(List.of(transition)))
+                        .then();
+                });
+        }).then();
+    }
+
+    private Mono<Void> finishRound(List<PendingTransition> round, Map<PendingTransition, CustomerSession> finished) {
+        Long[] ids = new Long[round.size()];
+        Short[] expectedStatuses = new Short[round.size()];
+        Short[] statuses = new Short[round.size()];
+        Map<Long, PendingTransition> byId = new HashMap<>();
+        for (int i = 0; i < round.size(); i++) {
+            PendingTransition transition = round.get(i);
+            ids[i] = transition.sessionId();
+            expectedStatuses[i] = transition.expectedStatus().getCode();
+            statuses[i] = transition.status().getCode();
+            byId.put(transition.sessionId(), transition);
+        }
+        return customerSessionRepository.finishAll(ids, expectedStatuses, statuses)
+            .doOnNext(session -> finished.put(byId.get(session.getId()), session))
+            .then();
+    }
+
+    /**
+     * Locks das filas do lote, em ordem crescente de lockId como nas operaçoes em lote (sem deadlock),
+     * antes de qualquer escrita na transaçao.
+     */
+    private Mono<Void> lockQueues(List<PendingTransition> batch) {
+        return Flux.fromIterable(batch)
+            .map(transition -> transition.queueKey().lockId())
+            .distinct()
+            .sort()
+            .concatMap(customerSessionRepository::lockQueue)
+            .then();
+    }
+
+    /**
+     * Divide o lote em rodadas sem ids repetidos, mantendo a ordem de chegada de cada sessao.
+     */
+    private static List<List<PendingTransition>> rounds(List<PendingTransition> batch) {
+        List<List<PendingTransition>> rounds = new ArrayList<>();
+        List<Set<Long>> roundIds = new ArrayList<>();
+        for (PendingTransition transition : batch) {
+            int round = 0;
+            while (round < rounds.size() && roundIds.get(round).contains(transition.sessionId())) {
+                round++;
+            }
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+                roundIds.add(new HashSet<>());
+            }
+            rounds.get(round).add(transition);
+            roundIds.get(round).add(transition.sessionId());
+        }
+        return rounds;
+    }
+
+    private void record(int batchSize, long elapsedNanos) {
+        batches.increment();
+        transitions.add(batchSize);
+        commitNanos.add(elapsedNanos);
+        largestBatch.accumulateAndGet(batchSize, Math::max);
+    }
+
+    private record PendingTransition(Long sessionId,
+                                     QueueKey queueKey,
+                                     CustomerSessionStatus expectedStatus,
+                                     CustomerSessionStatus status,
+                                     MonoSink<CustomerSession> sink,
+                                     long createdAt) {
+    }
+}
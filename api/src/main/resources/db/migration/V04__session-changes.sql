@@ -0,0 +1,12 @@
+-- Tabela append-only com as mudanças de status das sessoes, consumida pelo stream de mudanças (/api/changes).
+-- O id é o cursor monotônico usado na paginaçao por keyset.
+CREATE TABLE session_changes(
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    session_id BIGINT NOT NULL REFERENCES customer_sessions(id),
+    customer_id BIGINT NOT NULL,
+    service_type VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX session_changes_session_id_idx ON session_changes(session_id);
@@ -0,0 +1,6 @@
+-- Índice de cobertura para a exportaçao de histórico de sessoes finalizadas,
+-- paginada por keyset em (started_at, id).
+CREATE INDEX customer_sessions_finished_export_idx
+    ON customer_sessions(started_at, id)
+    INCLUDE (customer_id, service_type, status, finished_at)
+    WHERE finished_at IS NOT NULL;
@@ -0,0 +1,61 @@
+-- Status e tipo de serviço passam de VARCHAR(255) para SMALLINT, usando os códigos estáveis
+-- definidos em CustomerSessionStatus e ServiceType:
+--   status:       PENDING=1, IN_PROGRESS=2, COMPLETED=3, CANCELED=4
+--   service_type: CARD_PROBLEMS=1, LOANS=2, OTHER=3
+-- Os índices que usam as colunas sao reconstruídos automaticamente pelo ALTER COLUMN TYPE.
+
+ALTER TABLE customer_sessions
+    ALTER COLUMN status DROP DEFAULT,
+    ALTER COLUMN service_type DROP DEFAULT;
+
+ALTER TABLE customer_sessions
+    ALTER COLUMN status TYPE SMALLINT USING (
+        CASE status
+            WHEN 'PENDING' THEN 1
+            WHEN 'IN_PROGRESS' THEN 2
+            WHEN 'COMPLETED' THEN 3
+            WHEN 'CANCELED' THEN 4
+        END
+    ),
+    ALTER COLUMN service_type TYPE SMALLINT USING (
+        CASE service_type
+            WHEN 'CARD_PROBLEMS' THEN 1
+            WHEN 'LOANS' THEN 2
+            WHEN 'OTHER' THEN 3
+        END
+    );
+
+ALTER TABLE customer_sessions
+    ALTER COLUMN status SET DEFAULT 1,
+    ALTER COLUMN service_type SET DEFAULT 3,
+    ADD CONSTRAINT customer_sessions_status_code_check CHECK (status BETWEEN 1 AND 4),
+    ADD CONSTRAINT customer_sessions_service_type_code_check CHECK (service_type BETWEEN 1 AND 3);
+
+ALTER TABLE session_changes
+    ALTER COLUMN status TYPE SMALLINT USING (
+        CASE status
+            WHEN 'PENDING' THEN 1
+            WHEN 'IN_PROGRESS' THEN 2
+            WHEN 'COMPLETED' THEN 3
+            WHEN 'CANCELED' THEN 4
+        END
+    ),
+    ALTER COLUMN service_type TYPE SMALLINT USING (
+        CASE service_type
+            WHEN 'CARD_PROBLEMS' THEN 1
+            WHEN 'LOANS' THEN 2
+            WHEN 'OTHER' THEN 3
+        END
+    );
+
+-- As consultas quentes (fila, promoçao, sessoes em andamento) só olham sessoes ativas:
+-- o índice parcial cobre apenas finished_at IS NULL e fica pequeno mesmo com o histórico crescendo.
+DROP INDEX customer_sessions_service_type_status_idx;
+CREATE INDEX customer_sessions_active_queue_idx
+    ON customer_sessions(service_type, status, started_at)
+    WHERE finished_at IS NULL;
+
+-- Busca da sessao ativa de um cliente (join por email)
+CREATE INDEX customer_sessions_active_customer_idx
+    ON customer_sessions(customer_id)
+    WHERE finished_at IS NULL;
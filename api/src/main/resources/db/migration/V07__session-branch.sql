@@ -0,0 +1,13 @@
+-- Filas passam a ser identificadas por (agência, tipo de serviço).
+-- Sessoes existentes ficam na agência padrao.
+ALTER TABLE customer_sessions
+    ADD COLUMN branch VARCHAR(64) NOT NULL DEFAULT 'default';
+
+ALTER TABLE session_changes
+    ADD COLUMN branch VARCHAR(64) NOT NULL DEFAULT 'default';
+
+-- Promoçao, contagem de slots e posiçao na fila filtram sempre pela fila completa
+DROP INDEX customer_sessions_active_queue_idx;
+CREATE INDEX customer_sessions_active_queue_idx
+    ON customer_sessions(branch, service_type, status, started_at)
+    WHERE finished_at IS NULL;
@@ -0,0 +1,18 @@
+-- Prioridade da sessao (PriorityClass: REGULAR=1, PREMIUM=2, ACCESSIBILITY=3) e chave de ordenaçao da fila,
+-- calculada pela política de fila (QueueDiscipline) na entrada da sessao, em milissegundos de época.
+ALTER TABLE customer_sessions
+    ADD COLUMN priority SMALLINT NOT NULL DEFAULT 1,
+    ADD COLUMN queue_order BIGINT,
+    ADD CONSTRAINT customer_sessions_priority_code_check CHECK (priority BETWEEN 1 AND 3);
+
+-- Sessoes existentes mantêm a ordem de chegada (FIFO)
+UPDATE customer_sessions
+SET queue_order = (EXTRACT(EPOCH FROM started_at) * 1000)::BIGINT;
+
+ALTER TABLE customer_sessions
+    ALTER COLUMN queue_order SET NOT NULL;
+
+-- Próximo da fila e posiçao na fila: leitura ordenada de (queue_order, id) apenas entre as sessoes PENDING
+CREATE INDEX customer_sessions_pending_order_idx
+    ON customer_sessions(branch, service_type, queue_order, id)
+    WHERE finished_at IS NULL AND status = 1;
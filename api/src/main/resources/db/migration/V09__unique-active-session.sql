@@ -0,0 +1,26 @@
+-- Um cliente tem no máximo uma sessao ativa. A verificaçao feita na criaçao (check-then-act)
+-- nao impede duas criaçoes concorrentes, entao a regra passa a ser garantida pelo banco.
+
+-- Sessoes ativas duplicadas existentes: mantém a mais recente e cancela as demais,
+-- registrando os cancelamentos no stream de mudanças como qualquer outra finalizaçao
+WITH canceled AS (
+    UPDATE customer_sessions cs
+    SET status = 4 /* CANCELED */, finished_at = CURRENT_TIMESTAMP AT TIME ZONE 'UTC', version = cs.version + 1
+    WHERE cs.finished_at IS NULL
+    AND EXISTS (
+        SELECT 1 FROM customer_sessions newer
+        WHERE newer.customer_id = cs.customer_id
+        AND newer.finished_at IS NULL
+        AND (newer.started_at, newer.id) > (cs.started_at, cs.id)
+    )
+    RETURNING cs.id, cs.customer_id, cs.branch, cs.service_type, cs.status
+)
+INSERT INTO session_changes (session_id, customer_id, branch, service_type, status)
+SELECT id, customer_id, branch, service_type, status
+FROM canceled
+ORDER BY id;
+
+DROP INDEX customer_sessions_active_customer_idx;
+CREATE UNIQUE INDEX customer_sessions_active_customer_idx
+    ON customer_sessions(customer_id)
+    WHERE finished_at IS NULL;
@@ -0,0 +1,13 @@
+-- Resultados de requisiçoes com Idempotency-Key, compartilhados entre os nós da API.
+-- id = escopo da operaçao + ":" + chave informada pelo cliente.
+-- status_code nulo significa requisiçao original ainda em andamento.
+CREATE TABLE idempotency_keys(
+    id VARCHAR(512) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code SMALLINT NULL,
+    location VARCHAR(1024) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idempotency_keys_expires_at_idx ON idempotency_keys(expires_at);
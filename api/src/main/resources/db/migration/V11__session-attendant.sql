@@ -0,0 +1,8 @@
+-- Atendente que atende a sessao (preenchido na promoçao quando os slots vêm do registro de atendentes).
+ALTER TABLE customer_sessions
+    ADD COLUMN attendant_id VARCHAR(64);
+
+-- Reconciliaçao dos slots no login do atendente: sessoes IN_PROGRESS do atendente
+CREATE INDEX customer_sessions_attendant_in_progress_idx
+    ON customer_sessions(attendant_id)
+    WHERE finished_at IS NULL AND status = 2 AND attendant_id IS NOT NULL;
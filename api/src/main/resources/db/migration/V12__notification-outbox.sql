@@ -0,0 +1,24 @@
+-- Outbox transacional das notificaçoes aos clientes, gravado na mesma transaçao da promoçao.
+-- kind (NotificationKind): PROMOTED=1, TURN_APPROACHING=2
+-- status: PENDING=1, SENT=2, FAILED=3 (tentativas esgotadas)
+CREATE TABLE notification_outbox(
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    session_id BIGINT NOT NULL REFERENCES customer_sessions(id),
+    customer_id BIGINT NOT NULL,
+    kind SMALLINT NOT NULL,
+    status SMALLINT NOT NULL DEFAULT 1,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(512),
+    created_at TIMESTAMP NOT NULL DEFAULT (CURRENT_TIMESTAMP AT TIME ZONE 'UTC'),
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT (CURRENT_TIMESTAMP AT TIME ZONE 'UTC'),
+    sent_at TIMESTAMP,
+    CONSTRAINT notification_outbox_kind_code_check CHECK (kind BETWEEN 1 AND 2),
+    CONSTRAINT notification_outbox_status_code_check CHECK (status BETWEEN 1 AND 3),
+    -- Uma notificaçao de cada tipo por sessao, mesmo com a fila promovida várias vezes
+    CONSTRAINT notification_outbox_session_kind_key UNIQUE (session_id, kind)
+);
+
+-- Próximo lote do dispatcher: notificaçoes pendentes na ordem de vencimento
+CREATE INDEX notification_outbox_due_idx
+    ON notification_outbox(next_attempt_at, id)
+    WHERE status = 1;
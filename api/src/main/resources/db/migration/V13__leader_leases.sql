@@ -0,0 +1,8 @@
+-- Leases de liderança para tarefas em segundo plano que devem rodar em um único processo
+-- (ex: sweeper das filas). O dono renova o lease antes de expirar; outro processo só assume
+-- depois que o lease expirou. Os horários usam o relógio do banco (UTC), nao o dos nós.
+CREATE TABLE leader_leases(
+    name VARCHAR(128) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
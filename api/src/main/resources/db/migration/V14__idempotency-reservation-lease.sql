@@ -0,0 +1,9 @@
+-- Lease da reserva de uma requisiçao em andamento: se o nó que executa a requisiçao original cair,
+-- uma repetiçao com a mesma chave e o mesmo conteudo assume a reserva depois de reserved_until.
+-- Ao gravar o resultado, reserved_until volta a ser nulo.
+-- session_token guarda o header Session-Token da criaçao, devolvido também nas repetiçoes.
+ALTER TABLE idempotency_keys ADD COLUMN reserved_until TIMESTAMP NULL;
+ALTER TABLE idempotency_keys ADD COLUMN session_token VARCHAR(64) NULL;
+
+-- Reservas antigas sem lease podem ser assumidas imediatamente
+UPDATE idempotency_keys SET reserved_until = created_at WHERE status_code IS NULL;
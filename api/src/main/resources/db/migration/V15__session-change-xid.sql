@@ -0,0 +1,9 @@
+-- Ordem do stream de mudanças sem lock global: cada mudança guarda o id da transaçao que a gravou.
+-- O consumidor lê em ordem de (xid, id) e só até o menor xid ainda em andamento (xmin do snapshot),
+-- entao nunca pula uma mudança de uma transaçao que ainda nao terminou.
+-- As transaçoes de uma fila seguram o advisory lock da fila antes da primeira escrita, entao dentro
+-- de uma fila a ordem dos xids é a ordem de commit. Mudanças existentes ficam com o xid desta migraçao.
+ALTER TABLE session_changes
+    ADD COLUMN xid xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX session_changes_xid_id_idx ON session_changes(xid, id);
@@ -0,0 +1,8 @@
+-- A exportaçao de histórico passou a trazer a agência da sessao: o índice de cobertura
+-- precisa incluir branch para que a página continue sendo lida só do índice (Index Only Scan).
+DROP INDEX IF EXISTS customer_sessions_finished_export_idx;
+
+CREATE INDEX customer_sessions_finished_export_idx
+    ON customer_sessions(started_at, id)
+    INCLUDE (customer_id, branch, service_type, status, finished_at)
+    WHERE finished_at IS NOT NULL;
@@ -0,0 +1,173 @@
+package com.flowpay.api.board;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.QueueBoardProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.QueueBoardEntry;
+import com.flowpay.api.responses.QueueBoardResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache, invalidaçao pelos eventos do ciclo de vida, coalescência das atualizaçoes do stream
+ * e remoçao dos painéis ociosos, com o repositório simulado e o tempo virtual.
+ */
+class QueueBoardTest {
+
+    private static final QueueKey LOANS = QueueKey.of("centro", ServiceType.LOANS);
+    private static final QueueKey OTHER = QueueKey.of("centro", ServiceType.OTHER);
+    private static final OffsetDateTime STARTED_AT = OffsetDateTime.parse("2026-03-02T09:00:00Z");
+
+    private QueueBoardProperties properties;
+    private VirtualTimeScheduler scheduler;
+    private QueueBoard queueBoard;
+    private final Map<ServiceType, AtomicInteger> loads = new ConcurrentHashMap<>();
+    private final Map<ServiceType, AtomicInteger> queueSizes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new QueueBoardProperties();
+        properties.setCoalesceWindow(Duration.ofMillis(200));
+        properties.setMaxAge(Duration.ofSeconds(30));
+        scheduler = VirtualTimeScheduler.create();
+
+        CustomerSessionRepository repository = mock(CustomerSessionRepository.class);
+        when(repository.findQueueBoard(anyString(), any(), anyInt()))
+            .thenAnswer(invocation -> board(invocation.getArgument(1)));
+        ServiceTypeBulkheads bulkheads = mock(ServiceTypeBulkheads.class);
+        when(bulkheads.pollingScheduler(any())).thenReturn(scheduler);
+        queueBoard = new QueueBoard(properties, repository, bulkheads);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void snapshotIsCachedUntilTheQueueChanges() {
+        enqueue(LOANS, 2);
+
+        QueueBoardResponse first = queueBoard.snapshot(LOANS).block();
+        QueueBoardResponse cached = queueBoard.snapshot(LOANS).block();
+
+        assertThat(cached).isSameAs(first);
+        assertThat(first.getWaiting()).isEqualTo(2);
+        assertThat(loads(LOANS)).isEqualTo(1);
+
+        // Mudança em outra fila nao invalida o painel
+        queueBoard.onSessionEvent(SessionLifecycleEvent.CREATED, session(OTHER));
+        assertThat(queueBoard.snapshot(LOANS).block()).isSameAs(first);
+
+        enqueue(LOANS, 1);
+        queueBoard.onSessionEvent(SessionLifecycleEvent.CREATED, session(LOANS));
+        QueueBoardResponse refreshed = queueBoard.snapshot(LOANS).block();
+
+        assertThat(loads(LOANS)).isEqualTo(2);
+        assertThat(refreshed.getVersion()).isGreaterThan(first.getVersion());
+        assertThat(refreshed.getWaiting()).isEqualTo(3);
+    }
+
+    @Test
+    void eventsInsideTheCoalesceWindowProduceASingleUpdate() {
+        enqueue(LOANS, 1);
+        Queue<QueueBoardResponse> received = new ConcurrentLinkedQueue<>();
+        Disposable stream = queueBoard.changes(LOANS).subscribe(received::add);
+        try {
+            assertThat(received).hasSize(1);
+
+            for (int i = 0; i < 5; i++) {
+                enqueue(LOANS, 1);
+                queueBoard.onSessionEvent(SessionLifecycleEvent.CREATED, session(LOANS));
+                scheduler.advanceTimeBy(Duration.ofMillis(10));
+            }
+            scheduler.advanceTimeBy(properties.getCoalesceWindow());
+
+            assertThat(received).hasSize(2);
+            assertThat(received).extracting(QueueBoardResponse::getWaiting).containsExactly(1L, 6L);
+            assertThat(loads(LOANS)).isEqualTo(2);
+
+            // Recarregamento por maxAge sem mudanças na fila: mesmo conteúdo, nada é emitido
+            scheduler.advanceTimeBy(properties.getMaxAge());
+            assertThat(received).hasSize(2);
+        } finally {
+            stream.dispose();
+        }
+    }
+
+    @Test
+    void idleBoardsAreEvictedButBoardsWithOpenStreamsAreKept() throws InterruptedException {
+        properties.setIdleTimeout(Duration.ofMillis(50));
+        enqueue(LOANS, 1);
+        enqueue(OTHER, 1);
+        Disposable stream = queueBoard.changes(OTHER).subscribe();
+        try {
+            queueBoard.snapshot(LOANS).block();
+            assertThat(queueBoard.boardCount()).isEqualTo(2);
+
+            Thread.sleep(properties.getIdleTimeout().multipliedBy(3).toMillis());
+            queueBoard.snapshot(QueueKey.of("norte", ServiceType.LOANS)).block();
+
+            // LOANS ficou ocioso; OTHER tem um stream aberto
+            assertThat(queueBoard.boardCount()).isEqualTo(2);
+            int loadsBefore = loads(LOANS);
+            queueBoard.snapshot(LOANS).block();
+            assertThat(loads(LOANS)).isEqualTo(loadsBefore + 1);
+        } finally {
+            stream.dispose();
+        }
+
+        Thread.sleep(properties.getIdleTimeout().multipliedBy(3).toMillis());
+        queueBoard.snapshot(LOANS).block();
+        assertThat(queueBoard.boardCount()).isEqualTo(1);
+    }
+
+    private void enqueue(QueueKey queueKey, int count) {
+        queueSizes.computeIfAbsent(queueKey.serviceType(), key -> new AtomicInteger()).addAndGet(count);
+    }
+
+    private int loads(QueueKey queueKey) {
+        return loads.computeIfAbsent(queueKey.serviceType(), key -> new AtomicInteger()).get();
+    }
+
+    /**
+     * Fila simulada: uma entrada por sessao, contando cada consulta efetivamente executada.
+     */
+    private Flux<QueueBoardEntry> board(ServiceType serviceType) {
+        return Flux.defer(() -> {
+            loads.computeIfAbsent(serviceType, key -> new AtomicInteger()).incrementAndGet();
+            long size = queueSizes.computeIfAbsent(serviceType, key -> new AtomicInteger()).get();
+            return Flux.range(1, (int) size)
+                .map(position -> new QueueBoardEntry((long) position, (long) position, "Cliente " + position,
+                    PriorityClass.REGULAR, STARTED_AT, size));
+        });
+    }
+
+    private static CustomerSession session(QueueKey queueKey) {
+        return new CustomerSession(1L, queueKey.branch(), queueKey.serviceType(), PriorityClass.REGULAR);
+    }
+}
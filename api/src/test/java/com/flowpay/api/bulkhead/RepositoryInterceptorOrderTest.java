@@ -0,0 +1,54 @@
+package com.flowpay.api.bulkhead;
+
+import com.flowpay.api.jfr.RepositoryQueryInterceptor;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.support.EmbeddedDatabase;
+import com.flowpay.api.tracing.RepositoryTracingInterceptor;
+import org.aopalliance.aop.Advice;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ordem dos interceptors no proxy dos repositórios: o bulkhead por fora, span e evento JFR por dentro,
+ * para que a espera pela vaga nao entre na duraçao medida da consulta.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "flowpay.sweeper.enabled=false",
+    "logging.level.com.flowpay.api=WARN"
+})
+class RepositoryInterceptorOrderTest {
+
+    @Autowired
+    private CustomerSessionRepository customerSessionRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @Test
+    void bulkheadWrapsTheTracingAndFlightRecorderInterceptors() {
+        List<Class<?>> advices = Arrays.stream(((Advised) customerSessionRepository).getAdvisors())
+            .map(Advisor::getAdvice)
+            .map(Advice::getClass)
+            .filter(type -> type == RepositoryBulkheadInterceptor.class
+                || type == RepositoryTracingInterceptor.class
+                || type == RepositoryQueryInterceptor.class)
+            .toList();
+
+        assertThat(advices).containsExactly(
+            RepositoryBulkheadInterceptor.class, RepositoryTracingInterceptor.class, RepositoryQueryInterceptor.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.flowpay.api.bulkhead;
+
+import com.flowpay.api.config.BulkheadProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.AdmissionRejectedException;
+import com.flowpay.api.responses.BulkheadStatsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Vagas de consulta dos bulkheads: dimensionamento pelo pool, rejeiçao com a espera cheia ou longa demais,
+ * cancelamento de quem ainda aguarda vaga e reuso da vaga pelas consultas aninhadas.
+ */
+class ServiceTypeBulkheadsTest {
+
+    private static final ServiceType LOANS = ServiceType.LOANS;
+    private static final ServiceType OTHER = ServiceType.OTHER;
+
+    private BulkheadProperties properties;
+    private ServiceTypeBulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BulkheadProperties();
+        properties.setDbMaxConcurrent(1);
+        properties.setDbMaxWaiting(1);
+        properties.setDbReservedConnections(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bulkheads != null) {
+            bulkheads.stop();
+        }
+    }
+
+    @Test
+    void permitsOfAllServiceTypesFitInThePoolMinusTheReservedConnections() {
+        properties.setDbMaxConcurrent(5);
+        properties.setDbReservedConnections(5);
+
+        ServiceTypeBulkheads large = new ServiceTypeBulkheads(properties, 20);
+        assertThat(limit(large)).isEqualTo(5);
+        large.stop();
+
+        // Pool menor que 3 x 5 + 5: o limite é reduzido para caber
+        bulkheads = new ServiceTypeBulkheads(properties, 10);
+        assertThat(limit(bulkheads) * ServiceType.values().length).isLessThanOrEqualTo(10 - 5);
+        assertThat(limit(bulkheads)).isEqualTo(1);
+
+        assertThatThrownBy(() -> new ServiceTypeBulkheads(properties, 7))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("spring.r2dbc.pool.max-size");
+    }
+
+    @Test
+    void requestIsRejectedWhenTheWaitingQueueIsFull() {
+        bulkheads = new ServiceTypeBulkheads(properties, 10);
+        Sinks.One<Integer> release = Sinks.one();
+        bulkheads.database(LOANS, release.asMono()).subscribe();
+        Disposable waiting = bulkheads.database(LOANS, Mono.just(2)).subscribe();
+
+        StepVerifier.create(bulkheads.database(LOANS, Mono.just(3)))
+            .verifyError(AdmissionRejectedException.class);
+
+        // A vaga de outro tipo de serviço continua livre
+        StepVerifier.create(bulkheads.database(OTHER, Mono.just(4))).expectNext(4).verifyComplete();
+        BulkheadStatsResponse stats = bulkheads.stats().get(LOANS);
+        assertThat(stats.getDbActive()).isEqualTo(1);
+        assertThat(stats.getDbWaiting()).isEqualTo(1);
+        assertThat(stats.getDbRejected()).isEqualTo(1);
+
+        release.tryEmitValue(1);
+        waiting.dispose();
+    }
+
+    @Test
+    void requestThatWaitedLongerThanMaxWaitIsRejectedWithoutRunning() throws InterruptedException {
+        properties.setDbMaxWait(Duration.ofMillis(50));
+        bulkheads = new ServiceTypeBulkheads(properties, 10);
+        Sinks.One<Integer> release = Sinks.one();
+        bulkheads.database(LOANS, release.asMono()).subscribe();
+        AtomicBoolean ran = new AtomicBoolean();
+        Mono<Integer> late = bulkheads.database(LOANS, Mono.fromCallable(() -> {
+            ran.set(true);
+            return 2;
+        })).cache();
+        late.subscribe(value -> { }, error -> { });
+
+        Thread.sleep(properties.getDbMaxWait().multipliedBy(2).toMillis());
+        release.tryEmitValue(1);
+
+        StepVerifier.create(late).verifyError(AdmissionRejectedException.class);
+        assertThat(ran).isFalse();
+        assertThat(bulkheads.stats().get(LOANS).getDbRejected()).isEqualTo(1);
+        assertThat(bulkheads.stats().get(LOANS).getDbActive()).isZero();
+    }
+
+    @Test
+    void requestCanceledWhileWaitingNeverRunsNorHoldsThePermit() {
+        bulkheads = new ServiceTypeBulkheads(properties, 10);
+        Sinks.One<Integer> release = Sinks.one();
+        bulkheads.database(LOANS, release.asMono()).subscribe();
+        AtomicBoolean ran = new AtomicBoolean();
+        Disposable canceled = bulkheads.database(LOANS, Mono.fromCallable(() -> {
+            ran.set(true);
+            return 2;
+        })).subscribe();
+
+        canceled.dispose();
+        release.tryEmitValue(1);
+
+        StepVerifier.create(bulkheads.database(LOANS, Mono.just(3))).expectNext(3).verifyComplete();
+        assertThat(ran).isFalse();
+        BulkheadStatsResponse stats = bulkheads.stats().get(LOANS);
+        assertThat(stats.getDbExecuted()).isEqualTo(2);
+        assertThat(stats.getDbWaiting()).isZero();
+        assertThat(stats.getDbActive()).isZero();
+        assertThat(stats.getDbRejected()).isZero();
+    }
+
+    @Test
+    void nestedQueriesReuseThePermitOfTheEnclosingOne() {
+        bulkheads = new ServiceTypeBulkheads(properties, 10);
+
+        // Com uma única vaga, a consulta interna esperaria pela externa para sempre
+        StepVerifier.create(bulkheads.database(LOANS, bulkheads.database(LOANS, Mono.just(1)).map(value -> value + 1)))
+            .expectNext(2)
+            .verifyComplete();
+        StepVerifier.create(bulkheads.database(LOANS, bulkheads.database(LOANS, Flux.just(1, 2)).collectList()))
+            .expectNext(List.of(1, 2))
+            .verifyComplete();
+
+        // Vagas de vários tipos de serviço (operaçoes em lote): uma de cada tipo, reutilizadas por dentro
+        Mono<Map<ServiceType, BulkheadStatsResponse>> inside = bulkheads.database(LOANS, Mono.fromCallable(bulkheads::stats));
+        StepVerifier.create(bulkheads.database(List.of(OTHER, LOANS, OTHER), inside))
+            .assertNext(stats -> {
+                assertThat(stats.get(LOANS).getDbActive()).isEqualTo(1);
+                assertThat(stats.get(OTHER).getDbActive()).isEqualTo(1);
+                assertThat(stats.get(ServiceType.CARD_PROBLEMS).getDbActive()).isZero();
+            })
+            .verifyComplete();
+        assertThat(bulkheads.stats().values()).allSatisfy(stats -> assertThat(stats.getDbActive()).isZero());
+    }
+
+    private static int limit(ServiceTypeBulkheads bulkheads) {
+        return bulkheads.stats().get(LOANS).getDbMaxConcurrent();
+    }
+}
@@ -0,0 +1,120 @@
+package com.flowpay.api.cluster;
+
+import com.flowpay.api.config.ClusterProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.QueueNotOwnedException;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simula vários nós da API no mesmo processo, cada um com sua própria visao do anel.
+ */
+class QueueOwnershipTest {
+
+    private static final int BRANCHES = 2_000;
+
+    @Test
+    void everyQueueHasExactlyOneOwnerAgreedByAllNodes() {
+        List<QueueOwnership> nodes = cluster("api-1", "api-2", "api-3", "api-4");
+
+        for (QueueKey queueKey : queues()) {
+            long owners = nodes.stream().filter(node -> node.isLocal(queueKey)).count();
+            assertThat(owners).isEqualTo(1);
+
+            ClusterNode owner = nodes.getFirst().ownerOf(queueKey);
+            nodes.forEach(node -> assertThat(node.ownerOf(queueKey)).isEqualTo(owner));
+        }
+    }
+
+    @Test
+    void queuesAreSpreadEvenlyAcrossNodes() {
+        List<QueueOwnership> nodes = cluster("api-1", "api-2", "api-3", "api-4");
+        List<QueueKey> queues = queues();
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (QueueKey queueKey : queues) {
+            owned.merge(nodes.getFirst().ownerOf(queueKey).id(), 1, Integer::sum);
+        }
+
+        double fairShare = (double) queues.size() / nodes.size();
+        assertThat(owned).hasSize(nodes.size());
+        owned.values().forEach(count -> assertThat(count).isBetween((int) (fairShare * 0.8), (int) (fairShare * 1.2)));
+    }
+
+    @Test
+    void addingANodeOnlyMovesItsShareOfQueues() {
+        QueueOwnership before = cluster("api-1", "api-2", "api-3", "api-4").getFirst();
+        QueueOwnership after = cluster("api-1", "api-2", "api-3", "api-4", "api-5").getFirst();
+        List<QueueKey> queues = queues();
+
+        int moved = 0;
+        for (QueueKey queueKey : queues) {
+            String previousOwner = before.ownerOf(queueKey).id();
+            String newOwner = after.ownerOf(queueKey).id();
+            if (!previousOwner.equals(newOwner)) {
+                assertThat(newOwner).isEqualTo("api-5");
+                moved++;
+            }
+        }
+
+        assertThat((double) moved / queues.size()).isBetween(0.1, 0.3);
+    }
+
+    @Test
+    void nonOwnerRejectsWithOwnerNode() {
+        List<QueueOwnership> nodes = cluster("api-1", "api-2");
+        QueueKey queueKey = QueueKey.of("centro", ServiceType.LOANS);
+        QueueOwnership owner = nodes.stream().filter(node -> node.isLocal(queueKey)).findFirst().orElseThrow();
+        QueueOwnership other = nodes.stream().filter(node -> !node.isLocal(queueKey)).findFirst().orElseThrow();
+
+        StepVerifier.create(owner.requireLocal(queueKey)).verifyComplete();
+        StepVerifier.create(other.requireLocal(queueKey))
+            .expectErrorSatisfies(error -> {
+                assertThat(error).isInstanceOf(QueueNotOwnedException.class);
+                assertThat(((QueueNotOwnedException) error).getOwner()).isEqualTo(owner.self());
+            })
+            .verify();
+    }
+
+    @Test
+    void singleNodeOwnsEveryQueue() {
+        QueueOwnership node = new QueueOwnership(new ClusterProperties());
+
+        assertThat(queues()).allMatch(node::isLocal);
+        assertThat(QueueKey.of(null, ServiceType.OTHER).branch()).isEqualTo(QueueKey.DEFAULT_BRANCH);
+    }
+
+    private static List<QueueOwnership> cluster(String... ids) {
+        Map<String, String> topology = new LinkedHashMap<>();
+        for (String id : ids) {
+            topology.put(id, "http://" + id + ":8080");
+        }
+
+        List<QueueOwnership> nodes = new ArrayList<>();
+        for (String id : ids) {
+            ClusterProperties properties = new ClusterProperties();
+            properties.setSelfId(id);
+            properties.setNodes(topology);
+            nodes.add(new QueueOwnership(properties));
+        }
+        return nodes;
+    }
+
+    private static List<QueueKey> queues() {
+        List<QueueKey> queues = new ArrayList<>();
+        for (int i = 0; i < BRANCHES; i++) {
+            for (ServiceType serviceType : ServiceType.values()) {
+                queues.add(QueueKey.of("agencia-" + i, serviceType));
+            }
+        }
+        return queues;
+    }
+}
@@ -0,0 +1,191 @@
+package com.flowpay.api.journal;
+
+import com.flowpay.api.config.JournalProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recuperaçao do estado das filas pelo journal, inclusive depois de um crash no meio da compactaçao.
+ * Os crashes sao reproduzidos copiando os arquivos do journal no ponto em que o processo teria parado.
+ */
+class SessionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversStateAcrossSegmentRotationsAfterRestart() throws IOException {
+        Path node = directory.resolve("node");
+        Node journal = open(node, 4);
+
+        // Cada compactaçao termina antes do segmento seguinte encher: nenhum evento fica fora do journal
+        for (long id = 1; id <= 12; id++) {
+            publishAndAwait(journal, SessionLifecycleEvent.CREATED, id);
+        }
+        for (long id = 1; id <= 4; id++) {
+            publishAndAwait(journal, SessionLifecycleEvent.PROMOTED, id);
+        }
+        publishAndAwait(journal, SessionLifecycleEvent.COMPLETED, 1);
+        publishAndAwait(journal, SessionLifecycleEvent.COMPLETED, 2);
+        publishAndAwait(journal, SessionLifecycleEvent.CANCELED, 5);
+        assertThat(journal.journal().droppedEvents()).isZero();
+        Map<Long, ActiveSessionState> before = Map.copyOf(journal.store().view());
+        journal.journal().close();
+
+        Node reopened = open(node, 4);
+
+        assertThat(before).hasSize(9);
+        assertThat(reopened.store().view()).isEqualTo(before);
+    }
+
+    @Test
+    void stalledCompactionNeverBlocksThePublisherAndDropsOnlyPastTheWaitingQueue() throws IOException {
+        Path node = directory.resolve("node");
+        Node journal = open(node, 4);
+        // Snapshot temporário impossível de criar: a compactaçao falha e fica tentando novamente
+        Path blocker = Files.createDirectory(node.resolve("sessions.snapshot.tmp"));
+
+        // 4 no primeiro segmento, 4 no segundo (o primeiro nao foi compactado), 4 na fila de espera, 8 descartados
+        for (long id = 1; id <= 20; id++) {
+            publish(journal, SessionLifecycleEvent.CREATED, id);
+        }
+
+        assertThat(journal.journal().droppedEvents()).isEqualTo(8);
+        assertThat(journal.store().view()).hasSize(20);
+
+        Files.delete(blocker);
+        journal.journal().awaitCompaction();
+        journal.journal().close();
+
+        // Os eventos descartados faltam no estado recuperado até a reconciliaçao com o banco
+        Node reopened = open(node, 4);
+        assertThat(reopened.store().view()).containsOnlyKeys(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L));
+    }
+
+    @Test
+    void crashBeforeTheSnapshotRenameReplaysTheSealedSegment() throws IOException {
+        Path node = directory.resolve("node");
+        Node journal = open(node, 64);
+        publishFirstBatch(journal);
+        List<Long> secondBatch = publishSecondBatch(journal);
+
+        // Disco no momento do crash: snapshot anterior, segmento selado intacto e o snapshot novo só no .tmp
+        Path crashed = copy(node, directory.resolve("crashed"));
+        compact(journal);
+        Files.copy(node.resolve("sessions.snapshot"), crashed.resolve("sessions.snapshot.tmp"));
+
+        Node recovered = open(crashed, 64);
+
+        assertThat(recovered.store().view()).isEqualTo(journal.store().view());
+        assertThat(recovered.journal().replayedOnOpen()).isEqualTo(secondBatch.size());
+        assertThat(crashed.resolve("sessions.snapshot.tmp")).doesNotExist();
+    }
+
+    @Test
+    void crashAfterTheSnapshotRenameSkipsTheSegmentItAlreadyCovers() throws IOException {
+        Path node = directory.resolve("node");
+        Node journal = open(node, 64);
+        publishFirstBatch(journal);
+        publishSecondBatch(journal);
+
+        // Disco no momento do crash: snapshot novo publicado, segmento selado ainda nao foi limpo
+        Path crashed = copy(node, directory.resolve("crashed"));
+        compact(journal);
+        Files.copy(node.resolve("sessions.snapshot"), crashed.resolve("sessions.snapshot"), StandardCopyOption.REPLACE_EXISTING);
+
+        Node recovered = open(crashed, 64);
+
+        assertThat(recovered.store().view()).isEqualTo(journal.store().view());
+        assertThat(recovered.journal().replayedOnOpen()).isZero();
+    }
+
+    @Test
+    void crashWithoutAnySnapshotReplaysTheActiveSegment() throws IOException {
+        Path node = directory.resolve("node");
+        Node journal = open(node, 64);
+        publishFirstBatch(journal);
+
+        Node recovered = open(copy(node, directory.resolve("crashed")), 64);
+
+        assertThat(recovered.store().view()).isEqualTo(journal.store().view());
+        assertThat(recovered.journal().replayedOnOpen()).isEqualTo(6);
+    }
+
+    /**
+     * Seis eventos, compactados em um snapshot.
+     */
+    private void publishFirstBatch(Node journal) {
+        for (long id = 1; id <= 4; id++) {
+            publish(journal, SessionLifecycleEvent.CREATED, id);
+        }
+        publish(journal, SessionLifecycleEvent.PROMOTED, 1);
+        publish(journal, SessionLifecycleEvent.CANCELED, 4);
+    }
+
+    /**
+     * Eventos gravados depois do primeiro snapshot, ainda só no segmento ativo.
+     */
+    private List<Long> publishSecondBatch(Node journal) {
+        compact(journal);
+        publish(journal, SessionLifecycleEvent.COMPLETED, 1);
+        publish(journal, SessionLifecycleEvent.PROMOTED, 2);
+        publish(journal, SessionLifecycleEvent.CREATED, 5);
+        return List.of(1L, 2L, 5L);
+    }
+
+    private static void compact(Node journal) {
+        journal.journal().snapshot();
+        journal.journal().awaitCompaction();
+    }
+
+    private static void publishAndAwait(Node journal, SessionLifecycleEvent event, long sessionId) {
+        publish(journal, event, sessionId);
+        journal.journal().awaitCompaction();
+    }
+
+    private static void publish(Node journal, SessionLifecycleEvent event, long sessionId) {
+        CustomerSession session = new CustomerSession(100 + sessionId, "centro", ServiceType.LOANS, PriorityClass.REGULAR);
+        session.setId(sessionId);
+        journal.journal().onSessionEvent(event, session);
+    }
+
+    private static Node open(Path journalDirectory, int records) throws IOException {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(journalDirectory.toString());
+        properties.setCapacity(DataSize.ofBytes(SessionJournal.HEADER_SIZE + (long) records * SessionJournal.RECORD_SIZE));
+        properties.setSnapshotInterval(Duration.ofHours(1));
+        QueueStateStore store = new QueueStateStore();
+        SessionJournal journal = new SessionJournal(properties, store);
+        journal.open();
+        return new Node(journal, store);
+    }
+
+    private static Path copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+        return target;
+    }
+
+    private record Node(SessionJournal journal, QueueStateStore store) {
+    }
+}
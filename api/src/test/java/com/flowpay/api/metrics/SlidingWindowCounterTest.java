@@ -0,0 +1,187 @@
+package com.flowpay.api.metrics;
+
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import com.flowpay.api.responses.ThroughputWindowResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Janela deslizante com segundos informados pelo teste: virada da janela, reaproveitamento de buckets
+ * de segundos antigos, eventos atrasados e as janelas publicadas pelo {@link SessionThroughputMetrics}.
+ */
+class SlidingWindowCounterTest {
+
+    private static final long T0 = 1_772_442_000L;
+
+    @Test
+    void countsEventsInsideTheWindowIncludingTheCurrentSecond() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        counter.increment(T0);
+        counter.increment(T0);
+        counter.increment(T0 + 30);
+        counter.increment(T0 + 59);
+
+        assertThat(counter.sum(T0 + 59, 60)).isEqualTo(4);
+        assertThat(counter.sum(T0 + 59, 30)).isEqualTo(2);
+        assertThat(counter.sum(T0 + 59, 1)).isEqualTo(1);
+        // Segundos depois de "agora" nao contam
+        assertThat(counter.sum(T0 + 29, 60)).isEqualTo(2);
+    }
+
+    @Test
+    void eventsLeaveTheWindowOneSecondAtATime() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        for (int second = 0; second < 60; second++) {
+            counter.increment(T0 + second);
+        }
+
+        assertThat(counter.sum(T0 + 59, 60)).isEqualTo(60);
+        for (int elapsed = 1; elapsed <= 60; elapsed++) {
+            assertThat(counter.sum(T0 + 59 + elapsed, 60)).isEqualTo(60 - elapsed);
+        }
+    }
+
+    @Test
+    void reusedBucketStartsFromZero() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        for (int i = 0; i < 5; i++) {
+            counter.increment(T0);
+        }
+
+        // Mesmo bucket do anel, um giro depois
+        counter.increment(T0 + 10);
+
+        assertThat(counter.sum(T0 + 10, 10)).isEqualTo(1);
+        assertThat(counter.sum(T0 + 9, 10)).isZero();
+    }
+
+    @Test
+    void bucketsOfOldSecondsAreIgnoredAfterAnIdlePeriod() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        counter.increment(T0);
+        counter.increment(T0 + 1);
+
+        assertThat(counter.sum(T0 + 3_600, 60)).isZero();
+        counter.increment(T0 + 3_600);
+        assertThat(counter.sum(T0 + 3_600, 60)).isEqualTo(1);
+    }
+
+    @Test
+    void lateEventForABucketAlreadyReusedIsDropped() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        counter.increment(T0 + 10);
+
+        counter.increment(T0);
+
+        assertThat(counter.sum(T0 + 10, 10)).isEqualTo(1);
+        assertThat(counter.sum(T0, 1)).isZero();
+    }
+
+    @Test
+    void rejectsWindowsLargerThanTheRing() {
+        assertThatThrownBy(() -> new SlidingWindowCounter(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingWindowCounter(10).sum(T0, 11)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment(T0 + i % 5);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(counter.sum(T0 + 4, 60)).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void throughputWindowsRollOverWithTheClock() {
+        MutableClock clock = new MutableClock(Instant.ofEpochSecond(T0));
+        SessionThroughputMetrics metrics = new SessionThroughputMetrics(clock);
+        CustomerSession session = new CustomerSession(1L, "centro", ServiceType.LOANS, PriorityClass.REGULAR);
+
+        metrics.onSessionEvent(SessionLifecycleEvent.CREATED, session);
+        clock.advance(Duration.ofMinutes(2));
+        metrics.onSessionEvent(SessionLifecycleEvent.CREATED, session);
+        metrics.onSessionEvent(SessionLifecycleEvent.COMPLETED, session);
+
+        assertThat(window(metrics, "1m")).extracting(ThroughputWindowResponse::getArrivals, ThroughputWindowResponse::getCompletions)
+            .containsExactly(1L, 1L);
+        assertThat(window(metrics, "5m").getArrivals()).isEqualTo(2);
+        assertThat(window(metrics, "5m").getArrivalsPerMinute()).isEqualTo(0.4);
+
+        clock.advance(Duration.ofMinutes(4));
+        assertThat(window(metrics, "1m").getArrivals()).isZero();
+        assertThat(window(metrics, "5m").getArrivals()).isEqualTo(1);
+        assertThat(window(metrics, "15m").getArrivals()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(15));
+        assertThat(window(metrics, "15m").getArrivals()).isZero();
+        assertThat(window(metrics, "15m").getCompletions()).isZero();
+    }
+
+    private static ThroughputWindowResponse window(SessionThroughputMetrics metrics, String window) {
+        return metrics.snapshot().stream()
+            .filter(row -> row.getWindow().equals(window) && row.getServiceType() == ServiceType.LOANS)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.flowpay.api.notifications;
+
+import com.flowpay.api.config.NotificationProperties;
+import com.flowpay.api.entities.NotificationKind;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.NotificationOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispatcher com o repositório simulado e um canal local que registra os envios
+ * e falha para as sessoes configuradas.
+ */
+class NotificationDispatcherTest {
+
+    private NotificationProperties properties;
+    private NotificationOutboxRepository repository;
+    private StubSink sink;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.setMaxPerSecond(1_000);
+        properties.setInitialBackoff(Duration.ofSeconds(5));
+        properties.setMaxBackoff(Duration.ofMinutes(1));
+        repository = mock(NotificationOutboxRepository.class);
+        sink = new StubSink();
+        dispatcher = new NotificationDispatcher(properties, repository, sink);
+
+        when(repository.markSent(any(), any())).thenReturn(Mono.just(1));
+        when(repository.markFailed(any(), anyString(), any(), anyInt())).thenReturn(Mono.just(1));
+    }
+
+    @Test
+    void sendsBatchAndConfirmsSuccessfulNotificationsInOneStatement() {
+        when(repository.claimDue(any(), any(), anyInt()))
+            .thenReturn(Flux.just(notification(1L, 10L, 0), notification(2L, 20L, 0), notification(3L, 30L, 0)));
+
+        StepVerifier.create(dispatcher.dispatchBatch())
+            .expectNext(3)
+            .verifyComplete();
+
+        assertThat(sink.sent).extracting(Notification::getId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        verify(repository).markSent(eq(new Long[]{1L, 2L, 3L}), any());
+        verify(repository, never()).markFailed(any(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    void reschedulesFailedNotificationsWithBackoff() {
+        sink.failingSessions = Set.of(20L);
+        when(repository.claimDue(any(), any(), anyInt()))
+            .thenReturn(Flux.just(notification(1L, 10L, 0), notification(2L, 20L, 2)));
+
+        LocalDateTime before = LocalDateTime.now(ZoneOffset.UTC);
+        StepVerifier.create(dispatcher.dispatchBatch())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(repository).markSent(eq(new Long[]{1L}), any());
+        verify(repository).markFailed(eq(2L), eq("canal indisponível"),
+            argThat((LocalDateTime next) -> !next.isBefore(before.plusSeconds(20))),
+            eq(properties.getMaxAttempts()));
+    }
+
+    @Test
+    void emptyOutboxDoesNothing() {
+        when(repository.claimDue(any(), any(), anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(dispatcher.dispatchBatch())
+            .expectNext(0)
+            .verifyComplete();
+
+        assertThat(sink.sent).isEmpty();
+        verify(repository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void backoffDoublesUntilMaximum() {
+        assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(dispatcher.backoff(2)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(dispatcher.backoff(3)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(dispatcher.backoff(10)).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    private static Notification notification(long id, long sessionId, int attempts) {
+        return new Notification(id, sessionId, sessionId, "Cliente " + sessionId, sessionId + "@flowpay.test",
+            "default", ServiceType.LOANS, NotificationKind.PROMOTED, attempts, null);
+    }
+
+    private static class StubSink implements NotificationSink {
+
+        private final List<Notification> sent = new CopyOnWriteArrayList<>();
+        private Set<Long> failingSessions = Set.of();
+
+        @Override
+        public Mono<Void> send(Notification notification) {
+            if (failingSessions.contains(notification.getSessionId())) {
+                return Mono.error(new IllegalStateException("canal indisponível"));
+            }
+            return Mono.fromRunnable(() -> sent.add(notification));
+        }
+    }
+}
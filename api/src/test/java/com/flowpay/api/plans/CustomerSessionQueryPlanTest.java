@@ -0,0 +1,373 @@
+package com.flowpay.api.plans;
+
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.data.r2dbc.repository.Query;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regressao de planos de execuçao das consultas do {@link CustomerSessionRepository}.
+ *
+ * Popula um Postgres embarcado com um histórico de alguns milhoes de sessoes e executa
+ * EXPLAIN (ANALYZE, BUFFERS) de cada método @Query, com parâmetros de uma sessao ativa real.
+ * Falha quando o formato do plano muda (Seq Scan, leitura de tabela sem nenhum índice ou um nó Sort
+ * em consultas que nao estao autorizadas) ou a consulta passa do orçamento de buffers.
+ * Nao há limite de tempo: o tempo de execuçao varia com a máquina e a carga do build,
+ * o formato do plano e as páginas lidas nao.
+ * Comandos que alteram dados sao executados em uma transaçao desfeita ao final.
+ *
+ * Executado apenas com o profile "query-plans": ./mvnw -Pquery-plans test
+ * Tamanho do histórico: -Dplans.sessions=3000000 (padrao)
+ */
+@Tag("query-plans")
+@Slf4j
+class CustomerSessionQueryPlanTest {
+
+    private static final int HISTORY = Integer.getInteger("plans.sessions", 3_000_000);
+    private static final int CUSTOMERS = Math.max(HISTORY / 10, 50_000);
+    private static final int BRANCHES = 100;
+    private static final int QUEUES = BRANCHES * 3;
+    private static final int ACTIVE = 20_000;
+
+    private static final Pattern PARAMETER = Pattern.compile("(?<![:\\w]):(\\w+)");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+    private static final Pattern BUFFERS = Pattern.compile("Buffers: shared(?: hit=(\\d+))?(?: read=(\\d+))?");
+    private static final Pattern TABLE_SCAN = Pattern.compile("Scan(?: Backward)?(?: using \\w+)? on (\\w+)");
+    private static final Pattern INDEX_SCAN = Pattern.compile("Index (?:Only )?Scan(?: Backward)? using \\w+|Bitmap Index Scan on \\w+");
+    private static final Pattern SORT = Pattern.compile("(?:Incremental )?Sort\\s+\\(cost");
+    private static final Pattern INDEX_ONLY_SCAN = Pattern.compile("Index Only Scan(?: Backward)? using (\\w+)");
+
+    /**
+     * Formato do plano e orçamento de buffers de cada consulta para o dataset padrao.
+     * Consultas novas precisam de uma entrada aqui.
+     */
+    private static final Map<String, PlanBudget> BUDGETS = Map.ofEntries(
+        // Caminho quente: sessao ativa do cliente, fila e promoçao
+        entry("findByActiveServicesByCustomerEmail", indexed(50)),
+        entry("findQueuePositionByCustomerEmail", sorted(500)),
+        entry("findQueuePositionBySessionId", indexed(500)),
+        entry("findNextInQueueByBranchAndServiceType", indexed(50)),
+        entry("countPendingByBranchAndServiceType", indexed(200)),
+        // DISTINCT ON (priority) com queue_order DESC: o índice da fila nao começa pela prioridade
+        entry("findLastPendingPerPriority", sorted(200)),
+        entry("countInProgressByBranchAndServiceType", indexed(50)),
+        entry("findAllInProgressByBranchAndServiceType", sorted(50)),
+        entry("lockQueue", indexed(10)),
+        // Promoçoes ordenam as linhas do RETURNING (ou os ids do lote) para devolver na ordem da fila
+        entry("promoteNextInQueue", sorted(500)),
+        entry("promoteNextToAttendant", indexed(300)),
+        entry("promoteSelectedToAttendant", sorted(500)),
+        entry("findAllInProgressByAttendant", indexed(50)),
+        // Lotes e consultas por tipo de serviço: percorrem as sessoes ativas (índices parciais)
+        entry("findActiveIdsForBulk", sorted(500)),
+        entry("completeAll", sorted(2_000)),
+        entry("cancelAll", sorted(2_000)),
+        entry("finishAll", sorted(2_000)),
+        entry("promoteAll", sorted(2_000)),
+        entry("findNextInQueue", sorted(25_000)),
+        entry("findAllInProgress", sorted(25_000)),
+        entry("countPendingInQueue", indexed(25_000)),
+        entry("countPendingByServiceType", indexed(25_000)),
+        entry("countInProgressByServiceType", indexed(25_000)),
+        entry("findAllActiveByServiceType", sorted(25_000)),
+        entry("findAllInProgressByServiceType", sorted(25_000)),
+        entry("findAllActive", sorted(50_000)),
+        // Sweeper: primeiro de cada fila e sessoes ativas esquecidas
+        entry("findQueueHeads", sorted(25_000)),
+        // Painel: fila PENDING inteira de uma fila, na ordem do índice
+        entry("findQueueBoard", indexed(1_000)),
+        entry("findStaleActive", sorted(2_000)),
+        // Exportaçao: uma página por keyset no índice de cobertura
+        entry("findFinishedPage", indexOnly("customer_sessions_finished_export_idx", 2_000)),
+        entry("findReplayPage", sorted(2_000)),
+        // Métricas agregadas sobre todo o histórico (Seq Scan esperado)
+        entry("averageSessionsPerCustomer", fullScan(100_000)),
+        entry("averageServiceDurationSeconds", fullScan(100_000)),
+        entry("countByStatus", fullScan(100_000))
+    );
+
+    /**
+     * Valores de parâmetros que mudam por consulta (os demais vêm de {@link #parameters}).
+     */
+    private static final Map<String, Map<String, String>> OVERRIDES = Map.of(
+        "finishAll", Map.of(
+            "expectedStatuses", "array_fill(1::SMALLINT, ARRAY[100])",
+            "statuses", "array_fill(4::SMALLINT, ARRAY[100])"),
+        "findFinishedPage", Map.of("status", "3"),
+        "countByStatus", Map.of("status", "3"),
+        "findStaleActive", Map.of("startedBefore", "TIMESTAMP '2026-01-01 00:10:00'")
+    );
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static Map<String, String> parameters;
+
+    @BeforeAll
+    static void seed() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("""
+                INSERT INTO customers (name, email)
+                SELECT 'Cliente ' || g, 'customer' || g || '@flowpay.test'
+                FROM generate_series(1, %d) g
+                """.formatted(CUSTOMERS));
+
+            // Histórico: sessoes finalizadas, 80%% COMPLETED e 20%% CANCELED, ao longo de ~1 ano
+            statement.execute("""
+                INSERT INTO customer_sessions (customer_id, branch, service_type, status, priority, queue_order, started_at, finished_at, version)
+                SELECT 1 + (g %% %d),
+                       'branch-' || (g %% %d),
+                       1 + (g %% 3),
+                       CASE WHEN g %% 5 = 0 THEN 4 ELSE 3 END,
+                       1,
+                       (EXTRACT(EPOCH FROM ts) * 1000)::BIGINT,
+                       ts,
+                       ts + (g %% 1800) * INTERVAL '1 second',
+                       1
+                FROM (
+                    SELECT g, TIMESTAMP '2025-01-01' + g * (INTERVAL '31536000 seconds' / %d) AS ts
+                    FROM generate_series(1, %d) g
+                ) history
+                """.formatted(CUSTOMERS, BRANCHES, HISTORY, HISTORY));
+
+            // Sessoes ativas: uma por cliente, 3 IN_PROGRESS por fila (com atendente) e o restante PENDING
+            statement.execute("""
+                INSERT INTO customer_sessions (customer_id, branch, service_type, status, priority, queue_order, started_at, attendant_id)
+                SELECT g,
+                       'branch-' || ((g %% %2$d) / 3),
+                       1 + (g %% %2$d) %% 3,
+                       CASE WHEN g <= 3 * %2$d THEN 2 ELSE 1 END,
+                       1,
+                       (EXTRACT(EPOCH FROM ts) * 1000)::BIGINT,
+                       ts,
+                       CASE WHEN g <= 3 * %2$d THEN 'attendant-' || (g %% %2$d) END
+                FROM (
+                    SELECT g, TIMESTAMP '2026-01-01' + g * INTERVAL '100 milliseconds' AS ts
+                    FROM generate_series(1, %1$d) g
+                ) active
+                """.formatted(ACTIVE, QUEUES));
+
+            statement.execute("VACUUM ANALYZE customers");
+            statement.execute("VACUUM ANALYZE customer_sessions");
+
+            parameters = parameters(statement);
+        }
+        log.warn("Dataset de planos: {} clientes, {} sessoes finalizadas, {} ativas em {} s",
+            CUSTOMERS, HISTORY, ACTIVE, String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void everyQueryHasABudget() {
+        assertThat(queryMethods().stream().map(Method::getName).collect(Collectors.toCollection(TreeSet::new)))
+            .as("consultas de CustomerSessionRepository sem orçamento de plano")
+            .isSubsetOf(BUDGETS.keySet());
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyQueryStaysWithinItsPlanBudget() {
+        return queryMethods().stream()
+            .filter(method -> BUDGETS.containsKey(method.getName()))
+            .map(method -> DynamicTest.dynamicTest(method.getName(), () -> verifyPlan(method)));
+    }
+
+    private void verifyPlan(Method method) throws SQLException {
+        String name = method.getName();
+        PlanBudget budget = BUDGETS.get(name);
+        String sql = bind(name, method.getAnnotation(Query.class).value());
+
+        // Primeira execuçao aquece o cache; o orçamento de buffers vale para a segunda
+        explain(sql);
+        String plan = explain(sql);
+        log.info("Plano de {}:\n{}", name, plan);
+
+        if (!budget.seqScanAllowed()) {
+            assertThat(matches(SEQ_SCAN, plan)).as("%s passou a fazer Seq Scan:%n%s", name, plan).isEmpty();
+            if (!matches(TABLE_SCAN, plan).isEmpty()) {
+                assertThat(matches(INDEX_SCAN, plan)).as("%s nao usa nenhum índice:%n%s", name, plan).isNotEmpty();
+            }
+        }
+        if (!budget.sortAllowed()) {
+            assertThat(matches(SORT, plan)).as("%s passou a ordenar fora do índice:%n%s", name, plan).isEmpty();
+        }
+        if (budget.indexOnly() != null) {
+            assertThat(matches(INDEX_ONLY_SCAN, plan))
+                .as("%s deixou de ser lida só do índice %s:%n%s", name, budget.indexOnly(), plan)
+                .anySatisfy(scan -> assertThat(scan).endsWith(" " + budget.indexOnly()));
+        }
+
+        long buffers = rootBuffers(plan);
+        assertThat(buffers).as("%s acima do orçamento de buffers:%n%s", name, plan).isLessThanOrEqualTo(budget.maxBuffers());
+    }
+
+    private static List<String> matches(Pattern pattern, String plan) {
+        List<String> found = new ArrayList<>();
+        Matcher matcher = pattern.matcher(plan);
+        while (matcher.find()) {
+            found.add(matcher.group());
+        }
+        return found;
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                StringBuilder plan = new StringBuilder();
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+                return plan.toString();
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    /**
+     * Buffers do nó raiz (acumulados de todo o plano). A seçao "Planning" vem depois do plano
+     * e nao entra na conta; sem nenhuma linha de buffers o plano nao leu nenhuma página.
+     */
+    private static long rootBuffers(String plan) {
+        int planning = plan.indexOf("Planning");
+        Matcher buffers = BUFFERS.matcher(planning >= 0 ? plan.substring(0, planning) : plan);
+        if (!buffers.find()) {
+            return 0;
+        }
+        long hit = buffers.group(1) != null ? Long.parseLong(buffers.group(1)) : 0;
+        long read = buffers.group(2) != null ? Long.parseLong(buffers.group(2)) : 0;
+        return hit + read;
+    }
+
+    /**
+     * Substitui os parâmetros nomeados da consulta por literais SQL.
+     */
+    private static String bind(String method, String sql) {
+        Map<String, String> values = new HashMap<>(parameters);
+        values.putAll(OVERRIDES.getOrDefault(method, Map.of()));
+
+        Matcher parameter = PARAMETER.matcher(sql);
+        StringBuilder bound = new StringBuilder();
+        while (parameter.find()) {
+            String value = values.get(parameter.group(1));
+            assertThat(value).as("sem valor para o parâmetro :%s de %s", parameter.group(1), method).isNotNull();
+            parameter.appendReplacement(bound, Matcher.quoteReplacement(value));
+        }
+        parameter.appendTail(bound);
+        return bound.toString();
+    }
+
+    /**
+     * Parâmetros padrao: uma sessao PENDING real (e sua fila), um atendente com sessoes em andamento
+     * e um lote de ids de sessoes ativas.
+     */
+    private static Map<String, String> parameters(Statement statement) throws SQLException {
+        Map<String, String> values = new HashMap<>();
+        try (ResultSet pending = statement.executeQuery("""
+                SELECT cs.id, c.email, cs.branch, cs.service_type, cs.started_at
+                FROM customer_sessions cs
+                JOIN customers c ON c.id = cs.customer_id
+                WHERE cs.finished_at IS NULL AND cs.status = 1
+                ORDER BY cs.id
+                LIMIT 1 OFFSET 5000
+                """)) {
+            pending.next();
+            values.put("sessionId", String.valueOf(pending.getLong("id")));
+            values.put("email", "'" + pending.getString("email") + "'");
+            values.put("branch", "'" + pending.getString("branch") + "'");
+            values.put("serviceType", String.valueOf(pending.getShort("service_type")));
+        }
+        try (ResultSet ids = statement.executeQuery("""
+                SELECT string_agg(id::TEXT, ',' ORDER BY id) FROM (
+                    SELECT id FROM customer_sessions WHERE finished_at IS NULL ORDER BY id LIMIT 100
+                ) batch
+                """)) {
+            ids.next();
+            values.put("ids", "ARRAY[" + ids.getString(1) + "]::BIGINT[]");
+        }
+        values.put("attendantId", "'attendant-1'");
+        values.put("status", "1");
+        values.put("maxSlots", "3");
+        values.put("limit", "100");
+        values.put("lockId", "42");
+        values.put("startedBefore", "NULL");
+        values.put("afterStartedAt", "TIMESTAMP '2025-07-01'");
+        values.put("afterId", "0");
+        values.put("until", "TIMESTAMP '2025-08-01'");
+        return values;
+    }
+
+    private static List<Method> queryMethods() {
+        return Arrays.stream(CustomerSessionRepository.class.getDeclaredMethods())
+            .filter(method -> method.isAnnotationPresent(Query.class))
+            .sorted(Comparator.comparing(Method::getName))
+            .toList();
+    }
+
+    private static PlanBudget indexed(long maxBuffers) {
+        return new PlanBudget(maxBuffers, false, false, null);
+    }
+
+    /**
+     * Como {@link #indexed(long)}, mas a consulta precisa ser atendida só pelo índice de cobertura
+     * (Index Only Scan): uma coluna nova fora do INCLUDE faz o plano voltar a ler a tabela.
+     */
+    private static PlanBudget indexOnly(String index, long maxBuffers) {
+        return new PlanBudget(maxBuffers, false, false, index);
+    }
+
+    /**
+     * Como {@link #indexed(long)}, mas com um nó Sort esperado (ordem diferente da dos índices
+     * ou ordenaçao do resultado de um CTE).
+     */
+    private static PlanBudget sorted(long maxBuffers) {
+        return new PlanBudget(maxBuffers, false, true, null);
+    }
+
+    private static PlanBudget fullScan(long maxBuffers) {
+        return new PlanBudget(maxBuffers, true, true, null);
+    }
+
+    private record PlanBudget(long maxBuffers, boolean seqScanAllowed, boolean sortAllowed, String indexOnly) {
+    }
+}
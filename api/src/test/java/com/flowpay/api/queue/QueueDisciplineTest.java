@@ -0,0 +1,168 @@
+package com.flowpay.api.queue;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chaves de ordenaçao de cada política: ordem de chegada, vantagem fixa por classe e
+ * proporçao dos pesos com a fila cheia, inclusive depois de restaurar os relógios virtuais.
+ */
+class QueueDisciplineTest {
+
+    private static final QueueKey QUEUE = QueueKey.of("centro", ServiceType.LOANS);
+    private static final QueueKey OTHER_QUEUE = QueueKey.of("norte", ServiceType.LOANS);
+    private static final Instant T0 = Instant.parse("2026-03-02T09:00:00Z");
+    private static final Map<PriorityClass, Integer> WEIGHTS = Map.of(
+        PriorityClass.REGULAR, 1,
+        PriorityClass.PREMIUM, 2,
+        PriorityClass.ACCESSIBILITY, 4);
+    private static final Duration QUANTUM = Duration.ofMinutes(1);
+
+    @Test
+    void fifoIgnoresPriority() {
+        FifoQueueDiscipline discipline = new FifoQueueDiscipline();
+
+        long regular = discipline.orderKey(QUEUE, PriorityClass.REGULAR, T0);
+        long accessibility = discipline.orderKey(QUEUE, PriorityClass.ACCESSIBILITY, T0.plusSeconds(1));
+
+        assertThat(regular).isEqualTo(T0.toEpochMilli());
+        assertThat(accessibility).isGreaterThan(regular);
+        assertThat(discipline.needsRecovery(QUEUE)).isFalse();
+    }
+
+    @Test
+    void agingOvertakesOnlyWithinTheHeadStart() {
+        AgingPriorityQueueDiscipline discipline = new AgingPriorityQueueDiscipline(Map.of(
+            PriorityClass.PREMIUM, Duration.ofMinutes(2),
+            PriorityClass.ACCESSIBILITY, Duration.ofMinutes(5)));
+
+        long regular = discipline.orderKey(QUEUE, PriorityClass.REGULAR, T0);
+
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.ACCESSIBILITY, T0.plus(Duration.ofMinutes(4)))).isLessThan(regular);
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.ACCESSIBILITY, T0.plus(Duration.ofMinutes(6)))).isGreaterThan(regular);
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.PREMIUM, T0.plus(Duration.ofMinutes(1)))).isLessThan(regular);
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.PREMIUM, T0.plus(Duration.ofMinutes(3)))).isGreaterThan(regular);
+    }
+
+    @Test
+    void weightedServesAFullQueueInProportionToTheWeights() {
+        WeightedPriorityQueueDiscipline discipline = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+
+        List<Entry> queue = backlog(discipline, QUEUE, 70);
+
+        assertThat(served(queue, 70)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            PriorityClass.REGULAR, 10,
+            PriorityClass.PREMIUM, 20,
+            PriorityClass.ACCESSIBILITY, 40));
+    }
+
+    @Test
+    void weightedBehavesLikeFifoWithHeadStartOnAnIdleQueue() {
+        WeightedPriorityQueueDiscipline discipline = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+
+        long regular = discipline.orderKey(QUEUE, PriorityClass.REGULAR, T0);
+        long accessibility = discipline.orderKey(QUEUE, PriorityClass.ACCESSIBILITY, T0.plus(Duration.ofMinutes(10)));
+
+        assertThat(regular).isEqualTo(T0.toEpochMilli() + 60_000);
+        assertThat(accessibility).isEqualTo(T0.plus(Duration.ofMinutes(10)).toEpochMilli() + 15_000);
+    }
+
+    @Test
+    void weightedKeepsOneClockPerQueue() {
+        WeightedPriorityQueueDiscipline discipline = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+        backlog(discipline, QUEUE, 30);
+
+        assertThat(discipline.orderKey(OTHER_QUEUE, PriorityClass.REGULAR, T0)).isEqualTo(T0.toEpochMilli() + 60_000);
+    }
+
+    @Test
+    void weightedRecoversClocksFromTheStoredOrderKeys() {
+        WeightedPriorityQueueDiscipline before = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+        List<Entry> pending = backlog(before, QUEUE, 30);
+
+        // Restart: os relógios da fila sao restaurados a partir da maior chave PENDING de cada classe
+        WeightedPriorityQueueDiscipline after = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+        assertThat(after.needsRecovery(QUEUE)).isTrue();
+        Map<PriorityClass, Long> lastOrderKeys = new EnumMap<>(PriorityClass.class);
+        pending.forEach(entry -> lastOrderKeys.merge(entry.priority(), entry.orderKey(), Math::max));
+        after.recover(QUEUE, lastOrderKeys);
+        assertThat(after.needsRecovery(QUEUE)).isFalse();
+
+        for (PriorityClass priority : PriorityClass.values()) {
+            Instant now = T0.plusSeconds(1);
+            assertThat(after.orderKey(QUEUE, priority, now)).isEqualTo(before.orderKey(QUEUE, priority, now));
+        }
+    }
+
+    @Test
+    void weightedRecoveryDoesNotOverwriteClocksInUse() {
+        WeightedPriorityQueueDiscipline discipline = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+        long first = discipline.orderKey(QUEUE, PriorityClass.REGULAR, T0);
+
+        discipline.recover(QUEUE, Map.of(PriorityClass.REGULAR, T0.toEpochMilli()));
+
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.REGULAR, T0)).isEqualTo(first + 60_000);
+    }
+
+    @Test
+    void weightedForgetsQueuesWhoseClocksFellBehindTime() {
+        WeightedPriorityQueueDiscipline discipline = new WeightedPriorityQueueDiscipline(WEIGHTS, QUANTUM);
+        for (int i = 0; i < 100; i++) {
+            discipline.orderKey(QueueKey.of("agencia-" + i, ServiceType.LOANS), PriorityClass.REGULAR, T0);
+        }
+        backlog(discipline, QUEUE, 90);
+        assertThat(discipline.trackedQueues()).isEqualTo(101);
+
+        // Uma hora depois só QUEUE (90 REGULAR x 1 min de quantum) ainda tem relógio à frente do tempo
+        Instant later = T0.plus(Duration.ofHours(1));
+        long key = discipline.orderKey(OTHER_QUEUE, PriorityClass.REGULAR, later);
+
+        assertThat(discipline.trackedQueues()).isEqualTo(2);
+        assertThat(key).isEqualTo(later.toEpochMilli() + 60_000);
+        assertThat(discipline.orderKey(QUEUE, PriorityClass.REGULAR, later)).isEqualTo(T0.toEpochMilli() + 91 * 60_000);
+    }
+
+    @Test
+    void weightedRejectsNonPositiveWeights() {
+        assertThatThrownBy(() -> new WeightedPriorityQueueDiscipline(Map.of(PriorityClass.PREMIUM, 0), QUANTUM))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Sessoes de todas as classes chegando juntas em T0, na ordem de chegada alternada entre as classes.
+     */
+    private static List<Entry> backlog(QueueDiscipline discipline, QueueKey queueKey, int perClass) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < perClass; i++) {
+            for (PriorityClass priority : PriorityClass.values()) {
+                entries.add(new Entry(priority, discipline.orderKey(queueKey, priority, T0)));
+            }
+        }
+        return entries;
+    }
+
+    private static Map<PriorityClass, Integer> served(List<Entry> queue, int count) {
+        Map<PriorityClass, Integer> served = new EnumMap<>(PriorityClass.class);
+        queue.stream()
+            .sorted(Comparator.comparingLong(Entry::orderKey))
+            .limit(count)
+            .forEach(entry -> served.merge(entry.priority(), 1, Integer::sum));
+        return served;
+    }
+
+    private record Entry(PriorityClass priority, long orderKey) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.AdmissionProperties;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.AdmissionRejectedException;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Limite adaptativo (AIMD) da admissao com um relógio controlado pelo teste:
+ * a latência de cada criaçao é exatamente o quanto o relógio avançou durante ela.
+ */
+class AdmissionControlServiceTest {
+
+    private static final QueueKey QUEUE = QueueKey.of("centro", ServiceType.LOANS);
+    private static final Duration FAST = Duration.ofMillis(20);
+    private static final Duration SLOW = Duration.ofMillis(150);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private AdmissionProperties properties;
+    private CustomerSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionProperties();
+        properties.setInitialLimit(8);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(10);
+        properties.setTargetLatency(Duration.ofMillis(100));
+        properties.setBackoffRatio(0.5);
+        properties.setMaxQueueDepthPerService(50);
+        repository = mock(CustomerSessionRepository.class);
+        when(repository.countPendingByBranchAndServiceType(anyString(), any())).thenReturn(Mono.just(0L));
+    }
+
+    @Test
+    void slowResponsesCutTheLimitMultiplicativelyDownToTheMinimum() {
+        AdmissionControlService service = service();
+
+        request(service, SLOW);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(4);
+        request(service, SLOW);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(2);
+        request(service, SLOW);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void burstOfSlowResponsesCutsTheLimitOncePerTargetWindow() {
+        AdmissionControlService service = service();
+        List<Sinks.One<String>> burst = hold(service, 3);
+
+        now.addAndGet(SLOW.toNanos());
+        burst.forEach(work -> work.tryEmitValue("ok"));
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(4);
+        assertThat(service.stats().getInFlight()).isZero();
+
+        // Passada a janela da latência alvo, a próxima resposta lenta reduz de novo
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        request(service, SLOW);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void fastResponsesGrowTheLimitOnlyWhileItIsInUse() {
+        AdmissionControlService service = service();
+
+        request(service, FAST);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(8);
+
+        List<Sinks.One<String>> load = hold(service, 4);
+        request(service, FAST);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(9);
+        request(service, FAST);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(10);
+        request(service, FAST);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(10);
+        load.forEach(work -> work.tryEmitValue("ok"));
+    }
+
+    @Test
+    void rejectsBeyondTheLimitWithoutRunningTheWork() {
+        properties.setInitialLimit(2);
+        AdmissionControlService service = service();
+        List<Sinks.One<String>> load = hold(service, 2);
+        AtomicBoolean executed = new AtomicBoolean();
+
+        StepVerifier.create(service.admit(QUEUE, Mono.fromRunnable(() -> executed.set(true))))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(AdmissionRejectedException.class)
+                .extracting(rejected -> ((AdmissionRejectedException) rejected).getRetryAfter())
+                .isEqualTo(properties.getRetryAfter()))
+            .verify();
+
+        assertThat(executed).isFalse();
+        assertThat(service.stats().getInFlight()).isEqualTo(2);
+        assertThat(service.stats().getAccepted()).containsEntry(ServiceType.LOANS, 2L);
+        assertThat(service.stats().getShedByConcurrency()).containsEntry(ServiceType.LOANS, 1L);
+
+        load.forEach(work -> work.tryEmitValue("ok"));
+        assertThat(service.stats().getInFlight()).isZero();
+    }
+
+    @Test
+    void rejectsWhenThePendingQueueIsFull() {
+        when(repository.countPendingByBranchAndServiceType(anyString(), any())).thenReturn(Mono.just(50L));
+        AdmissionControlService service = service();
+
+        StepVerifier.create(service.admit(QUEUE, Mono.just("ok")))
+            .expectErrorSatisfies(error -> assertThat(((AdmissionRejectedException) error).getRetryAfter())
+                .isEqualTo(properties.getQueueFullRetryAfter()))
+            .verify();
+
+        assertThat(service.stats().getShedByQueueDepth()).containsEntry(ServiceType.LOANS, 1L);
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void canceledRequestReleasesItsPermit() {
+        AdmissionControlService service = service();
+        Disposable request = service.admit(QUEUE, Sinks.<String>one().asMono()).subscribe();
+        assertThat(service.stats().getInFlight()).isEqualTo(1);
+
+        now.addAndGet(FAST.toNanos());
+        request.dispose();
+
+        assertThat(service.stats().getInFlight()).isZero();
+        assertThat(service.stats().getConcurrencyLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void queueDepthCacheKeepsOnlyQueuesSeenWithinTheTtl() {
+        AdmissionControlService service = service();
+        for (int i = 0; i < 100; i++) {
+            StepVerifier.create(service.admit(QueueKey.of("agencia-" + i, ServiceType.LOANS), Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        }
+        assertThat(service.cachedQueues()).isEqualTo(100);
+
+        now.addAndGet(properties.getQueueDepthCacheTtl().multipliedBy(2).toNanos());
+        request(service, FAST);
+
+        assertThat(service.cachedQueues()).isEqualTo(1);
+    }
+
+    private AdmissionControlService service() {
+        return new AdmissionControlService(properties, repository, now::get);
+    }
+
+    /**
+     * Executa uma criaçao que leva a latência informada no relógio do teste.
+     */
+    private void request(AdmissionControlService service, Duration latency) {
+        StepVerifier.create(service.admit(QUEUE, Mono.fromRunnable(() -> now.addAndGet(latency.toNanos())).thenReturn("ok")))
+            .expectNext("ok")
+            .verifyComplete();
+    }
+
+    /**
+     * Deixa criaçoes em andamento até que o teste complete o Sinks de cada uma.
+     */
+    private List<Sinks.One<String>> hold(AdmissionControlService service, int count) {
+        List<Sinks.One<String>> works = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sinks.One<String> work = Sinks.one();
+            service.admit(QUEUE, work.asMono()).subscribe();
+            works.add(work);
+        }
+        return works;
+    }
+}
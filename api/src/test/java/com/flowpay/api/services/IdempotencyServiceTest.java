@@ -0,0 +1,174 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.config.IdempotencyProperties;
+import com.flowpay.api.controllers.CustomerSessionController;
+import com.flowpay.api.repositories.IdempotencyRecordRepository;
+import com.flowpay.api.support.EmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Idempotency-Key contra o Postgres embarcado: repetiçao do resultado entre nós (instâncias sem cache
+ * compartilhado) e o lease das reservas em andamento.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "logging.level.com.flowpay.api=WARN"
+})
+class IdempotencyServiceTest {
+
+    private static final String TOKEN = "c2Vzc2lvbi10b2tlbi1kZS10ZXN0ZS0xMjM0";
+
+    @Autowired
+    private IdempotencyProperties properties;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        databaseClient.sql("TRUNCATE idempotency_keys").then().block();
+    }
+
+    @Test
+    void replaysStatusLocationAndSessionTokenOnAnyNode() {
+        IdempotencyService node = node();
+        IdempotencyService otherNode = node();
+
+        ResponseEntity<Void> original = node.execute("chave-1", "create-session", "a@b.com", this::created).block();
+        ResponseEntity<Void> cachedReplay = node.execute("chave-1", "create-session", "a@b.com", this::created).block();
+        ResponseEntity<Void> storedReplay = otherNode.execute("chave-1", "create-session", "a@b.com", this::created).block();
+
+        assertThat(executions).hasValue(1);
+        assertThat(original.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        for (ResponseEntity<Void> replay : List.of(cachedReplay, storedReplay)) {
+            assertThat(replay.getStatusCode().value()).isEqualTo(303);
+            assertThat(replay.getHeaders().getLocation()).isEqualTo(original.getHeaders().getLocation());
+            assertThat(replay.getHeaders().getFirst(CustomerSessionController.SESSION_TOKEN_HEADER)).isEqualTo(TOKEN);
+            assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        }
+    }
+
+    @Test
+    void inFlightReservationBlocksRepetitionsUntilItsLeaseExpires() throws InterruptedException {
+        IdempotencyService otherNode = node();
+        Sinks.One<ResponseEntity<Void>> stuck = hold(node(), "chave-2", "a@b.com");
+
+        StepVerifier.create(otherNode.execute("chave-2", "create-session", "a@b.com", this::created))
+            .expectError(IllegalStateException.class)
+            .verify();
+        assertThat(executions).hasValue(0);
+
+        expireReservations();
+
+        StepVerifier.create(otherNode.execute("chave-2", "create-session", "a@b.com", this::created))
+            .assertNext(response -> assertThat(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull())
+            .verifyComplete();
+        assertThat(executions).hasValue(1);
+
+        // O dono anterior termina depois de perder a reserva: o resultado gravado continua o da nova requisiçao
+        stuck.tryEmitValue(ResponseEntity.status(303).location(URI.create("/api/customer/sessions/outro/queue")).build());
+        StepVerifier.create(node().execute("chave-2", "create-session", "a@b.com", this::created))
+            .assertNext(replay -> assertThat(replay.getHeaders().getFirst(CustomerSessionController.SESSION_TOKEN_HEADER))
+                .isEqualTo(TOKEN))
+            .verifyComplete();
+    }
+
+    @Test
+    void expiredLeaseIsNotTakenOverByADifferentRequest() throws InterruptedException {
+        hold(node(), "chave-3", "a@b.com");
+        expireReservations();
+
+        StepVerifier.create(node().execute("chave-3", "create-session", "outro@b.com", this::created))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void failedOriginalReleasesTheKey() {
+        IdempotencyService node = node();
+
+        StepVerifier.create(node.execute("chave-4", "create-session", "a@b.com",
+                () -> Mono.error(new IllegalArgumentException("Cliente já possui sessao ativa"))))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+
+        StepVerifier.create(node.execute("chave-4", "create-session", "a@b.com", this::created))
+            .expectNextCount(1)
+            .verifyComplete();
+        assertThat(executions).hasValue(1);
+    }
+
+    /**
+     * Instância com cache próprio, como a de outro nó da API.
+     */
+    private IdempotencyService node() {
+        return new IdempotencyService(properties, repository);
+    }
+
+    /**
+     * Inicia uma requisiçao original que fica em andamento (com a chave reservada) até o teste completar o Sinks.
+     */
+    private static Sinks.One<ResponseEntity<Void>> hold(IdempotencyService node, String key, String fingerprint)
+        throws InterruptedException {
+        Sinks.One<ResponseEntity<Void>> response = Sinks.one();
+        CountDownLatch reserved = new CountDownLatch(1);
+        node.execute(key, "create-session", fingerprint, () -> {
+            reserved.countDown();
+            return response.asMono();
+        }).subscribe();
+        assertThat(reserved.await(5, TimeUnit.SECONDS)).isTrue();
+        return response;
+    }
+
+    private Mono<ResponseEntity<Void>> created() {
+        return Mono.fromSupplier(() -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(303)
+                .header(CustomerSessionController.SESSION_TOKEN_HEADER, TOKEN)
+                .location(URI.create("/api/customer/sessions/" + TOKEN + "/queue"))
+                .build();
+        });
+    }
+
+    /**
+     * Simula o fim do lease das reservas em andamento (ex: o nó que as executava caiu).
+     */
+    private void expireReservations() {
+        databaseClient.sql("""
+            UPDATE idempotency_keys SET reserved_until = reserved_until - INTERVAL '1 hour'
+            WHERE status_code IS NULL
+            """)
+            .then()
+            .block();
+    }
+}
@@ -0,0 +1,273 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.requests.BulkSessionRequest;
+import com.flowpay.api.responses.BulkOperationResponse;
+import com.flowpay.api.responses.BulkSessionOutcome;
+import com.flowpay.api.responses.BulkSessionOutcome.Outcome;
+import com.flowpay.api.support.EmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Operaçoes em lote contra o Postgres embarcado: comandos set-based (completeAll, cancelAll, promoteAll)
+ * com status misturados, sessoes já finalizadas, ids inexistentes e o limite de slots de cada fila.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "logging.level.com.flowpay.api=WARN"
+})
+class SessionBulkServiceTest {
+
+    private static final int MAX_SLOTS = CustomerSessionService.MAX_SLOTS_PER_SERVICE;
+    private static final long MISSING_ID = 999_999L;
+
+    @Autowired
+    private SessionBulkService sessionBulkService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+    }
+
+    @Test
+    void completeChangesOnlyInProgressSessions() {
+        long inProgress = session("centro", ServiceType.LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long pending = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long completed = session("centro", ServiceType.LOANS, CustomerSessionStatus.COMPLETED);
+        long canceled = session("centro", ServiceType.LOANS, CustomerSessionStatus.CANCELED);
+
+        BulkOperationResponse response = sessionBulkService.complete(request(inProgress, pending, completed, canceled, MISSING_ID, inProgress))
+            .block();
+
+        assertThat(response.getRequested()).isEqualTo(5);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(outcomes(response)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            inProgress, new BulkSessionOutcome(inProgress, Outcome.UPDATED, CustomerSessionStatus.COMPLETED),
+            pending, new BulkSessionOutcome(pending, Outcome.INVALID_STATUS, CustomerSessionStatus.PENDING),
+            completed, new BulkSessionOutcome(completed, Outcome.INVALID_STATUS, CustomerSessionStatus.COMPLETED),
+            canceled, new BulkSessionOutcome(canceled, Outcome.INVALID_STATUS, CustomerSessionStatus.CANCELED),
+            MISSING_ID, new BulkSessionOutcome(MISSING_ID, Outcome.NOT_FOUND, null)));
+
+        assertThat(status(inProgress)).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(finished(inProgress)).isTrue();
+        // As sessoes já finalizadas nao sao tocadas: mesma versao e nenhuma mudança no stream
+        assertThat(version(completed)).isZero();
+        assertThat(version(canceled)).isZero();
+        assertThat(changes(completed)).isEmpty();
+        assertThat(changes(canceled)).isEmpty();
+        assertThat(changes(inProgress)).containsExactly(CustomerSessionStatus.COMPLETED);
+        // A fila é promovida depois do lote: a sessao PENDING ocupa o slot liberado
+        assertThat(status(pending)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(changes(pending)).containsExactly(CustomerSessionStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void cancelChangesPendingAndInProgressButNotFinishedSessions() {
+        long pending = session("centro", ServiceType.CARD_PROBLEMS, CustomerSessionStatus.PENDING);
+        long inProgress = session("centro", ServiceType.CARD_PROBLEMS, CustomerSessionStatus.IN_PROGRESS);
+        long otherQueue = session("norte", ServiceType.OTHER, CustomerSessionStatus.IN_PROGRESS);
+        long completed = session("norte", ServiceType.OTHER, CustomerSessionStatus.COMPLETED);
+
+        BulkOperationResponse response = sessionBulkService.cancel(request(pending, inProgress, otherQueue, completed)).block();
+
+        assertThat(response.getUpdated()).isEqualTo(3);
+        assertThat(outcomes(response)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            pending, new BulkSessionOutcome(pending, Outcome.UPDATED, CustomerSessionStatus.CANCELED),
+            inProgress, new BulkSessionOutcome(inProgress, Outcome.UPDATED, CustomerSessionStatus.CANCELED),
+            otherQueue, new BulkSessionOutcome(otherQueue, Outcome.UPDATED, CustomerSessionStatus.CANCELED),
+            completed, new BulkSessionOutcome(completed, Outcome.INVALID_STATUS, CustomerSessionStatus.COMPLETED)));
+
+        for (long id : List.of(pending, inProgress, otherQueue)) {
+            assertThat(status(id)).isEqualTo(CustomerSessionStatus.CANCELED);
+            assertThat(changes(id)).containsExactly(CustomerSessionStatus.CANCELED);
+        }
+        assertThat(version(completed)).isZero();
+        assertThat(changes(completed)).isEmpty();
+    }
+
+    @Test
+    void promoteFillsOnlyTheFreeSlotsOfEachQueueInQueueOrder() {
+        session("centro", ServiceType.LOANS, CustomerSessionStatus.IN_PROGRESS);
+        session("centro", ServiceType.LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long first = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long second = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long third = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        List<Long> idleQueue = List.of(
+            session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING),
+            session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING),
+            session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING),
+            session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING));
+        long completed = session("norte", ServiceType.LOANS, CustomerSessionStatus.COMPLETED);
+
+        // Ids fora da ordem da fila: a ordem de promoçao é a da fila, nao a da requisiçao
+        BulkOperationResponse response = sessionBulkService.promote(request(
+            third, idleQueue.get(3), second, idleQueue.get(1), first, idleQueue.get(2), idleQueue.get(0), completed, MISSING_ID))
+            .block();
+
+        Map<Long, BulkSessionOutcome> outcomes = outcomes(response);
+        assertThat(response.getUpdated()).isEqualTo(1 + MAX_SLOTS);
+        assertThat(outcomes.get(first).getOutcome()).isEqualTo(Outcome.UPDATED);
+        assertThat(outcomes.get(second).getOutcome()).isEqualTo(Outcome.NO_SLOT_AVAILABLE);
+        assertThat(outcomes.get(third).getOutcome()).isEqualTo(Outcome.NO_SLOT_AVAILABLE);
+        for (int i = 0; i < idleQueue.size(); i++) {
+            assertThat(outcomes.get(idleQueue.get(i)).getOutcome())
+                .isEqualTo(i < MAX_SLOTS ? Outcome.UPDATED : Outcome.NO_SLOT_AVAILABLE);
+        }
+        assertThat(outcomes.get(completed).getOutcome()).isEqualTo(Outcome.INVALID_STATUS);
+        assertThat(outcomes.get(MISSING_ID).getOutcome()).isEqualTo(Outcome.NOT_FOUND);
+
+        assertThat(inProgress("centro", ServiceType.LOANS)).isEqualTo(MAX_SLOTS);
+        assertThat(inProgress("norte", ServiceType.LOANS)).isEqualTo(MAX_SLOTS);
+        assertThat(changes(second)).isEmpty();
+        assertThat(changes(idleQueue.get(3))).isEmpty();
+    }
+
+    @Test
+    void promoteOfAFullQueueChangesNothing() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            session("centro", ServiceType.OTHER, CustomerSessionStatus.IN_PROGRESS);
+        }
+        long pending = session("centro", ServiceType.OTHER, CustomerSessionStatus.PENDING);
+
+        BulkOperationResponse response = sessionBulkService.promote(request(pending)).block();
+
+        assertThat(response.getUpdated()).isZero();
+        assertThat(outcomes(response).get(pending).getOutcome()).isEqualTo(Outcome.NO_SLOT_AVAILABLE);
+        assertThat(status(pending)).isEqualTo(CustomerSessionStatus.PENDING);
+        assertThat(changes(pending)).isEmpty();
+    }
+
+    @Test
+    void filterSelectsTheOldestActiveSessionsOfTheQueueUpToTheLimit() {
+        long first = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long second = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long third = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+        long otherQueue = session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING);
+
+        BulkOperationResponse response = sessionBulkService.cancel(new BulkSessionRequest()
+                .setBranch("centro")
+                .setServiceType(ServiceType.LOANS)
+                .setStatus(CustomerSessionStatus.PENDING)
+                .setLimit(2))
+            .block();
+
+        assertThat(outcomes(response).keySet()).containsExactlyInAnyOrder(first, second);
+        assertThat(status(first)).isEqualTo(CustomerSessionStatus.CANCELED);
+        assertThat(status(second)).isEqualTo(CustomerSessionStatus.CANCELED);
+        // Fora da seleçao: a terceira só muda pela promoçao da fila depois do lote
+        assertThat(status(third)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(status(otherQueue)).isEqualTo(CustomerSessionStatus.PENDING);
+    }
+
+    private static BulkSessionRequest request(Long... ids) {
+        return new BulkSessionRequest().setSessionIds(List.of(ids));
+    }
+
+    private static Map<Long, BulkSessionOutcome> outcomes(BulkOperationResponse response) {
+        return response.getResults().stream()
+            .collect(Collectors.toMap(BulkSessionOutcome::getSessionId, Function.identity()));
+    }
+
+    /**
+     * Grava uma sessao (e o seu cliente) direto no banco, na ordem de chegada da fila.
+     */
+    private long session(String branch, ServiceType serviceType, CustomerSessionStatus status) {
+        long order = sequence.incrementAndGet();
+        long customerId = databaseClient.sql("INSERT INTO customers (name, email) VALUES (:email, :email) RETURNING id")
+            .bind("email", "cliente-" + order + "@bulk.test")
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+        boolean finished = status == CustomerSessionStatus.COMPLETED || status == CustomerSessionStatus.CANCELED;
+        return databaseClient.sql("""
+                INSERT INTO customer_sessions (customer_id, branch, service_type, status, queue_order, started_at, finished_at)
+                VALUES (:customerId, :branch, :serviceType, :status, :queueOrder,
+                        CURRENT_TIMESTAMP - make_interval(mins => :minutesAgo),
+                        CASE WHEN :finished THEN CURRENT_TIMESTAMP END)
+                RETURNING id
+                """)
+            .bind("customerId", customerId)
+            .bind("branch", branch)
+            .bind("serviceType", serviceType.getCode())
+            .bind("status", status.getCode())
+            .bind("queueOrder", order)
+            .bind("minutesAgo", (int) (1_000 - order))
+            .bind("finished", finished)
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+    }
+
+    private CustomerSessionStatus status(long id) {
+        return databaseClient.sql("SELECT status FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .one()
+            .block();
+    }
+
+    private boolean finished(long id) {
+        return databaseClient.sql("SELECT finished_at IS NOT NULL AS finished FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> row.get("finished", Boolean.class))
+            .one()
+            .block();
+    }
+
+    private long version(long id) {
+        return databaseClient.sql("SELECT version FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> row.get("version", Long.class))
+            .one()
+            .block();
+    }
+
+    private long inProgress(String branch, ServiceType serviceType) {
+        return databaseClient.sql("""
+                SELECT COUNT(*) AS total FROM customer_sessions
+                WHERE finished_at IS NULL AND status = 2 AND branch = :branch AND service_type = :serviceType
+                """)
+            .bind("branch", branch)
+            .bind("serviceType", serviceType.getCode())
+            .map(row -> row.get("total", Long.class))
+            .one()
+            .block();
+    }
+
+    private List<CustomerSessionStatus> changes(long sessionId) {
+        return databaseClient.sql("SELECT status FROM session_changes WHERE session_id = :sessionId ORDER BY xid, id")
+            .bind("sessionId", sessionId)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .all()
+            .collectList()
+            .block();
+    }
+}
@@ -0,0 +1,244 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.SessionChangeRepository;
+import com.flowpay.api.requests.CustomerRequest;
+import com.flowpay.api.responses.SessionChangeResponse;
+import com.flowpay.api.support.EmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stream de mudanças contra o Postgres embarcado: consumo sem lacunas e sem repetiçoes enquanto
+ * transaçoes de filas diferentes gravam mudanças em paralelo, sem lock global.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "logging.level.com.flowpay.api=WARN"
+})
+class SessionChangeServiceTest {
+
+    private static final List<String> BRANCHES = List.of("centro", "norte");
+    private static final List<ServiceType> SERVICE_TYPES = List.of(ServiceType.CARD_PROBLEMS, ServiceType.LOANS);
+
+    @Autowired
+    private SessionChangeService sessionChangeService;
+
+    @Autowired
+    private SessionChangeRepository sessionChangeRepository;
+
+    @Autowired
+    private CustomerSessionService customerSessionService;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+    }
+
+    @Test
+    void openTransactionHoldsBackChangesCommittedAfterIt() throws InterruptedException {
+        List<CustomerSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sessions.add(create("cliente-" + i + "@changes.test", BRANCHES.get(i % 2), ServiceType.LOANS).block());
+        }
+        databaseClient.sql("TRUNCATE session_changes RESTART IDENTITY").then().block();
+
+        long first = record(sessions.get(0)).then(lastChangeId()).block();
+
+        // T1 obtém o xid antes de T2 e só grava a sua mudança depois do commit de T2 (id maior, xid menor)
+        Sinks.Empty<Void> commitFirst = Sinks.empty();
+        CountDownLatch xidAssigned = new CountDownLatch(1);
+        Sinks.Empty<Void> recordFirst = Sinks.empty();
+        transactionalOperator.transactional(databaseClient.sql("SELECT pg_current_xact_id()").then()
+                .doOnSuccess(ignored -> xidAssigned.countDown())
+                .then(recordFirst.asMono())
+                .then(record(sessions.get(1)))
+                .then(commitFirst.asMono()))
+            .subscribe();
+        assertThat(xidAssigned.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long committedLater = record(sessions.get(2)).then(lastChangeId()).block();
+        recordFirst.tryEmitEmpty();
+        long heldBack = awaitAssignedId(3);
+
+        // Enquanto T1 está aberta, a mudança commitada depois dela nao é entregue
+        assertThat(awaitChangeIds(0, 1)).containsExactly(first);
+        assertThat(changeIds(first)).isEmpty();
+
+        commitFirst.tryEmitEmpty();
+        assertThat(awaitChangeIds(first, 2)).containsExactly(heldBack, committedLater);
+        assertThat(heldBack).isGreaterThan(committedLater);
+        assertThat(changeIds(heldBack)).containsExactly(committedLater);
+        assertThat(changeIds(committedLater)).isEmpty();
+    }
+
+    @Test
+    void followerReceivesEveryChangeOnceInCommitOrderWhileQueuesWriteConcurrently() {
+        List<SessionChangeResponse> received = new CopyOnWriteArrayList<>();
+        Disposable follower = sessionChangeService.changesAfter(0, 25, true).subscribe(received::add);
+        try {
+            Flux.range(0, 16)
+                .flatMap(client -> client(new Random(client)), 16)
+                .then()
+                .block(Duration.ofMinutes(2));
+
+            long total = count();
+            long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            while (received.size() < total && System.nanoTime() < deadline) {
+                Mono.delay(Duration.ofMillis(100)).block();
+            }
+        } finally {
+            follower.dispose();
+        }
+
+        List<Long> receivedIds = received.stream().map(SessionChangeResponse::getChangeId).toList();
+        List<Long> commitOrder = databaseClient.sql("SELECT id FROM session_changes ORDER BY xid, id")
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collectList()
+            .block();
+
+        assertThat(commitOrder).isNotEmpty();
+        assertThat(receivedIds).containsExactlyElementsOf(commitOrder);
+
+        Map<Long, CustomerSessionStatus> current = new HashMap<>();
+        for (SessionChangeResponse change : received) {
+            CustomerSessionStatus previous = current.put(change.getSessionId(), change.getStatus());
+            assertThat(isValidTransition(previous, change.getStatus()))
+                .as("sessao %d: %s -> %s", change.getSessionId(), previous, change.getStatus())
+                .isTrue();
+        }
+    }
+
+    private Mono<Void> client(Random random) {
+        return Flux.range(0, 40)
+            .concatMap(i -> {
+                String email = "cliente-" + random.nextInt(60) + "@changes.test";
+                Mono<Void> work = random.nextInt(100) < 55
+                    ? create(email, BRANCHES.get(random.nextInt(BRANCHES.size())),
+                        SERVICE_TYPES.get(random.nextInt(SERVICE_TYPES.size()))).then()
+                    : customerSessionService.finishCustomerSession(email);
+                return work.onErrorResume(error -> error instanceof IllegalArgumentException
+                    || error instanceof DataIntegrityViolationException
+                    || error instanceof OptimisticLockingFailureException
+                    || Exceptions.isRetryExhausted(error)
+                    ? Mono.empty()
+                    : Mono.error(error));
+            })
+            .then();
+    }
+
+    private static boolean isValidTransition(CustomerSessionStatus previous, CustomerSessionStatus status) {
+        if (previous == null) {
+            return status == CustomerSessionStatus.PENDING;
+        }
+        return switch (previous) {
+            case PENDING -> status != CustomerSessionStatus.PENDING;
+            case IN_PROGRESS -> status == CustomerSessionStatus.COMPLETED || status == CustomerSessionStatus.CANCELED;
+            default -> false;
+        };
+    }
+
+    private Mono<CustomerSession> create(String email, String branch, ServiceType serviceType) {
+        return customerSessionService.createCustomer(new CustomerRequest()
+            .setName(email)
+            .setEmail(email)
+            .setBranch(branch)
+            .setServiceType(serviceType));
+    }
+
+    private Mono<Void> record(CustomerSession session) {
+        return sessionChangeRepository.recordChange(session.getId(), session.getCustomerId(), session.getBranch(),
+            session.getServiceType(), CustomerSessionStatus.CANCELED);
+    }
+
+    private Mono<Long> lastChangeId() {
+        return databaseClient.sql("SELECT MAX(id) AS id FROM session_changes")
+            .map(row -> row.get("id", Long.class))
+            .one();
+    }
+
+    private long count() {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM session_changes")
+            .map(row -> row.get("total", Long.class))
+            .one()
+            .block();
+    }
+
+    /**
+     * Espera a transaçao aberta gravar a sua mudança (ainda invisível para as outras transaçoes) e devolve
+     * o id dela, lido da sequência da identidade.
+     */
+    private long awaitAssignedId(long expected) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            Long lastValue = databaseClient.sql("SELECT last_value FROM session_changes_id_seq")
+                .map(row -> row.get("last_value", Long.class))
+                .one()
+                .block();
+            if (lastValue != null && lastValue >= expected) {
+                return lastValue;
+            }
+            Mono.delay(Duration.ofMillis(20)).block();
+        }
+        throw new AssertionError("Mudança da transaçao aberta nao foi gravada");
+    }
+
+    private List<Long> changeIds(long after) {
+        return sessionChangeService.changesAfter(after, 10, false)
+            .map(SessionChangeResponse::getChangeId)
+            .collectList()
+            .block();
+    }
+
+    private List<Long> awaitChangeIds(long after, int expected) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<Long> ids = changeIds(after);
+        while (ids.size() < expected && System.nanoTime() < deadline) {
+            Mono.delay(Duration.ofMillis(20)).block();
+            ids = changeIds(after);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,157 @@
+package com.flowpay.api.services;
+
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.SessionExportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exportaçao com o repositório simulado: paginaçao por keyset e o CSV de valores com
+ * vírgula, aspas e quebras de linha, lido de volta por um parser RFC 4180.
+ */
+class SessionExportServiceTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2026, 3, 2, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private CustomerSessionRepository repository;
+    private SessionExportService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CustomerSessionRepository.class);
+        service = new SessionExportService(repository);
+    }
+
+    @Test
+    void csvKeepsFieldsWithCommasQuotesAndLineBreaksIntact() {
+        List<String> names = List.of(
+            "Silva, Maria",
+            "Joao \"Jota\" Souza",
+            "linha 1\nlinha 2",
+            "retorno\rsozinho",
+            "windows\r\nquebra",
+            "\"\r\n,",
+            "simples");
+        List<SessionExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            rows.add(row(i + 1, names.get(i), "cliente" + i + "@export.test", i % 2 == 0 ? "centro, sul" : "norte"));
+        }
+        when(repository.findFinishedPage(any(), anyLong(), any(), any(), any(), anyInt())).thenReturn(Flux.fromIterable(rows));
+
+        String csv = SessionExportRow.CSV_HEADER + String.join("", service.exportFinished(null, null, null, null)
+            .map(SessionExportRow::toCsvLine)
+            .collectList()
+            .block());
+
+        List<List<String>> records = parse(csv);
+        assertThat(records).hasSize(rows.size() + 1);
+        assertThat(records.getFirst()).containsExactly(SessionExportRow.CSV_HEADER.strip().split(","));
+        for (int i = 0; i < rows.size(); i++) {
+            SessionExportRow row = rows.get(i);
+            assertThat(records.get(i + 1)).containsExactly(
+                String.valueOf(row.getSessionId()),
+                String.valueOf(row.getCustomerId()),
+                row.getCustomerName(),
+                row.getCustomerEmail(),
+                row.getBranch(),
+                row.getServiceType().name(),
+                row.getStatus().name(),
+                row.getStartedAt().toString(),
+                row.getFinishedAt().toString());
+        }
+    }
+
+    @Test
+    void nextPageStartsRightAfterTheLastRowOfTheFullPage() {
+        List<SessionExportRow> firstPage = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            firstPage.add(row(i, "cliente " + i, "c" + i + "@export.test", "centro"));
+        }
+        SessionExportRow last = firstPage.getLast();
+        LocalDateTime lastStartedAt = last.getStartedAt().toLocalDateTime();
+        when(repository.findFinishedPage(eq(LocalDateTime.of(1970, 1, 1, 0, 0)), eq(0L), any(), any(), any(), eq(500)))
+            .thenReturn(Flux.fromIterable(firstPage));
+        when(repository.findFinishedPage(eq(lastStartedAt), eq(500L), any(), any(), any(), eq(500)))
+            .thenReturn(Flux.just(row(501, "ultimo", "ultimo@export.test", "centro")));
+
+        StepVerifier.create(service.exportFinished(ServiceType.LOANS, CustomerSessionStatus.COMPLETED, null, null))
+            .expectNextCount(501)
+            .verifyComplete();
+
+        verify(repository).findFinishedPage(eq(lastStartedAt), eq(500L), any(), eq(ServiceType.LOANS),
+            eq(CustomerSessionStatus.COMPLETED), eq(500));
+    }
+
+    @Test
+    void rejectsActiveStatusFilter() {
+        StepVerifier.create(service.exportFinished(null, CustomerSessionStatus.PENDING, null, null))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+    }
+
+    private static SessionExportRow row(long id, String name, String email, String branch) {
+        OffsetDateTime startedAt = START.plusMinutes(id);
+        return new SessionExportRow(id, 1_000 + id, name, email, branch, ServiceType.LOANS,
+            CustomerSessionStatus.COMPLETED, startedAt, startedAt.plusMinutes(7));
+    }
+
+    /**
+     * Parser RFC 4180: registros terminados em LF; dentro de aspas, vírgulas e quebras de linha
+     * fazem parte do valor e "" é uma aspa.
+     */
+    private static List<List<String>> parse(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                throw new AssertionError("CR fora de aspas na posiçao " + i);
+            } else if (c == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        assertThat(quoted).as("aspas abertas no fim do CSV").isFalse();
+        assertThat(field).as("registro sem quebra de linha no fim do CSV").isEmpty();
+        return records;
+    }
+}
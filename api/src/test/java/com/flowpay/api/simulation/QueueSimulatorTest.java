@@ -0,0 +1,114 @@
+package com.flowpay.api.simulation;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.SlotProperties;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.queue.AgingPriorityQueueDiscipline;
+import com.flowpay.api.queue.FifoQueueDiscipline;
+import com.flowpay.api.requests.ServiceTypeWorkload;
+import com.flowpay.api.responses.SimulationResultResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QueueSimulatorTest {
+
+    private static final QueueKey LOANS = QueueKey.of(QueueKey.DEFAULT_BRANCH, ServiceType.LOANS);
+
+    @Test
+    void promotesInQueueOrderAndKeepsTheSlotBusy() {
+        List<SimulatedArrival> arrivals = List.of(
+            arrival(PriorityClass.REGULAR, 0, 10_000, SimulatedArrival.NEVER_ABANDONS),
+            arrival(PriorityClass.REGULAR, 1_000, 10_000, SimulatedArrival.NEVER_ABANDONS),
+            arrival(PriorityClass.REGULAR, 2_000, 10_000, SimulatedArrival.NEVER_ABANDONS)
+        );
+
+        SimulationResultResponse result = new QueueSimulator(new FifoQueueDiscipline(), 1).run(arrivals).getFirst();
+
+        assertThat(result.getCompleted()).isEqualTo(3);
+        assertThat(result.getAbandoned()).isZero();
+        assertThat(result.getWaitP50Seconds()).isEqualTo(9.0);
+        assertThat(result.getMaxWaitSeconds()).isEqualTo(18.0);
+        assertThat(result.getSlotUtilization()).isCloseTo(100.0, within(0.01));
+    }
+
+    @Test
+    void customersWaitingPastTheirPatienceAbandonWithoutTakingASlot() {
+        List<SimulatedArrival> arrivals = List.of(
+            arrival(PriorityClass.REGULAR, 0, 60_000, SimulatedArrival.NEVER_ABANDONS),
+            arrival(PriorityClass.REGULAR, 1_000, 60_000, 5_000),
+            arrival(PriorityClass.REGULAR, 2_000, 60_000, SimulatedArrival.NEVER_ABANDONS)
+        );
+
+        SimulationResultResponse result = new QueueSimulator(new FifoQueueDiscipline(), 1).run(arrivals).getFirst();
+
+        assertThat(result.getAbandoned()).isEqualTo(1);
+        assertThat(result.getCompleted()).isEqualTo(2);
+        assertThat(result.getMaxWaitSeconds()).isEqualTo(58.0);
+    }
+
+    @Test
+    void priorityClassesOvertakeThroughTheConfiguredDiscipline() {
+        AgingPriorityQueueDiscipline aging = new AgingPriorityQueueDiscipline(
+            Map.of(PriorityClass.ACCESSIBILITY, Duration.ofMinutes(5)));
+        List<SimulatedArrival> arrivals = List.of(
+            arrival(PriorityClass.REGULAR, 0, 60_000, SimulatedArrival.NEVER_ABANDONS),
+            arrival(PriorityClass.REGULAR, 1_000, 60_000, SimulatedArrival.NEVER_ABANDONS),
+            arrival(PriorityClass.ACCESSIBILITY, 2_000, 60_000, SimulatedArrival.NEVER_ABANDONS)
+        );
+
+        SimulationResultResponse result = new QueueSimulator(aging, 1).run(arrivals).getFirst();
+
+        // ACCESSIBILITY é atendido aos 60 s (espera 58 s) e o segundo REGULAR aos 120 s (espera 119 s)
+        assertThat(result.getMaxWaitSeconds()).isEqualTo(119.0);
+        assertThat(result.getWaitP50Seconds()).isEqualTo(58.0);
+    }
+
+    @Test
+    void moreSlotsReduceWaitingForTheSameSyntheticLoad() {
+        ServiceTypeWorkload workload = new ServiceTypeWorkload(30.0, 5.0, 1.0, 20.0, null);
+        List<SimulatedArrival> arrivals = SyntheticWorkload.generate(Map.of(ServiceType.LOANS, workload), 0, 72, 42);
+
+        SimulationResultResponse twoSlots = new QueueSimulator(new FifoQueueDiscipline(), 2).run(arrivals).getFirst();
+        SimulationResultResponse fourSlots = new QueueSimulator(new FifoQueueDiscipline(), 4).run(arrivals).getFirst();
+
+        assertThat(twoSlots.getArrivals()).isEqualTo(fourSlots.getArrivals()).isEqualTo((long) arrivals.size());
+        assertThat(fourSlots.getWaitP90Seconds()).isLessThan(twoSlots.getWaitP90Seconds());
+        assertThat(fourSlots.getAbandoned()).isLessThan(twoSlots.getAbandoned());
+        assertThat(fourSlots.getSlotUtilization()).isLessThan(twoSlots.getSlotUtilization());
+    }
+
+    @Test
+    void attendantAllocatorServesTheSameLoadAsTheFixedCapacity() {
+        ServiceTypeWorkload workload = new ServiceTypeWorkload(30.0, 5.0, 1.0, 20.0, null);
+        List<SimulatedArrival> arrivals = SyntheticWorkload.generate(Map.of(ServiceType.LOANS, workload), 0, 72, 42);
+
+        SimulationResultResponse fixed = new QueueSimulator(new FifoQueueDiscipline(), SlotProperties.Allocator.FIXED, 3)
+            .run(arrivals).getFirst();
+        SimulationResultResponse attendants = new QueueSimulator(new FifoQueueDiscipline(), SlotProperties.Allocator.ATTENDANTS, 3)
+            .run(arrivals).getFirst();
+
+        // Um atendente simulado com os 3 slots da fila: os assentos limitam a fila como a capacidade fixa
+        assertThat(attendants).isEqualTo(fixed);
+        assertThat(attendants.getCompleted()).isPositive();
+    }
+
+    @Test
+    void attendantCapacityIsReportedAsNotSimulated() {
+        assertThat(QueueSimulator.divergencesFrom(SlotProperties.Allocator.FIXED))
+            .isNotEmpty()
+            .noneMatch(divergence -> divergence.contains("ATTENDANTS"));
+        assertThat(QueueSimulator.divergencesFrom(SlotProperties.Allocator.ATTENDANTS))
+            .anyMatch(divergence -> divergence.contains("ATTENDANTS"));
+    }
+
+    private static SimulatedArrival arrival(PriorityClass priority, long arrivalMillis, long serviceMillis, long patienceMillis) {
+        return new SimulatedArrival(LOANS, priority, arrivalMillis, serviceMillis, patienceMillis);
+    }
+}
@@ -0,0 +1,141 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.events.SessionLifecycleEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Login, logout e liberaçao de assentos pelo ciclo de vida da sessao, inclusive com atendimentos
+ * herdados de um login anterior ou restaurados do banco.
+ */
+class AttendantRegistryTest {
+
+    private static final QueueKey LOANS = QueueKey.of("centro", ServiceType.LOANS);
+    private static final QueueKey OTHER = QueueKey.of("centro", ServiceType.OTHER);
+
+    private AttendantRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new AttendantRegistry();
+    }
+
+    @Test
+    void loginOpensSeatsInEveryQueueSharingTheCapacity() {
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS, ServiceType.OTHER), 2);
+
+        assertThat(registry.available(LOANS)).isEqualTo(2);
+        assertThat(registry.available(OTHER)).isEqualTo(2);
+
+        assertThat(registry.claim(LOANS)).isSameAs(attendant);
+        assertThat(registry.available(OTHER)).isEqualTo(1);
+        assertThat(registry.claim(OTHER)).isSameAs(attendant);
+        assertThat(registry.claim(LOANS)).isNull();
+        assertThat(registry.claim(OTHER)).isNull();
+        assertThat(registry.find("a1")).isSameAs(attendant);
+    }
+
+    @Test
+    void rejectsADuplicateLogin() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 1);
+
+        assertThatThrownBy(() -> registry.login("a1", "Ana", "centro", Set.of(ServiceType.OTHER), 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.available(OTHER)).isZero();
+    }
+
+    @Test
+    void logoutKeepsTheSessionInProgressUntilItFinishes() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        registry.claim(LOANS);
+
+        Attendant attendant = registry.logout("a1");
+
+        assertThat(attendant.getInUse()).isEqualTo(1);
+        assertThat(registry.claim(LOANS)).isNull();
+        assertThat(registry.available(LOANS)).isZero();
+        assertThat(registry.find("a1")).isNull();
+
+        registry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session(LOANS, "a1"));
+        assertThat(attendant.getInUse()).isZero();
+        assertThatThrownBy(() -> registry.logout("a1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void newLoginInheritsTheSessionsStillInProgress() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        registry.claim(LOANS);
+        registry.logout("a1");
+
+        Attendant again = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+
+        assertThat(again.getInUse()).isEqualTo(1);
+        assertThat(registry.available(LOANS)).isEqualTo(1);
+        assertThat(registry.claim(LOANS)).isSameAs(again);
+        assertThat(registry.claim(LOANS)).isNull();
+
+        registry.onSessionEvent(SessionLifecycleEvent.CANCELED, session(LOANS, "a1"));
+        registry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session(LOANS, "a1"));
+        assertThat(again.getInUse()).isZero();
+        assertThat(registry.available(LOANS)).isEqualTo(2);
+    }
+
+    @Test
+    void restoredSessionsOccupyTheirSeats() {
+        assertThat(registry.isFirstLogin("a1")).isTrue();
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS, ServiceType.OTHER), 3);
+
+        registry.restore(attendant, List.of(session(LOANS, "a1"), session(OTHER, "a1")));
+
+        assertThat(registry.isFirstLogin("a1")).isFalse();
+        assertThat(attendant.getInUse()).isEqualTo(2);
+        assertThat(registry.available(LOANS)).isEqualTo(1);
+        assertThat(registry.available(OTHER)).isEqualTo(1);
+    }
+
+    @Test
+    void onlyTerminalEventsOfSessionsWithAnAttendantReleaseSeats() {
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 1);
+        registry.claim(LOANS);
+
+        registry.onSessionEvent(SessionLifecycleEvent.PROMOTED, session(LOANS, "a1"));
+        registry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session(LOANS, null));
+        registry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session(OTHER, "a1"));
+        assertThat(attendant.getInUse()).isEqualTo(1);
+
+        registry.onSessionEvent(SessionLifecycleEvent.COMPLETED, session(LOANS, "a1"));
+        assertThat(attendant.getInUse()).isZero();
+        assertThat(registry.available(LOANS)).isEqualTo(1);
+    }
+
+    @Test
+    void loginWithoutSeatsInOneQueueDoesNotKeepSeatsInTheOthers() {
+        for (int i = 0; i < QueueSeats.MAX_SEATS / 4; i++) {
+            registry.login("a" + i, "Atendente " + i, "centro", Set.of(ServiceType.LOANS), 4);
+        }
+
+        assertThatThrownBy(() -> registry.login("extra", "Extra", "centro", Set.of(ServiceType.LOANS, ServiceType.OTHER), 1))
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.available(OTHER)).isZero();
+        assertThat(registry.find("extra")).isNull();
+        assertThat(registry.login("extra", "Extra", "centro", Set.of(ServiceType.OTHER), 1)).isNotNull();
+        assertThat(registry.available(OTHER)).isEqualTo(1);
+    }
+
+    private static CustomerSession session(QueueKey queueKey, String attendantId) {
+        CustomerSession session = new CustomerSession(1L, queueKey.branch(), queueKey.serviceType(), PriorityClass.REGULAR);
+        session.setAttendantId(attendantId);
+        return session;
+    }
+}
@@ -0,0 +1,153 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.PriorityClass;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Promoçao com os assentos do {@link AttendantRegistry}: uma sessao por assento reservado,
+ * devoluçao do assento quando a fila está vazia ou a gravaçao falha, e rollback das promoçoes.
+ */
+class AttendantSlotAllocatorTest {
+
+    private static final QueueKey LOANS = QueueKey.of("centro", ServiceType.LOANS);
+    private static final QueueKey OTHER = QueueKey.of("centro", ServiceType.OTHER);
+
+    private CustomerSessionRepository repository;
+    private AttendantRegistry registry;
+    private AttendantSlotAllocator allocator;
+    private Queue<CustomerSession> pending;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CustomerSessionRepository.class);
+        registry = new AttendantRegistry();
+        allocator = new AttendantSlotAllocator(repository, registry);
+        pending = new ArrayDeque<>();
+        when(repository.promoteNextToAttendant(anyString(), any(), anyString()))
+            .thenAnswer(invocation -> promote(invocation.getArgument(1), invocation.getArgument(2)));
+        when(repository.promoteSelectedToAttendant(any(), anyString(), any(), anyString()))
+            .thenAnswer(invocation -> promote(invocation.getArgument(2), invocation.getArgument(3)));
+    }
+
+    @Test
+    void promotesOneSessionPerFreeSeat() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        registry.login("a2", "Bia", "centro", Set.of(ServiceType.LOANS), 1);
+        enqueue(LOANS, 5);
+
+        List<CustomerSession> promoted = allocator.promoteNext(LOANS).collectList().block(Duration.ofSeconds(5));
+
+        assertThat(promoted).hasSize(3);
+        assertThat(promoted).extracting(CustomerSession::getAttendantId).containsExactlyInAnyOrder("a1", "a1", "a2");
+        assertThat(pending).hasSize(2);
+        assertThat(registry.available(LOANS)).isZero();
+        StepVerifier.create(allocator.availableSlots(LOANS)).expectNext(0).verifyComplete();
+    }
+
+    @Test
+    void seatIsReturnedWhenTheQueueIsEmpty() {
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        enqueue(LOANS, 1);
+
+        StepVerifier.create(allocator.promoteNext(LOANS)).expectNextCount(1).verifyComplete();
+
+        assertThat(attendant.getInUse()).isEqualTo(1);
+        assertThat(registry.available(LOANS)).isEqualTo(1);
+    }
+
+    @Test
+    void seatIsReturnedWhenThePromotionFails() {
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        when(repository.promoteNextToAttendant(anyString(), eq(ServiceType.LOANS), anyString()))
+            .thenReturn(Mono.error(new IllegalStateException("falha ao gravar")));
+
+        StepVerifier.create(allocator.promoteNext(LOANS)).verifyError(IllegalStateException.class);
+
+        assertThat(attendant.getInUse()).isZero();
+        assertThat(registry.available(LOANS)).isEqualTo(2);
+    }
+
+    @Test
+    void rollbackReturnsTheSeatsOfThePromotedSessions() {
+        Attendant attendant = registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        enqueue(LOANS, 2);
+        List<CustomerSession> promoted = allocator.promoteNext(LOANS).collectList().block(Duration.ofSeconds(5));
+        assertThat(attendant.getInUse()).isEqualTo(2);
+
+        allocator.rollback(promoted);
+
+        assertThat(attendant.getInUse()).isZero();
+        assertThat(registry.available(LOANS)).isEqualTo(2);
+    }
+
+    @Test
+    void selectedSessionsArePromotedInEveryQueueWithinTheSharedCapacity() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS, ServiceType.OTHER), 3);
+        enqueue(LOANS, 2);
+        enqueue(OTHER, 2);
+
+        List<CustomerSession> promoted = allocator.promoteSelected(new Long[] {1L, 2L, 3L, 4L}, Set.of(LOANS, OTHER))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(promoted).hasSize(3).allSatisfy(session -> assertThat(session.getAttendantId()).isEqualTo("a1"));
+        assertThat(registry.find("a1").getInUse()).isEqualTo(3);
+        assertThat(registry.available(LOANS) + registry.available(OTHER)).isZero();
+    }
+
+    @Test
+    void loggedOutAttendantReceivesNoSessions() {
+        registry.login("a1", "Ana", "centro", Set.of(ServiceType.LOANS), 2);
+        registry.logout("a1");
+        enqueue(LOANS, 1);
+
+        StepVerifier.create(allocator.promoteNext(LOANS)).verifyComplete();
+
+        assertThat(pending).hasSize(1);
+    }
+
+    private void enqueue(QueueKey queueKey, int count) {
+        for (int i = 0; i < count; i++) {
+            pending.add(new CustomerSession((long) pending.size() + 1, queueKey.branch(), queueKey.serviceType(),
+                PriorityClass.REGULAR));
+        }
+    }
+
+    /**
+     * Simula o UPDATE da próxima sessao PENDING da fila: vazio se nao houver nenhuma.
+     */
+    private Mono<CustomerSession> promote(ServiceType serviceType, String attendantId) {
+        return Mono.fromSupplier(() -> {
+            CustomerSession next = pending.stream()
+                .filter(session -> session.getServiceType() == serviceType)
+                .findFirst()
+                .orElse(null);
+            if (next == null) {
+                return null;
+            }
+            pending.remove(next);
+            next.setAttendantId(attendantId);
+            return next;
+        });
+    }
+}
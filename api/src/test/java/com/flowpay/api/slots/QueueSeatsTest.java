@@ -0,0 +1,185 @@
+package com.flowpay.api.slots;
+
+import com.flowpay.api.entities.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reserva e liberaçao concorrentes nos bitmaps de assentos: nenhum assento é entregue duas vezes
+ * e nenhum atendente passa da sua capacidade, inclusive com assentos em mais de uma fila.
+ */
+class QueueSeatsTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void concurrentClaimsHandOutEachSeatOnce() throws Exception {
+        QueueSeats seats = new QueueSeats();
+        List<Attendant> attendants = attendants(seats, 4, 3);
+
+        Queue<Attendant> claimed = new ConcurrentLinkedQueue<>();
+        run(() -> {
+            Attendant attendant;
+            while ((attendant = seats.claim()) != null) {
+                claimed.add(attendant);
+            }
+        });
+
+        assertThat(claimed).hasSize(12);
+        Map<Attendant, Integer> perAttendant = count(claimed);
+        attendants.forEach(attendant -> {
+            assertThat(perAttendant.get(attendant)).isEqualTo(3);
+            assertThat(attendant.getInUse()).isEqualTo(3);
+        });
+        assertThat(seats.available()).isZero();
+        assertThat(seats.claim()).isNull();
+
+        claimed.forEach(seats::release);
+        assertThat(seats.available()).isEqualTo(12);
+        attendants.forEach(attendant -> assertThat(attendant.getInUse()).isZero());
+    }
+
+    @Test
+    void claimAndReleaseUnderContentionNeverDoubleBooks() throws Exception {
+        QueueSeats seats = new QueueSeats();
+        List<Attendant> attendants = attendants(seats, 5, 2);
+        Map<Attendant, AtomicInteger> holding = new IdentityHashMap<>();
+        attendants.forEach(attendant -> holding.put(attendant, new AtomicInteger()));
+        AtomicInteger inFlight = new AtomicInteger();
+        Queue<String> violations = new ConcurrentLinkedQueue<>();
+        AtomicInteger claims = new AtomicInteger();
+
+        run(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                Attendant attendant = seats.claim();
+                if (attendant == null) {
+                    continue;
+                }
+                claims.incrementAndGet();
+                int held = holding.get(attendant).incrementAndGet();
+                int total = inFlight.incrementAndGet();
+                if (held > attendant.getSlots()) {
+                    violations.add(attendant.getId() + " com " + held + " atendimentos");
+                }
+                if (total > 10) {
+                    violations.add(total + " assentos ocupados");
+                }
+                Thread.onSpinWait();
+                inFlight.decrementAndGet();
+                holding.get(attendant).decrementAndGet();
+                seats.release(attendant);
+            }
+        });
+
+        assertThat(violations).isEmpty();
+        assertThat(claims.get()).isPositive();
+        assertThat(seats.available()).isEqualTo(10);
+        attendants.forEach(attendant -> assertThat(attendant.getInUse()).isZero());
+    }
+
+    @Test
+    void attendantWithSeatsInTwoQueuesIsLimitedByItsTotalCapacity() throws Exception {
+        QueueSeats loans = new QueueSeats();
+        QueueSeats cards = new QueueSeats();
+        Attendant attendant = new Attendant("a1", "Ana", "centro", Set.of(ServiceType.LOANS, ServiceType.CARD_PROBLEMS), 2);
+        loans.assign(attendant, 2);
+        cards.assign(attendant, 2);
+
+        Queue<Attendant> claimed = new ConcurrentLinkedQueue<>();
+        AtomicInteger thread = new AtomicInteger();
+        run(() -> {
+            QueueSeats seats = thread.getAndIncrement() % 2 == 0 ? loans : cards;
+            Attendant claimedBy;
+            while ((claimedBy = seats.claim()) != null) {
+                claimed.add(claimedBy);
+            }
+        });
+
+        assertThat(claimed).hasSize(2);
+        assertThat(attendant.getInUse()).isEqualTo(2);
+        assertThat(loans.available()).isZero();
+        assertThat(cards.available()).isZero();
+    }
+
+    @Test
+    void unassignedSeatsAreNotClaimedButBusySeatsStayWithTheirOwner() {
+        QueueSeats seats = new QueueSeats();
+        Attendant attendant = attendants(seats, 1, 2).getFirst();
+        assertThat(seats.claim()).isSameAs(attendant);
+
+        attendant.logout();
+        seats.unassign(attendant);
+
+        assertThat(seats.claim()).isNull();
+        assertThat(seats.available()).isZero();
+        assertThat(seats.ownerOf(attendant.getId())).isSameAs(attendant);
+
+        seats.release(attendant);
+        assertThat(attendant.getInUse()).isZero();
+        assertThat(seats.ownerOf(attendant.getId())).isNull();
+    }
+
+    @Test
+    void seatsAreLimitedToTheBitmapSize() {
+        QueueSeats seats = new QueueSeats();
+        attendants(seats, QueueSeats.MAX_SEATS / 4, 4);
+
+        assertThat(seats.assign(new Attendant("extra", "Extra", "centro", Set.of(ServiceType.LOANS), 1), 1)).isFalse();
+        assertThat(seats.available()).isEqualTo(QueueSeats.MAX_SEATS);
+    }
+
+    private static List<Attendant> attendants(QueueSeats seats, int count, int slots) {
+        List<Attendant> attendants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Attendant attendant = new Attendant("a" + i, "Atendente " + i, "centro", Set.of(ServiceType.LOANS), slots);
+            assertThat(seats.assign(attendant, slots)).isTrue();
+            attendants.add(attendant);
+        }
+        return attendants;
+    }
+
+    private static Map<Attendant, Integer> count(Queue<Attendant> claimed) {
+        Map<Attendant, Integer> perAttendant = new IdentityHashMap<>();
+        claimed.forEach(attendant -> perAttendant.merge(attendant, 1, Integer::sum));
+        return perAttendant;
+    }
+
+    /**
+     * Executa a tarefa em THREADS threads liberadas ao mesmo tempo.
+     */
+    private static void run(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.flowpay.api.streaming;
+
+import com.flowpay.api.config.SseProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conflaçao por assinante, desconexao de clientes lentos e a açao de cancelamento do stream de origem,
+ * que roda quando o cliente sai mas nao quando a política o desconecta.
+ */
+class SseBackpressurePolicyTest {
+
+    private static final Duration MAX_LAG = Duration.ofMillis(50);
+
+    private SseBackpressurePolicy policy;
+    private Sinks.Many<Integer> source;
+    private AtomicInteger clientCancels;
+
+    @BeforeEach
+    void setUp() {
+        SseProperties properties = new SseProperties();
+        properties.setMaxConsumerLag(MAX_LAG);
+        policy = new SseBackpressurePolicy(properties);
+        source = Sinks.many().unicast().onBackpressureBuffer();
+        clientCancels = new AtomicInteger();
+    }
+
+    @Test
+    void slowSubscriberReceivesOnlyTheLatestEvent() {
+        StepVerifier.create(policy.apply("test", stream()), 0)
+            .then(() -> {
+                for (int i = 1; i <= 10; i++) {
+                    source.tryEmitNext(i);
+                }
+            })
+            .thenRequest(1)
+            .expectNext(10)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(policy.stats().get("test").getConflated()).isEqualTo(9);
+    }
+
+    @Test
+    void clientThatStaysBehindIsDisconnectedWithoutRunningTheCancelAction() {
+        StepVerifier.create(policy.apply("test", stream()), 0)
+            .then(() -> {
+                source.tryEmitNext(1);
+                source.tryEmitNext(2);
+            })
+            .thenAwait(MAX_LAG.multipliedBy(3))
+            .then(() -> source.tryEmitNext(3))
+            .expectError(SseBackpressurePolicy.SlowConsumerException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(clientCancels).hasValue(0);
+        assertThat(policy.stats().get("test").getSlowConsumersDisconnected()).isEqualTo(1);
+    }
+
+    @Test
+    void quietStreamIsNotALaggingClient() {
+        StepVerifier.create(policy.apply("test", stream()), 0)
+            .then(() -> source.tryEmitNext(1))
+            .thenAwait(MAX_LAG.multipliedBy(3))
+            .then(() -> source.tryEmitNext(2))
+            .thenRequest(1)
+            .expectNext(2)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(policy.stats().get("test").getSlowConsumersDisconnected()).isZero();
+    }
+
+    @Test
+    void clientDisconnectRunsTheCancelAction() {
+        StepVerifier.create(policy.apply("test", stream()))
+            .then(() -> source.tryEmitNext(1))
+            .expectNext(1)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(clientCancels).hasValue(1);
+    }
+
+    @Test
+    void cancelActionRunsWithoutThePolicy() {
+        StepVerifier.create(stream())
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(clientCancels).hasValue(1);
+    }
+
+    private Flux<Integer> stream() {
+        return SseBackpressurePolicy.doOnClientCancel(source.asFlux(), clientCancels::incrementAndGet);
+    }
+}
@@ -0,0 +1,164 @@
+package com.flowpay.api.streaming;
+
+import com.flowpay.api.board.QueueBoard;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.services.CustomerSessionService;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Frames compartilhados lidos por assinantes que entram enquanto o stream de origem
+ * substitui o frame em cache, inclusive depois que o frame recebido já foi substituído,
+ * e a remoçao dos streams por fila quando o último assinante desconecta.
+ */
+class SseFrameBroadcasterTest {
+
+    private static final int FRAMES = 20_000;
+    private static final int SUBSCRIBERS = 8;
+    private static final String PADDING = "x".repeat(512);
+    private static final Pattern FRAME = Pattern.compile("event:test\ndata:\\d+:" + PADDING + "\n\n");
+    private static final NettyDataBufferFactory BUFFERS = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void subscribersJoiningWhileFramesAreReplacedAlwaysWriteCompleteFrames() throws Exception {
+        Sinks.Many<SharedSseFrame> source = Sinks.many().multicast().directBestEffort();
+        Flux<SharedSseFrame> frames = SseFrameBroadcaster.share("test", source.asFlux());
+        Disposable connection = frames.subscribe();
+        Queue<SharedSseFrame> heldFrames = new ConcurrentLinkedQueue<>();
+        Queue<String> corrupted = new ConcurrentLinkedQueue<>();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(SUBSCRIBERS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(SUBSCRIBERS);
+        try {
+            List<Future<Integer>> subscribers = new ArrayList<>();
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                subscribers.add(executor.submit(() -> {
+                    started.countDown();
+                    int reads = 0;
+                    while (producing.get()) {
+                        SharedSseFrame frame = frames.next().block(Duration.ofSeconds(5));
+                        if (frame == null) {
+                            continue;
+                        }
+                        read(frame, corrupted);
+                        // Parte dos frames é escrita só depois de substituída, como no buffer de conflaçao
+                        if (reads++ % 16 == 0) {
+                            heldFrames.add(frame);
+                        }
+                    }
+                    return reads;
+                }));
+            }
+
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < FRAMES; i++) {
+                source.tryEmitNext(frame(i));
+            }
+            producing.set(false);
+
+            int reads = 0;
+            for (Future<Integer> subscriber : subscribers) {
+                reads += subscriber.get(30, TimeUnit.SECONDS);
+            }
+            heldFrames.forEach(frame -> read(frame, corrupted));
+
+            assertThat(reads).isPositive();
+            assertThat(heldFrames).isNotEmpty();
+            assertThat(corrupted).isEmpty();
+        } finally {
+            executor.shutdownNow();
+            connection.dispose();
+        }
+    }
+
+    @Test
+    void eachWriteGetsItsOwnBuffer() {
+        SharedSseFrame frame = frame(1);
+
+        DataBuffer first = frame.buffer();
+        DataBuffer second = frame.buffer();
+        DataBufferUtils.release(first);
+
+        assertThat(second.toString(StandardCharsets.UTF_8)).matches(FRAME);
+        assertThat(second.readableByteCount()).isEqualTo(frame.size());
+        DataBufferUtils.release(second);
+    }
+
+    @Test
+    void queueStreamIsEvictedWhenItsLastSubscriberLeaves() {
+        CustomerSessionService customerService = mock(CustomerSessionService.class);
+        QueueBoard queueBoard = mock(QueueBoard.class);
+        when(customerService.streamMetrics()).thenReturn(Flux.never());
+        when(customerService.streamInProgressSnapshots(any())).thenReturn(Flux.never());
+        when(queueBoard.changes(any())).thenReturn(Flux.never());
+        SseFrameBroadcaster broadcaster = new SseFrameBroadcaster(customerService, queueBoard,
+            mock(SseBackpressurePolicy.class), JsonMapper.builder().build());
+        QueueKey queueKey = QueueKey.of("centro", ServiceType.LOANS);
+
+        Disposable first = broadcaster.inProgressFrames(queueKey).subscribe();
+        Disposable second = broadcaster.inProgressFrames(queueKey).subscribe();
+        Disposable board = broadcaster.queueBoardFrames(queueKey).subscribe();
+        assertThat(broadcaster.activeQueueStreams()).isEqualTo(2);
+        verify(customerService).streamInProgressSnapshots(queueKey);
+
+        first.dispose();
+        assertThat(broadcaster.activeQueueStreams()).isEqualTo(2);
+
+        second.dispose();
+        board.dispose();
+        assertThat(broadcaster.activeQueueStreams()).isZero();
+
+        // Um novo assinante cria outro stream de origem para a fila
+        Disposable again = broadcaster.inProgressFrames(queueKey).subscribe();
+        assertThat(broadcaster.activeQueueStreams()).isEqualTo(1);
+        verify(customerService, times(2)).streamInProgressSnapshots(queueKey);
+        again.dispose();
+        assertThat(broadcaster.activeQueueStreams()).isZero();
+    }
+
+    private static void read(SharedSseFrame frame, Queue<String> corrupted) {
+        DataBuffer buffer = frame.buffer();
+        try {
+            String content = buffer.toString(StandardCharsets.UTF_8);
+            if (!FRAME.matcher(content).matches()) {
+                corrupted.add(content);
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static SharedSseFrame frame(int sequence) {
+        return new SharedSseFrame(("event:test\ndata:" + sequence + ":" + PADDING + "\n\n").getBytes(StandardCharsets.UTF_8), BUFFERS);
+    }
+}
@@ -0,0 +1,278 @@
+package com.flowpay.api.stress;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.requests.AttendantLoginRequest;
+import com.flowpay.api.requests.CustomerRequest;
+import com.flowpay.api.services.AttendantService;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.slots.Attendant;
+import com.flowpay.api.slots.AttendantRegistry;
+import com.flowpay.api.support.EmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress da promoçao com flowpay.slots.allocator=ATTENDANTS: clientes criam, finalizam, concluem
+ * e cancelam sessoes enquanto atendentes fazem login e logout nas mesmas filas.
+ *
+ * Invariantes:
+ * - durante toda a rodada, nenhum atendente com mais sessoes IN_PROGRESS no banco do que seus slots;
+ * - nenhuma sessao IN_PROGRESS sem atendente;
+ * - ao final, os atendimentos em uso de cada atendente conectado batem com o banco
+ *   e nenhuma fila tem sessoes PENDING com assentos livres.
+ *
+ * Executado apenas com o profile "stress": ./mvnw -Pstress test
+ */
+@Tag("stress")
+@Slf4j
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "flowpay.slots.allocator=ATTENDANTS",
+    "spring.r2dbc.pool.max-size=32",
+    "logging.level.com.flowpay.api=WARN"
+})
+class AttendantPromotionStressTest {
+
+    private static final int CLIENTS = 48;
+    private static final int OPERATIONS_PER_CLIENT = 150;
+    private static final int CUSTOMERS = 240;
+    private static final int ATTENDANTS_PER_BRANCH = 6;
+    private static final List<String> BRANCHES = List.of("centro", "norte");
+
+    @Autowired
+    private CustomerSessionService customerSessionService;
+
+    @Autowired
+    private CustomerSessionRepository customerSessionRepository;
+
+    @Autowired
+    private AttendantService attendantService;
+
+    @Autowired
+    private AttendantRegistry attendantRegistry;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @Test
+    void attendantsNeverExceedTheirSlotsUnderConcurrentLoadAndLoginChurn() {
+        long seed = Long.getLong("stress.seed", System.nanoTime());
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+        for (String branch : BRANCHES) {
+            for (int i = 0; i < ATTENDANTS_PER_BRANCH; i++) {
+                attendantService.login(loginRequest(branch, i)).block(Duration.ofSeconds(10));
+            }
+        }
+
+        Stats stats = new Stats();
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        Disposable sampler = Flux.interval(Duration.ofMillis(50))
+            .concatMap(tick -> sampleInProgress())
+            .subscribe(counts -> counts.forEach((attendantId, count) -> {
+                if (attendantId.isEmpty()) {
+                    violations.add(count + " sessoes IN_PROGRESS sem atendente");
+                } else if (count > slotsOf(attendantId)) {
+                    violations.add(attendantId + " com " + count + " sessoes IN_PROGRESS (slots " + slotsOf(attendantId) + ")");
+                }
+            }));
+
+        long start = System.nanoTime();
+        try {
+            Flux.range(0, CLIENTS)
+                .flatMap(client -> client(new Random(seed * 31 + client), stats), CLIENTS)
+                .then()
+                .block(Duration.ofMinutes(5));
+        } finally {
+            sampler.dispose();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.warn("ATTENDANTS (seed {}): {} operaçoes em {} s | {} | rejeiçoes={}", seed, stats.total(),
+            String.format("%.2f", seconds), stats.byOperation, stats.rejections.sum());
+
+        // Reconecta os atendentes que terminaram desconectados para comparar todos com o banco
+        for (String branch : BRANCHES) {
+            for (int i = 0; i < ATTENDANTS_PER_BRANCH; i++) {
+                if (attendantRegistry.find(attendantId(branch, i)) == null) {
+                    attendantService.login(loginRequest(branch, i)).block(Duration.ofSeconds(10));
+                }
+            }
+        }
+
+        Map<String, Long> inProgress = sampleInProgress().block(Duration.ofSeconds(10));
+        List<String> mismatches = new ArrayList<>();
+        for (Attendant attendant : attendantRegistry.list()) {
+            long expected = inProgress.getOrDefault(attendant.getId(), 0L);
+            if (attendant.getInUse() != expected) {
+                mismatches.add(attendant.getId() + ": " + attendant.getInUse() + " em uso, " + expected + " no banco");
+            }
+        }
+        List<String> orphanedQueues = new ArrayList<>();
+        for (String branch : BRANCHES) {
+            for (ServiceType serviceType : ServiceType.values()) {
+                QueueKey queueKey = QueueKey.of(branch, serviceType);
+                long pending = customerSessionRepository.countPendingByBranchAndServiceType(branch, serviceType)
+                    .block(Duration.ofSeconds(10));
+                if (pending > 0 && attendantRegistry.available(queueKey) > 0) {
+                    orphanedQueues.add(queueKey + ": " + pending + " PENDING com "
+                        + attendantRegistry.available(queueKey) + " assentos livres");
+                }
+            }
+        }
+
+        assertThat(stats.unexpected).as("erros inesperados (seed %d)", seed).isEmpty();
+        assertThat(violations).as("atendentes acima dos slots (seed %d)", seed).isEmpty();
+        assertThat(mismatches).as("atendimentos em uso divergentes do banco (seed %d)", seed).isEmpty();
+        assertThat(orphanedQueues).as("filas com PENDING e assentos livres (seed %d)", seed).isEmpty();
+    }
+
+    private Mono<Void> client(Random random, Stats stats) {
+        return Flux.range(0, OPERATIONS_PER_CLIENT)
+            .concatMap(i -> Mono.delay(Duration.ofMillis(random.nextInt(4)))
+                .then(Mono.defer(() -> randomOperation(random, stats))))
+            .then();
+    }
+
+    private Mono<Void> randomOperation(Random random, Stats stats) {
+        String email = "cliente-" + random.nextInt(CUSTOMERS) + "@stress.test";
+        String branch = BRANCHES.get(random.nextInt(BRANCHES.size()));
+        int dice = random.nextInt(100);
+
+        String operation;
+        Mono<Void> work;
+        if (dice < 40) {
+            operation = "create";
+            CustomerRequest request = new CustomerRequest()
+                .setName(email)
+                .setEmail(email)
+                .setBranch(branch)
+                .setServiceType(ServiceType.values()[random.nextInt(ServiceType.values().length)]);
+            work = customerSessionService.createCustomer(request).then();
+        } else if (dice < 55) {
+            operation = "finish";
+            work = customerSessionService.finishCustomerSession(email);
+        } else if (dice < 75) {
+            operation = "complete";
+            work = customerSessionRepository.findAllInProgress().collectList()
+                .flatMap(inProgress -> inProgress.isEmpty()
+                    ? Mono.empty()
+                    : customerSessionService.completeSession(inProgress.get(random.nextInt(inProgress.size())).getId()));
+        } else if (dice < 80) {
+            operation = "cancel";
+            work = customerSessionService.cancelPendingSession(email);
+        } else if (dice < 90) {
+            operation = "logout";
+            work = attendantService.logout(attendantId(branch, random.nextInt(ATTENDANTS_PER_BRANCH))).then();
+        } else {
+            operation = "login";
+            work = attendantService.login(loginRequest(branch, random.nextInt(ATTENDANTS_PER_BRANCH))).then();
+        }
+
+        stats.byOperation.computeIfAbsent(operation, name -> new LongAdder()).increment();
+        return work
+            .retryWhen(Retry.max(3).filter(OptimisticLockingFailureException.class::isInstance))
+            .onErrorResume(error -> {
+                if (isExpectedRejection(error)) {
+                    stats.rejections.increment();
+                } else {
+                    stats.unexpected.add(operation + ": " + error);
+                }
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Rejeiçoes esperadas sob concorrência: as mesmas do {@link PromotionStressTest} mais login de atendente
+     * já conectado e logout de atendente desconectado (IllegalArgumentException).
+     */
+    private static boolean isExpectedRejection(Throwable error) {
+        return error instanceof IllegalArgumentException
+            || error instanceof DataIntegrityViolationException
+            || error instanceof OptimisticLockingFailureException
+            || Exceptions.isRetryExhausted(error);
+    }
+
+    /**
+     * Sessoes IN_PROGRESS por atendente ("" para as sessoes sem atendente).
+     */
+    private Mono<Map<String, Long>> sampleInProgress() {
+        return databaseClient.sql("""
+                SELECT COALESCE(attendant_id, '') AS attendant_id, COUNT(*) AS in_progress
+                FROM customer_sessions
+                WHERE status = 2 AND finished_at IS NULL
+                GROUP BY attendant_id
+                """)
+            .map(row -> Map.entry(row.get("attendant_id", String.class), row.get("in_progress", Long.class)))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue, HashMap::new);
+    }
+
+    /**
+     * Cada atendente tem habilidades e slots fixos, para que um novo login nao mude a capacidade esperada.
+     */
+    private static AttendantLoginRequest loginRequest(String branch, int index) {
+        Set<ServiceType> skills = EnumSet.of(ServiceType.values()[index % ServiceType.values().length]);
+        if (index % 2 == 0) {
+            skills.add(ServiceType.values()[(index + 1) % ServiceType.values().length]);
+        }
+        return new AttendantLoginRequest(attendantId(branch, index), "Atendente " + index, branch, skills, slotsOf(index));
+    }
+
+    private static String attendantId(String branch, int index) {
+        return branch + "-" + index;
+    }
+
+    private static int slotsOf(int index) {
+        return 1 + index % 3;
+    }
+
+    private static int slotsOf(String attendantId) {
+        return slotsOf(Integer.parseInt(attendantId.substring(attendantId.lastIndexOf('-') + 1)));
+    }
+
+    private static final class Stats {
+        private final Map<String, LongAdder> byOperation = new ConcurrentHashMap<>();
+        private final LongAdder rejections = new LongAdder();
+        private final List<String> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+        long total() {
+            return byOperation.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.flowpay.api.stress;
+
+import com.flowpay.api.FlowPayApplication;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.cluster.QueueOwnership;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.exception.QueueNotOwnedException;
+import com.flowpay.api.requests.CustomerRequest;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.support.EmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazao com vários nós da API no mesmo processo, cada um com o seu contexto Spring, compartilhando
+ * um Postgres embarcado: cada nó cria e finaliza sessoes apenas nas filas que possui.
+ *
+ * Primeiro só um nó atende as suas filas; depois todos os nós atendem as suas ao mesmo tempo.
+ * Sem lock global nas mudanças de status, a vazao total com todos os nós nao pode ser menor que a
+ * de um nó sozinho, e os limites de slots de cada fila continuam valendo (verificados pelo stream de mudanças).
+ *
+ * Executado apenas com o profile "stress": ./mvnw -Pstress test
+ */
+@Tag("stress")
+@Slf4j
+class MultiNodeThroughputTest {
+
+    private static final List<String> NODES = List.of("api-1", "api-2", "api-3");
+    private static final int BRANCHES = 8;
+    private static final int CLIENTS_PER_QUEUE = 4;
+    private static final int SESSIONS_PER_CLIENT = 25;
+    private static final int MAX_SLOTS = CustomerSessionService.MAX_SLOTS_PER_SERVICE;
+
+    private final AtomicInteger customers = new AtomicInteger();
+
+    @Test
+    void nodesServeTheirOwnQueuesInParallelWithinSlotLimits() {
+        Map<String, String> topology = new LinkedHashMap<>();
+        NODES.forEach(id -> topology.put(id, "http://" + id + ":8080"));
+
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            // Em sequência: o primeiro contexto aplica as migraçoes
+            for (String id : NODES) {
+                contexts.add(start(id, topology));
+            }
+            DatabaseClient databaseClient = contexts.getFirst().getBean(DatabaseClient.class);
+            databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+                .then()
+                .block();
+
+            Map<ConfigurableApplicationContext, List<QueueKey>> owned = new LinkedHashMap<>();
+            for (ConfigurableApplicationContext context : contexts) {
+                QueueOwnership ownership = context.getBean(QueueOwnership.class);
+                owned.put(context, queues().stream().filter(ownership::isLocal).toList());
+            }
+            assertThat(owned.values()).allSatisfy(queues -> assertThat(queues).isNotEmpty());
+            rejectsQueuesOfOtherNodes(contexts, owned);
+
+            ConfigurableApplicationContext first = contexts.getFirst();
+            Run single = run(Map.of(first, owned.get(first)));
+            Run all = run(owned);
+
+            log.warn("1 nó: {} operaçoes em {} s ({} ops/s) | {} nós: {} operaçoes em {} s ({} ops/s)",
+                single.operations(), String.format("%.2f", single.seconds()), String.format("%.0f", single.throughput()),
+                contexts.size(), all.operations(), String.format("%.2f", all.seconds()), String.format("%.0f", all.throughput()));
+
+            assertThat(single.unexpected()).isEmpty();
+            assertThat(all.unexpected()).isEmpty();
+            assertThat(all.throughput()).isGreaterThanOrEqualTo(single.throughput());
+            assertThat(slotViolations(databaseClient)).isEmpty();
+        } finally {
+            Collections.reverse(contexts);
+            contexts.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    /**
+     * Cada cliente cria e finaliza sessoes em sequência em uma fila do seu nó.
+     */
+    private Run run(Map<ConfigurableApplicationContext, List<QueueKey>> owned) {
+        LongAdder operations = new LongAdder();
+        List<String> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+        List<Mono<Void>> clients = new ArrayList<>();
+        owned.forEach((context, queues) -> {
+            CustomerSessionService service = context.getBean(CustomerSessionService.class);
+            for (QueueKey queueKey : queues) {
+                for (int client = 0; client < CLIENTS_PER_QUEUE; client++) {
+                    clients.add(client(service, queueKey, operations, unexpected));
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        Flux.merge(Flux.fromIterable(clients), clients.size()).then().block(Duration.ofMinutes(5));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Run(operations.sum(), seconds, unexpected);
+    }
+
+    private Mono<Void> client(CustomerSessionService service, QueueKey queueKey, LongAdder operations, List<String> unexpected) {
+        return Flux.range(0, SESSIONS_PER_CLIENT)
+            .concatMap(i -> {
+                String email = "cliente-" + customers.incrementAndGet() + "@cluster.test";
+                return service.createCustomer(request(email, queueKey))
+                    .then(service.finishCustomerSession(email))
+                    .retryWhen(Retry.max(3).filter(OptimisticLockingFailureException.class::isInstance))
+                    .doOnSuccess(ignored -> operations.add(2))
+                    .onErrorResume(error -> {
+                        if (!Exceptions.isRetryExhausted(error)) {
+                            unexpected.add(queueKey + ": " + error);
+                        }
+                        return Mono.empty();
+                    });
+            })
+            .then();
+    }
+
+    private void rejectsQueuesOfOtherNodes(List<ConfigurableApplicationContext> contexts,
+                                           Map<ConfigurableApplicationContext, List<QueueKey>> owned) {
+        QueueKey foreign = owned.get(contexts.get(1)).getFirst();
+        CustomerSessionService service = contexts.getFirst().getBean(CustomerSessionService.class);
+
+        StepVerifier.create(service.createCustomer(request("estrangeiro@cluster.test", foreign)))
+            .expectError(QueueNotOwnedException.class)
+            .verify();
+    }
+
+    /**
+     * Reproduz o stream de mudanças em ordem de (xid, id) e devolve as filas que passaram de MAX_SLOTS.
+     */
+    private static List<String> slotViolations(DatabaseClient databaseClient) {
+        List<String> violations = new ArrayList<>();
+        Map<String, Integer> inProgress = new HashMap<>();
+        Map<Long, CustomerSessionStatus> current = new HashMap<>();
+        databaseClient.sql("SELECT session_id, branch, service_type, status FROM session_changes ORDER BY xid, id")
+            .map(row -> new Object[] {
+                row.get("session_id", Long.class),
+                row.get("branch", String.class) + "/" + ServiceType.fromCode(row.get("service_type", Short.class)),
+                CustomerSessionStatus.fromCode(row.get("status", Short.class))
+            })
+            .all()
+            .toStream()
+            .forEach(change -> {
+                String queue = (String) change[1];
+                CustomerSessionStatus status = (CustomerSessionStatus) change[2];
+                CustomerSessionStatus previous = current.put((Long) change[0], status);
+                if (status == CustomerSessionStatus.IN_PROGRESS) {
+                    int count = inProgress.merge(queue, 1, Integer::sum);
+                    if (count > MAX_SLOTS) {
+                        violations.add(queue + " com " + count + " IN_PROGRESS");
+                    }
+                } else if (previous == CustomerSessionStatus.IN_PROGRESS) {
+                    inProgress.merge(queue, -1, Integer::sum);
+                }
+            });
+        return violations;
+    }
+
+    private static ConfigurableApplicationContext start(String id, Map<String, String> topology) {
+        Map<String, Object> properties = new LinkedHashMap<>(EmbeddedDatabase.properties());
+        properties.put("server.port", 0);
+        properties.put("flowpay.cluster.self-id", id);
+        topology.forEach((node, url) -> properties.put("flowpay.cluster.nodes." + node, url));
+        properties.put("flowpay.session-token.secret", "segredo-compartilhado-do-teste-de-cluster");
+        properties.put("flowpay.admission.enabled", false);
+        properties.put("flowpay.journal.enabled", false);
+        properties.put("spring.r2dbc.pool.max-size", 16);
+        properties.put("logging.level.com.flowpay.api", "WARN");
+        return new SpringApplicationBuilder(FlowPayApplication.class)
+            .properties(properties)
+            .run();
+    }
+
+    private static CustomerRequest request(String email, QueueKey queueKey) {
+        return new CustomerRequest()
+            .setName(email)
+            .setEmail(email)
+            .setBranch(queueKey.branch())
+            .setServiceType(queueKey.serviceType());
+    }
+
+    private static List<QueueKey> queues() {
+        List<QueueKey> queues = new ArrayList<>();
+        for (int i = 0; i < BRANCHES; i++) {
+            for (ServiceType serviceType : ServiceType.values()) {
+                queues.add(QueueKey.of("agencia-" + i, serviceType));
+            }
+        }
+        return queues;
+    }
+
+    private record Run(long operations, double seconds, List<String> unexpected) {
+
+        double throughput() {
+            return operations / seconds;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.flowpay.api.stress;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.requests.CustomerRequest;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.support.EmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress de concorrência da promoçao: vários clientes executam criaçao, finalizaçao, conclusao
+ * e cancelamento por desconexao (direto e via stream SSE) em ordem aleatória, todos disparando
+ * promoçoes nas mesmas filas, contra um Postgres embarcado.
+ *
+ * Depois de cada rodada os invariantes sao verificados reproduzindo o stream de mudanças
+ * (session_changes) na ordem de (xid, id), que dentro de cada fila é a ordem de commit das transiçoes:
+ * - nunca mais de MAX_SLOTS_PER_SERVICE sessoes IN_PROGRESS por fila;
+ * - nenhuma promoçao pulou uma sessao que estava antes dela na fila;
+ * - ao final, nenhuma fila com sessoes PENDING e slots livres.
+ *
+ * Executado apenas com o profile "stress": ./mvnw -Pstress test
+ */
+@Tag("stress")
+@Slf4j
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "spring.r2dbc.pool.max-size=32",
+    "logging.level.org.springframework.r2dbc=INFO",
+    "logging.level.io.r2dbc.postgresql.QUERY=INFO",
+    "logging.level.io.r2dbc.postgresql.PARAM=INFO",
+    "logging.level.com.flowpay.api=WARN"
+})
+class PromotionStressTest {
+
+    private static final int RUNS = 3;
+    private static final int CLIENTS = 48;
+    private static final int OPERATIONS_PER_CLIENT = 150;
+    private static final int CUSTOMERS = 240;
+    private static final List<String> BRANCHES = List.of("centro", "norte");
+    private static final int MAX_SLOTS = CustomerSessionService.MAX_SLOTS_PER_SERVICE;
+
+    @Autowired
+    private CustomerSessionService customerSessionService;
+
+    @Autowired
+    private CustomerSessionRepository customerSessionRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @Test
+    void promotionKeepsSlotInvariantsUnderConcurrentLoad() {
+        long baseSeed = Long.getLong("stress.seed", System.nanoTime());
+
+        for (int run = 1; run <= RUNS; run++) {
+            long seed = baseSeed + run;
+            truncate();
+
+            RunStats stats = new RunStats();
+            long start = System.nanoTime();
+            Flux.range(0, CLIENTS)
+                .flatMap(client -> client(new Random(seed * 31 + client), stats), CLIENTS)
+                .then()
+                .block(Duration.ofMinutes(5));
+            awaitQuiescence();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Invariants invariants = verifyInvariants();
+            log.warn("Rodada {} (seed {}): {} operaçoes em {} s ({} ops/s) | {} | retries={} rejeiçoes={} | transiçoes={} pico IN_PROGRESS={}",
+                run, seed, stats.total(), String.format("%.2f", seconds), String.format("%.0f", stats.total() / seconds),
+                stats.byOperation, stats.retries.sum(), stats.rejections.sum(),
+                invariants.transitions, invariants.peakInProgress);
+
+            assertThat(stats.unexpected).as("erros inesperados (seed %d)", seed).isEmpty();
+            assertThat(invariants.slotViolations).as("filas acima de %d IN_PROGRESS (seed %d)", MAX_SLOTS, seed).isEmpty();
+            assertThat(invariants.skippedHeads).as("promoçoes que pularam o primeiro da fila (seed %d)", seed).isEmpty();
+            assertThat(invariants.orphanedQueues).as("filas com PENDING e slots livres (seed %d)", seed).isEmpty();
+            assertThat(invariants.replayMismatches).as("stream de mudanças divergente do estado final (seed %d)", seed).isEmpty();
+        }
+    }
+
+    private Mono<Void> client(Random random, RunStats stats) {
+        return Flux.range(0, OPERATIONS_PER_CLIENT)
+            .concatMap(i -> Mono.delay(Duration.ofMillis(random.nextInt(4)))
+                .then(Mono.defer(() -> randomOperation(random, stats))))
+            .then();
+    }
+
+    private Mono<Void> randomOperation(Random random, RunStats stats) {
+        String email = "cliente-" + random.nextInt(CUSTOMERS) + "@stress.test";
+        int dice = random.nextInt(100);
+
+        String operation;
+        Mono<Void> work;
+        if (dice < 40) {
+            operation = "create";
+            CustomerRequest request = new CustomerRequest()
+                .setName(email)
+                .setEmail(email)
+                .setBranch(BRANCHES.get(random.nextInt(BRANCHES.size())))
+                .setServiceType(ServiceType.values()[random.nextInt(ServiceType.values().length)]);
+            work = customerSessionService.createCustomer(request).then();
+        } else if (dice < 60) {
+            operation = "finish";
+            work = customerSessionService.finishCustomerSession(email);
+        } else if (dice < 80) {
+            operation = "complete";
+            work = customerSessionRepository.findAllInProgress().collectList()
+                .flatMap(inProgress -> inProgress.isEmpty()
+                    ? Mono.empty()
+                    : customerSessionService.completeSession(inProgress.get(random.nextInt(inProgress.size())).getId()));
+        } else if (dice < 90) {
+            operation = "sse-cancel";
+            // Cliente conecta no stream da fila e desconecta: o cancelamento roda desacoplado, como em produçao
+            work = customerSessionService.streamQueueUpdates(email)
+                .take(Duration.ofMillis(random.nextInt(30)))
+                .then();
+        } else {
+            operation = "cancel";
+            work = customerSessionService.cancelPendingSession(email);
+        }
+
+        stats.byOperation.computeIfAbsent(operation, name -> new LongAdder()).increment();
+        return work
+            .retryWhen(Retry.max(3)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> stats.retries.increment()))
+            .onErrorResume(error -> {
+                if (isExpectedRejection(error)) {
+                    stats.rejections.increment();
+                } else {
+                    stats.unexpected.add(operation + ": " + error);
+                }
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Rejeiçoes de regra de negócio esperadas sob concorrência (sessao já existe, nenhuma sessao ativa,
+     * cliente criado em paralelo, conflito de versao após os retries).
+     */
+    private static boolean isExpectedRejection(Throwable error) {
+        return error instanceof IllegalArgumentException
+            || error instanceof DataIntegrityViolationException
+            || error instanceof OptimisticLockingFailureException
+            || Exceptions.isRetryExhausted(error);
+    }
+
+    /**
+     * Os cancelamentos por desconexao rodam desacoplados: espera o stream de mudanças parar de crescer.
+     */
+    private void awaitQuiescence() {
+        long last = -1;
+        for (int i = 0; i < 100; i++) {
+            long current = databaseClient.sql("SELECT COALESCE(MAX(id), 0) AS last_id FROM session_changes")
+                .map(row -> row.get("last_id", Long.class))
+                .one()
+                .block();
+            if (current == last) {
+                return;
+            }
+            last = current;
+            Mono.delay(Duration.ofMillis(250)).block();
+        }
+    }
+
+    private void truncate() {
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+    }
+
+    private Invariants verifyInvariants() {
+        Map<Long, CustomerSession> sessions = new HashMap<>();
+        customerSessionRepository.findAll().toStream().forEach(session -> sessions.put(session.getId(), session));
+
+        List<long[]> changes = databaseClient.sql("SELECT session_id, status FROM session_changes ORDER BY xid, id")
+            .map(row -> new long[] { row.get("session_id", Long.class), row.get("status", Short.class) })
+            .all()
+            .collectList()
+            .block();
+
+        Comparator<CustomerSession> queueOrder = Comparator
+            .comparing(CustomerSession::getQueueOrder)
+            .thenComparing(CustomerSession::getId);
+        Map<QueueKey, TreeSet<CustomerSession>> pending = new HashMap<>();
+        Map<QueueKey, Integer> inProgress = new HashMap<>();
+        Map<Long, CustomerSessionStatus> current = new HashMap<>();
+        Invariants invariants = new Invariants();
+
+        for (long[] change : changes) {
+            CustomerSession session = sessions.get(change[0]);
+            QueueKey queueKey = QueueKey.of(session.getBranch(), session.getServiceType());
+            CustomerSessionStatus status = CustomerSessionStatus.fromCode((int) change[1]);
+            CustomerSessionStatus previous = current.put(session.getId(), status);
+            TreeSet<CustomerSession> queue = pending.computeIfAbsent(queueKey, key -> new TreeSet<>(queueOrder));
+            invariants.transitions++;
+
+            switch (status) {
+                case PENDING -> queue.add(session);
+                case IN_PROGRESS -> {
+                    if (!queue.isEmpty() && queueOrder.compare(queue.first(), session) < 0) {
+                        invariants.skippedHeads.add("sessao " + session.getId() + " promovida antes de "
+                            + queue.first().getId() + " na fila " + queueKey);
+                    }
+                    queue.remove(session);
+                    int count = inProgress.merge(queueKey, 1, Integer::sum);
+                    invariants.peakInProgress = Math.max(invariants.peakInProgress, count);
+                    if (count > MAX_SLOTS) {
+                        invariants.slotViolations.add(queueKey + " com " + count + " IN_PROGRESS");
+                    }
+                }
+                case COMPLETED, CANCELED -> {
+                    if (previous == CustomerSessionStatus.PENDING) {
+                        queue.remove(session);
+                    } else if (previous == CustomerSessionStatus.IN_PROGRESS) {
+                        inProgress.merge(queueKey, -1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        Map<QueueKey, long[]> finalCounts = new HashMap<>();
+        for (CustomerSession session : sessions.values()) {
+            if (session.getFinishedAt() != null) {
+                continue;
+            }
+            long[] counts = finalCounts.computeIfAbsent(QueueKey.of(session.getBranch(), session.getServiceType()),
+                key -> new long[2]);
+            counts[session.getStatus() == CustomerSessionStatus.PENDING ? 0 : 1]++;
+            if (current.get(session.getId()) != session.getStatus()) {
+                invariants.replayMismatches.add("sessao " + session.getId() + ": " + session.getStatus()
+                    + " no banco, " + current.get(session.getId()) + " no stream de mudanças");
+            }
+        }
+        finalCounts.forEach((queueKey, counts) -> {
+            if (counts[0] > 0 && counts[1] < MAX_SLOTS) {
+                invariants.orphanedQueues.add(queueKey + ": " + counts[0] + " PENDING com " + counts[1] + " IN_PROGRESS");
+            }
+        });
+        return invariants;
+    }
+
+    private static final class RunStats {
+        private final Map<String, LongAdder> byOperation = new ConcurrentHashMap<>();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final List<String> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+        long total() {
+            return byOperation.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    private static final class Invariants {
+        private long transitions;
+        private int peakInProgress;
+        private final List<String> slotViolations = new ArrayList<>();
+        private final List<String> skippedHeads = new ArrayList<>();
+        private final List<String> orphanedQueues = new ArrayList<>();
+        private final List<String> replayMismatches = new ArrayList<>();
+    }
+}
@@ -0,0 +1,64 @@
+package com.flowpay.api.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Postgres embarcado compartilhado pelos testes de integraçao com o banco.
+ *
+ * É iniciado uma única vez por JVM, na primeira classe de teste que o usa, e encerrado ao final da execuçao.
+ * Cada classe de teste limpa as tabelas que usa antes de cada teste.
+ */
+public final class EmbeddedDatabase {
+
+    private static EmbeddedPostgres postgres;
+
+    private EmbeddedDatabase() {
+    }
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            EmbeddedPostgres started = postgres;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    started.close();
+                } catch (IOException ignored) {
+                    // A JVM está terminando
+                }
+            }));
+        }
+        return postgres;
+    }
+
+    /**
+     * Aponta o R2DBC e o Flyway da aplicaçao para o Postgres embarcado (usar em um @DynamicPropertySource).
+     */
+    public static void register(DynamicPropertyRegistry registry) {
+        properties().forEach((name, value) -> registry.add(name, () -> value));
+    }
+
+    /**
+     * As mesmas propriedades de {@link #register(DynamicPropertyRegistry)}, para contextos iniciados pelo teste.
+     */
+    public static Map<String, Object> properties() {
+        int port = postgres().getPort();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.r2dbc.url", "r2dbc:postgresql://localhost:" + port + "/postgres");
+        properties.put("spring.r2dbc.username", "postgres");
+        properties.put("spring.r2dbc.password", "postgres");
+        properties.put("spring.flyway.url", postgres().getJdbcUrl("postgres", "postgres"));
+        properties.put("spring.flyway.user", "postgres");
+        properties.put("spring.flyway.password", "postgres");
+        return properties;
+    }
+}
@@ -0,0 +1,182 @@
+package com.flowpay.api.sweeper;
+
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.responses.SweeperStatsResponse;
+import com.flowpay.api.services.CustomerSessionService;
+import com.flowpay.api.slots.SlotAllocator;
+import com.flowpay.api.support.EmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Varreduras do sweeper contra o Postgres embarcado, disparadas pelo teste (a varredura periódica
+ * está desligada): expiraçao das sessoes esquecidas e reparo das filas paradas com slots livres.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "flowpay.sweeper.enabled=false",
+    "flowpay.sweeper.max-pending-age=1d",
+    "flowpay.sweeper.max-in-progress-age=1d",
+    "flowpay.sweeper.repair-grace=1h",
+    "logging.level.com.flowpay.api=WARN"
+})
+class QueueSweeperTest {
+
+    private static final int MAX_SLOTS = CustomerSessionService.MAX_SLOTS_PER_SERVICE;
+    private static final Duration STALE = Duration.ofDays(3);
+    private static final Duration IDLE = Duration.ofHours(3);
+    private static final Duration FRESH = Duration.ofMinutes(1);
+
+    @Autowired
+    private QueueSweeper queueSweeper;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @MockitoSpyBean
+    private SlotAllocator slotAllocator;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+    }
+
+    @Test
+    void staleSessionsAreExpiredAsCanceled() {
+        long stalePending = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING, STALE);
+        long staleInProgress = session("centro", ServiceType.CARD_PROBLEMS, CustomerSessionStatus.IN_PROGRESS, STALE);
+        long freshInProgress = session("norte", ServiceType.OTHER, CustomerSessionStatus.IN_PROGRESS, FRESH);
+        long freshPending = session("norte", ServiceType.OTHER, CustomerSessionStatus.PENDING, FRESH);
+        SweeperStatsResponse before = queueSweeper.stats();
+
+        queueSweeper.sweep().block();
+
+        SweeperStatsResponse after = queueSweeper.stats();
+        assertThat(after.getExpiredPending() - before.getExpiredPending()).isEqualTo(1);
+        assertThat(after.getExpiredInProgress() - before.getExpiredInProgress()).isEqualTo(1);
+        // Atendimento abandonado nao é um atendimento concluído
+        for (long id : List.of(stalePending, staleInProgress)) {
+            assertThat(status(id)).isEqualTo(CustomerSessionStatus.CANCELED);
+            assertThat(finished(id)).isTrue();
+            assertThat(changes(id)).containsExactly(CustomerSessionStatus.CANCELED);
+        }
+        assertThat(status(freshInProgress)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(status(freshPending)).isEqualTo(CustomerSessionStatus.PENDING);
+        assertThat(changes(freshPending)).isEmpty();
+    }
+
+    @Test
+    void idleQueueWithFreeSlotsIsPromotedAndCountedOnce() {
+        session("centro", ServiceType.LOANS, CustomerSessionStatus.IN_PROGRESS, IDLE);
+        long first = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING, IDLE);
+        long second = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING, IDLE);
+        long third = session("centro", ServiceType.LOANS, CustomerSessionStatus.PENDING, IDLE);
+        // Fila com o primeiro dentro do repairGrace: a promoçao da criaçao ainda pode estar em andamento
+        long recent = session("norte", ServiceType.LOANS, CustomerSessionStatus.PENDING, FRESH);
+        long repairedBefore = queueSweeper.stats().getIdleQueuesRepaired();
+
+        queueSweeper.sweep().block();
+        queueSweeper.sweep().block();
+
+        assertThat(queueSweeper.stats().getIdleQueuesRepaired() - repairedBefore).isEqualTo(1);
+        assertThat(status(first)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(status(second)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(status(third)).isEqualTo(CustomerSessionStatus.PENDING);
+        assertThat(status(recent)).isEqualTo(CustomerSessionStatus.PENDING);
+    }
+
+    @Test
+    void repairThatPromotesNobodyIsNotCounted() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            session("centro", ServiceType.OTHER, CustomerSessionStatus.IN_PROGRESS, IDLE);
+        }
+        long pending = session("centro", ServiceType.OTHER, CustomerSessionStatus.PENDING, IDLE);
+        // Leitura de slots desatualizada: a fila encheu entre a contagem e o lock da promoçao
+        doReturn(Mono.just(1)).when(slotAllocator).availableSlots(QueueKey.of("centro", ServiceType.OTHER));
+        long repairedBefore = queueSweeper.stats().getIdleQueuesRepaired();
+
+        queueSweeper.sweep().block();
+
+        assertThat(queueSweeper.stats().getIdleQueuesRepaired()).isEqualTo(repairedBefore);
+        assertThat(status(pending)).isEqualTo(CustomerSessionStatus.PENDING);
+        assertThat(changes(pending)).isEmpty();
+    }
+
+    /**
+     * Grava uma sessao (e o seu cliente) direto no banco, iniciada há {@code age}, na ordem de chegada da fila.
+     */
+    private long session(String branch, ServiceType serviceType, CustomerSessionStatus status, Duration age) {
+        long order = sequence.incrementAndGet();
+        long customerId = databaseClient.sql("INSERT INTO customers (name, email) VALUES (:email, :email) RETURNING id")
+            .bind("email", "cliente-" + order + "@sweeper.test")
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+        return databaseClient.sql("""
+                INSERT INTO customer_sessions (customer_id, branch, service_type, status, queue_order, started_at)
+                VALUES (:customerId, :branch, :serviceType, :status, :queueOrder,
+                        CURRENT_TIMESTAMP - make_interval(secs => :secondsAgo))
+                RETURNING id
+                """)
+            .bind("customerId", customerId)
+            .bind("branch", branch)
+            .bind("serviceType", serviceType.getCode())
+            .bind("status", status.getCode())
+            .bind("queueOrder", order)
+            .bind("secondsAgo", (double) age.toSeconds())
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+    }
+
+    private CustomerSessionStatus status(long id) {
+        return databaseClient.sql("SELECT status FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .one()
+            .block();
+    }
+
+    private boolean finished(long id) {
+        return databaseClient.sql("SELECT finished_at IS NOT NULL AS finished FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> row.get("finished", Boolean.class))
+            .one()
+            .block();
+    }
+
+    private List<CustomerSessionStatus> changes(long sessionId) {
+        return databaseClient.sql("SELECT status FROM session_changes WHERE session_id = :sessionId ORDER BY xid, id")
+            .bind("sessionId", sessionId)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .all()
+            .collectList()
+            .block();
+    }
+}
@@ -0,0 +1,113 @@
+package com.flowpay.api.tokens;
+
+import com.flowpay.api.config.ClusterProperties;
+import com.flowpay.api.config.SessionTokenProperties;
+import com.flowpay.api.entities.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tokens de sessao: ida e volta, assinatura conferida em outro nó com o mesmo segredo,
+ * adulteraçao de qualquer byte (inclusive do tipo de serviço) e segredo obrigatório em cluster.
+ */
+class SessionTokenCodecTest {
+
+    private static final String SECRET = "segredo-dos-tokens-de-teste";
+
+    @Test
+    void roundTripsEverySessionIdAndServiceType() {
+        SessionTokenCodec codec = codec(SECRET, Map.of());
+
+        for (long sessionId : new long[] {1, 42, 1L << 40, Long.MAX_VALUE}) {
+            for (ServiceType serviceType : ServiceType.values()) {
+                String token = codec.encode(sessionId, serviceType);
+
+                assertThat(token).hasSize(34).matches("[A-Za-z0-9_-]+");
+                assertThat(codec.decode(token)).isEqualTo(new SessionToken(sessionId, serviceType));
+                assertThat(codec.encode(sessionId, serviceType)).isEqualTo(token);
+            }
+        }
+    }
+
+    @Test
+    void nodesWithTheSameSecretAcceptEachOthersTokens() {
+        String token = codec(SECRET, cluster()).encode(7, ServiceType.LOANS);
+
+        assertThat(codec(SECRET, cluster()).decode(token)).isEqualTo(new SessionToken(7, ServiceType.LOANS));
+        assertThatThrownBy(() -> codec("outro-segredo", cluster()).decode(token))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTokensWithAnyByteChanged() {
+        SessionTokenCodec codec = codec(SECRET, Map.of());
+        byte[] original = Base64.getUrlDecoder().decode(codec.encode(123, ServiceType.CARD_PROBLEMS));
+
+        for (int i = 0; i < original.length; i++) {
+            byte[] tampered = original.clone();
+            tampered[i] ^= 1;
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+
+            assertThatThrownBy(() -> codec.decode(token))
+                .as("byte %d alterado", i)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsATokenMovedToAnotherServiceType() {
+        SessionTokenCodec codec = codec(SECRET, Map.of());
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(123, ServiceType.CARD_PROBLEMS));
+
+        // Mesmo id e assinatura, com o código de LOANS no lugar de CARD_PROBLEMS
+        bytes[Long.BYTES] = (byte) ServiceType.LOANS.getCode();
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        assertThatThrownBy(() -> codec.decode(token)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        SessionTokenCodec codec = codec(SECRET, Map.of());
+        String token = codec.encode(1, ServiceType.OTHER);
+
+        for (String malformed : new String[] {null, "", token.substring(1), token + "A", "!".repeat(34)}) {
+            assertThatThrownBy(() -> codec.decode(malformed))
+                .as("token %s", malformed)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void secretIsRequiredWhenClustered() {
+        assertThatThrownBy(() -> codec(null, cluster())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec(" ", cluster())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void singleNodeWithoutSecretUsesARandomSecret() {
+        SessionTokenCodec codec = codec(null, Map.of());
+        String token = codec.encode(5, ServiceType.LOANS);
+
+        assertThat(codec.decode(token)).isEqualTo(new SessionToken(5, ServiceType.LOANS));
+        // Outra instância (ex: depois de reiniciar) nao aceita os tokens emitidos antes
+        assertThatThrownBy(() -> codec(null, Map.of()).decode(token)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SessionTokenCodec codec(String secret, Map<String, String> nodes) {
+        SessionTokenProperties properties = new SessionTokenProperties();
+        properties.setSecret(secret);
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setNodes(nodes);
+        return new SessionTokenCodec(properties, clusterProperties);
+    }
+
+    private static Map<String, String> cluster() {
+        return Map.of("api-1", "http://api-1:8080", "api-2", "http://api-2:8080");
+    }
+}
@@ -0,0 +1,102 @@
+package com.flowpay.api.tracing;
+
+import com.flowpay.api.config.TracingProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracerTest {
+
+    private final List<SpanData> exported = new ArrayList<>();
+
+    @Test
+    void childSpansInheritTheRequestTraceThroughTheReactorContext() {
+        Tracer tracer = tracer(1.0);
+        ActiveSpan request = tracer.startServerSpan("POST /api/customer", null);
+
+        Mono<Long> query = tracer.span("CustomerSessionRepository.save", SpanKind.CLIENT, Map.of(), Mono.just(1L));
+        Mono<Long> operation = tracer.span("session.create", query);
+
+        StepVerifier.create(operation.contextWrite(Context.of(SpanContext.class, request.context())))
+            .expectNext(1L)
+            .verifyComplete();
+        request.end(SignalType.ON_COMPLETE);
+
+        assertThat(exported).extracting(SpanData::name)
+            .containsExactly("CustomerSessionRepository.save", "session.create", "POST /api/customer");
+        SpanData save = exported.get(0);
+        SpanData create = exported.get(1);
+        SpanData server = exported.get(2);
+        assertThat(exported).allMatch(span -> span.traceId().equals(server.traceId()));
+        assertThat(save.parentSpanId()).isEqualTo(create.spanId());
+        assertThat(create.parentSpanId()).isEqualTo(server.spanId());
+        assertThat(server.parentSpanId()).isNull();
+    }
+
+    @Test
+    void errorsAndRowCountsAreRecorded() {
+        Tracer tracer = tracer(1.0);
+        ActiveSpan request = tracer.startServerSpan("GET /api/ops/traces", null);
+
+        Flux<Integer> rows = tracer.span("findQueueHeads", SpanKind.CLIENT, Map.of(), Flux.range(0, 3));
+        Mono<Void> failing = tracer.span("session.complete", Mono.error(new IllegalArgumentException("Sessao nao encontrada")));
+
+        StepVerifier.create(rows.contextWrite(Context.of(SpanContext.class, request.context())))
+            .expectNextCount(3)
+            .verifyComplete();
+        StepVerifier.create(failing.contextWrite(Context.of(SpanContext.class, request.context())))
+            .verifyError(IllegalArgumentException.class);
+
+        assertThat(exported.get(0).attributes()).containsEntry("rows", "3");
+        assertThat(exported.get(1).status()).isEqualTo(SpanData.ERROR);
+        assertThat(exported.get(1).attributes()).containsEntry("error.type", IllegalArgumentException.class.getName());
+    }
+
+    @Test
+    void remoteSamplingDecisionIsHonored() {
+        Tracer tracer = tracer(0.0);
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+        assertThat(tracer.startServerSpan("GET /", null)).isNull();
+        assertThat(tracer.startServerSpan("GET /", SpanContext.fromTraceparent("00-" + traceId + "-00f067aa0ba902b7-00"))).isNull();
+
+        ActiveSpan span = tracer.startServerSpan("GET /", SpanContext.fromTraceparent("00-" + traceId + "-00f067aa0ba902b7-01"));
+        assertThat(span).isNotNull();
+        assertThat(span.context().traceId()).isEqualTo(traceId);
+        assertThat(span.context().toTraceparent()).startsWith("00-" + traceId + "-").endsWith("-01");
+    }
+
+    @Test
+    void unsampledWorkIsNotTraced() {
+        Tracer tracer = tracer(1.0);
+
+        StepVerifier.create(tracer.span("session.promote", Mono.just("ok")))
+            .expectNext("ok")
+            .verifyComplete();
+
+        assertThat(exported).isEmpty();
+    }
+
+    @Test
+    void malformedTraceparentStartsANewTrace() {
+        assertThat(SpanContext.fromTraceparent(null)).isNull();
+        assertThat(SpanContext.fromTraceparent("00-" + "0".repeat(32) + "-00f067aa0ba902b7-01")).isNull();
+        assertThat(SpanContext.fromTraceparent("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")).isNull();
+        assertThat(SpanContext.fromTraceparent("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01")).isNull();
+    }
+
+    private Tracer tracer(double sampleRatio) {
+        TracingProperties properties = new TracingProperties();
+        properties.setSampleRatio(sampleRatio);
+        return new Tracer(properties, new TraceStore(properties), exported::add);
+    }
+}
@@ -0,0 +1,266 @@
+package com.flowpay.api.transitions;
+
+import com.flowpay.api.bulkhead.ServiceTypeBulkheads;
+import com.flowpay.api.cluster.QueueKey;
+import com.flowpay.api.config.WriteCoalescingProperties;
+import com.flowpay.api.entities.CustomerSession;
+import com.flowpay.api.entities.CustomerSessionStatus;
+import com.flowpay.api.entities.ServiceType;
+import com.flowpay.api.repositories.CustomerSessionRepository;
+import com.flowpay.api.responses.WriteCoalescingStatsResponse;
+import com.flowpay.api.support.EmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Group commit das finalizaçoes contra o Postgres embarcado: rodadas com a mesma sessao repetida no lote,
+ * regravaçao uma a uma quando o lote falha, gravaçao direta com a fila de espera cheia e conclusao
+ * de cada chamador só depois do commit da sua finalizaçao.
+ *
+ * Cada teste cria o seu coalescer com uma janela longa: os lotes fecham pelo tamanho, nao pelo tempo.
+ */
+@SpringBootTest(properties = {
+    "flowpay.admission.enabled=false",
+    "flowpay.journal.enabled=false",
+    "flowpay.sweeper.enabled=false",
+    "logging.level.com.flowpay.api=WARN"
+})
+class SessionTransitionCoalescerTest {
+
+    private static final QueueKey LOANS = QueueKey.of("centro", ServiceType.LOANS);
+    private static final QueueKey OTHER = QueueKey.of("centro", ServiceType.OTHER);
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final String POISON = "test_unfinishable_session";
+
+    @Autowired
+    private CustomerSessionRepository customerSessionRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ServiceTypeBulkheads bulkheads;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<SessionTransitionCoalescer> coalescers = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        databaseClient.sql("TRUNCATE session_changes, customer_sessions, customers RESTART IDENTITY CASCADE")
+            .then()
+            .block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescers.forEach(SessionTransitionCoalescer::stop);
+        databaseClient.sql("ALTER TABLE customer_sessions DROP CONSTRAINT IF EXISTS " + POISON)
+            .then()
+            .block();
+    }
+
+    @Test
+    void sameSessionTwiceInABatchIsWrittenInRoundsInArrivalOrder() {
+        SessionTransitionCoalescer coalescer = coalescer(3, 64);
+        long inProgress = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long pending = session(OTHER, CustomerSessionStatus.PENDING);
+
+        CompletableFuture<CustomerSession> completed =
+            coalescer.finish(inProgress, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED).toFuture();
+        CompletableFuture<CustomerSession> canceledLater =
+            coalescer.finish(inProgress, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.CANCELED).toFuture();
+        CompletableFuture<CustomerSession> canceled =
+            coalescer.finish(pending, OTHER, CustomerSessionStatus.PENDING, CustomerSessionStatus.CANCELED).toFuture();
+
+        assertThat(completed).succeedsWithin(TIMEOUT)
+            .extracting(CustomerSession::getStatus).isEqualTo(CustomerSessionStatus.COMPLETED);
+        // A segunda rodada já encontra a sessao finalizada pela primeira
+        assertThat(canceledLater).succeedsWithin(TIMEOUT).isNull();
+        assertThat(canceled).succeedsWithin(TIMEOUT)
+            .extracting(CustomerSession::getStatus).isEqualTo(CustomerSessionStatus.CANCELED);
+
+        assertThat(status(inProgress)).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(changes(inProgress)).containsExactly(CustomerSessionStatus.COMPLETED);
+        assertThat(status(pending)).isEqualTo(CustomerSessionStatus.CANCELED);
+        WriteCoalescingStatsResponse stats = coalescer.stats();
+        assertThat(stats.getBatches()).isEqualTo(1);
+        assertThat(stats.getTransitions()).isEqualTo(3);
+        assertThat(stats.getUnchanged()).isEqualTo(1);
+        assertThat(stats.getFailedBatches()).isZero();
+    }
+
+    @Test
+    void failedBatchIsReplayedOneTransitionAtATime() {
+        SessionTransitionCoalescer coalescer = coalescer(3, 64);
+        long first = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long poisoned = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long last = session(OTHER, CustomerSessionStatus.PENDING);
+        // Finalizar a sessao envenenada viola a constraint e desfaz o lote inteiro
+        databaseClient.sql("ALTER TABLE customer_sessions ADD CONSTRAINT " + POISON
+                + " CHECK (id <> " + poisoned + " OR finished_at IS NULL)")
+            .then()
+            .block();
+
+        CompletableFuture<CustomerSession> firstResult =
+            coalescer.finish(first, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED).toFuture();
+        CompletableFuture<CustomerSession> poisonedResult =
+            coalescer.finish(poisoned, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED).toFuture();
+        CompletableFuture<CustomerSession> lastResult =
+            coalescer.finish(last, OTHER, CustomerSessionStatus.PENDING, CustomerSessionStatus.CANCELED).toFuture();
+
+        assertThat(poisonedResult).failsWithin(TIMEOUT)
+            .withThrowableOfType(ExecutionException.class)
+            .withMessageContaining(POISON);
+        assertThat(firstResult).succeedsWithin(TIMEOUT).isNotNull();
+        assertThat(lastResult).succeedsWithin(TIMEOUT).isNotNull();
+
+        assertThat(status(first)).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(status(poisoned)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(changes(poisoned)).isEmpty();
+        assertThat(status(last)).isEqualTo(CustomerSessionStatus.CANCELED);
+        WriteCoalescingStatsResponse stats = coalescer.stats();
+        // O lote de três e a regravaçao da sessao envenenada
+        assertThat(stats.getFailedBatches()).isEqualTo(2);
+        assertThat(stats.getBatches()).isEqualTo(2);
+        assertThat(stats.getTransitions()).isEqualTo(2);
+    }
+
+    @Test
+    void transitionIsWrittenDirectlyWhenThePendingQueueIsFull() {
+        SessionTransitionCoalescer coalescer = coalescer(1, 1, false);
+        long queued = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long overflow = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long executedBefore = bulkheads.stats().get(ServiceType.LOANS).getDbExecuted();
+
+        // Sem start() ninguém consome a fila: a primeira fica aguardando lote, a segunda nao cabe
+        CompletableFuture<CustomerSession> queuedResult =
+            coalescer.finish(queued, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED).toFuture();
+        CompletableFuture<CustomerSession> overflowResult =
+            coalescer.finish(overflow, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED).toFuture();
+
+        assertThat(overflowResult).succeedsWithin(TIMEOUT).isNotNull();
+        assertThat(status(overflow)).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(queuedResult).isNotDone();
+        assertThat(status(queued)).isEqualTo(CustomerSessionStatus.IN_PROGRESS);
+        assertThat(coalescer.stats().getDirectWrites()).isEqualTo(1);
+        assertThat(coalescer.stats().getPending()).isEqualTo(1);
+        // A gravaçao direta pega uma vaga do bulkhead da fila
+        assertThat(bulkheads.stats().get(ServiceType.LOANS).getDbExecuted()).isGreaterThan(executedBefore);
+
+        coalescer.start();
+
+        assertThat(queuedResult).succeedsWithin(TIMEOUT).isNotNull();
+        assertThat(status(queued)).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(coalescer.stats().getPending()).isZero();
+        assertThat(coalescer.stats().getBatches()).isEqualTo(2);
+    }
+
+    @Test
+    void eachCallerCompletesOnlyAfterItsTransitionIsCommitted() {
+        SessionTransitionCoalescer coalescer = coalescer(2, 64);
+        long completed = session(LOANS, CustomerSessionStatus.IN_PROGRESS);
+        long canceled = session(OTHER, CustomerSessionStatus.PENDING);
+
+        // A leitura usa outra conexao do pool: só enxerga a finalizaçao depois do commit
+        CompletableFuture<CustomerSessionStatus> completedSeen = coalescer
+            .finish(completed, LOANS, CustomerSessionStatus.IN_PROGRESS, CustomerSessionStatus.COMPLETED)
+            .flatMap(session -> readStatus(session.getId()))
+            .toFuture();
+        CompletableFuture<CustomerSessionStatus> canceledSeen = coalescer
+            .finish(canceled, OTHER, CustomerSessionStatus.PENDING, CustomerSessionStatus.CANCELED)
+            .flatMap(session -> readStatus(session.getId()))
+            .toFuture();
+
+        assertThat(completedSeen).succeedsWithin(TIMEOUT).isEqualTo(CustomerSessionStatus.COMPLETED);
+        assertThat(canceledSeen).succeedsWithin(TIMEOUT).isEqualTo(CustomerSessionStatus.CANCELED);
+        assertThat(coalescer.stats().getBatches()).isEqualTo(1);
+    }
+
+    private SessionTransitionCoalescer coalescer(int maxBatchSize, int maxPending) {
+        return coalescer(maxBatchSize, maxPending, true);
+    }
+
+    private SessionTransitionCoalescer coalescer(int maxBatchSize, int maxPending, boolean start) {
+        WriteCoalescingProperties properties = new WriteCoalescingProperties();
+        properties.setWindow(Duration.ofMinutes(1));
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxPending(maxPending);
+        SessionTransitionCoalescer coalescer =
+            new SessionTransitionCoalescer(properties, customerSessionRepository, transactionalOperator, bulkheads);
+        if (start) {
+            coalescer.start();
+        }
+        coalescers.add(coalescer);
+        return coalescer;
+    }
+
+    /**
+     * Grava uma sessao (e o seu cliente) direto no banco, na ordem de chegada da fila.
+     */
+    private long session(QueueKey queueKey, CustomerSessionStatus status) {
+        long order = sequence.incrementAndGet();
+        long customerId = databaseClient.sql("INSERT INTO customers (name, email) VALUES (:email, :email) RETURNING id")
+            .bind("email", "cliente-" + order + "@coalescer.test")
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+        return databaseClient.sql("""
+                INSERT INTO customer_sessions (customer_id, branch, service_type, status, queue_order)
+                VALUES (:customerId, :branch, :serviceType, :status, :queueOrder)
+                RETURNING id
+                """)
+            .bind("customerId", customerId)
+            .bind("branch", queueKey.branch())
+            .bind("serviceType", queueKey.serviceType().getCode())
+            .bind("status", status.getCode())
+            .bind("queueOrder", order)
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+    }
+
+    private Mono<CustomerSessionStatus> readStatus(long id) {
+        return databaseClient.sql("SELECT status FROM customer_sessions WHERE id = :id")
+            .bind("id", id)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .one();
+    }
+
+    private CustomerSessionStatus status(long id) {
+        return readStatus(id).block();
+    }
+
+    private List<CustomerSessionStatus> changes(long sessionId) {
+        return databaseClient.sql("SELECT status FROM session_changes WHERE session_id = :sessionId ORDER BY xid, id")
+            .bind("sessionId", sessionId)
+            .map(row -> CustomerSessionStatus.fromCode(row.get("status", Short.class)))
+            .all()
+            .collectList()
+            .block();
+    }
+}